@@ -0,0 +1,75 @@
+package com.example.clearsolutionstesttask.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Compares two JMH JSON result files and fails when a benchmark got slower than the threshold.
+ *
+ * <p>Usage: {@code BenchmarkComparison <baseline.json> <candidate.json> <threshold percent>}.
+ */
+public final class BenchmarkComparison {
+
+  private BenchmarkComparison() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    Map<String, JsonNode> baseline = read(new File(args[0]));
+    Map<String, JsonNode> candidate = read(new File(args[1]));
+    double threshold = Double.parseDouble(args[2]);
+
+    int regressions = 0;
+    System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Candidate", "Change");
+    for (Entry<String, JsonNode> entry : candidate.entrySet()) {
+      JsonNode before = baseline.get(entry.getKey());
+      if (before == null) {
+        continue;
+      }
+      JsonNode after = entry.getValue();
+      double oldScore = before.path("primaryMetric").path("score").asDouble();
+      double newScore = after.path("primaryMetric").path("score").asDouble();
+      // Throughput is better when higher, every other mode measures time.
+      boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+      double change = (newScore - oldScore) / oldScore * 100;
+      double slowdown = higherIsBetter ? -change : change;
+      boolean regression = slowdown > threshold;
+      if (regression) {
+        regressions++;
+      }
+      System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %s%n", entry.getKey(), oldScore, newScore,
+          change, regression ? "REGRESSION" : "");
+    }
+
+    if (regressions > 0) {
+      System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Reads a JMH JSON result file.
+   *
+   * @param file The result file.
+   * @return The results keyed by benchmark name and parameters.
+   * @throws IOException if the file cannot be read.
+   */
+  private static Map<String, JsonNode> read(File file) throws IOException {
+    Map<String, JsonNode> results = new LinkedHashMap<>();
+    for (JsonNode result : new ObjectMapper().readTree(file)) {
+      StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+      Iterator<Entry<String, JsonNode>> params = result.path("params").fields();
+      while (params.hasNext()) {
+        Entry<String, JsonNode> param = params.next();
+        key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+      }
+      results.put(key.toString(), result);
+    }
+    return results;
+  }
+}
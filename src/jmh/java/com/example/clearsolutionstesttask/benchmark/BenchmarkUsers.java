@@ -0,0 +1,138 @@
+package com.example.clearsolutionstesttask.benchmark;
+
+import com.example.clearsolutionstesttask.ClearSolutionsTestTaskApplication;
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.service.UserBatchService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Test data and application bootstrap shared by the benchmarks.
+ */
+final class BenchmarkUsers {
+
+  /**
+   * First birthdate of the generated users; birthdates cycle over the following 40 years.
+   */
+  static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+  static final int BIRTH_DATE_DAYS = 40 * 365;
+
+  private static final int SEED_CHUNK = 5_000;
+
+  private BenchmarkUsers() {
+  }
+
+  /**
+   * Generates a user DTO with realistic field sizes.
+   *
+   * @param index The sequence number of the user.
+   * @return The user DTO.
+   */
+  static UserDto dto(int index) {
+    return UserDto.builder()
+        .id(index + 1)
+        .email("user" + index + "@example.com")
+        .firstName("First" + index)
+        .lastName("Last" + index)
+        .birthDate(FIRST_BIRTH_DATE.plusDays(index % BIRTH_DATE_DAYS))
+        .address(index + " Main Street, Kyiv")
+        .phoneNumber("+38050" + (1_000_000 + index))
+        .build();
+  }
+
+  /**
+   * Generates a list of user DTOs.
+   *
+   * @param size The number of users.
+   * @return The user DTOs.
+   */
+  static List<UserDto> dtos(int size) {
+    List<UserDto> dtos = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      dtos.add(dto(i));
+    }
+    return dtos;
+  }
+
+  /**
+   * Generates a list of user entities.
+   *
+   * @param size The number of users.
+   * @return The user entities.
+   */
+  static List<User> entities(int size) {
+    List<User> users = new ArrayList<>(size);
+    for (UserDto dto : dtos(size)) {
+      users.add(User.builder()
+          .id(dto.getId())
+          .email(dto.getEmail())
+          .firstName(dto.getFirstName())
+          .lastName(dto.getLastName())
+          .birthDate(dto.getBirthDate())
+          .address(dto.getAddress())
+          .phoneNumber(dto.getPhoneNumber())
+          .build());
+    }
+    return users;
+  }
+
+  /**
+   * Starts the application without the web server on a fresh embedded H2 database.
+   *
+   * @param properties Additional properties, as {@code name=value} pairs.
+   * @return The application context.
+   */
+  static ConfigurableApplicationContext start(String... properties) {
+    return start(WebApplicationType.NONE, properties);
+  }
+
+  /**
+   * Starts the application on a fresh embedded H2 database.
+   *
+   * @param type       The type of the application, {@link WebApplicationType#SERVLET} to start the
+   *                   web server.
+   * @param properties Additional properties, as {@code name=value} pairs.
+   * @return The application context.
+   */
+  static ConfigurableApplicationContext start(WebApplicationType type, String... properties) {
+    SpringApplication application = new SpringApplication(ClearSolutionsTestTaskApplication.class);
+    application.setWebApplicationType(type);
+    List<String> args = new ArrayList<>(List.of(
+        "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+        "--logging.level.root=WARN"));
+    for (String property : properties) {
+      args.add("--" + property);
+    }
+    return application.run(args.toArray(String[]::new));
+  }
+
+  /**
+   * Seeds the database of a started application.
+   *
+   * @param context The application context.
+   * @param size    The number of users.
+   */
+  static void seed(ConfigurableApplicationContext context, int size) {
+    UserBatchService batchService = context.getBean(UserBatchService.class);
+    for (int from = 0; from < size; from += SEED_CHUNK) {
+      List<UserDto> chunk = new ArrayList<>(SEED_CHUNK);
+      for (int i = from; i < Math.min(size, from + SEED_CHUNK); i++) {
+        chunk.add(UserDto.builder()
+            .email("user" + i + "@example.com")
+            .firstName("First" + i)
+            .lastName("Last" + i)
+            .birthDate(FIRST_BIRTH_DATE.plusDays(i % BIRTH_DATE_DAYS))
+            .address(i + " Main Street, Kyiv")
+            .phoneNumber("+38050" + (1_000_000 + i))
+            .build());
+      }
+      batchService.createAllValid(chunk);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.example.clearsolutionstesttask.benchmark;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost and payload size of a birthdate range response in each supported encoding. Besides the
+ * timings, every benchmark reports the payload size in bytes, raw and gzip-compressed as by the
+ * server, as the secondary metrics {@code bytes} and {@code gzipBytes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormatBenchmark {
+
+  @Param({"json", "smile", "cbor"})
+  private String format;
+
+  @Param({"100", "10000"})
+  private int size;
+
+  private ObjectMapper objectMapper;
+  private List<UserDto> users;
+  private byte[] payload;
+  private int gzipSize;
+
+  @Setup
+  public void setUp() throws IOException {
+    Jackson2ObjectMapperBuilder builder = switch (format) {
+      case "json" -> Jackson2ObjectMapperBuilder.json();
+      case "smile" -> Jackson2ObjectMapperBuilder.smile();
+      case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+      default -> throw new IllegalArgumentException("Unknown format " + format);
+    };
+    objectMapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+    users = BenchmarkUsers.dtos(size);
+    payload = objectMapper.writeValueAsBytes(users);
+    gzipSize = gzip(payload).length;
+  }
+
+  @Benchmark
+  public byte[] write(PayloadSize payloadSize) throws IOException {
+    byte[] bytes = objectMapper.writeValueAsBytes(users);
+    payloadSize.record(bytes.length, gzipSize);
+    return bytes;
+  }
+
+  @Benchmark
+  public byte[] writeGzip(PayloadSize payloadSize) throws IOException {
+    byte[] bytes = gzip(objectMapper.writeValueAsBytes(users));
+    payloadSize.record(payload.length, bytes.length);
+    return bytes;
+  }
+
+  @Benchmark
+  public UserDto[] read(PayloadSize payloadSize) throws IOException {
+    payloadSize.record(payload.length, gzipSize);
+    return objectMapper.readValue(payload, UserDto[].class);
+  }
+
+  /**
+   * Compresses a payload with the default gzip level, as Tomcat does.
+   *
+   * @param bytes The payload.
+   * @return The compressed payload.
+   * @throws IOException never, the stream is in memory.
+   */
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Payload sizes reported as secondary metrics. The counters are set, not incremented, so
+   * each iteration reports the size of a single payload.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class PayloadSize {
+
+    public long bytes;
+    public long gzipBytes;
+
+    void record(long size, long gzipSize) {
+      bytes = size;
+      gzipBytes = gzipSize;
+    }
+  }
+}
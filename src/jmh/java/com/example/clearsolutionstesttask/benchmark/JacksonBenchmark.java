@@ -0,0 +1,41 @@
+package com.example.clearsolutionstesttask.benchmark;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost of serializing a birthdate range response with Jackson, configured as by Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JacksonBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  private int size;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+  private List<UserDto> users;
+
+  @Setup
+  public void setUp() {
+    users = BenchmarkUsers.dtos(size);
+  }
+
+  @Benchmark
+  public byte[] writeList() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(users);
+  }
+}
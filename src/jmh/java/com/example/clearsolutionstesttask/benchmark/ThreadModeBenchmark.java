@@ -0,0 +1,76 @@
+package com.example.clearsolutionstesttask.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Throughput and latency percentiles of birthdate range requests over HTTP, served on platform
+ * threads or on virtual threads, with more concurrent clients than Tomcat threads and database
+ * connections: 512 clients against 200 Tomcat threads and 20 connections. Each request covers a
+ * random month, about 0.2% of the users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(512)
+public class ThreadModeBenchmark {
+
+  private static final int USERS = 50_000;
+  private static final int MONTHS = BenchmarkUsers.BIRTH_DATE_DAYS / 31;
+
+  @Param({"platform", "virtual"})
+  private String threads;
+
+  private ConfigurableApplicationContext context;
+  private HttpClient client;
+  private String baseUrl;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkUsers.start(WebApplicationType.SERVLET,
+        "server.port=0",
+        "spring.threads.virtual.enabled=" + threads.equals("virtual"));
+    BenchmarkUsers.seed(context, USERS);
+    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    baseUrl = "http://localhost:" + port + "/users/birth-date-range";
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.close();
+    context.close();
+  }
+
+  @Benchmark
+  public int findAllByBirthDateRange() throws IOException, InterruptedException {
+    LocalDate fromDate = BenchmarkUsers.FIRST_BIRTH_DATE
+        .plusMonths(ThreadLocalRandom.current().nextInt(MONTHS));
+    HttpRequest request = HttpRequest.newBuilder(URI.create(
+        baseUrl + "?fromDate=" + fromDate + "&toDate=" + fromDate.plusMonths(1))).build();
+    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException("Unexpected status " + response.statusCode());
+    }
+    return response.body().length;
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.clearsolutionstesttask.benchmark;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.mapper.UserMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of copying entities into DTOs with the MapStruct mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserMapperBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  private int size;
+
+  private final UserMapper mapper = Mappers.getMapper(UserMapper.class);
+  private List<User> users;
+
+  @Setup
+  public void setUp() {
+    users = BenchmarkUsers.entities(size);
+  }
+
+  @Benchmark
+  public List<UserDto> toDtoList() {
+    return mapper.toDto(users);
+  }
+}
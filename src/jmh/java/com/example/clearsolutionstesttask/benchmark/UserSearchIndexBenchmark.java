@@ -0,0 +1,57 @@
+package com.example.clearsolutionstesttask.benchmark;
+
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.index.UserSearchIndex;
+import com.example.clearsolutionstesttask.index.UserSearchIndex.Match;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Latency distribution of one page of prefix search in {@link UserSearchIndex} holding
+ * {@code users} users, for prefixes matching many users ({@code "first1"}) and few users
+ * ({@code "user12345"}). Sample time mode reports the p99.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserSearchIndexBenchmark {
+
+  private static final int PAGE_SIZE = 21;
+
+  @Param({"100000", "1000000"})
+  private int users;
+
+  @Param({"first1", "user12345"})
+  private String prefix;
+
+  private UserSearchIndex index;
+
+  @Setup
+  public void setUp() {
+    index = new UserSearchIndex(null);
+    for (User user : BenchmarkUsers.entities(users)) {
+      index.onUserSaved(new UserSavedEvent(user));
+    }
+  }
+
+  @Benchmark
+  public List<Match> searchFirstPage() {
+    return index.search(prefix, null, 0, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public List<Match> searchLaterPage() {
+    String afterTerm = prefix + ThreadLocalRandom.current().nextInt(10);
+    return index.search(prefix, afterTerm, 0, PAGE_SIZE);
+  }
+}
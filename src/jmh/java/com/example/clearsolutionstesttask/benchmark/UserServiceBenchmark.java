@@ -0,0 +1,55 @@
+package com.example.clearsolutionstesttask.benchmark;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.service.UserService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Cost of a birthdate range query through {@link UserService} against an embedded H2 database
+ * seeded with {@code users} users. The range covers one year, about 2.5% of the users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceBenchmark {
+
+  @Param({"10000", "100000"})
+  private int users;
+
+  @Param({"database", "index"})
+  private String mode;
+
+  private final LocalDate fromDate = BenchmarkUsers.FIRST_BIRTH_DATE.plusYears(20);
+  private final LocalDate toDate = fromDate.plusYears(1);
+  private ConfigurableApplicationContext context;
+  private UserService userService;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkUsers.start("user.range-query.mode=" + mode);
+    BenchmarkUsers.seed(context, users);
+    userService = context.getBean(UserService.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<UserDto> findAllByBirthDateRange() {
+    return userService.findAllByBirthDateRange(fromDate, toDate);
+  }
+}
@@ -0,0 +1,72 @@
+package com.example.clearsolutionstesttask.benchmark;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.util.validation.BirthDateValidator;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorFactory;
+import jakarta.validation.Configuration;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the birthdate rule alone and of the full Bean Validation of a user DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+
+  private static final int MIN_AGE = 18;
+
+  private final BirthDateValidator birthDateValidator = new BirthDateValidator();
+  private final LocalDate birthDate = LocalDate.of(1990, 1, 1);
+  private final UserDto userDto = BenchmarkUsers.dto(42);
+  private Validator validator;
+
+  @Setup
+  public void setUp() {
+    birthDateValidator.age = MIN_AGE;
+    Configuration<?> configuration = Validation.byDefaultProvider().configure();
+    ConstraintValidatorFactory defaults = configuration.getDefaultConstraintValidatorFactory();
+    validator = configuration
+        .constraintValidatorFactory(new ConstraintValidatorFactory() {
+          @Override
+          public <T extends ConstraintValidator<?, ?>> T getInstance(Class<T> key) {
+            T instance = defaults.getInstance(key);
+            if (instance instanceof BirthDateValidator validator) {
+              validator.age = MIN_AGE;
+            }
+            return instance;
+          }
+
+          @Override
+          public void releaseInstance(ConstraintValidator<?, ?> instance) {
+            defaults.releaseInstance(instance);
+          }
+        })
+        .buildValidatorFactory()
+        .getValidator();
+  }
+
+  @Benchmark
+  public boolean birthDateValidator() {
+    // A valid birthdate never touches the context.
+    return birthDateValidator.isValid(birthDate, null);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<UserDto>> beanValidation() {
+    return validator.validate(userDto);
+  }
+}
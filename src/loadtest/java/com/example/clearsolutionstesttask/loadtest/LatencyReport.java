@@ -0,0 +1,203 @@
+package com.example.clearsolutionstesttask.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latencies of the load test, per operation. Response times run from the intended start of a
+ * request, as set by the arrival rate, so that requests delayed by slow ones are charged for the
+ * wait; service times run from the moment the request was actually sent. Latencies are recorded
+ * in microseconds and reported in milliseconds.
+ */
+final class LatencyReport {
+
+  private static final int SIGNIFICANT_DIGITS = 3;
+  private static final double MICROS_PER_MILLI = 1_000.0;
+
+  private final Map<Operation, Recorder> responseRecorders = new EnumMap<>(Operation.class);
+  private final Map<Operation, Recorder> serviceRecorders = new EnumMap<>(Operation.class);
+  private final Map<Operation, LongAdder> errorCounters = new EnumMap<>(Operation.class);
+  private final Map<Operation, Histogram> responseTimes = new EnumMap<>(Operation.class);
+  private final Map<Operation, Histogram> serviceTimes = new EnumMap<>(Operation.class);
+  private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+  private final List<String> intervals = new ArrayList<>();
+  private long startNanos;
+  private long lastSampleNanos;
+
+  /**
+   * Creates an empty report.
+   */
+  LatencyReport() {
+    for (Operation operation : Operation.values()) {
+      responseRecorders.put(operation, new Recorder(SIGNIFICANT_DIGITS));
+      serviceRecorders.put(operation, new Recorder(SIGNIFICANT_DIGITS));
+      errorCounters.put(operation, new LongAdder());
+    }
+    reset();
+  }
+
+  /**
+   * Records a completed request. Requests that failed or got another status than 2xx or 304
+   * count as errors.
+   *
+   * @param operation     The operation of the request.
+   * @param responseNanos The time from the intended start to the response, in nanoseconds.
+   * @param serviceNanos  The time from sending the request to the response, in nanoseconds.
+   * @param status        The HTTP status, 0 if no response was received.
+   */
+  void record(Operation operation, long responseNanos, long serviceNanos, int status) {
+    responseRecorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(responseNanos));
+    serviceRecorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+    if ((status < 200 || status >= 300) && status != 304) {
+      errorCounters.get(operation).increment();
+    }
+  }
+
+  /**
+   * Discards everything recorded so far, e.g. at the end of the warmup.
+   */
+  synchronized void reset() {
+    for (Operation operation : Operation.values()) {
+      responseRecorders.get(operation).reset();
+      serviceRecorders.get(operation).reset();
+      errorCounters.get(operation).reset();
+      responseTimes.put(operation, new Histogram(SIGNIFICANT_DIGITS));
+      serviceTimes.put(operation, new Histogram(SIGNIFICANT_DIGITS));
+      errors.put(operation, 0L);
+    }
+    intervals.clear();
+    startNanos = System.nanoTime();
+    lastSampleNanos = startNanos;
+  }
+
+  /**
+   * Closes the current interval: adds its latencies to the totals and keeps its throughput and
+   * percentiles for the throughput curves.
+   */
+  synchronized void sample() {
+    long now = System.nanoTime();
+    double seconds = (now - lastSampleNanos) / 1e9;
+    double elapsed = (now - startNanos) / 1e9;
+    lastSampleNanos = now;
+    for (Operation operation : Operation.values()) {
+      Histogram interval = responseRecorders.get(operation).getIntervalHistogram();
+      responseTimes.get(operation).add(interval);
+      serviceTimes.get(operation).add(serviceRecorders.get(operation).getIntervalHistogram());
+      long intervalErrors = errorCounters.get(operation).sumThenReset();
+      errors.merge(operation, intervalErrors, Long::sum);
+      intervals.add(String.format(Locale.ROOT, "%.3f,%s,%d,%d,%.1f,%.3f,%.3f,%.3f", elapsed,
+          operation.label(), interval.getTotalCount(), intervalErrors,
+          interval.getTotalCount() / seconds, millis(interval.getValueAtPercentile(50)),
+          millis(interval.getValueAtPercentile(99)), millis(interval.getMaxValue())));
+    }
+  }
+
+  /**
+   * Writes the reports into a directory: {@code summary.csv} with the totals per operation,
+   * {@code throughput.csv} with throughput and percentiles per interval, and one
+   * {@code <operation>.hgrm} percentile distribution of the response times per operation.
+   * The summary is printed as well.
+   *
+   * @param directory The report directory, created if missing.
+   * @param out       The stream the summary is printed to.
+   * @throws IOException if a report cannot be written.
+   */
+  synchronized void write(Path directory, PrintStream out) throws IOException {
+    Files.createDirectories(directory);
+    double seconds = (lastSampleNanos - startNanos) / 1e9;
+    Histogram allResponseTimes = new Histogram(SIGNIFICANT_DIGITS);
+    Histogram allServiceTimes = new Histogram(SIGNIFICANT_DIGITS);
+    long allErrors = 0;
+
+    List<String> summary = new ArrayList<>();
+    summary.add("operation,endpoint,requests,errors,throughput_per_s,p50_ms,p90_ms,p99_ms,"
+        + "p99_9_ms,max_ms,service_p50_ms,service_p99_ms");
+    out.printf("%-12s %9s %7s %9s %9s %9s %9s %9s %9s %12s%n", "Operation", "Requests", "Errors",
+        "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "service p99");
+    for (Operation operation : Operation.values()) {
+      Histogram responses = responseTimes.get(operation);
+      if (responses.getTotalCount() == 0) {
+        continue;
+      }
+      allResponseTimes.add(responses);
+      allServiceTimes.add(serviceTimes.get(operation));
+      allErrors += errors.get(operation);
+      summary.add(summaryLine(operation.label(), operation.getEndpoint(), responses,
+          serviceTimes.get(operation), errors.get(operation), seconds, out));
+      try (PrintStream hgrm = new PrintStream(
+          Files.newOutputStream(directory.resolve(operation.label() + ".hgrm")))) {
+        responses.outputPercentileDistribution(hgrm, MICROS_PER_MILLI);
+      }
+    }
+    summary.add(summaryLine("all", "", allResponseTimes, allServiceTimes, allErrors, seconds,
+        out));
+    Files.write(directory.resolve("summary.csv"), summary);
+
+    try (PrintWriter throughput = new PrintWriter(
+        Files.newBufferedWriter(directory.resolve("throughput.csv")))) {
+      throughput.println("elapsed_s,operation,requests,errors,throughput_per_s,p50_ms,p99_ms,"
+          + "max_ms");
+      intervals.forEach(throughput::println);
+    }
+  }
+
+  /**
+   * Formats the totals of an operation as CSV line, printing them as well.
+   *
+   * @param label         The name of the operation.
+   * @param endpoint      The endpoint of the operation.
+   * @param responseTimes The response times.
+   * @param serviceTimes  The service times.
+   * @param errors        The number of errors.
+   * @param seconds       The measured time, in seconds.
+   * @param out           The stream the totals are printed to.
+   * @return The CSV line.
+   */
+  private static String summaryLine(String label, String endpoint, Histogram responseTimes,
+      Histogram serviceTimes, long errors, double seconds, PrintStream out) {
+    long requests = responseTimes.getTotalCount();
+    out.printf(Locale.ROOT, "%-12s %9d %7d %9.1f %9.3f %9.3f %9.3f %9.3f %9.3f %12.3f%n", label,
+        requests, errors, requests / seconds, percentile(responseTimes, 50),
+        percentile(responseTimes, 90), percentile(responseTimes, 99),
+        percentile(responseTimes, 99.9), millis(responseTimes.getMaxValue()),
+        percentile(serviceTimes, 99));
+    return String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+        label, endpoint, requests, errors, requests / seconds, percentile(responseTimes, 50),
+        percentile(responseTimes, 90), percentile(responseTimes, 99),
+        percentile(responseTimes, 99.9), millis(responseTimes.getMaxValue()),
+        percentile(serviceTimes, 50), percentile(serviceTimes, 99));
+  }
+
+  /**
+   * Returns a percentile of a histogram in milliseconds.
+   *
+   * @param histogram  The histogram, in microseconds.
+   * @param percentile The percentile.
+   * @return The value at the percentile, in milliseconds.
+   */
+  private static double percentile(Histogram histogram, double percentile) {
+    return millis(histogram.getValueAtPercentile(percentile));
+  }
+
+  /**
+   * Converts microseconds to milliseconds.
+   *
+   * @param micros The value in microseconds.
+   * @return The value in milliseconds.
+   */
+  private static double millis(long micros) {
+    return micros / MICROS_PER_MILLI;
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.clearsolutionstesttask.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open model load generator: requests start at a fixed arrival rate, whether or not earlier ones
+ * have completed, each on its own virtual thread. A slow server therefore faces a growing number
+ * of requests in flight instead of a slower client, and as latencies are measured from the
+ * intended start of each request, a generator falling behind its schedule does not hide the
+ * delay either.
+ */
+final class LoadGenerator {
+
+  private final HttpClient client;
+  private final UserWorkload workload;
+  private final Operation.Mix mix;
+  private final LatencyReport report;
+
+  /**
+   * Creates a load generator.
+   *
+   * @param client   The HTTP client sending the requests.
+   * @param workload The workload building the requests.
+   * @param mix      The mix of operations.
+   * @param report   The report recording the latencies.
+   */
+  LoadGenerator(HttpClient client, UserWorkload workload, Operation.Mix mix,
+      LatencyReport report) {
+    this.client = client;
+    this.workload = workload;
+    this.mix = mix;
+    this.report = report;
+  }
+
+  /**
+   * Starts requests at the given rate for the given time, then waits for the requests in flight.
+   *
+   * @param rate     The number of requests started per second.
+   * @param duration The time requests are started for.
+   */
+  void run(double rate, Duration duration) {
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (long request = 0; ; request++) {
+        long intendedStart = start + (long) (request * 1e9 / rate);
+        if (intendedStart - end >= 0) {
+          break;
+        }
+        long delay = intendedStart - System.nanoTime();
+        if (delay > 0) {
+          LockSupport.parkNanos(delay);
+        }
+        Operation operation = mix.next();
+        executor.execute(() -> send(operation, intendedStart));
+      }
+    }
+  }
+
+  /**
+   * Sends a request and records its latencies.
+   *
+   * @param operation     The operation of the request.
+   * @param intendedStart The time the request was scheduled for, by {@link System#nanoTime()}.
+   */
+  private void send(Operation operation, long intendedStart) {
+    HttpRequest request = workload.request(operation);
+    long sent = System.nanoTime();
+    int status = 0;
+    try {
+      HttpResponse<byte[]> response =
+          client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      status = response.statusCode();
+      workload.completed(operation, response);
+    } catch (IOException ex) {
+      // Counted as error, with the time it took to fail.
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    long completed = System.nanoTime();
+    report.record(operation, completed - intendedStart, completed - sent, status);
+  }
+}
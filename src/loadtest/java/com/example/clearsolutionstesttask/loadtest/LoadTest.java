@@ -0,0 +1,116 @@
+package com.example.clearsolutionstesttask.loadtest;
+
+import com.example.clearsolutionstesttask.ClearSolutionsTestTaskApplication;
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import com.example.clearsolutionstesttask.service.UserBatchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load test of the user controller: starts the application on a fresh embedded H2 database,
+ * seeds it, then drives a mix of creates, updates, deletes and birthdate range queries at a fixed
+ * arrival rate, first for the warmup, whose latencies are discarded, then for the measurement.
+ *
+ * <p>Usage: {@code LoadTest [name=value]... [--property=value]...} with the settings
+ * {@code rate} (requests per second), {@code duration}, {@code warmup}, {@code users} (seeded
+ * users), {@code mix} (weights per operation) and {@code report} (report directory); arguments
+ * starting with {@code --} are passed to the application.
+ */
+public final class LoadTest {
+
+  private static final int SEED_CHUNK = 5_000;
+  private static final Map<String, String> DEFAULTS = Map.of(
+      "rate", "200",
+      "duration", "60s",
+      "warmup", "10s",
+      "users", "10000",
+      "mix", "create=10,update=20,delete=5,range-query=65",
+      "report", "target/loadtest");
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    Map<String, String> settings = new LinkedHashMap<>(DEFAULTS);
+    List<String> applicationArgs = new ArrayList<>(List.of(
+        "--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+        "--logging.level.root=WARN"));
+    for (String arg : args) {
+      if (arg.startsWith("--")) {
+        applicationArgs.add(arg);
+      } else if (!arg.isBlank()) {
+        String[] pair = arg.split("=", 2);
+        if (!DEFAULTS.containsKey(pair[0]) || pair.length < 2) {
+          throw new IllegalArgumentException("Unknown setting " + arg);
+        }
+        settings.put(pair[0], pair[1]);
+      }
+    }
+    double rate = Double.parseDouble(settings.get("rate"));
+    Duration duration = DurationStyle.detectAndParse(settings.get("duration"));
+    Duration warmup = DurationStyle.detectAndParse(settings.get("warmup"));
+    int users = Integer.parseInt(settings.get("users"));
+    Operation.Mix mix = new Operation.Mix(settings.get("mix"));
+    System.out.printf("Load test %s%n", settings);
+
+    try (ConfigurableApplicationContext context = SpringApplication.run(
+        ClearSolutionsTestTaskApplication.class, applicationArgs.toArray(String[]::new));
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor()) {
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      UserWorkload workload = new UserWorkload("http://localhost:" + port + "/users",
+          context.getBean(ObjectMapper.class), seed(context, users), users);
+      LatencyReport report = new LatencyReport();
+      LoadGenerator generator = new LoadGenerator(client, workload, mix, report);
+
+      generator.run(rate, warmup);
+      report.reset();
+      sampler.scheduleAtFixedRate(report::sample, 1, 1, TimeUnit.SECONDS);
+      generator.run(rate, duration);
+      sampler.shutdown();
+      report.sample();
+
+      Path directory = Path.of(settings.get("report"));
+      report.write(directory, System.out);
+      System.out.printf("Reports written to %s%n", directory.toAbsolutePath());
+    }
+  }
+
+  /**
+   * Seeds the database of the started application.
+   *
+   * @param context The application context.
+   * @param size    The number of users.
+   * @return The IDs of the users.
+   */
+  private static List<Long> seed(ConfigurableApplicationContext context, int size) {
+    UserBatchService batchService = context.getBean(UserBatchService.class);
+    for (int from = 0; from < size; from += SEED_CHUNK) {
+      List<UserDto> chunk = new ArrayList<>(SEED_CHUNK);
+      for (int i = from; i < Math.min(size, from + SEED_CHUNK); i++) {
+        chunk.add(UserWorkload.dto(i));
+      }
+      batchService.createAllValid(chunk);
+    }
+    List<Long> ids = new ArrayList<>(size);
+    context.getBean(UserStreamRepository.class).forEachBirthDate((birthDate, id) -> ids.add(id));
+    return ids;
+  }
+}
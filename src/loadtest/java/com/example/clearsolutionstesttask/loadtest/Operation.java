@@ -0,0 +1,108 @@
+package com.example.clearsolutionstesttask.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Operation of the load test workload, each on one endpoint of the user controller.
+ */
+enum Operation {
+
+  CREATE("POST /users"),
+  UPDATE("PUT /users/{id}"),
+  DELETE("DELETE /users/{id}"),
+  RANGE_QUERY("GET /users/birth-date-range");
+
+  private final String endpoint;
+
+  Operation(String endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  /**
+   * Returns the endpoint of the operation.
+   *
+   * @return The HTTP method and path.
+   */
+  String getEndpoint() {
+    return endpoint;
+  }
+
+  /**
+   * Returns the name of the operation in reports and in the workload mix.
+   *
+   * @return The name, e.g. {@code range-query}.
+   */
+  String label() {
+    return name().toLowerCase(Locale.ROOT).replace('_', '-');
+  }
+
+  /**
+   * Weighted choice of the operations, parsed from a mix such as
+   * {@code create=10,update=20,delete=5,range-query=65}.
+   */
+  static final class Mix {
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    /**
+     * Parses a workload mix. Operations left out of the mix are never chosen.
+     *
+     * @param mix The weights of the operations, as comma separated {@code operation=weight}
+     *            pairs.
+     * @throws IllegalArgumentException if an operation is unknown or no weight is positive.
+     */
+    Mix(String mix) {
+      Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+      for (String entry : mix.split(",")) {
+        String[] pair = entry.trim().split("=");
+        weights.put(parse(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+      }
+      weights.values().removeIf(weight -> weight <= 0);
+      if (weights.isEmpty()) {
+        throw new IllegalArgumentException("The workload mix has no positive weight: " + mix);
+      }
+      operations = weights.keySet().toArray(Operation[]::new);
+      cumulativeWeights = new int[operations.length];
+      int total = 0;
+      for (int i = 0; i < operations.length; i++) {
+        total += weights.get(operations[i]);
+        cumulativeWeights[i] = total;
+      }
+    }
+
+    /**
+     * Chooses the next operation at random, in proportion to the weights.
+     *
+     * @return The operation.
+     */
+    Operation next() {
+      int value = ThreadLocalRandom.current()
+          .nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+      int i = 0;
+      while (value >= cumulativeWeights[i]) {
+        i++;
+      }
+      return operations[i];
+    }
+
+    /**
+     * Finds an operation by its label.
+     *
+     * @param label The label of the operation.
+     * @return The operation.
+     * @throws IllegalArgumentException if no operation has this label.
+     */
+    private static Operation parse(String label) {
+      for (Operation operation : values()) {
+        if (operation.label().equals(label)) {
+          return operation;
+        }
+      }
+      throw new IllegalArgumentException("Unknown operation in the workload mix: " + label);
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package com.example.clearsolutionstesttask.loadtest;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Requests of the load test workload. Updates and deletes target users known to exist: the IDs of
+ * the seeded and created users are kept in a fixed number of slots, a delete empties the slot of
+ * its user and a create fills an empty slot, or replaces a random one when none is found nearby.
+ */
+final class UserWorkload {
+
+  /**
+   * First birthdate of the generated users; birthdates cycle over the following 40 years.
+   */
+  static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+  static final int BIRTH_DATE_DAYS = 40 * 365;
+
+  private static final int MONTHS = BIRTH_DATE_DAYS / 31;
+  private static final int PROBES = 16;
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private final String baseUrl;
+  private final ObjectMapper objectMapper;
+  private final AtomicLongArray slots;
+  private final AtomicLong nextUser;
+
+  /**
+   * Creates the workload.
+   *
+   * @param baseUrl      The URL of the user controller.
+   * @param objectMapper The object mapper writing and reading the request and response bodies.
+   * @param ids          The IDs of the seeded users.
+   * @param slots        The number of user IDs kept, at least the number of seeded users.
+   */
+  UserWorkload(String baseUrl, ObjectMapper objectMapper, List<Long> ids, int slots) {
+    this.baseUrl = baseUrl;
+    this.objectMapper = objectMapper;
+    this.slots = new AtomicLongArray(Math.max(slots, ids.size()));
+    for (int i = 0; i < ids.size(); i++) {
+      this.slots.set(i, ids.get(i));
+    }
+    this.nextUser = new AtomicLong(ids.size());
+  }
+
+  /**
+   * Generates a user DTO with realistic field sizes.
+   *
+   * @param index The sequence number of the user.
+   * @return The user DTO.
+   */
+  static UserDto dto(long index) {
+    return UserDto.builder()
+        .email("user" + index + "@example.com")
+        .firstName("First" + index)
+        .lastName("Last" + index)
+        .birthDate(FIRST_BIRTH_DATE.plusDays(index % BIRTH_DATE_DAYS))
+        .address(index + " Main Street, Kyiv")
+        .phoneNumber("+38050" + (1_000_000 + index))
+        .build();
+  }
+
+  /**
+   * Builds the next request of an operation.
+   *
+   * @param operation The operation.
+   * @return The request.
+   */
+  HttpRequest request(Operation operation) {
+    return switch (operation) {
+      case CREATE -> json(URI.create(baseUrl))
+          .POST(BodyPublishers.ofByteArray(write(dto(nextUser.getAndIncrement()))))
+          .build();
+      case UPDATE -> {
+        long id = takeId(false);
+        yield json(URI.create(baseUrl + "/" + id))
+            .PUT(BodyPublishers.ofByteArray(write(dto(nextUser.getAndIncrement()))))
+            .build();
+      }
+      case DELETE -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + takeId(true)))
+          .timeout(TIMEOUT)
+          .DELETE()
+          .build();
+      case RANGE_QUERY -> {
+        LocalDate fromDate = FIRST_BIRTH_DATE
+            .plusMonths(ThreadLocalRandom.current().nextInt(MONTHS));
+        yield HttpRequest.newBuilder(URI.create(baseUrl + "/birth-date-range?fromDate="
+                + fromDate + "&toDate=" + fromDate.plusMonths(1)))
+            .timeout(TIMEOUT)
+            .build();
+      }
+    };
+  }
+
+  /**
+   * Keeps the ID of a user created by a successful create request.
+   *
+   * @param operation The operation of the request.
+   * @param response  The response.
+   */
+  void completed(Operation operation, HttpResponse<byte[]> response) {
+    if (operation != Operation.CREATE || response.statusCode() != 200) {
+      return;
+    }
+    long id;
+    try {
+      id = objectMapper.readValue(response.body(), UserDto.class).getId();
+    } catch (IOException ex) {
+      return;
+    }
+    int start = ThreadLocalRandom.current().nextInt(slots.length());
+    for (int probe = 0; probe < PROBES; probe++) {
+      if (slots.compareAndSet((start + probe) % slots.length(), 0, id)) {
+        return;
+      }
+    }
+    slots.set(start, id);
+  }
+
+  /**
+   * Picks the ID of a random existing user, looking at the following slots when a slot is
+   * empty.
+   *
+   * @param remove Whether to empty the slot of the user.
+   * @return The ID, 0 if no user was found.
+   */
+  private long takeId(boolean remove) {
+    int start = ThreadLocalRandom.current().nextInt(slots.length());
+    for (int probe = 0; probe < PROBES; probe++) {
+      int slot = (start + probe) % slots.length();
+      long id = remove ? slots.getAndSet(slot, 0) : slots.get(slot);
+      if (id != 0) {
+        return id;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Starts a request with a JSON body.
+   *
+   * @param uri The URI of the request.
+   * @return The request builder.
+   */
+  private static HttpRequest.Builder json(URI uri) {
+    return HttpRequest.newBuilder(uri)
+        .timeout(TIMEOUT)
+        .header("Content-Type", "application/json");
+  }
+
+  /**
+   * Serializes a user DTO.
+   *
+   * @param user The user DTO.
+   * @return The JSON body.
+   */
+  private byte[] write(UserDto user) {
+    try {
+      return objectMapper.writeValueAsBytes(user);
+    } catch (JsonProcessingException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.example.clearsolutionstesttask.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit adapting to latency by additive increase, multiplicative decrease (AIMD).
+ * While requests complete within the latency target and use at least half of the limit, the
+ * limit grows by one per limit's worth of completed requests, about once per round trip. A request
+ * slower than the target cuts the limit by the backoff ratio, at most once per target latency so
+ * that the slow requests of one round trip count once. All state is kept in atomics, updated by
+ * compare-and-set without locks.
+ */
+public class AdaptiveLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long latencyTargetNanos;
+  private final AtomicInteger limit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger successes = new AtomicInteger();
+  private final AtomicLong lastDecreaseNanos;
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Creates a limiter.
+   *
+   * @param initialLimit       The limit to start with.
+   * @param minLimit           The lowest limit.
+   * @param maxLimit           The highest limit.
+   * @param backoffRatio       The factor the limit is multiplied with on a slow request.
+   * @param latencyTargetNanos The latency above which a request counts as slow, in nanoseconds.
+   */
+  public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+      long latencyTargetNanos) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.latencyTargetNanos = latencyTargetNanos;
+    this.limit = new AtomicInteger(Math.min(maxLimit, Math.max(minLimit, initialLimit)));
+    this.lastDecreaseNanos = new AtomicLong(System.nanoTime() - latencyTargetNanos);
+  }
+
+  /**
+   * Admits a request if fewer requests than the limit are in flight.
+   *
+   * @return {@code true} if the request is admitted and must be released when completed.
+   */
+  public boolean tryAcquire() {
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= limit.get()) {
+        rejected.increment();
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /**
+   * Releases an admitted request and adapts the limit to its latency.
+   *
+   * @param latencyNanos The latency of the request, in nanoseconds.
+   */
+  public void release(long latencyNanos) {
+    int inFlightBefore = inFlight.getAndDecrement();
+    if (latencyNanos > latencyTargetNanos) {
+      decrease();
+    } else if (inFlightBefore * 2 >= limit.get()) {
+      increase();
+    }
+  }
+
+  /**
+   * Returns the current limit.
+   *
+   * @return The number of requests admitted at a time.
+   */
+  public int getLimit() {
+    return limit.get();
+  }
+
+  /**
+   * Returns the number of admitted requests not yet released.
+   *
+   * @return The number of requests in flight.
+   */
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * Returns the number of requests rejected for exceeding the limit.
+   *
+   * @return The number of rejected requests.
+   */
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  /**
+   * Adds one to the limit once per limit's worth of fast requests.
+   */
+  private void increase() {
+    int current = limit.get();
+    if (successes.incrementAndGet() < current) {
+      return;
+    }
+    successes.set(0);
+    limit.compareAndSet(current, Math.min(maxLimit, current + 1));
+  }
+
+  /**
+   * Multiplies the limit by the backoff ratio, unless it was cut within the last target latency.
+   */
+  private void decrease() {
+    long now = System.nanoTime();
+    long last = lastDecreaseNanos.get();
+    if (now - last < latencyTargetNanos || !lastDecreaseNanos.compareAndSet(last, now)) {
+      return;
+    }
+    successes.set(0);
+    limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+  }
+}
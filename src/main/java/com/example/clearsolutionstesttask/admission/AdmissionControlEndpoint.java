@@ -0,0 +1,30 @@
+package com.example.clearsolutionstesttask.admission;
+
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exposing the state of the admission control at {@code /actuator/admission}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "user.admission.enabled", havingValue = "true")
+@Endpoint(id = "admission")
+public class AdmissionControlEndpoint {
+
+  private final AdmissionControlFilter admissionControlFilter;
+
+  /**
+   * Returns the limit, requests in flight and rejections of every endpoint.
+   *
+   * @return The state by endpoint.
+   */
+  @ReadOperation
+  public Map<String, Map<String, Object>> stats() {
+    return admissionControlFilter.stats();
+  }
+}
@@ -0,0 +1,156 @@
+package com.example.clearsolutionstesttask.admission;
+
+import com.example.clearsolutionstesttask.admission.UserEndpoint.Cost;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Admission control in front of the user controller. Every {@link UserEndpoint} has an
+ * {@link AdaptiveLimiter}; a request over the limit of its endpoint gets 503 with
+ * {@code Retry-After} at once instead of waiting for a thread or a connection. Heavy requests are
+ * also shed while any cheap endpoint uses more than the shed threshold of its limit, so that cheap
+ * reads and writes keep their capacity under load. The limits, requests in flight and rejections
+ * are published as {@code user.admission.*} meters and at {@code /actuator/admission}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "user.admission.enabled", havingValue = "true")
+public class AdmissionControlFilter extends OncePerRequestFilter implements MeterBinder {
+
+  private final Map<UserEndpoint, AdaptiveLimiter> limiters = new EnumMap<>(UserEndpoint.class);
+  private final Map<UserEndpoint, LongAdder> shed = new EnumMap<>(UserEndpoint.class);
+  private final double shedThreshold;
+  private final String retryAfter;
+
+  public AdmissionControlFilter(
+      @Value("${user.admission.initial-limit}") int initialLimit,
+      @Value("${user.admission.min-limit}") int minLimit,
+      @Value("${user.admission.max-limit}") int maxLimit,
+      @Value("${user.admission.backoff-ratio}") double backoffRatio,
+      @Value("${user.admission.cheap-latency-target}") Duration cheapLatencyTarget,
+      @Value("${user.admission.heavy-latency-target}") Duration heavyLatencyTarget,
+      @Value("${user.admission.shed-threshold}") double shedThreshold,
+      @Value("${user.admission.retry-after}") Duration retryAfter) {
+    for (UserEndpoint endpoint : UserEndpoint.values()) {
+      Duration latencyTarget =
+          endpoint.getCost() == Cost.CHEAP ? cheapLatencyTarget : heavyLatencyTarget;
+      limiters.put(endpoint, new AdaptiveLimiter(initialLimit, minLimit, maxLimit, backoffRatio,
+          latencyTarget.toNanos()));
+      shed.put(endpoint, new LongAdder());
+    }
+    this.shedThreshold = shedThreshold;
+    this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    UserEndpoint endpoint = UserEndpoint.of(request.getMethod(),
+        request.getRequestURI().substring(request.getContextPath().length()));
+    if (endpoint == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    AdaptiveLimiter limiter = limiters.get(endpoint);
+    if (endpoint.getCost() == Cost.HEAVY && cheapEndpointsBusy()) {
+      shed.get(endpoint).increment();
+      reject(response);
+      return;
+    }
+    if (!limiter.tryAcquire()) {
+      reject(response);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      limiter.release(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    limiters.forEach((endpoint, limiter) -> {
+      String tag = endpoint.name().toLowerCase();
+      Gauge.builder("user.admission.limit", limiter, AdaptiveLimiter::getLimit)
+          .tag("endpoint", tag)
+          .register(registry);
+      Gauge.builder("user.admission.in.flight", limiter, AdaptiveLimiter::getInFlight)
+          .tag("endpoint", tag)
+          .register(registry);
+      FunctionCounter.builder("user.admission.rejected", limiter, AdaptiveLimiter::getRejected)
+          .tags("endpoint", tag, "reason", "limit")
+          .register(registry);
+      FunctionCounter.builder("user.admission.rejected", shed.get(endpoint), LongAdder::sum)
+          .tags("endpoint", tag, "reason", "shed")
+          .register(registry);
+    });
+  }
+
+  /**
+   * Returns the current state of every endpoint.
+   *
+   * @return The limit, requests in flight and rejections by endpoint.
+   */
+  public Map<String, Map<String, Object>> stats() {
+    Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+    limiters.forEach((endpoint, limiter) -> {
+      Map<String, Object> endpointStats = new LinkedHashMap<>();
+      endpointStats.put("cost", endpoint.getCost());
+      endpointStats.put("limit", limiter.getLimit());
+      endpointStats.put("inFlight", limiter.getInFlight());
+      endpointStats.put("rejected", limiter.getRejected());
+      endpointStats.put("shed", shed.get(endpoint).sum());
+      stats.put(endpoint.name(), endpointStats);
+    });
+    return stats;
+  }
+
+  /**
+   * Checks whether a cheap endpoint uses more than the shed threshold of its limit.
+   *
+   * @return {@code true} if heavy requests are to be shed.
+   */
+  private boolean cheapEndpointsBusy() {
+    for (Map.Entry<UserEndpoint, AdaptiveLimiter> entry : limiters.entrySet()) {
+      AdaptiveLimiter limiter = entry.getValue();
+      if (entry.getKey().getCost() == Cost.CHEAP
+          && limiter.getInFlight() > limiter.getLimit() * shedThreshold) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Rejects a request with 503 and the time after which to retry.
+   *
+   * @param response The response.
+   */
+  private void reject(HttpServletResponse response) {
+    response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+  }
+}
@@ -0,0 +1,105 @@
+package com.example.clearsolutionstesttask.admission;
+
+import java.util.Set;
+
+/**
+ * Endpoints of the user controller under admission control, each with its own limit. Cheap
+ * endpoints touch a single user, one page of search results or in-memory counts, heavy ones scan
+ * ranges or process batches and are shed first. The NDJSON streams and the change feed are left
+ * out: they run for as long as their users take to send, or wait for changes.
+ */
+public enum UserEndpoint {
+
+  GET_USER(Cost.CHEAP, Set.of("GET"), Path.USER),
+  CREATE_USER(Cost.CHEAP, Set.of("POST"), Path.USERS),
+  UPDATE_USER(Cost.CHEAP, Set.of("PUT", "PATCH"), Path.USER),
+  DELETE_USER(Cost.CHEAP, Set.of("DELETE"), Path.USER),
+  BATCH(Cost.HEAVY, Set.of("POST", "PUT", "DELETE"), Path.BATCH),
+  RANGE_QUERY(Cost.HEAVY, Set.of("GET"), Path.RANGE),
+  RANGE_DELETE(Cost.HEAVY, Set.of("DELETE"), Path.RANGE),
+  SEARCH(Cost.CHEAP, Set.of("GET"), Path.SEARCH),
+  AGGREGATES(Cost.CHEAP, Set.of("GET"), Path.AGGREGATES);
+
+  private final Cost cost;
+  private final Set<String> methods;
+  private final Path path;
+
+  UserEndpoint(Cost cost, Set<String> methods, Path path) {
+    this.cost = cost;
+    this.methods = methods;
+    this.path = path;
+  }
+
+  /**
+   * Returns the cost class of the endpoint.
+   *
+   * @return The cost class.
+   */
+  public Cost getCost() {
+    return cost;
+  }
+
+  /**
+   * Finds the endpoint of a request.
+   *
+   * @param method The HTTP method of the request.
+   * @param path   The path of the request, without the context path.
+   * @return The endpoint, or {@code null} if the request is not under admission control.
+   */
+  public static UserEndpoint of(String method, String path) {
+    Path requestPath = Path.of(path);
+    if (requestPath == null) {
+      return null;
+    }
+    for (UserEndpoint endpoint : values()) {
+      if (endpoint.path == requestPath && endpoint.methods.contains(method)) {
+        return endpoint;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Cost class of an endpoint.
+   */
+  public enum Cost {
+    CHEAP,
+    HEAVY
+  }
+
+  /**
+   * Paths of the user controller.
+   */
+  private enum Path {
+    USERS,
+    USER,
+    BATCH,
+    RANGE,
+    SEARCH,
+    AGGREGATES;
+
+    private static final String PREFIX = "/users";
+
+    /**
+     * Classifies a request path.
+     *
+     * @param path The path of the request.
+     * @return The path class, or {@code null} for other paths.
+     */
+    private static Path of(String path) {
+      if (!path.startsWith(PREFIX)) {
+        return null;
+      }
+      String rest = path.substring(PREFIX.length());
+      return switch (rest) {
+        case "", "/" -> USERS;
+        case "/batch" -> BATCH;
+        case "/search" -> SEARCH;
+        case "/aggregates" -> AGGREGATES;
+        case "/birth-date-range", "/birth-date-range/page" -> RANGE;
+        default -> rest.length() > 1 && rest.charAt(0) == '/'
+            && rest.chars().skip(1).allMatch(Character::isDigit) ? USER : null;
+      };
+    }
+  }
+}
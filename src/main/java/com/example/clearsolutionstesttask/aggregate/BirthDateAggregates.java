@@ -0,0 +1,352 @@
+package com.example.clearsolutionstesttask.aggregate;
+
+import com.example.clearsolutionstesttask.dto.UserAggregatesDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * User counts by birth year, birth month and age bucket, maintained incrementally from the user
+ * write events once their transaction commits instead of being computed from the rows, so rolled
+ * back writes are never counted. Counts are kept in {@link LongAdder}s and in a
+ * {@link FenwickTree} over the birth dates, whose prefix sums give the number of users older than
+ * any age; the birthdate of every user is kept to move it between counters when it changes.
+ * Writers never block each other.
+ *
+ * <p>The counts are rebuilt from the database once the application is ready and again every
+ * {@code user.aggregates.reconcile-interval}, which repairs any drift, e.g. from events handled
+ * out of order. Writes made during the scan are applied again on top of the new counts. The total
+ * difference of the day counts found by the last reconciliation is published as the
+ * {@code user.aggregates.drift} gauge.
+ */
+@Component
+@RequiredArgsConstructor
+public class BirthDateAggregates implements MeterBinder {
+
+  private static final Logger log = LogManager.getLogger(BirthDateAggregates.class);
+  private static final long FIRST_DAY = LocalDate.of(1900, 1, 1).toEpochDay();
+  private static final long LAST_DAY = LocalDate.of(2099, 12, 31).toEpochDay();
+
+  private final UserStreamRepository userStreamRepository;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Lock reconcileLock = new ReentrantLock();
+
+  @Value("${user.min.age}")
+  private int minAge;
+  @Value("${user.aggregates.age-bucket-years}")
+  private int ageBucketYears;
+  @Value("${user.aggregates.age-buckets}")
+  private int ageBuckets;
+
+  private volatile Counts counts;
+  private volatile Instant reconciledAt;
+  private volatile long drift;
+  private List<Consumer<Counts>> pendingChanges;
+
+  /**
+   * Checks whether the counts have been built and can be read.
+   *
+   * @return {@code true} if the counts are ready.
+   */
+  public boolean isReady() {
+    return counts != null;
+  }
+
+  /**
+   * Returns the current counts. Age buckets start at {@code user.min.age} and are
+   * {@code user.aggregates.age-bucket-years} wide; ages are computed for today.
+   *
+   * @return The counts by birth year, birth month and age bucket.
+   */
+  public UserAggregatesDto aggregates() {
+    Counts current = counts;
+    Map<Integer, Long> byYear = new TreeMap<>();
+    current.byYear.forEach((year, count) -> {
+      long sum = count.sum();
+      if (sum != 0) {
+        byYear.put(year, sum);
+      }
+    });
+    Map<Month, Long> byMonth = new EnumMap<>(Month.class);
+    for (Month month : Month.values()) {
+      byMonth.put(month, current.byMonth[month.ordinal()].sum());
+    }
+
+    LocalDate today = LocalDate.now();
+    long total = current.total.sum();
+    Map<String, Long> byAgeBucket = new LinkedHashMap<>();
+    long olderThanMin = current.countBornOnOrBefore(today.minusYears(minAge));
+    byAgeBucket.put("under " + minAge, total - olderThanMin);
+    long olderThanFrom = olderThanMin;
+    for (int bucket = 0; bucket < ageBuckets; bucket++) {
+      int from = minAge + bucket * ageBucketYears;
+      int to = from + ageBucketYears;
+      long olderThanTo = current.countBornOnOrBefore(today.minusYears(to));
+      byAgeBucket.put(from + "-" + (to - 1), olderThanFrom - olderThanTo);
+      olderThanFrom = olderThanTo;
+    }
+    byAgeBucket.put((minAge + ageBuckets * ageBucketYears) + "+", olderThanFrom);
+
+    return UserAggregatesDto.builder()
+        .total(total)
+        .byYear(byYear)
+        .byMonth(byMonth)
+        .byAgeBucket(byAgeBucket)
+        .reconciledAt(reconciledAt)
+        .build();
+  }
+
+  /**
+   * Rebuilds the counts from the database and replaces the current ones, logging the drift found
+   * between them. Reconciliations run one at a time, under a {@link ReentrantLock} so that a
+   * virtual thread waiting for the scan of another one is not pinned to its carrier.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${user.aggregates.reconcile-interval}",
+      initialDelayString = "${user.aggregates.reconcile-interval}")
+  public void reconcile() {
+    reconcileLock.lock();
+    try {
+      reconcileCounts();
+    } finally {
+      reconcileLock.unlock();
+    }
+  }
+
+  /**
+   * Builds the new counts and swaps them in, with no other reconciliation running.
+   */
+  private void reconcileCounts() {
+    lock.writeLock().lock();
+    try {
+      pendingChanges = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    long start = System.nanoTime();
+    Counts newCounts = new Counts();
+    userStreamRepository.forEachBirthDate(
+        (birthDate, id) -> newCounts.put(id, birthDate.toEpochDay()));
+
+    Counts oldCounts;
+    lock.writeLock().lock();
+    try {
+      pendingChanges.forEach(change -> change.accept(newCounts));
+      pendingChanges = null;
+      oldCounts = counts;
+      counts = newCounts;
+      reconciledAt = Instant.now();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    if (oldCounts != null) {
+      drift = newCounts.distanceTo(oldCounts);
+      if (drift != 0) {
+        log.warn("Birth date aggregates repaired, day counts were off by {} in total", drift);
+      }
+    }
+    log.info("Birth date aggregates reconciled with {} users in {} ms", newCounts.total.sum(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("user.aggregates.drift", this, aggregates -> aggregates.drift)
+        .description("Total difference of the day counts found by the last reconciliation")
+        .register(registry);
+  }
+
+  /**
+   * Counts a saved user, moving it from its previous birthdate if it has changed.
+   *
+   * @param event The event of the saved user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserSaved(UserSavedEvent event) {
+    User user = event.getUser();
+    long id = user.getId();
+    long epochDay = user.getBirthDate().toEpochDay();
+    apply(target -> target.put(id, epochDay));
+  }
+
+  /**
+   * Moves a patched user whose birthdate has changed.
+   *
+   * @param event The event of the patched user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserPatched(UserPatchedEvent event) {
+    LocalDate birthDate = event.getPatch().getBirthDate();
+    if (birthDate != null) {
+      long id = event.getId();
+      long epochDay = birthDate.toEpochDay();
+      apply(target -> target.put(id, epochDay));
+    }
+  }
+
+  /**
+   * Uncounts deleted users.
+   *
+   * @param event The event of the deleted users.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    List<Long> ids = List.copyOf(event.getIds());
+    apply(target -> ids.forEach(target::remove));
+  }
+
+  /**
+   * Applies a change to the current counts, and records it if a reconciliation is in progress.
+   * Changes run concurrently with each other under the read lock; only the swap of the counts
+   * takes the write lock.
+   *
+   * @param change The change of the counts.
+   */
+  private void apply(Consumer<Counts> change) {
+    lock.readLock().lock();
+    try {
+      Counts current = counts;
+      if (current != null) {
+        change.accept(current);
+      }
+      if (pendingChanges != null) {
+        synchronized (pendingChanges) {
+          pendingChanges.add(change);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Counters of all users and the birthdates they were counted on.
+   */
+  private static final class Counts {
+
+    private final Map<Long, Long> epochDayById = new ConcurrentHashMap<>();
+    private final AtomicLongArray byDay = new AtomicLongArray((int) (LAST_DAY - FIRST_DAY + 1));
+    private final FenwickTree byDayTree = new FenwickTree(byDay.length());
+    private final Map<Integer, LongAdder> byYear = new ConcurrentHashMap<>();
+    private final LongAdder[] byMonth = new LongAdder[12];
+    private final LongAdder total = new LongAdder();
+
+    private Counts() {
+      for (int month = 0; month < byMonth.length; month++) {
+        byMonth[month] = new LongAdder();
+      }
+    }
+
+    /**
+     * Counts a user on its birthdate, uncounting it from its previous one if any.
+     *
+     * @param id       The ID of the user.
+     * @param epochDay The birthdate of the user, as epoch day.
+     */
+    private void put(long id, long epochDay) {
+      Long previous = epochDayById.put(id, epochDay);
+      if (previous == null || previous != epochDay) {
+        if (previous != null) {
+          add(previous, -1);
+        }
+        add(epochDay, 1);
+      }
+    }
+
+    /**
+     * Uncounts a user, if counted.
+     *
+     * @param id The ID of the user.
+     */
+    private void remove(long id) {
+      Long previous = epochDayById.remove(id);
+      if (previous != null) {
+        add(previous, -1);
+      }
+    }
+
+    /**
+     * Counts the users born on or before a date.
+     *
+     * @param date The date.
+     * @return The number of users.
+     */
+    private long countBornOnOrBefore(LocalDate date) {
+      return byDayTree.prefixSum(position(date.toEpochDay()));
+    }
+
+    /**
+     * Sums the differences of the day counts to other counts.
+     *
+     * @param other The other counts.
+     * @return The number of users counted on different days.
+     */
+    private long distanceTo(Counts other) {
+      long distance = 0;
+      for (int position = 0; position < byDay.length(); position++) {
+        distance += Math.abs(byDay.get(position) - other.byDay.get(position));
+      }
+      return distance;
+    }
+
+    /**
+     * Adds to all counters of a birthdate.
+     *
+     * @param epochDay The birthdate, as epoch day.
+     * @param delta    The amount to add, negative to subtract.
+     */
+    private void add(long epochDay, int delta) {
+      LocalDate date = LocalDate.ofEpochDay(epochDay);
+      int position = position(epochDay);
+      byDay.addAndGet(position, delta);
+      byDayTree.add(position, delta);
+      byYear.computeIfAbsent(date.getYear(), year -> new LongAdder()).add(delta);
+      byMonth[date.getMonthValue() - 1].add(delta);
+      total.add(delta);
+    }
+
+    /**
+     * Returns the position of a birthdate in the day counts. Dates outside the counted range are
+     * counted on its first or last day, which only matters for ages above 120.
+     *
+     * @param epochDay The birthdate, as epoch day.
+     * @return The position.
+     */
+    private static int position(long epochDay) {
+      return (int) (Math.max(FIRST_DAY, Math.min(LAST_DAY, epochDay)) - FIRST_DAY);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.example.clearsolutionstesttask.aggregate;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fenwick tree (binary indexed tree) of counts over a fixed range of positions. Adding to a
+ * position and summing a prefix both take {@code O(log n)} atomic operations, so many threads can
+ * update and read it at once without locking. A sum read while other threads add is not a
+ * snapshot: it may include some of the concurrent additions and miss others.
+ */
+public class FenwickTree {
+
+  private final AtomicLongArray tree;
+
+  /**
+   * Creates a tree of zero counts.
+   *
+   * @param size The number of positions, numbered from 0.
+   */
+  public FenwickTree(int size) {
+    this.tree = new AtomicLongArray(size + 1);
+  }
+
+  /**
+   * Returns the number of positions.
+   *
+   * @return The size of the tree.
+   */
+  public int size() {
+    return tree.length() - 1;
+  }
+
+  /**
+   * Adds to the count of a position.
+   *
+   * @param position The position.
+   * @param delta    The amount to add, negative to subtract.
+   */
+  public void add(int position, long delta) {
+    for (int i = position + 1; i < tree.length(); i += i & -i) {
+      tree.addAndGet(i, delta);
+    }
+  }
+
+  /**
+   * Sums the counts of the positions from 0 to the given one, inclusive.
+   *
+   * @param position The last position of the prefix, -1 for an empty prefix.
+   * @return The sum of the prefix.
+   */
+  public long prefixSum(int position) {
+    long sum = 0;
+    for (int i = Math.min(position + 1, size()); i > 0; i -= i & -i) {
+      sum += tree.get(i);
+    }
+    return sum;
+  }
+
+  /**
+   * Sums the counts of a range of positions.
+   *
+   * @param from The first position of the range.
+   * @param to   The last position of the range, inclusive.
+   * @return The sum of the range.
+   */
+  public long rangeSum(int from, int to) {
+    return to < from ? 0 : prefixSum(to) - prefixSum(from - 1);
+  }
+}
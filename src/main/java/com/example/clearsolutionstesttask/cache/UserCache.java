@@ -0,0 +1,125 @@
+package com.example.clearsolutionstesttask.cache;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.mapper.UserMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongFunction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bounded in-process cache of users by ID. Entries are refreshed or invalidated on every write
+ * once its transaction commits, so a read between the write and the commit cannot cache the old
+ * user again, and a rolled back write leaves the cache alone. Writes made outside of a transaction
+ * update the cache at once.
+ *
+ * <p>A miss stores a pending entry and loads the user on the calling thread, outside of any map
+ * lock, so a load blocked on JDBC never pins a virtual thread to its carrier. Concurrent reads of
+ * the same user wait for the pending entry instead of loading it again. A write replaces or
+ * removes the pending entry, so a load that started before the write can never store a stale
+ * value afterwards.
+ */
+@Component
+public class UserCache {
+
+  private final UserMapper mapper;
+  private final AsyncCache<Long, UserDto> cache;
+
+  public UserCache(UserMapper mapper,
+      @Value("${user.cache.maximum-size}") long maximumSize,
+      @Value("${user.cache.expire-after-write}") Duration expireAfterWrite) {
+    this.mapper = mapper;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite)
+        .recordStats()
+        .buildAsync();
+  }
+
+  /**
+   * Returns the cached user, loading it on a miss.
+   *
+   * @param id     The ID of the user.
+   * @param loader The loader of the user, which may throw if the user does not exist.
+   * @return The user DTO.
+   */
+  public UserDto get(long id, LongFunction<UserDto> loader) {
+    CompletableFuture<UserDto> loading = new CompletableFuture<>();
+    CompletableFuture<UserDto> user = cache.get(id, (key, executor) -> loading);
+    if (user == loading) {
+      try {
+        loading.complete(loader.apply(id));
+      } catch (RuntimeException ex) {
+        loading.completeExceptionally(ex);
+        throw ex;
+      }
+    }
+    try {
+      return user.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the hit, miss and eviction counters of the cache.
+   *
+   * @return The cache statistics.
+   */
+  public CacheStats stats() {
+    return cache.synchronous().stats();
+  }
+
+  /**
+   * Returns the approximate number of cached users.
+   *
+   * @return The cache size.
+   */
+  public long size() {
+    return cache.synchronous().estimatedSize();
+  }
+
+  /**
+   * Refreshes the entry of a saved user.
+   *
+   * @param event The event of the saved user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserSaved(UserSavedEvent event) {
+    cache.put(event.getUser().getId(),
+        CompletableFuture.completedFuture(mapper.toDto(event.getUser())));
+  }
+
+  /**
+   * Invalidates the entry of a patched user, which is loaded again on the next read.
+   *
+   * @param event The event of the patched user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserPatched(UserPatchedEvent event) {
+    cache.synchronous().invalidate(event.getId());
+  }
+
+  /**
+   * Invalidates the entries of deleted users.
+   *
+   * @param event The event of the deleted users.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    cache.synchronous().invalidateAll(event.getIds());
+  }
+}
@@ -0,0 +1,38 @@
+package com.example.clearsolutionstesttask.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exposing the counters of the user cache at {@code /actuator/usercache}.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "usercache")
+public class UserCacheEndpoint {
+
+  private final UserCache userCache;
+
+  /**
+   * Returns the current counters of the user cache.
+   *
+   * @return The cache counters by name.
+   */
+  @ReadOperation
+  public Map<String, Object> stats() {
+    CacheStats stats = userCache.stats();
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("size", userCache.size());
+    result.put("hits", stats.hitCount());
+    result.put("misses", stats.missCount());
+    result.put("hitRate", stats.hitRate());
+    result.put("evictions", stats.evictionCount());
+    result.put("loadFailures", stats.loadFailureCount());
+    return result;
+  }
+}
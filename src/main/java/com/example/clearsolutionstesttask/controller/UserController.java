@@ -1,22 +1,50 @@
 package com.example.clearsolutionstesttask.controller;
 
+import com.example.clearsolutionstesttask.dto.BatchItemResultDto;
+import com.example.clearsolutionstesttask.dto.DeleteResultDto;
+import com.example.clearsolutionstesttask.dto.UserAggregatesDto;
+import com.example.clearsolutionstesttask.dto.UserChangeDto;
+import com.example.clearsolutionstesttask.dto.UserChangesDto;
 import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.dto.UserField;
+import com.example.clearsolutionstesttask.dto.UserPageDto;
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+import com.example.clearsolutionstesttask.feed.ChangeSubscriber;
+import com.example.clearsolutionstesttask.format.FieldFilterConfig;
+import com.example.clearsolutionstesttask.service.UserBatchService;
 import com.example.clearsolutionstesttask.service.UserService;
+import com.example.clearsolutionstesttask.service.UserService.TaggedUser;
 import com.example.clearsolutionstesttask.util.ApiResponseUtil;
+import com.example.clearsolutionstesttask.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controller class for handling user-related endpoints.
@@ -28,6 +56,8 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserController {
 
   private final UserService userService;
+  private final UserBatchService userBatchService;
+  private final NdjsonWriter ndjsonWriter;
 
   /**
    * Endpoint to create a new user.
@@ -41,6 +71,65 @@ public class UserController {
     return userService.create(userDTO);
   }
 
+  /**
+   * Endpoint to create users in batch. Every item is validated on its own, so invalid items are
+   * reported without rejecting the rest of the batch.
+   *
+   * @param userDtos The DTOs containing user information.
+   * @return The result of every item, in request order.
+   */
+  @PostMapping("/batch")
+  @ApiResponseUtil(summary = "Create users in batch")
+  public List<BatchItemResultDto> createUsers(@RequestBody List<UserDto> userDtos) {
+    return userBatchService.createAll(userDtos);
+  }
+
+  /**
+   * Endpoint to update users in batch. Items carrying an ID update the existing user, the other
+   * items create a new one.
+   *
+   * @param userDtos The DTOs containing user information.
+   * @return The result of every item, in request order.
+   */
+  @PutMapping("/batch")
+  @ApiResponseUtil(summary = "Create or update users in batch")
+  public List<BatchItemResultDto> upsertUsers(@RequestBody List<UserDto> userDtos) {
+    return userBatchService.upsertAll(userDtos);
+  }
+
+  /**
+   * Endpoint to delete users in batch. IDs of missing users are ignored.
+   *
+   * @param ids The IDs of the users to delete.
+   * @return The number of deleted users.
+   */
+  @DeleteMapping("/batch")
+  @ApiResponseUtil(summary = "Delete users in batch")
+  public DeleteResultDto deleteUsers(@RequestBody List<Long> ids) {
+    return DeleteResultDto.builder()
+        .deleted(userService.deleteAllById(ids))
+        .build();
+  }
+
+  /**
+   * Endpoint to retrieve a user by ID. The response carries the version of the user as ETag, with
+   * the sequence number of its buffered update if any, and a request whose {@code If-None-Match}
+   * header holds the current ETag gets 304 without a body.
+   *
+   * @param id      The ID of the user to retrieve.
+   * @param request The current request.
+   * @return The user DTO, or {@code null} if the user has not been modified.
+   */
+  @GetMapping("/{id}")
+  @ApiResponseUtil(summary = "Get the user by ID")
+  public UserDto getUser(@PathVariable long id, WebRequest request) {
+    TaggedUser user = userService.getTaggedById(id);
+    if (request.checkNotModified(weakETag(user.getTag()))) {
+      return null;
+    }
+    return user.getUser();
+  }
+
   /**
    * Endpoint to update an existing user by ID.
    *
@@ -54,6 +143,19 @@ public class UserController {
     return userService.update(id, userDTO);
   }
 
+  /**
+   * Endpoint to update some fields of an existing user by ID. Only the fields present in the
+   * request are validated and changed.
+   *
+   * @param id    The ID of the user to update.
+   * @param patch The DTO containing the changed fields.
+   */
+  @PatchMapping("/{id}")
+  @ApiResponseUtil(summary = "Update some fields of the user by ID")
+  public void patchUser(@PathVariable long id, @Valid @RequestBody UserPatchDto patch) {
+    userService.patch(id, patch);
+  }
+
   /**
    * Endpoint to delete a user by ID.
    *
@@ -66,17 +168,216 @@ public class UserController {
   }
 
   /**
-   * Endpoint to retrieve a list of users filtered by birthdate range.
+   * Endpoint to retrieve a list of users filtered by birthdate range. The response carries the
+   * version of the range as ETag, and a request whose {@code If-None-Match} header holds the
+   * current ETag gets 304 before any user is loaded. The version is read before the users, so an
+   * ETag is never newer than its body. With {@code fields}, e.g. {@code id,email,firstName}, only
+   * those fields are read and written, and the ETag also names the fields, in declaration order
+   * whatever the order requested, so a projection never validates another one.
    *
    * @param fromDate The start date of the birthdate range.
    * @param toDate   The end date of the birthdate range.
-   * @return List of users within the specified birthdate range.
+   * @param fields   The comma-separated fields to return, or {@code null} for all fields.
+   * @param request  The current request.
+   * @return List of users within the specified birthdate range, or {@code null} if the range has
+   *     not been modified.
    */
   @GetMapping("/birth-date-range")
   @ApiResponseUtil(summary = "List of users filtered by birth date range")
-  public List<UserDto> findAllByBirthDateRange(
+  public MappingJacksonValue findAllByBirthDateRange(
+      @RequestParam(value = "fromDate") LocalDate fromDate,
+      @RequestParam(value = "toDate") LocalDate toDate,
+      @RequestParam(value = "fields", required = false) String fields,
+      WebRequest request) {
+    Set<UserField> projection = fields == null ? null : UserField.parse(fields);
+    String version = userService.getBirthDateRangeVersion(fromDate, toDate);
+    if (projection != null) {
+      version += ';' + projection.stream().map(UserField::getProperty)
+          .collect(Collectors.joining(","));
+    }
+    if (request.checkNotModified(weakETag(version))) {
+      return null;
+    }
+    if (projection == null) {
+      return new MappingJacksonValue(userService.findAllByBirthDateRange(fromDate, toDate));
+    }
+    MappingJacksonValue body = new MappingJacksonValue(
+        userService.findAllByBirthDateRange(fromDate, toDate, projection));
+    body.setFilters(new SimpleFilterProvider().addFilter(FieldFilterConfig.USER_FIELDS,
+        SimpleBeanPropertyFilter.filterOutAllExcept(
+            projection.stream().map(UserField::getProperty).toArray(String[]::new))));
+    return body;
+  }
+
+  /**
+   * Endpoint to delete all users whose birthdate falls within the range.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @return The number of deleted users.
+   */
+  @DeleteMapping("/birth-date-range")
+  @ApiResponseUtil(summary = "Delete users filtered by birth date range")
+  public DeleteResultDto deleteAllByBirthDateRange(
+      @RequestParam(value = "fromDate") LocalDate fromDate,
+      @RequestParam(value = "toDate") LocalDate toDate) {
+    return DeleteResultDto.builder()
+        .deleted(userService.deleteAllByBirthDateRange(fromDate, toDate))
+        .build();
+  }
+
+  /**
+   * Endpoint to retrieve one page of users filtered by birthdate range.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param cursor   The cursor returned with the previous page.
+   * @param size     The page size.
+   * @return Page of users within the specified birthdate range.
+   */
+  @GetMapping("/birth-date-range/page")
+  @ApiResponseUtil(summary = "Page of users filtered by birth date range")
+  public UserPageDto findPageByBirthDateRange(
+      @RequestParam(value = "fromDate") LocalDate fromDate,
+      @RequestParam(value = "toDate") LocalDate toDate,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "size", required = false) Integer size) {
+    return userService.findPageByBirthDateRange(fromDate, toDate, cursor, size);
+  }
+
+  /**
+   * Endpoint to retrieve the user counts by birth year, birth month and age bucket.
+   *
+   * @return The user counts.
+   */
+  @GetMapping("/aggregates")
+  @ApiResponseUtil(summary = "User counts by birth year, month and age")
+  public UserAggregatesDto getBirthDateAggregates() {
+    return userService.getBirthDateAggregates();
+  }
+
+  /**
+   * Endpoint to search users by the beginning of their first name, last name or email, ignoring
+   * case.
+   *
+   * @param query  The prefix to search for.
+   * @param cursor The cursor returned with the previous page.
+   * @param size   The page size.
+   * @return Page of matching users.
+   */
+  @GetMapping("/search")
+  @ApiResponseUtil(summary = "Search users by name or email prefix")
+  public UserPageDto search(
+      @RequestParam(value = "q") String query,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "size", required = false) Integer size) {
+    return userService.search(query, cursor, size);
+  }
+
+  /**
+   * Endpoint to stream users filtered by birthdate range as newline-delimited JSON. Rows are
+   * written while the query is still being read, so memory use does not depend on the range.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @return Stream of users within the specified birthdate range, one JSON object per line.
+   */
+  @GetMapping(value = "/birth-date-range/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @ApiResponseUtil(summary = "Stream of users filtered by birth date range")
+  public ResponseEntity<StreamingResponseBody> streamAllByBirthDateRange(
       @RequestParam(value = "fromDate") LocalDate fromDate,
       @RequestParam(value = "toDate") LocalDate toDate) {
-    return userService.findAllByBirthDateRange(fromDate, toDate);
+    userService.validateDateRange(fromDate, toDate);
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(ndjsonWriter.write(UserDto.class,
+            sink -> userService.streamAllByBirthDateRange(fromDate, toDate, sink)));
+  }
+
+  /**
+   * Endpoint to stream the users whose birthday falls within the next days as newline-delimited
+   * JSON, in the order the birthdays come, wrapping across the year end.
+   *
+   * @param days The number of days, today included.
+   * @return Stream of users with upcoming birthdays, one JSON object per line.
+   */
+  @GetMapping(value = "/upcoming-birthdays", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @ApiResponseUtil(summary = "Stream of users with a birthday within the next days")
+  public ResponseEntity<StreamingResponseBody> streamUpcomingBirthdays(
+      @RequestParam(value = "days", defaultValue = "1") int days) {
+    userService.validateUpcomingDays(days);
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(ndjsonWriter.write(UserDto.class,
+            sink -> userService.streamUpcomingBirthdays(days, sink)));
+  }
+
+  /**
+   * Endpoint to read the changes made to users after a sequence number. Without changes yet, the
+   * response is held until the next ones are made or the poll timeout expires, whichever comes
+   * first.
+   *
+   * @param since The sequence number returned with the previous changes, 0 for all changes.
+   * @param size  The maximum number of changes.
+   * @return The changes and the sequence number to continue from.
+   */
+  @GetMapping("/changes")
+  @ApiResponseUtil(summary = "Changes made to users after a sequence number, long-polling")
+  public CompletableFuture<UserChangesDto> getChanges(
+      @RequestParam(value = "since", defaultValue = "0") long since,
+      @RequestParam(value = "size", required = false) Integer size) {
+    return userService.pollChanges(since, size);
+  }
+
+  /**
+   * Endpoint to stream the changes made to users after a sequence number as server-sent events,
+   * one {@code change} event per change with its sequence number as event ID. A reconnecting
+   * client resumes after the ID in its {@code Last-Event-ID} header.
+   *
+   * @param since       The last sequence number already read, 0 for all changes.
+   * @param lastEventId The ID of the last event received before reconnecting.
+   * @return Stream of changes.
+   */
+  @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @ApiResponseUtil(summary = "Stream of changes made to users, as server-sent events")
+  public SseEmitter streamChanges(
+      @RequestParam(value = "since", defaultValue = "0") long since,
+      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+    SseEmitter emitter = new SseEmitter();
+    Future<?> subscription = userService.streamChanges(
+        lastEventId != null ? lastEventId : since, new ChangeSubscriber() {
+          @Override
+          public void onChanges(List<UserChangeDto> changes) throws IOException {
+            for (UserChangeDto change : changes) {
+              emitter.send(SseEmitter.event()
+                  .id(Long.toString(change.getSeq()))
+                  .name("change")
+                  .data(change, MediaType.APPLICATION_JSON));
+            }
+          }
+
+          @Override
+          public void onIdle() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+          }
+
+          @Override
+          public void onFailure(Exception ex) {
+            emitter.completeWithError(ex);
+          }
+        });
+    emitter.onCompletion(() -> subscription.cancel(true));
+    emitter.onError(ex -> subscription.cancel(true));
+    return emitter;
+  }
+
+  /**
+   * Formats a version as a weak ETag, which stays valid across content encodings.
+   *
+   * @param version The version of the resource.
+   * @return The ETag.
+   */
+  private String weakETag(String version) {
+    return "W/\"" + version + "\"";
   }
 }
@@ -0,0 +1,148 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source that hands out at most a fixed number of connections at a time. Callers beyond the
+ * limit wait on a fair semaphore, so they get a connection in arrival order, and give up with a
+ * {@link SQLTransientConnectionException} after the acquire timeout. The limit matches the size of
+ * the underlying pool, so the pool itself is never contended and thousands of waiting requests,
+ * as virtual threads allow, queue here instead.
+ */
+public class BoundedDataSource extends DelegatingDataSource implements Closeable {
+
+  private final Semaphore permits;
+  private final long acquireTimeoutNanos;
+
+  /**
+   * Creates a bounded data source.
+   *
+   * @param target         The data source to hand out connections of.
+   * @param maxConnections The maximum number of connections handed out at a time.
+   * @param acquireTimeout The maximum time to wait for a connection.
+   */
+  public BoundedDataSource(DataSource target, int maxConnections, Duration acquireTimeout) {
+    super(target);
+    this.permits = new Semaphore(maxConnections, true);
+    this.acquireTimeoutNanos = acquireTimeout.toNanos();
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    try {
+      return guard(obtainTargetDataSource().getConnection());
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    try {
+      return guard(obtainTargetDataSource().getConnection(username, password));
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the number of connections that can be handed out without waiting.
+   *
+   * @return The number of available connections.
+   */
+  public int getAvailableConnections() {
+    return permits.availablePermits();
+  }
+
+  /**
+   * Returns the approximate number of callers waiting for a connection.
+   *
+   * @return The number of waiting callers.
+   */
+  public int getWaitingCallers() {
+    return permits.getQueueLength();
+  }
+
+  /**
+   * Closes the underlying data source, if it can be closed.
+   */
+  @Override
+  public void close() {
+    if (getTargetDataSource() instanceof Closeable closeable) {
+      try {
+        closeable.close();
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+
+  /**
+   * Waits for a free connection slot.
+   *
+   * @throws SQLTransientConnectionException if no slot is freed within the acquire timeout.
+   * @throws SQLException                    if the thread is interrupted while waiting.
+   */
+  private void acquire() throws SQLException {
+    try {
+      if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new SQLTransientConnectionException("No database connection available within %d ms"
+            .formatted(TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos)));
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection", ex);
+    }
+  }
+
+  /**
+   * Wraps a connection so that closing it frees its slot exactly once.
+   *
+   * @param connection The connection of the underlying data source.
+   * @return The wrapped connection.
+   */
+  private Connection guard(Connection connection) {
+    AtomicBoolean released = new AtomicBoolean();
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+          if (method.getName().equals("close") && method.getParameterCount() == 0) {
+            try {
+              connection.close();
+            } finally {
+              if (released.compareAndSet(false, true)) {
+                permits.release();
+              }
+            }
+            return null;
+          }
+          if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+          }
+          if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+          }
+          try {
+            return method.invoke(connection, args);
+          } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+          }
+        });
+  }
+}
@@ -0,0 +1,32 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the connection pool into a {@link BoundedDataSource} limited to the size of the pool. Runs
+ * before the other data source post-processors, so that they see the bounded data source.
+ */
+@Component
+public class BoundedDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+  @Value("${user.datasource.acquire-timeout}")
+  private Duration acquireTimeout;
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof HikariDataSource pool) {
+      return new BoundedDataSource(pool, pool.getMaximumPoolSize(), acquireTimeout);
+    }
+    return bean;
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+
+/**
+ * Creates additional connection pools for other databases of the same kind as the main one.
+ */
+public final class HikariPools {
+
+  private HikariPools() {
+  }
+
+  /**
+   * Creates a bounded pool configured like the given one apart from its URL and name.
+   *
+   * @param pool           The pool to copy the configuration of.
+   * @param url            The JDBC URL of the new pool.
+   * @param poolName       The name of the new pool.
+   * @param acquireTimeout The maximum time to wait for a connection of the new pool.
+   * @return The new pool, limited to its size.
+   */
+  public static BoundedDataSource copy(HikariDataSource pool, String url, String poolName,
+      Duration acquireTimeout) {
+    HikariConfig config = new HikariConfig();
+    pool.copyStateTo(config);
+    config.setJdbcUrl(url);
+    config.setPoolName(poolName);
+    return new BoundedDataSource(new HikariDataSource(config), config.getMaximumPoolSize(),
+        acquireTimeout);
+  }
+}
@@ -0,0 +1,50 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lets empty H2 databases stand in for replicas when running locally: once the schema of the
+ * primary has been created, every replica gets a read-only linked table reading the users of the
+ * primary.
+ */
+@Component
+@ConditionalOnProperty(name = "user.datasource.replicas.link-to-primary", havingValue = "true")
+@RequiredArgsConstructor
+public class LocalReplicaLinker implements SmartInitializingSingleton {
+
+  private static final String LINK_USERS =
+      "CREATE LINKED TABLE IF NOT EXISTS users('', %s, %s, %s, 'PUBLIC', 'USERS') READONLY";
+
+  private final DataSource dataSource;
+  private final DataSourceProperties properties;
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    String sql = LINK_USERS.formatted(literal(properties.determineUrl()),
+        literal(properties.determineUsername()), literal(properties.determinePassword()));
+    try {
+      for (DataSource replica : dataSource.unwrap(ReplicaRoutingDataSource.class).getReplicas()) {
+        new JdbcTemplate(replica).execute(sql);
+      }
+    } catch (SQLException ex) {
+      throw new IllegalStateException("Replica routing is not enabled", ex);
+    }
+  }
+
+  /**
+   * Quotes a value as an SQL string literal.
+   *
+   * @param value The value, may be {@code null}.
+   * @return The literal.
+   */
+  private String literal(String value) {
+    return "'" + (value == null ? "" : value.replace("'", "''")) + "'";
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Opens a {@link ReplicaRoutingContext} for every request. Clients identify themselves with the
+ * {@value #CLIENT_ID_HEADER} header; for a short window after a successful write of a client,
+ * its reads go to the primary, so it sees its own writes even if the replicas lag behind.
+ * Requests without the header always read from a replica.
+ */
+@Component
+@ConditionalOnProperty("user.datasource.replicas.urls")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+  private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+  private final Cache<String, Boolean> recentWriters;
+
+  public ReadYourWritesFilter(
+      @Value("${user.datasource.replicas.read-your-writes-window}") Duration window,
+      @Value("${user.datasource.replicas.read-your-writes-clients}") long maximumClients) {
+    this.recentWriters = Caffeine.newBuilder()
+        .expireAfterWrite(window)
+        .maximumSize(maximumClients)
+        .build();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String clientId = request.getHeader(CLIENT_ID_HEADER);
+    boolean write = WRITE_METHODS.contains(request.getMethod());
+    boolean primaryRequired = clientId != null
+        && (write || recentWriters.getIfPresent(clientId) != null);
+
+    ReplicaRoutingContext.open(primaryRequired);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ReplicaRoutingContext.close();
+      if (clientId != null && write && response.getStatus() < 400) {
+        recentWriters.put(clientId, Boolean.TRUE);
+      }
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.clearsolutionstesttask.datasource;
+
+/**
+ * Routing state of the unit of work running on the current thread, usually one request. It pins
+ * all read-only transactions of the unit of work to one replica, so that consecutive reads never
+ * go back in time, or sends them to the primary, so that a client reads its own writes.
+ */
+public final class ReplicaRoutingContext {
+
+  private static final ThreadLocal<ReplicaRoutingContext> CURRENT = new ThreadLocal<>();
+
+  private final boolean primaryRequired;
+  private Integer replica;
+
+  private ReplicaRoutingContext(boolean primaryRequired) {
+    this.primaryRequired = primaryRequired;
+  }
+
+  /**
+   * Opens a routing context on the current thread. It must be closed by {@link #close()}.
+   *
+   * @param primaryRequired Whether read-only transactions also go to the primary.
+   */
+  public static void open(boolean primaryRequired) {
+    CURRENT.set(new ReplicaRoutingContext(primaryRequired));
+  }
+
+  /**
+   * Closes the routing context of the current thread.
+   */
+  public static void close() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Returns the routing context of the current thread.
+   *
+   * @return The routing context, or {@code null} if none is open.
+   */
+  static ReplicaRoutingContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Returns whether read-only transactions also go to the primary.
+   *
+   * @return {@code true} if the primary is required.
+   */
+  boolean isPrimaryRequired() {
+    return primaryRequired;
+  }
+
+  /**
+   * Returns the replica the read-only transactions are pinned to.
+   *
+   * @return The index of the replica, or {@code null} if none has been selected yet.
+   */
+  Integer getReplica() {
+    return replica;
+  }
+
+  /**
+   * Pins the read-only transactions to a replica.
+   *
+   * @param replica The index of the replica.
+   */
+  void setReplica(Integer replica) {
+    this.replica = replica;
+  }
+}
@@ -0,0 +1,128 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source that sends read-only transactions to replicas and everything else, including work
+ * outside transactions, to the primary. The routing key is read when a connection is obtained, so
+ * the data source has to be wrapped into a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which defers that
+ * until the transaction has been set up.
+ *
+ * <p>Within a {@link ReplicaRoutingContext} all read-only transactions use the same replica, and
+ * none when the context requires the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+  private static final String PRIMARY = "primary";
+
+  private final BoundedDataSource primary;
+  private final List<BoundedDataSource> replicas;
+  private final Selection selection;
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * Creates a routing data source.
+   *
+   * @param primary   The data source of all writes.
+   * @param replicas  The data sources of read-only transactions, not empty.
+   * @param selection How a replica is selected for a read-only transaction.
+   */
+  public ReplicaRoutingDataSource(BoundedDataSource primary, List<BoundedDataSource> replicas,
+      Selection selection) {
+    this.primary = primary;
+    this.replicas = List.copyOf(replicas);
+    this.selection = selection;
+
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(PRIMARY, primary);
+    for (int i = 0; i < this.replicas.size(); i++) {
+      targets.put(i, this.replicas.get(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+    afterPropertiesSet();
+  }
+
+  /**
+   * Returns the replicas.
+   *
+   * @return The data sources of read-only transactions.
+   */
+  public List<BoundedDataSource> getReplicas() {
+    return replicas;
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return PRIMARY;
+    }
+    ReplicaRoutingContext context = ReplicaRoutingContext.current();
+    if (context == null) {
+      return selectReplica();
+    }
+    if (context.isPrimaryRequired()) {
+      return PRIMARY;
+    }
+    if (context.getReplica() == null) {
+      context.setReplica(selectReplica());
+    }
+    return context.getReplica();
+  }
+
+  /**
+   * Closes the primary and all replicas.
+   */
+  @Override
+  public void close() {
+    replicas.forEach(BoundedDataSource::close);
+    primary.close();
+  }
+
+  /**
+   * Selects the replica of a read-only transaction.
+   *
+   * @return The index of the replica.
+   */
+  private int selectReplica() {
+    int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+    if (selection == Selection.ROUND_ROBIN) {
+      return start;
+    }
+    // Least loaded: most free connections, ties broken by the round-robin position.
+    int best = start;
+    int bestAvailable = replicas.get(start).getAvailableConnections();
+    for (int offset = 1; offset < replicas.size(); offset++) {
+      int candidate = (start + offset) % replicas.size();
+      int available = replicas.get(candidate).getAvailableConnections();
+      if (available > bestAvailable) {
+        best = candidate;
+        bestAvailable = available;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * How a replica is selected for a read-only transaction.
+   */
+  public enum Selection {
+    /**
+     * The replicas take turns.
+     */
+    ROUND_ROBIN,
+    /**
+     * The replica with the most free connections is used.
+     */
+    LEAST_LOADED
+  }
+}
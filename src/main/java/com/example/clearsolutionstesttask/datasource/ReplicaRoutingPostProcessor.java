@@ -0,0 +1,71 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import com.example.clearsolutionstesttask.datasource.ReplicaRoutingDataSource.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Puts the bounded connection pool behind a {@link ReplicaRoutingDataSource} as its primary. Each
+ * replica gets its own pool, configured like the primary one apart from the URL, and closed
+ * together with the primary. Spring destroys the pool bean as created, not as wrapped, so the
+ * replicas are looked up by the pool.
+ */
+@Component
+@ConditionalOnProperty("user.datasource.replicas.urls")
+public class ReplicaRoutingPostProcessor implements DestructionAwareBeanPostProcessor, Ordered {
+
+  @Value("${user.datasource.replicas.urls}")
+  private List<String> urls;
+  @Value("${user.datasource.replicas.selection}")
+  private Selection selection;
+  @Value("${user.datasource.acquire-timeout}")
+  private Duration acquireTimeout;
+
+  private final Map<HikariDataSource, ReplicaRoutingDataSource> routings =
+      new ConcurrentHashMap<>();
+
+  @Override
+  public int getOrder() {
+    return Ordered.LOWEST_PRECEDENCE;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof BoundedDataSource primary
+        && primary.getTargetDataSource() instanceof HikariDataSource pool) {
+      List<BoundedDataSource> replicas = new ArrayList<>(urls.size());
+      for (int i = 0; i < urls.size(); i++) {
+        replicas.add(HikariPools.copy(pool, urls.get(i), "replica-" + i, acquireTimeout));
+      }
+      ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, selection);
+      routings.put(pool, routing);
+      return new LazyConnectionDataSourceProxy(routing);
+    }
+    return bean;
+  }
+
+  @Override
+  public boolean requiresDestruction(Object bean) {
+    return bean instanceof HikariDataSource && routings.containsKey(bean);
+  }
+
+  @Override
+  public void postProcessBeforeDestruction(Object bean, String beanName) {
+    if (bean instanceof HikariDataSource) {
+      ReplicaRoutingDataSource routing = routings.remove(bean);
+      if (routing != null) {
+        routing.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.example.clearsolutionstesttask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import java.util.Map;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Data Transfer Object (DTO) representing the result of a single item of a batch request.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+public class BatchItemResultDto {
+
+  @Schema(requiredMode = RequiredMode.REQUIRED, description = "Position of the item in the request.")
+  private int index;
+
+  @Schema(requiredMode = RequiredMode.REQUIRED)
+  private BatchItemStatus status;
+
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED, description = "The stored user.")
+  private UserDto user;
+
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED, description = "Field or item errors.")
+  private Map<String, String> errors;
+}
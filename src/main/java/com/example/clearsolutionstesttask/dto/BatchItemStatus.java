@@ -0,0 +1,13 @@
+package com.example.clearsolutionstesttask.dto;
+
+/**
+ * Outcome of a single item of a batch request.
+ */
+public enum BatchItemStatus {
+  CREATED,
+  UPDATED,
+  INVALID,
+  NOT_FOUND,
+  CONFLICT,
+  FAILED
+}
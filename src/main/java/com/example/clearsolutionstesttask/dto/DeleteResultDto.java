@@ -0,0 +1,19 @@
+package com.example.clearsolutionstesttask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Data Transfer Object (DTO) representing the outcome of a bulk delete.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+public class DeleteResultDto {
+
+  @Schema(requiredMode = RequiredMode.REQUIRED, description = "Number of deleted users.")
+  private long deleted;
+}
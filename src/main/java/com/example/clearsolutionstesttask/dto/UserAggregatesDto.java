@@ -0,0 +1,37 @@
+package com.example.clearsolutionstesttask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import java.time.Instant;
+import java.time.Month;
+import java.util.Map;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Data Transfer Object (DTO) representing user counts by birthdate.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+public class UserAggregatesDto {
+
+  @Schema(requiredMode = RequiredMode.REQUIRED, description = "Number of users.")
+  private long total;
+
+  @Schema(requiredMode = RequiredMode.REQUIRED,
+      description = "Number of users by birth year, for the years with users.")
+  private Map<Integer, Long> byYear;
+
+  @Schema(requiredMode = RequiredMode.REQUIRED, description = "Number of users by birth month.")
+  private Map<Month, Long> byMonth;
+
+  @Schema(requiredMode = RequiredMode.REQUIRED,
+      description = "Number of users by age range, starting at the minimum age.")
+  private Map<String, Long> byAgeBucket;
+
+  @Schema(requiredMode = RequiredMode.REQUIRED,
+      description = "Time the counts were last checked against the database.")
+  private Instant reconciledAt;
+}
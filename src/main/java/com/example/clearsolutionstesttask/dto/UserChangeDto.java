@@ -0,0 +1,38 @@
+package com.example.clearsolutionstesttask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import java.time.Instant;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Data Transfer Object (DTO) representing one change of the change feed.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+public class UserChangeDto {
+
+  @Schema(requiredMode = RequiredMode.REQUIRED,
+      description = "Sequence number of the change, increasing in the order changes were made.")
+  private long seq;
+
+  @Schema(requiredMode = RequiredMode.REQUIRED)
+  private UserChangeType type;
+
+  @Schema(requiredMode = RequiredMode.REQUIRED)
+  private long userId;
+
+  @Schema(requiredMode = RequiredMode.REQUIRED)
+  private Instant changedAt;
+
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED,
+      description = "The whole user, for SAVED changes only.")
+  private UserDto user;
+
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED,
+      description = "The changed fields, for PATCHED changes only.")
+  private UserPatchDto patch;
+}
@@ -0,0 +1,11 @@
+package com.example.clearsolutionstesttask.dto;
+
+/**
+ * Kind of change made to a user: saved changes carry the whole user, patched ones the changed
+ * fields only.
+ */
+public enum UserChangeType {
+  SAVED,
+  PATCHED,
+  DELETED
+}
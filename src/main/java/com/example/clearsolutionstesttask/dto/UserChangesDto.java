@@ -0,0 +1,24 @@
+package com.example.clearsolutionstesttask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import java.util.List;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Data Transfer Object (DTO) representing one batch of the change feed.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+public class UserChangesDto {
+
+  @Schema(requiredMode = RequiredMode.REQUIRED)
+  private List<UserChangeDto> changes;
+
+  @Schema(requiredMode = RequiredMode.REQUIRED,
+      description = "Sequence number to pass as since to get the next changes.")
+  private long next;
+}
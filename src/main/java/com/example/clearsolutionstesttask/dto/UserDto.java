@@ -14,7 +14,7 @@ import lombok.Getter;
 /**
  * Data Transfer Object (DTO) representing a user.
  */
-@Builder
+@Builder(toBuilder = true)
 @Getter
 @EqualsAndHashCode
 public class UserDto {
@@ -44,4 +44,8 @@ public class UserDto {
 
   @Schema(requiredMode = RequiredMode.NOT_REQUIRED)
   private String phoneNumber;
+
+  @Schema(accessMode = AccessMode.READ_ONLY,
+      description = "Incremented on every change of the user.")
+  private long version;
 }
@@ -0,0 +1,68 @@
+package com.example.clearsolutionstesttask.dto;
+
+import com.example.clearsolutionstesttask.exception.InvalidFieldsException;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Field of {@link UserDto} that a read can be restricted to, with its JSON property and the
+ * column it is read from.
+ */
+public enum UserField {
+  ID("id", "id"),
+  EMAIL("email", "email"),
+  FIRST_NAME("firstName", "first_name"),
+  LAST_NAME("lastName", "last_name"),
+  BIRTH_DATE("birthDate", "birth_date"),
+  ADDRESS("address", "address"),
+  PHONE_NUMBER("phoneNumber", "phone_number"),
+  VERSION("version", "version");
+
+  private final String property;
+  private final String column;
+
+  UserField(String property, String column) {
+    this.property = property;
+    this.column = column;
+  }
+
+  public String getProperty() {
+    return property;
+  }
+
+  public String getColumn() {
+    return column;
+  }
+
+  /**
+   * Parses a comma-separated list of JSON property names, e.g. {@code id,email,firstName}.
+   *
+   * @param fields The property names.
+   * @return The fields, in declaration order.
+   * @throws InvalidFieldsException if the list is blank or names an unknown property.
+   */
+  public static Set<UserField> parse(String fields) {
+    Set<UserField> parsed = EnumSet.noneOf(UserField.class);
+    for (String name : fields.split(",")) {
+      parsed.add(byProperty(name.strip(), fields));
+    }
+    return parsed;
+  }
+
+  /**
+   * Finds the field of a JSON property name.
+   *
+   * @param name   The property name.
+   * @param fields The whole list, for the error message.
+   * @return The field.
+   * @throws InvalidFieldsException if no field has the name.
+   */
+  private static UserField byProperty(String name, String fields) {
+    for (UserField field : values()) {
+      if (field.property.equals(name)) {
+        return field;
+      }
+    }
+    throw new InvalidFieldsException(fields);
+  }
+}
@@ -0,0 +1,24 @@
+package com.example.clearsolutionstesttask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import java.util.List;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Data Transfer Object (DTO) representing one page of users ordered by birthdate and ID.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+public class UserPageDto {
+
+  @Schema(requiredMode = RequiredMode.REQUIRED)
+  private List<UserDto> content;
+
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED,
+      description = "Opaque token of the next page, absent on the last page.")
+  private String nextCursor;
+}
@@ -0,0 +1,58 @@
+package com.example.clearsolutionstesttask.dto;
+
+import com.example.clearsolutionstesttask.util.validation.ValidBirthDate;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+import java.time.LocalDate;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Data Transfer Object (DTO) carrying the changed fields of a user. Missing fields are left
+ * unchanged, present fields are validated like in {@link UserDto}.
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+public class UserPatchDto {
+
+  private static final String NOT_BLANK = ".*\\S.*";
+
+  @Email(message = "Invalid email.")
+  @Pattern(regexp = NOT_BLANK, message = "Please enter email.")
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED)
+  private String email;
+
+  @Pattern(regexp = NOT_BLANK, message = "Please enter first name.")
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED)
+  private String firstName;
+
+  @Pattern(regexp = NOT_BLANK, message = "Please enter last name.")
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED)
+  private String lastName;
+
+  @ValidBirthDate(required = false)
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED)
+  private LocalDate birthDate;
+
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED)
+  private String address;
+
+  @Schema(requiredMode = RequiredMode.NOT_REQUIRED)
+  private String phoneNumber;
+
+  /**
+   * Checks whether the patch changes no field.
+   *
+   * @return {@code true} if every field is missing, {@code false} otherwise.
+   */
+  @JsonIgnore
+  public boolean isEmpty() {
+    return email == null && firstName == null && lastName == null && birthDate == null
+        && address == null && phoneNumber == null;
+  }
+}
@@ -1,19 +1,31 @@
 package com.example.clearsolutionstesttask.entity;
 
+import com.example.clearsolutionstesttask.shard.ShardedSequenceGenerator;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import java.time.LocalDate;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 /**
  * Entity class representing a user in the system.
  */
 @Entity(name = "users")
+@Table(indexes = {
+    @Index(name = "idx_users_birth_date_id_version", columnList = "birth_date, id, version"),
+    @Index(name = "idx_users_birth_month_day_id", columnList = "birth_month_day, id")},
+    uniqueConstraints = @UniqueConstraint(name = "uk_users_email", columnNames = "email"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -21,12 +33,24 @@ import lombok.NoArgsConstructor;
 public class User {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(generator = "users_seq")
+  @GenericGenerator(name = "users_seq", type = ShardedSequenceGenerator.class, parameters = {
+      @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "users_seq"),
+      @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")})
   private long id;
   private String email;
   private String firstName;
   private String lastName;
   private LocalDate birthDate;
+  /**
+   * Month and day of the birthdate as {@code month * 100 + day}, computed and stored by the
+   * database from {@link #birthDate} on every write and never written by the application.
+   */
+  @Column(insertable = false, updatable = false, columnDefinition = "integer generated always as "
+      + "(extract(month from birth_date) * 100 + extract(day from birth_date))")
+  private Integer birthMonthDay;
   private String address;
   private String phoneNumber;
+  @Version
+  private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.example.clearsolutionstesttask.entity;
+
+import com.example.clearsolutionstesttask.dto.UserChangeType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity class representing a change of a user in the outbox, written in the transaction of the
+ * change. Rows are written and read through JDBC; the mapping defines the table. The index on the
+ * change time serves the pruning of old changes.
+ */
+@Entity(name = "user_changes")
+@Table(indexes = @Index(name = "idx_user_changes_changed_at", columnList = "changed_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChange {
+
+  @Id
+  private long seq;
+  private long userId;
+  @Enumerated(EnumType.STRING)
+  private UserChangeType changeType;
+  private Instant changedAt;
+  /**
+   * The user or the changed fields as JSON, {@code null} for deletions.
+   */
+  @Lob
+  private String payload;
+}
@@ -0,0 +1,15 @@
+package com.example.clearsolutionstesttask.event;
+
+import java.util.Collection;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Event published synchronously after users have been deleted.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserDeletedEvent {
+
+  private final Collection<Long> ids;
+}
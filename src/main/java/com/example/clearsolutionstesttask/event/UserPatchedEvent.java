@@ -0,0 +1,17 @@
+package com.example.clearsolutionstesttask.event;
+
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Event published synchronously after some fields of a user have been updated in place, without
+ * loading the user.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserPatchedEvent {
+
+  private final long id;
+  private final UserPatchDto patch;
+}
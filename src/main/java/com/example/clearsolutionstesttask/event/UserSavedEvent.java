@@ -0,0 +1,15 @@
+package com.example.clearsolutionstesttask.event;
+
+import com.example.clearsolutionstesttask.entity.User;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Event published synchronously after a user has been created or updated.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserSavedEvent {
+
+  private final User user;
+}
@@ -0,0 +1,11 @@
+package com.example.clearsolutionstesttask.exception;
+
+/**
+ * Exception thrown when a batch request holds more items than allowed.
+ */
+public class BatchTooLargeException extends RuntimeException {
+
+  public BatchTooLargeException(int size, int maxSize) {
+    super("Batch of %s items exceeds the limit of %s".formatted(size, maxSize));
+  }
+}
@@ -0,0 +1,11 @@
+package com.example.clearsolutionstesttask.exception;
+
+/**
+ * Exception thrown when an email is already used by another user.
+ */
+public class EmailAlreadyExistsException extends RuntimeException {
+
+  public EmailAlreadyExistsException(String email) {
+    super("User with email %s already exists".formatted(email));
+  }
+}
@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -32,10 +33,13 @@ public class HandlerException {
   }
 
   /**
-   * Handles invalid date range exceptions.
+   * Handles invalid date range, page cursor, batch size, batch ID, search query and field
+   * projection exceptions.
    */
   @ResponseStatus(HttpStatus.BAD_REQUEST)
-  @ExceptionHandler(InvalidDateRangeException.class)
+  @ExceptionHandler({InvalidDateRangeException.class, InvalidCursorException.class,
+      BatchTooLargeException.class, InvalidIdsException.class, InvalidSearchQueryException.class,
+      InvalidFieldsException.class})
   public void handleBadRequestException() {
   }
 
@@ -62,4 +66,24 @@ public class HandlerException {
   @ExceptionHandler(UserNotFoundException.class)
   public void handleNotFoundException() {
   }
+
+  /**
+   * Handles searches arriving before the search index has been built.
+   */
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  @ExceptionHandler(IndexNotReadyException.class)
+  public void handleServiceUnavailableException() {
+  }
+
+  /**
+   * Handles emails already used by another user, whether caught by the uniqueness check or by
+   * the unique constraint of the database.
+   *
+   * @return A map containing the email error.
+   */
+  @ResponseStatus(HttpStatus.CONFLICT)
+  @ExceptionHandler({EmailAlreadyExistsException.class, DataIntegrityViolationException.class})
+  public Map<String, String> handleConflictException() {
+    return Map.of("email", "Email already exists.");
+  }
 }
@@ -0,0 +1,11 @@
+package com.example.clearsolutionstesttask.exception;
+
+/**
+ * Exception thrown when a request needs an in-process index that has not been built yet.
+ */
+public class IndexNotReadyException extends RuntimeException {
+
+  public IndexNotReadyException(String index) {
+    super("The %s is not built yet".formatted(index));
+  }
+}
@@ -0,0 +1,11 @@
+package com.example.clearsolutionstesttask.exception;
+
+/**
+ * Exception thrown when a page cursor cannot be decoded, or a change sequence number is invalid.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+  public InvalidCursorException(String cursor) {
+    super("Invalid cursor %s".formatted(cursor));
+  }
+}
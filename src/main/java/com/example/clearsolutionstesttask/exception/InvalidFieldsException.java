@@ -0,0 +1,11 @@
+package com.example.clearsolutionstesttask.exception;
+
+/**
+ * Exception thrown when a field projection is empty or names an unknown field.
+ */
+public class InvalidFieldsException extends RuntimeException {
+
+  public InvalidFieldsException(String fields) {
+    super("Invalid fields '%s'".formatted(fields));
+  }
+}
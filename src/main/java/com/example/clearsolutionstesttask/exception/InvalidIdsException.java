@@ -0,0 +1,11 @@
+package com.example.clearsolutionstesttask.exception;
+
+/**
+ * Exception thrown when a batch of IDs holds a {@code null} ID.
+ */
+public class InvalidIdsException extends RuntimeException {
+
+  public InvalidIdsException(int index) {
+    super("Null ID at index %d".formatted(index));
+  }
+}
@@ -0,0 +1,11 @@
+package com.example.clearsolutionstesttask.exception;
+
+/**
+ * Exception thrown when a search query is blank.
+ */
+public class InvalidSearchQueryException extends RuntimeException {
+
+  public InvalidSearchQueryException(String query) {
+    super("Invalid search query '%s'".formatted(query));
+  }
+}
@@ -0,0 +1,182 @@
+package com.example.clearsolutionstesttask.feed;
+
+import com.example.clearsolutionstesttask.dto.UserChangeDto;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free buffer of the latest user changes by sequence number. Writers claim sequence
+ * numbers before their transaction commits and publish each of them once it completes, with the
+ * change if it committed and without if it rolled back, so sequence numbers are published out of
+ * order. The watermark is the highest sequence number up to which every number has been
+ * published; readers never go past it, so a change committing late is never skipped.
+ *
+ * <p>Each sequence number has its slot, reused every {@code capacity} numbers. A slot taken over
+ * by a later number counts as published for the watermark: the capacity must exceed the number of
+ * changes recorded while the longest write transaction is open.
+ */
+public class ChangeRingBuffer {
+
+  /**
+   * Result of {@link #read} when the changes after the given sequence number have left the
+   * buffer.
+   */
+  public static final long NOT_RETAINED = -1;
+
+  private final AtomicReferenceArray<Slot> slots;
+  private final int mask;
+  private final AtomicLong sequence;
+  private final AtomicLong watermark;
+  private final Set<CompletableFuture<Void>> waiters = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Creates an empty buffer.
+   *
+   * @param capacity The number of slots, rounded up to a power of two.
+   * @param start    The last sequence number claimed before, the watermark to start with.
+   */
+  public ChangeRingBuffer(int capacity, long start) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.sequence = new AtomicLong(start);
+    this.watermark = new AtomicLong(start);
+  }
+
+  /**
+   * Returns the number of slots.
+   *
+   * @return The capacity.
+   */
+  public int getCapacity() {
+    return slots.length();
+  }
+
+  /**
+   * Returns the highest sequence number up to which every number has been published.
+   *
+   * @return The watermark.
+   */
+  public long getWatermark() {
+    return watermark.get();
+  }
+
+  /**
+   * Claims consecutive sequence numbers, each of which must be published later.
+   *
+   * @param count The number of sequence numbers.
+   * @return The first claimed sequence number.
+   */
+  public long claim(int count) {
+    return sequence.getAndAdd(count) + 1;
+  }
+
+  /**
+   * Publishes a claimed sequence number and advances the watermark as far as possible.
+   *
+   * @param seq    The sequence number.
+   * @param change The committed change, or {@code null} if it rolled back.
+   * @return {@code false} if the slot was already taken by a later sequence number, so that the
+   *     change can only be read from the outbox.
+   */
+  public boolean publish(long seq, UserChangeDto change) {
+    int index = (int) (seq & mask);
+    Slot slot = new Slot(seq, change);
+    boolean published = true;
+    Slot current;
+    do {
+      current = slots.get(index);
+      if (current != null && current.seq > seq) {
+        published = false;
+        break;
+      }
+    } while (!slots.compareAndSet(index, current, slot));
+    advanceWatermark();
+    return published;
+  }
+
+  /**
+   * Reads the committed changes after a sequence number, up to the watermark.
+   *
+   * @param since The last sequence number already read.
+   * @param limit The maximum number of changes to read.
+   * @param into  The list receiving the changes, in sequence order.
+   * @return The last sequence number read, rolled back ones included, or {@link #NOT_RETAINED}
+   *     if some of the changes have left the buffer.
+   */
+  public long read(long since, int limit, List<UserChangeDto> into) {
+    long last = watermark.get();
+    long seq = since;
+    while (seq < last && into.size() < limit) {
+      Slot slot = slots.get((int) ((seq + 1) & mask));
+      if (slot == null || slot.seq != seq + 1) {
+        return NOT_RETAINED;
+      }
+      if (slot.change != null) {
+        into.add(slot.change);
+      }
+      seq++;
+    }
+    return seq;
+  }
+
+  /**
+   * Returns a future completed once the watermark passes a sequence number, or right away if it
+   * already has. Waiters are woken on every advance of the watermark; a waiter no longer needed
+   * is cancelled or completed by its owner to stop tracking it.
+   *
+   * @param seq The sequence number.
+   * @return The future.
+   */
+  public CompletableFuture<Void> awaitAfter(long seq) {
+    CompletableFuture<Void> waiter = new CompletableFuture<>();
+    waiters.add(waiter);
+    waiter.whenComplete((result, ex) -> waiters.remove(waiter));
+    if (watermark.get() > seq) {
+      waiter.complete(null);
+    }
+    return waiter;
+  }
+
+  /**
+   * Moves the watermark over every published sequence number following it, then wakes the
+   * waiters if it moved.
+   */
+  private void advanceWatermark() {
+    boolean advanced = false;
+    long last = watermark.get();
+    while (true) {
+      Slot next = slots.get((int) ((last + 1) & mask));
+      if (next == null || next.seq <= last) {
+        break;
+      }
+      if (watermark.compareAndSet(last, last + 1)) {
+        advanced = true;
+        last++;
+      } else {
+        last = watermark.get();
+      }
+    }
+    if (advanced && !waiters.isEmpty()) {
+      waiters.forEach(waiter -> waiter.complete(null));
+    }
+  }
+
+  /**
+   * Published sequence number and its change.
+   */
+  private static final class Slot {
+
+    private final long seq;
+    private final UserChangeDto change;
+
+    private Slot(long seq, UserChangeDto change) {
+      this.seq = seq;
+      this.change = change;
+    }
+  }
+}
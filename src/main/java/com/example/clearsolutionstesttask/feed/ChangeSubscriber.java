@@ -0,0 +1,33 @@
+package com.example.clearsolutionstesttask.feed;
+
+import com.example.clearsolutionstesttask.dto.UserChangeDto;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receiver of a subscription to the change feed, called from one thread at a time.
+ */
+public interface ChangeSubscriber {
+
+  /**
+   * Receives the next changes.
+   *
+   * @param changes The changes, in sequence order.
+   * @throws IOException if the changes cannot be sent, which ends the subscription.
+   */
+  void onChanges(List<UserChangeDto> changes) throws IOException;
+
+  /**
+   * Called when no change has come for a heartbeat interval.
+   *
+   * @throws IOException if the heartbeat cannot be sent, which ends the subscription.
+   */
+  void onIdle() throws IOException;
+
+  /**
+   * Called once when the subscription ends because of a failure.
+   *
+   * @param ex The failure.
+   */
+  void onFailure(Exception ex);
+}
@@ -0,0 +1,371 @@
+package com.example.clearsolutionstesttask.feed;
+
+import com.example.clearsolutionstesttask.dto.UserChangeDto;
+import com.example.clearsolutionstesttask.dto.UserChangeType;
+import com.example.clearsolutionstesttask.dto.UserChangesDto;
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+import com.example.clearsolutionstesttask.entity.UserChange;
+import com.example.clearsolutionstesttask.repository.UserChangeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Feed of the changes made to users, numbered by one sequence. Every change is written to the
+ * outbox in the transaction that makes it and published to a {@link ChangeRingBuffer} once the
+ * transaction completes, so consumers read recent changes from memory and fall back to the outbox
+ * when they are further behind. The sequence continues from the highest one in the outbox, read
+ * on first use. Changes older than {@code user.changes.retention} are pruned from the outbox, so
+ * consumers further behind miss them.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeFeed implements DisposableBean {
+
+  private static final Logger log = LogManager.getLogger(UserChangeFeed.class);
+
+  private final UserChangeRepository userChangeRepository;
+  private final ObjectMapper objectMapper;
+  private final ExecutorService executor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-feed-", 0).factory());
+  private final Lock bufferLock = new ReentrantLock();
+
+  @Value("${user.changes.buffer-capacity}")
+  private int bufferCapacity;
+  @Value("${user.changes.heartbeat-interval}")
+  private Duration heartbeatInterval;
+  @Value("${user.changes.retention}")
+  private Duration retention;
+
+  private volatile ChangeRingBuffer buffer;
+
+  /**
+   * Records a created or updated user in the current transaction.
+   *
+   * @param user The saved user.
+   */
+  public void recordSaved(UserDto user) {
+    recordAllSaved(List.of(user));
+  }
+
+  /**
+   * Records created or updated users in the current transaction, with a single JDBC batch.
+   *
+   * @param users The saved users.
+   */
+  public void recordAllSaved(List<UserDto> users) {
+    if (!users.isEmpty()) {
+      record(users.stream().map(user -> change(UserChangeType.SAVED, user.getId()).user(user))
+          .toList());
+    }
+  }
+
+  /**
+   * Records patched fields of a user in the current transaction.
+   *
+   * @param id    The ID of the user.
+   * @param patch The changed fields.
+   */
+  public void recordPatched(long id, UserPatchDto patch) {
+    record(List.of(change(UserChangeType.PATCHED, id).patch(patch)));
+  }
+
+  /**
+   * Records deleted users in the current transaction, one change per user.
+   *
+   * @param ids The IDs of the deleted users.
+   */
+  public void recordDeleted(Collection<Long> ids) {
+    if (!ids.isEmpty()) {
+      record(ids.stream().map(id -> change(UserChangeType.DELETED, id)).toList());
+    }
+  }
+
+  /**
+   * Reads the committed changes after a sequence number, from the buffer if it still holds them
+   * and from the outbox otherwise. Changes past the watermark of the buffer are never read, even
+   * if already committed, so that none is skipped.
+   *
+   * @param since The last sequence number already read.
+   * @param limit The maximum number of changes to read.
+   * @return The changes and the sequence number to continue from.
+   */
+  public UserChangesDto read(long since, int limit) {
+    ChangeRingBuffer current = buffer();
+    List<UserChangeDto> changes = new ArrayList<>();
+    long next = current.read(since, limit, changes);
+    if (next == ChangeRingBuffer.NOT_RETAINED) {
+      long watermark = current.getWatermark();
+      changes.clear();
+      for (UserChange row : userChangeRepository.findAfter(since, watermark, limit)) {
+        changes.add(toDto(row));
+      }
+      next = changes.size() == limit ? changes.get(limit - 1).getSeq() : watermark;
+    }
+    return UserChangesDto.builder()
+        .changes(changes)
+        .next(next)
+        .build();
+  }
+
+  /**
+   * Reads the committed changes after a sequence number, waiting for new ones if there are none
+   * yet. The result is completed on a virtual thread as soon as the watermark moves, or with no
+   * changes once the timeout expires.
+   *
+   * @param since   The last sequence number already read.
+   * @param limit   The maximum number of changes to read.
+   * @param timeout The maximum time to wait for changes.
+   * @return The future changes and the sequence number to continue from.
+   */
+  public CompletableFuture<UserChangesDto> poll(long since, int limit, Duration timeout) {
+    UserChangesDto changes = read(since, limit);
+    if (!changes.getChanges().isEmpty()) {
+      return CompletableFuture.completedFuture(changes);
+    }
+    long next = changes.getNext();
+    return awaitAfter(next)
+        .completeOnTimeout(null, timeout.toMillis(), TimeUnit.MILLISECONDS)
+        .thenApplyAsync(ignored -> read(next, limit), executor);
+  }
+
+  /**
+   * Returns a future completed once changes after a sequence number may be read; see
+   * {@link ChangeRingBuffer#awaitAfter}.
+   *
+   * @param seq The sequence number.
+   * @return The future.
+   */
+  public CompletableFuture<Void> awaitAfter(long seq) {
+    return buffer().awaitAfter(seq);
+  }
+
+  /**
+   * Sends the changes after a sequence number to a subscriber, and then every new change as it
+   * is published, on a virtual thread of its own. A heartbeat is sent after every
+   * {@code user.changes.heartbeat-interval} without changes.
+   *
+   * @param since      The last sequence number already read.
+   * @param limit      The maximum number of changes sent at once.
+   * @param subscriber The subscriber.
+   * @return The subscription, cancelled to end it.
+   */
+  public Future<?> subscribe(long since, int limit, ChangeSubscriber subscriber) {
+    return executor.submit(() -> {
+      long next = since;
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          UserChangesDto batch = read(next, limit);
+          next = batch.getNext();
+          if (!batch.getChanges().isEmpty()) {
+            subscriber.onChanges(batch.getChanges());
+          } else {
+            awaitOrBeat(next, subscriber);
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } catch (Exception ex) {
+        if (!Thread.currentThread().isInterrupted()) {
+          subscriber.onFailure(ex);
+        }
+      }
+    });
+  }
+
+  /**
+   * Deletes the changes older than {@code user.changes.retention} from the outbox. The latest
+   * change is always kept, so that the sequence continues from it after a restart.
+   */
+  @Scheduled(fixedDelayString = "${user.changes.prune-interval}",
+      initialDelayString = "${user.changes.prune-interval}")
+  public void prune() {
+    long deleted = userChangeRepository.deleteBefore(Instant.now().minus(retention));
+    if (deleted > 0) {
+      log.info("Pruned {} user changes older than {}", deleted, retention);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Waits for changes after a sequence number, and sends a heartbeat if none comes in time.
+   *
+   * @param seq        The sequence number.
+   * @param subscriber The subscriber.
+   * @throws Exception if interrupted, or if the heartbeat cannot be sent.
+   */
+  private void awaitOrBeat(long seq, ChangeSubscriber subscriber) throws Exception {
+    CompletableFuture<Void> waiter = awaitAfter(seq);
+    try {
+      waiter.get(heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException ex) {
+      waiter.cancel(false);
+      subscriber.onIdle();
+    } catch (InterruptedException ex) {
+      waiter.cancel(false);
+      throw ex;
+    } catch (ExecutionException ex) {
+      throw new IllegalStateException("Change feed wait failed", ex.getCause());
+    }
+  }
+
+  /**
+   * Numbers changes, writes them to the outbox and publishes them once the current transaction
+   * completes, or right away without a transaction.
+   *
+   * @param builders The builders of the changes, without sequence numbers.
+   */
+  private void record(List<UserChangeDto.UserChangeDtoBuilder> builders) {
+    ChangeRingBuffer current = buffer();
+    long first = current.claim(builders.size());
+    List<UserChangeDto> changes = new ArrayList<>(builders.size());
+    for (int i = 0; i < builders.size(); i++) {
+      changes.add(builders.get(i).seq(first + i).build());
+    }
+
+    boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+    if (inTransaction) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          publish(current, changes, status == STATUS_COMMITTED);
+        }
+      });
+    }
+    boolean written = false;
+    try {
+      userChangeRepository.insertAll(changes.stream().map(this::toRow).toList());
+      written = true;
+    } finally {
+      if (!inTransaction) {
+        publish(current, changes, written);
+      }
+    }
+  }
+
+  /**
+   * Publishes changes to the buffer.
+   *
+   * @param current   The buffer the changes were numbered by.
+   * @param changes   The changes.
+   * @param committed Whether the changes were committed, or rolled back.
+   */
+  private static void publish(ChangeRingBuffer current, List<UserChangeDto> changes,
+      boolean committed) {
+    for (UserChangeDto change : changes) {
+      if (!current.publish(change.getSeq(), committed ? change : null)) {
+        log.warn("Change {} published after its buffer slot was reused, "
+            + "consider a larger user.changes.buffer-capacity", change.getSeq());
+      }
+    }
+  }
+
+  /**
+   * Returns the buffer, creating it on first use. The creation queries the outbox under a
+   * {@link ReentrantLock}, which unlike a monitor does not pin a waiting virtual thread.
+   *
+   * @return The buffer.
+   */
+  private ChangeRingBuffer buffer() {
+    ChangeRingBuffer current = buffer;
+    if (current == null) {
+      bufferLock.lock();
+      try {
+        current = buffer;
+        if (current == null) {
+          long start = userChangeRepository.findMaxSeq();
+          current = new ChangeRingBuffer(bufferCapacity, start);
+          buffer = current;
+          log.info("User change feed started after sequence number {}", start);
+        }
+      } finally {
+        bufferLock.unlock();
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Starts a change of a user, made now.
+   *
+   * @param type The type of the change.
+   * @param id   The ID of the user.
+   * @return The builder of the change.
+   */
+  private static UserChangeDto.UserChangeDtoBuilder change(UserChangeType type, long id) {
+    return UserChangeDto.builder()
+        .type(type)
+        .userId(id)
+        .changedAt(Instant.now());
+  }
+
+  /**
+   * Maps a change to its outbox row.
+   *
+   * @param change The change.
+   * @return The outbox row.
+   */
+  private UserChange toRow(UserChangeDto change) {
+    Object payload = change.getUser() != null ? change.getUser() : change.getPatch();
+    try {
+      return UserChange.builder()
+          .seq(change.getSeq())
+          .userId(change.getUserId())
+          .changeType(change.getType())
+          .changedAt(change.getChangedAt())
+          .payload(payload == null ? null : objectMapper.writeValueAsString(payload))
+          .build();
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Failed to write change " + change.getSeq(), ex);
+    }
+  }
+
+  /**
+   * Maps an outbox row to its change.
+   *
+   * @param row The outbox row.
+   * @return The change.
+   */
+  private UserChangeDto toDto(UserChange row) {
+    String payload = row.getPayload();
+    try {
+      return change(row.getChangeType(), row.getUserId())
+          .seq(row.getSeq())
+          .changedAt(row.getChangedAt())
+          .user(row.getChangeType() == UserChangeType.SAVED
+              ? objectMapper.readValue(payload, UserDto.class) : null)
+          .patch(row.getChangeType() == UserChangeType.PATCHED
+              ? objectMapper.readValue(payload, UserPatchDto.class) : null)
+          .build();
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Failed to read change " + row.getSeq(), ex);
+    }
+  }
+}
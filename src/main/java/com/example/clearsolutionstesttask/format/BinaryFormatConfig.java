@@ -0,0 +1,46 @@
+package com.example.clearsolutionstesttask.format;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings of the request and response bodies, selected by content negotiation:
+ * {@code application/cbor} and {@code application/x-jackson-smile} in the {@code Accept} and
+ * {@code Content-Type} headers. Both converters share the Jackson configuration of the JSON one,
+ * so the same fields and date formats are used whatever the encoding, and both honor the user
+ * fields filter of {@link FieldFilterConfig}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BinaryFormatConfig {
+
+  /**
+   * Creates the CBOR converter, replacing the default one of Spring MVC.
+   *
+   * @param builder The object mapper builder configured by Spring Boot.
+   * @return The CBOR converter.
+   */
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(FieldFilterConfig.withUserFieldsFilter(
+        builder.factory(new CBORFactory()).build()));
+  }
+
+  /**
+   * Creates the Smile converter, replacing the default one of Spring MVC.
+   *
+   * @param builder The object mapper builder configured by Spring Boot.
+   * @return The Smile converter.
+   */
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(FieldFilterConfig.withUserFieldsFilter(
+        builder.factory(new SmileFactory()).build()));
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.clearsolutionstesttask.format;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Property filters of the response bodies. {@link UserDto} carries the {@link #USER_FIELDS}
+ * filter, which a response restricts to some fields through {@code MappingJacksonValue}; unless
+ * set, the filter writes all fields, so every encoding and the streamed responses are unchanged.
+ * The filter is attached by a mix-in of the application object mapper and of the binary
+ * converters only, so that other object mappers keep writing user DTOs without a filter provider.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FieldFilterConfig {
+
+  public static final String USER_FIELDS = "userFields";
+
+  /**
+   * Attaches the user fields filter to {@link UserDto} and registers an empty filter provider
+   * that writes all properties for filters not set by the response.
+   *
+   * @return The customizer of the object mapper builder.
+   */
+  @Bean
+  public Jackson2ObjectMapperBuilderCustomizer fieldFilterCustomizer() {
+    return builder -> builder
+        .mixIn(UserDto.class, UserFieldsMixIn.class)
+        .filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+  }
+
+  /**
+   * Attaches the user fields filter to {@link UserDto} on an object mapper of a response encoding,
+   * with the same filter provider as the application object mapper, so that the encoding writes
+   * only the fields a response is restricted to whether or not its builder was customized.
+   *
+   * @param objectMapper The object mapper.
+   * @param <M>          The type of the object mapper.
+   * @return The object mapper.
+   */
+  public static <M extends ObjectMapper> M withUserFieldsFilter(M objectMapper) {
+    objectMapper.addMixIn(UserDto.class, UserFieldsMixIn.class);
+    objectMapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+    return objectMapper;
+  }
+
+  /**
+   * Mix-in attaching the user fields filter.
+   */
+  @JsonFilter(USER_FIELDS)
+  private abstract static class UserFieldsMixIn {
+  }
+}
@@ -0,0 +1,36 @@
+package com.example.clearsolutionstesttask.importer;
+
+import java.nio.charset.StandardCharsets;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Raw bytes of consecutive CSV lines, as cut from the file by {@link CsvChunkReader}. Decoding is
+ * left to the validation workers so that the reading thread only scans for line breaks.
+ */
+@Getter
+@RequiredArgsConstructor
+class CsvChunk {
+
+  private final long firstLineNumber;
+  private final long endOffset;
+  private final byte[] data;
+  private final int[] lineStarts;
+  private final int[] lineEnds;
+  private final int lineCount;
+
+  /**
+   * Decodes one line of the chunk, without its line break.
+   *
+   * @param index The position of the line within the chunk.
+   * @return The decoded line.
+   */
+  String line(int index) {
+    int start = lineStarts[index];
+    int end = lineEnds[index];
+    if (end > start && data[end - 1] == '\r') {
+      end--;
+    }
+    return new String(data, start, end - start, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,113 @@
+package com.example.clearsolutionstesttask.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Cuts a CSV file into chunks of whole lines, reading it through a fixed-size NIO buffer so that
+ * memory use does not depend on the file size.
+ */
+class CsvChunkReader implements Closeable {
+
+  private static final int INITIAL_CHUNK_CAPACITY = 64 * 1024;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final int linesPerChunk;
+
+  private long lineNumber;
+
+  /**
+   * Opens the file at the given offset.
+   *
+   * @param file          The CSV file.
+   * @param offset        The offset of the first line to read.
+   * @param lineNumber    The number of the first line to read.
+   * @param linesPerChunk The maximum number of lines of a chunk.
+   * @param bufferSize    The size of the read buffer in bytes.
+   * @throws IOException if the file cannot be opened.
+   */
+  CsvChunkReader(Path file, long offset, long lineNumber, int linesPerChunk, int bufferSize)
+      throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.channel.position(offset);
+    this.buffer = ByteBuffer.allocate(bufferSize).flip();
+    this.lineNumber = lineNumber;
+    this.linesPerChunk = linesPerChunk;
+  }
+
+  /**
+   * Reads the next chunk of lines. A last line without a line break is part of the last chunk.
+   *
+   * @return The next chunk, or {@code null} once the whole file has been read.
+   * @throws IOException if the file cannot be read.
+   */
+  CsvChunk next() throws IOException {
+    byte[] data = new byte[INITIAL_CHUNK_CAPACITY];
+    int[] lineStarts = new int[linesPerChunk];
+    int[] lineEnds = new int[linesPerChunk];
+    int length = 0;
+    int lineStart = 0;
+    int lines = 0;
+
+    while (lines < linesPerChunk) {
+      if (!buffer.hasRemaining() && !fill()) {
+        if (length > lineStart) {
+          lineStarts[lines] = lineStart;
+          lineEnds[lines++] = length;
+        }
+        break;
+      }
+      byte[] source = buffer.array();
+      int start = buffer.position();
+      int limit = buffer.limit();
+      int newline = start;
+      while (newline < limit && source[newline] != '\n') {
+        newline++;
+      }
+      int end = newline < limit ? newline + 1 : limit;
+      if (length + end - start > data.length) {
+        data = Arrays.copyOf(data, Math.max(data.length * 2, length + end - start));
+      }
+      System.arraycopy(source, start, data, length, end - start);
+      length += end - start;
+      buffer.position(end);
+      if (newline < limit) {
+        lineStarts[lines] = lineStart;
+        lineEnds[lines++] = length - 1;
+        lineStart = length;
+      }
+    }
+
+    if (lines == 0) {
+      return null;
+    }
+    long firstLineNumber = lineNumber;
+    lineNumber += lines;
+    long endOffset = channel.position() - buffer.remaining();
+    return new CsvChunk(firstLineNumber, endOffset, data, lineStarts, lineEnds, lines);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Refills the read buffer.
+   *
+   * @return {@code false} if the end of the file has been reached.
+   * @throws IOException if the file cannot be read.
+   */
+  private boolean fill() throws IOException {
+    buffer.clear();
+    int read = channel.read(buffer);
+    buffer.flip();
+    return read >= 0;
+  }
+}
@@ -0,0 +1,119 @@
+package com.example.clearsolutionstesttask.importer;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses CSV lines into user DTOs, locating the columns by the names found in the header line.
+ * Fields may be quoted; quoted fields spanning several lines are not supported.
+ */
+class CsvRecordParser {
+
+  private static final String[] COLUMNS =
+      {"email", "firstname", "lastname", "birthdate", "address", "phonenumber"};
+  private static final int REQUIRED_COLUMNS = 4;
+
+  private final int[] positions = new int[COLUMNS.length];
+
+  /**
+   * Creates a parser for the given header line.
+   *
+   * @param header The header line of the file.
+   * @throws IllegalArgumentException if a required column is missing from the header.
+   */
+  CsvRecordParser(String header) {
+    List<String> names = split(header);
+    for (int column = 0; column < COLUMNS.length; column++) {
+      positions[column] = -1;
+      for (int i = 0; i < names.size(); i++) {
+        if (names.get(i).trim().toLowerCase(Locale.ROOT).equals(COLUMNS[column])) {
+          positions[column] = i;
+        }
+      }
+      if (positions[column] < 0 && column < REQUIRED_COLUMNS) {
+        throw new IllegalArgumentException("Missing CSV column " + COLUMNS[column]);
+      }
+    }
+  }
+
+  /**
+   * Parses one line into a user DTO. Field values are not validated here.
+   *
+   * @param line The CSV line.
+   * @return The user DTO.
+   * @throws IllegalArgumentException if the line cannot be parsed.
+   */
+  UserDto parse(String line) {
+    List<String> fields = split(line);
+    String birthDate = field(fields, 3);
+    try {
+      return UserDto.builder()
+          .email(field(fields, 0))
+          .firstName(field(fields, 1))
+          .lastName(field(fields, 2))
+          .birthDate(birthDate == null ? null : LocalDate.parse(birthDate))
+          .address(field(fields, 4))
+          .phoneNumber(field(fields, 5))
+          .build();
+    } catch (DateTimeParseException ex) {
+      throw new IllegalArgumentException("birthDate: Invalid date " + birthDate, ex);
+    }
+  }
+
+  /**
+   * Returns the value of a known column, {@code null} if it is absent or empty.
+   *
+   * @param fields The fields of the line.
+   * @param column The index of the column in {@link #COLUMNS}.
+   * @return The field value.
+   */
+  private String field(List<String> fields, int column) {
+    int position = positions[column];
+    if (position < 0 || position >= fields.size() || fields.get(position).isEmpty()) {
+      return null;
+    }
+    return fields.get(position);
+  }
+
+  /**
+   * Splits a CSV line into fields, honouring double quotes and escaped quotes.
+   *
+   * @param line The CSV line.
+   * @return The unquoted fields.
+   * @throws IllegalArgumentException if a quoted field is not terminated.
+   */
+  static List<String> split(String line) {
+    List<String> fields = new ArrayList<>(COLUMNS.length);
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      throw new IllegalArgumentException("Unterminated quoted field");
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
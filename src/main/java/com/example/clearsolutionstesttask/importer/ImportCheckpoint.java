@@ -0,0 +1,61 @@
+package com.example.clearsolutionstesttask.importer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Position in an import file up to which every line has been written or rejected.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ImportCheckpoint {
+
+  /**
+   * Checkpoint of an import that has not started yet: the header is line 1.
+   */
+  public static final ImportCheckpoint START = new ImportCheckpoint(0, 1);
+
+  private final long offset;
+  private final long lineNumber;
+
+  /**
+   * Loads a checkpoint saved by {@link #save(Path)}.
+   *
+   * @param file The checkpoint file.
+   * @return The saved checkpoint, or {@link #START} if the file does not exist.
+   * @throws IOException if the file cannot be read.
+   */
+  public static ImportCheckpoint load(Path file) throws IOException {
+    if (!Files.exists(file)) {
+      return START;
+    }
+    String[] values = Files.readString(file, StandardCharsets.US_ASCII).trim().split(" ");
+    return new ImportCheckpoint(Long.parseLong(values[0]), Long.parseLong(values[1]));
+  }
+
+  /**
+   * Saves the checkpoint, replacing the previous one atomically.
+   *
+   * @param file The checkpoint file.
+   * @throws IOException if the file cannot be written.
+   */
+  public void save(Path file) throws IOException {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    Files.writeString(temp, offset + " " + lineNumber, StandardCharsets.US_ASCII);
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Checks whether the import has not started yet.
+   *
+   * @return {@code true} if no line has been processed.
+   */
+  public boolean isStart() {
+    return offset == 0;
+  }
+}
@@ -0,0 +1,69 @@
+package com.example.clearsolutionstesttask.importer;
+
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+
+/**
+ * Progress and outcome of a CSV import. Updated by the writer thread only.
+ */
+@Getter
+public class ImportReport {
+
+  private final long startOffset;
+  private final long fileSize;
+  private final long startNanos = System.nanoTime();
+
+  private volatile long offset;
+  private volatile long imported;
+  private volatile long rejected;
+
+  /**
+   * Creates the report of an import.
+   *
+   * @param startOffset The offset the import started or resumed from.
+   * @param fileSize    The size of the imported file.
+   */
+  public ImportReport(long startOffset, long fileSize) {
+    this.startOffset = startOffset;
+    this.fileSize = fileSize;
+    this.offset = startOffset;
+  }
+
+  /**
+   * Records a chunk that has been written.
+   *
+   * @param endOffset     The offset right after the chunk.
+   * @param importedCount The number of imported rows of the chunk.
+   * @param rejectedCount The number of rejected rows of the chunk.
+   */
+  void record(long endOffset, int importedCount, int rejectedCount) {
+    offset = endOffset;
+    imported += importedCount;
+    rejected += rejectedCount;
+  }
+
+  /**
+   * Returns the number of rows processed per second since the import started.
+   *
+   * @return The import throughput.
+   */
+  public double getRowsPerSecond() {
+    double seconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    return seconds == 0 ? 0 : (imported + rejected) / seconds;
+  }
+
+  /**
+   * Returns the share of the file processed so far.
+   *
+   * @return The progress in percent.
+   */
+  public double getProgressPercent() {
+    return fileSize == 0 ? 100 : offset * 100.0 / fileSize;
+  }
+
+  @Override
+  public String toString() {
+    return "%.1f%% of %d bytes, %d rows imported, %d rejected, %.0f rows/s"
+        .formatted(getProgressPercent(), fileSize, imported, rejected, getRowsPerSecond());
+  }
+}
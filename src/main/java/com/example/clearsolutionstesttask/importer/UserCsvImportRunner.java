@@ -0,0 +1,40 @@
+package com.example.clearsolutionstesttask.importer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a CSV import on startup when a file is given with {@code --user.import.file=<path>}. The
+ * import starts once the application is ready and the email filter is built, so that the email
+ * checks of the imported users are answered by the filter; the indexes and aggregates built at the
+ * same time pick up the imported users through the write events.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty("user.import.file")
+public class UserCsvImportRunner {
+
+  private final UserCsvImporter importer;
+
+  @Value("${user.import.file}")
+  private Path file;
+
+  /**
+   * Imports the file.
+   *
+   * @throws IOException if the import fails.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void run() throws IOException {
+    importer.importFile(file);
+  }
+}
@@ -0,0 +1,297 @@
+package com.example.clearsolutionstesttask.importer;
+
+import com.example.clearsolutionstesttask.dto.BatchItemResultDto;
+import com.example.clearsolutionstesttask.dto.BatchItemStatus;
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.service.UserBatchService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports users from a CSV file of any size.
+ *
+ * <p>The calling thread cuts the file into chunks of lines, worker threads decode and validate
+ * the chunks in parallel, and a single writer thread stores them in file order through
+ * {@link UserBatchService}. Chunks are handed to the writer through a bounded queue, so reading
+ * stops whenever the database falls behind. After every stored chunk the writer saves a
+ * checkpoint next to the file ({@code <file>.checkpoint}), which a later run resumes from, and
+ * appends the rejected rows with their line numbers to {@code <file>.rejected}. A chunk stored
+ * right before a crash may be imported again on resume. The checkpoint is deleted once the whole
+ * file is imported, so that importing the file again starts over.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCsvImporter {
+
+  private static final Logger log = LogManager.getLogger(UserCsvImporter.class);
+  private static final Future<ValidatedChunk> END = CompletableFuture.completedFuture(null);
+
+  private final UserBatchService userBatchService;
+  private final Validator validator;
+
+  @Value("${user.import.workers}")
+  private int workers;
+  @Value("${user.import.chunk-lines}")
+  private int chunkLines;
+  @Value("${user.import.queue-capacity}")
+  private int queueCapacity;
+  @Value("${user.import.buffer-size}")
+  private int bufferSize;
+  @Value("${user.import.progress-interval}")
+  private Duration progressInterval;
+
+  /**
+   * Imports the file, resuming from its checkpoint if a previous run was interrupted, and deletes
+   * the checkpoint on success.
+   *
+   * @param file The CSV file, starting with a header line.
+   * @return The report of the import.
+   * @throws IOException if the file cannot be read or the import fails.
+   */
+  public ImportReport importFile(Path file) throws IOException {
+    Path checkpointFile = sibling(file, ".checkpoint");
+    Path rejectedFile = sibling(file, ".rejected");
+
+    CsvChunk header = readHeader(file);
+    CsvRecordParser parser = new CsvRecordParser(header.line(0));
+    ImportCheckpoint start = ImportCheckpoint.load(checkpointFile);
+    if (start.isStart()) {
+      start = new ImportCheckpoint(header.getEndOffset(), 2);
+    }
+    ImportReport report = new ImportReport(start.getOffset(), Files.size(file));
+    log.info("Importing users from {} starting at line {}", file, start.getLineNumber());
+
+    BlockingQueue<Future<ValidatedChunk>> queue = new ArrayBlockingQueue<>(queueCapacity);
+    ExecutorService validators = Executors.newFixedThreadPool(workers);
+    ExecutorService writers = Executors.newSingleThreadExecutor();
+    try (CsvChunkReader reader = new CsvChunkReader(file, start.getOffset(),
+        start.getLineNumber(), chunkLines, bufferSize);
+        BufferedWriter rejectedWriter = Files.newBufferedWriter(rejectedFile,
+            StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      Future<?> writer = writers.submit(() -> {
+        drain(file, queue, rejectedWriter, checkpointFile, report);
+        return null;
+      });
+      CsvChunk chunk;
+      while ((chunk = reader.next()) != null) {
+        CsvChunk current = chunk;
+        enqueue(queue, validators.submit(() -> validate(parser, current)), writer);
+      }
+      enqueue(queue, END, writer);
+      writer.get();
+      Files.deleteIfExists(checkpointFile);
+    } catch (ExecutionException ex) {
+      throw new IOException("Import of %s failed".formatted(file), ex.getCause());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Import of %s interrupted".formatted(file), ex);
+    } finally {
+      validators.shutdownNow();
+      writers.shutdownNow();
+    }
+
+    log.info("Import of {} completed: {}", file, report);
+    return report;
+  }
+
+  /**
+   * Reads the header line of the file.
+   *
+   * @param file The CSV file.
+   * @return The chunk holding the header line.
+   * @throws IOException if the file cannot be read or is empty.
+   */
+  private CsvChunk readHeader(Path file) throws IOException {
+    try (CsvChunkReader reader = new CsvChunkReader(file, 0, 1, 1, bufferSize)) {
+      CsvChunk header = reader.next();
+      if (header == null) {
+        throw new IOException("Import file %s is empty".formatted(file));
+      }
+      return header;
+    }
+  }
+
+  /**
+   * Puts a chunk into the writer queue, waiting while the queue is full.
+   *
+   * @param queue  The writer queue.
+   * @param chunk  The chunk being validated.
+   * @param writer The writer task, checked so that a failed writer does not block reading.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   * @throws ExecutionException   if the writer has failed.
+   */
+  private void enqueue(BlockingQueue<Future<ValidatedChunk>> queue, Future<ValidatedChunk> chunk,
+      Future<?> writer) throws InterruptedException, ExecutionException {
+    while (!queue.offer(chunk, 1, TimeUnit.SECONDS)) {
+      if (writer.isDone()) {
+        writer.get();
+        throw new IllegalStateException("Import writer stopped");
+      }
+    }
+  }
+
+  /**
+   * Decodes, parses and validates the lines of a chunk. Runs on a worker thread.
+   *
+   * @param parser The parser of the file.
+   * @param chunk  The chunk to validate.
+   * @return The valid users and the rejected rows of the chunk.
+   */
+  private ValidatedChunk validate(CsvRecordParser parser, CsvChunk chunk) {
+    ValidatedChunk result = new ValidatedChunk(chunk.getEndOffset(),
+        chunk.getFirstLineNumber() + chunk.getLineCount(), chunk.getLineCount());
+    for (int i = 0; i < chunk.getLineCount(); i++) {
+      long lineNumber = chunk.getFirstLineNumber() + i;
+      String line = chunk.line(i);
+      if (line.isBlank()) {
+        continue;
+      }
+      UserDto userDto;
+      try {
+        userDto = parser.parse(line);
+      } catch (IllegalArgumentException ex) {
+        result.rejected.add(rejectedRow(lineNumber, ex.getMessage()));
+        continue;
+      }
+      Set<ConstraintViolation<UserDto>> violations = validator.validate(userDto);
+      if (violations.isEmpty()) {
+        result.valid.add(userDto);
+        result.validLines.add(lineNumber);
+      } else {
+        result.rejected.add(rejectedRow(lineNumber, violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "))));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Stores the validated chunks in file order until the end marker. Runs on the writer thread.
+   *
+   * @param file           The CSV file.
+   * @param queue          The writer queue.
+   * @param rejectedWriter The writer of the rejected rows file.
+   * @param checkpointFile The checkpoint file.
+   * @param report         The report of the import.
+   * @throws Exception if a chunk cannot be validated or stored.
+   */
+  private void drain(Path file, BlockingQueue<Future<ValidatedChunk>> queue,
+      BufferedWriter rejectedWriter, Path checkpointFile, ImportReport report) throws Exception {
+    long lastProgress = System.nanoTime();
+    ValidatedChunk chunk;
+    while ((chunk = queue.take().get()) != null) {
+      int imported = 0;
+      for (String row : chunk.rejected) {
+        rejectedWriter.write(row);
+        rejectedWriter.newLine();
+      }
+      int rejected = chunk.rejected.size();
+
+      if (!chunk.valid.isEmpty()) {
+        List<BatchItemResultDto> results = userBatchService.createAllValid(chunk.valid);
+        for (int i = 0; i < results.size(); i++) {
+          BatchItemResultDto result = results.get(i);
+          if (result.getStatus() == BatchItemStatus.CREATED) {
+            imported++;
+          } else {
+            rejectedWriter.write(rejectedRow(chunk.validLines.get(i), errors(result.getErrors())));
+            rejectedWriter.newLine();
+            rejected++;
+          }
+        }
+      }
+
+      rejectedWriter.flush();
+      new ImportCheckpoint(chunk.endOffset, chunk.nextLineNumber).save(checkpointFile);
+      report.record(chunk.endOffset, imported, rejected);
+      if (System.nanoTime() - lastProgress >= progressInterval.toNanos()) {
+        lastProgress = System.nanoTime();
+        log.info("Import of {} in progress: {}", file, report);
+      }
+    }
+  }
+
+  /**
+   * Formats a rejected row of the rejected rows file.
+   *
+   * @param lineNumber The line number of the row.
+   * @param reason     The reason of the rejection.
+   * @return The CSV line of the rejected row.
+   */
+  private String rejectedRow(long lineNumber, String reason) {
+    return lineNumber + ",\"" + String.valueOf(reason).replace("\"", "\"\"") + "\"";
+  }
+
+  /**
+   * Joins the errors of a batch item result.
+   *
+   * @param errors The errors by field.
+   * @return The joined errors.
+   */
+  private String errors(Map<String, String> errors) {
+    if (errors == null) {
+      return "Failed to store the user.";
+    }
+    return errors.entrySet().stream()
+        .map(error -> error.getKey() + ": " + error.getValue())
+        .sorted()
+        .collect(Collectors.joining("; "));
+  }
+
+  /**
+   * Resolves a file next to the imported one.
+   *
+   * @param file   The imported file.
+   * @param suffix The suffix appended to the file name.
+   * @return The sibling file.
+   */
+  private Path sibling(Path file, String suffix) {
+    return file.resolveSibling(file.getFileName() + suffix);
+  }
+
+  /**
+   * Validated content of a chunk, ready to be stored.
+   */
+  private static final class ValidatedChunk {
+
+    private final long endOffset;
+    private final long nextLineNumber;
+    private final List<UserDto> valid;
+    private final List<Long> validLines;
+    private final List<String> rejected = new ArrayList<>();
+
+    private ValidatedChunk(long endOffset, long nextLineNumber, int lineCount) {
+      this.endOffset = endOffset;
+      this.nextLineNumber = nextLineNumber;
+      this.valid = new ArrayList<>(lineCount);
+      this.validLines = new ArrayList<>(lineCount);
+    }
+  }
+}
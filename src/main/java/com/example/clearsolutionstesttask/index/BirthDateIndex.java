@@ -0,0 +1,205 @@
+package com.example.clearsolutionstesttask.index;
+
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-process secondary index of users by birthdate, enabled with
+ * {@code user.range-query.mode=index}. Keys are epoch days and values are user IDs, both kept in
+ * primitive arrays. The index is rebuilt from the database once the application is ready and kept
+ * up to date by the user write events once their transaction commits, so rolled back writes leave
+ * it unchanged; until the first rebuild completes it reports itself as not ready and range queries
+ * go to the database.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "user.range-query.mode", havingValue = "index")
+public class BirthDateIndex {
+
+  private static final Logger log = LogManager.getLogger(BirthDateIndex.class);
+  private static final int ABSENT = Integer.MIN_VALUE;
+
+  private final UserStreamRepository userStreamRepository;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private IntLongSortedIndex index = new IntLongSortedIndex();
+  private LongIntHashMap epochDaysById = new LongIntHashMap();
+  private List<Runnable> pendingChanges;
+  private volatile boolean ready;
+
+  /**
+   * Checks whether the index has been built and can answer queries.
+   *
+   * @return {@code true} if the index is ready.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Returns the IDs of the users whose birthdate falls within the range.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @return The user IDs, in birthdate and ID order.
+   */
+  public long[] findIds(LocalDate fromDate, LocalDate toDate) {
+    lock.readLock().lock();
+    try {
+      return index.values(epochDay(fromDate), epochDay(toDate));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of indexed users.
+   *
+   * @return The index size.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return index.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Rebuilds the index from the database. Writes made while the rows are read are applied again
+   * on top of the new index, so none of them is lost whatever the scan has seen.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    lock.writeLock().lock();
+    try {
+      pendingChanges = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    long start = System.nanoTime();
+    IntLongSortedIndex newIndex = new IntLongSortedIndex();
+    LongIntHashMap newEpochDaysById = new LongIntHashMap();
+    userStreamRepository.forEachBirthDate((birthDate, id) -> {
+      int epochDay = epochDay(birthDate);
+      newIndex.append(epochDay, id);
+      newEpochDaysById.put(id, epochDay);
+    });
+
+    lock.writeLock().lock();
+    try {
+      index = newIndex;
+      epochDaysById = newEpochDaysById;
+      pendingChanges.forEach(Runnable::run);
+      pendingChanges = null;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    ready = true;
+    log.info("Birth date index rebuilt with {} users in {} ms", newIndex.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Indexes a saved user, replacing its previous entry.
+   *
+   * @param event The event of the saved user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserSaved(UserSavedEvent event) {
+    User user = event.getUser();
+    put(user.getId(), user.getBirthDate());
+  }
+
+  /**
+   * Moves a patched user whose birthdate has changed.
+   *
+   * @param event The event of the patched user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserPatched(UserPatchedEvent event) {
+    LocalDate birthDate = event.getPatch().getBirthDate();
+    if (birthDate != null) {
+      put(event.getId(), birthDate);
+    }
+  }
+
+  /**
+   * Removes the entries of deleted users.
+   *
+   * @param event The event of the deleted users.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    List<Long> ids = List.copyOf(event.getIds());
+    apply(() -> ids.forEach(this::removeEntry));
+  }
+
+  /**
+   * Indexes a user, replacing its previous entry.
+   *
+   * @param id        The ID of the user.
+   * @param birthDate The birthdate of the user.
+   */
+  private void put(long id, LocalDate birthDate) {
+    int epochDay = epochDay(birthDate);
+    apply(() -> {
+      removeEntry(id);
+      index.add(epochDay, id);
+      epochDaysById.put(id, epochDay);
+    });
+  }
+
+  /**
+   * Applies a change under the write lock, and records it if a rebuild is in progress.
+   *
+   * @param change The change of the index.
+   */
+  private void apply(Runnable change) {
+    lock.writeLock().lock();
+    try {
+      change.run();
+      if (pendingChanges != null) {
+        pendingChanges.add(change);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the entry of a user, if any. Must be called under the write lock.
+   *
+   * @param id The ID of the user.
+   */
+  private void removeEntry(long id) {
+    int epochDay = epochDaysById.get(id, ABSENT);
+    if (epochDay != ABSENT) {
+      index.remove(epochDay, id);
+      epochDaysById.remove(id);
+    }
+  }
+
+  private static int epochDay(LocalDate date) {
+    return Math.toIntExact(date.toEpochDay());
+  }
+}
@@ -0,0 +1,150 @@
+package com.example.clearsolutionstesttask.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of strings that many threads can add to and query at once without locks. The bits
+ * are kept in an {@link AtomicLongArray} and set by compare-and-set. The bit positions of a value
+ * are derived from one 64-bit hash by double hashing. Values cannot be removed.
+ */
+public class ConcurrentBloomFilter {
+
+  private static final double LN2 = Math.log(2);
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashCount;
+  private final LongAdder bitsSet = new LongAdder();
+
+  /**
+   * Creates an empty filter sized for the expected number of values.
+   *
+   * @param expectedInsertions The number of values the filter is sized for.
+   * @param falsePositiveRate  The rate of false positives once the expected number of values has
+   *                           been added.
+   */
+  public ConcurrentBloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long insertions = Math.max(1, expectedInsertions);
+    long bits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+    int wordCount = Math.toIntExact(Math.max(1, (bits + 63) / 64));
+    this.words = new AtomicLongArray(wordCount);
+    this.bitCount = wordCount * 64L;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * LN2));
+  }
+
+  /**
+   * Adds a value.
+   *
+   * @param value The value.
+   */
+  public void add(String value) {
+    long hash = hash(value);
+    long step = mix(hash) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      setBit(Long.remainderUnsigned(hash + i * step, bitCount));
+    }
+  }
+
+  /**
+   * Checks whether a value may have been added.
+   *
+   * @param value The value.
+   * @return {@code false} if the value has certainly not been added.
+   */
+  public boolean mightContain(String value) {
+    long hash = hash(value);
+    long step = mix(hash) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Long.remainderUnsigned(hash + i * step, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of bits of the filter.
+   *
+   * @return The number of bits.
+   */
+  public long getBitCount() {
+    return bitCount;
+  }
+
+  /**
+   * Returns the number of bits set per value.
+   *
+   * @return The number of hash functions.
+   */
+  public int getHashCount() {
+    return hashCount;
+  }
+
+  /**
+   * Returns the number of bits set.
+   *
+   * @return The number of bits set.
+   */
+  public long getBitsSet() {
+    return bitsSet.sum();
+  }
+
+  /**
+   * Estimates the current rate of false positives from the share of bits set.
+   *
+   * @return The probability that a value never added is reported as possibly added.
+   */
+  public double expectedFalsePositiveRate() {
+    return Math.pow((double) getBitsSet() / bitCount, hashCount);
+  }
+
+  /**
+   * Sets a bit, counting it if it was not set yet.
+   *
+   * @param bit The position of the bit.
+   */
+  private void setBit(long bit) {
+    int index = (int) (bit >>> 6);
+    long mask = 1L << bit;
+    long word;
+    do {
+      word = words.get(index);
+      if ((word & mask) != 0) {
+        return;
+      }
+    } while (!words.compareAndSet(index, word, word | mask));
+    bitsSet.increment();
+  }
+
+  /**
+   * Hashes a string to 64 bits: FNV-1a over its characters, finished with the MurmurHash3 mixer.
+   *
+   * @param value The string.
+   * @return The hash.
+   */
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  /**
+   * Mixes the bits of a hash (MurmurHash3 finalizer).
+   *
+   * @param hash The hash.
+   * @return The mixed hash.
+   */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
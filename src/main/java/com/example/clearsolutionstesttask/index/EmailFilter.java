@@ -0,0 +1,206 @@
+package com.example.clearsolutionstesttask.index;
+
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.repository.UserRepository;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Email uniqueness check in front of the database. A {@link ConcurrentBloomFilter} of all emails
+ * answers most checks of new emails on its own; only emails it may contain are looked up with an
+ * indexed query. The filter is built from the database once the application is ready and on
+ * demand, while checks and writes go on, and the user write events add the new emails once their
+ * transaction commits, so rolled back writes add nothing; until then the unique email index still
+ * rejects a concurrent duplicate. Emails of deleted users and replaced emails stay in the filter
+ * until the next rebuild, which only raises the rate of false positives. Until the first build
+ * completes every check goes to the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailFilter {
+
+  private static final Logger log = LogManager.getLogger(EmailFilter.class);
+
+  private final UserRepository userRepository;
+  private final UserStreamRepository userStreamRepository;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Lock rebuildLock = new ReentrantLock();
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder possibleHits = new LongAdder();
+  private final LongAdder falsePositives = new LongAdder();
+
+  @Value("${user.email-filter.expected-users}")
+  private long expectedUsers;
+  @Value("${user.email-filter.false-positive-rate}")
+  private double falsePositiveRate;
+
+  private volatile ConcurrentBloomFilter filter;
+  private List<String> pendingEmails;
+
+  /**
+   * Checks whether an email belongs to another user than the given one.
+   *
+   * @param email  The email.
+   * @param userId The ID of the user the email is checked for, 0 for a new user.
+   * @return {@code true} if another user has the email.
+   */
+  public boolean isTaken(String email, long userId) {
+    ConcurrentBloomFilter current = filter;
+    if (current != null) {
+      lookups.increment();
+      if (!current.mightContain(email)) {
+        return false;
+      }
+      possibleHits.increment();
+    }
+    boolean taken = userRepository.existsByEmailAndIdNot(email, userId);
+    if (current != null && !taken) {
+      falsePositives.increment();
+    }
+    return taken;
+  }
+
+  /**
+   * Rebuilds the filter from the database, sized for twice the current number of users but at
+   * least for the expected number. Emails added while the rows are read are added again to the
+   * new filter, so none of them is lost whatever the scan has seen. Rebuilds run one at a time: a
+   * rebuild requested while another one runs waits for it and then reads the rows again. The
+   * first build runs ahead of the other listeners of the ready event, such as the startup import.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void rebuild() {
+    rebuildLock.lock();
+    try {
+      rebuildFilter();
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  /**
+   * Builds the new filter and swaps it in, with no other rebuild running.
+   */
+  private void rebuildFilter() {
+    lock.writeLock().lock();
+    try {
+      pendingEmails = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    long start = System.nanoTime();
+    ConcurrentBloomFilter newFilter = new ConcurrentBloomFilter(
+        Math.max(expectedUsers, 2 * userRepository.count()), falsePositiveRate);
+    LongAdder emails = new LongAdder();
+    userStreamRepository.forEachEmail(email -> {
+      newFilter.add(email);
+      emails.increment();
+    });
+
+    lock.writeLock().lock();
+    try {
+      pendingEmails.forEach(newFilter::add);
+      pendingEmails = null;
+      filter = newFilter;
+      lookups.reset();
+      possibleHits.reset();
+      falsePositives.reset();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("Email filter rebuilt with {} emails in {} ms", emails.sum(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Adds the email of a saved user.
+   *
+   * @param event The event of the saved user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserSaved(UserSavedEvent event) {
+    add(event.getUser().getEmail());
+  }
+
+  /**
+   * Adds the new email of a patched user.
+   *
+   * @param event The event of the patched user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserPatched(UserPatchedEvent event) {
+    String email = event.getPatch().getEmail();
+    if (email != null) {
+      add(email);
+    }
+  }
+
+  /**
+   * Returns the size and the false positive rates of the filter.
+   *
+   * @return The statistics by name.
+   */
+  public Map<String, Object> stats() {
+    ConcurrentBloomFilter current = filter;
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("ready", current != null);
+    if (current == null) {
+      return stats;
+    }
+    long misses = lookups.sum() - possibleHits.sum();
+    long falsePositiveCount = falsePositives.sum();
+    stats.put("bits", current.getBitCount());
+    stats.put("hashFunctions", current.getHashCount());
+    stats.put("bitsSet", current.getBitsSet());
+    stats.put("expectedFalsePositiveRate", current.expectedFalsePositiveRate());
+    stats.put("lookups", lookups.sum());
+    stats.put("possibleHits", possibleHits.sum());
+    stats.put("falsePositives", falsePositiveCount);
+    stats.put("falsePositiveRate", misses + falsePositiveCount == 0
+        ? 0.0 : (double) falsePositiveCount / (misses + falsePositiveCount));
+    return stats;
+  }
+
+  /**
+   * Adds an email to the filter, and records it if a rebuild is in progress.
+   *
+   * @param email The email.
+   */
+  private void add(String email) {
+    lock.readLock().lock();
+    try {
+      ConcurrentBloomFilter current = filter;
+      if (current != null) {
+        current.add(email);
+      }
+      if (pendingEmails != null) {
+        synchronized (pendingEmails) {
+          pendingEmails.add(email);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+}
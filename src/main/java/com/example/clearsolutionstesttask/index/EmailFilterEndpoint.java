@@ -0,0 +1,41 @@
+package com.example.clearsolutionstesttask.index;
+
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exposing the email filter at {@code /actuator/emailfilter}; a POST rebuilds
+ * the filter from the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "emailfilter")
+public class EmailFilterEndpoint {
+
+  private final EmailFilter emailFilter;
+
+  /**
+   * Returns the size and the false positive rates of the email filter.
+   *
+   * @return The statistics by name.
+   */
+  @ReadOperation
+  public Map<String, Object> stats() {
+    return emailFilter.stats();
+  }
+
+  /**
+   * Rebuilds the email filter from the database.
+   *
+   * @return The statistics of the rebuilt filter.
+   */
+  @WriteOperation
+  public Map<String, Object> rebuild() {
+    emailFilter.rebuild();
+    return emailFilter.stats();
+  }
+}
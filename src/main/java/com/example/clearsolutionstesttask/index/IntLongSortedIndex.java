@@ -0,0 +1,198 @@
+package com.example.clearsolutionstesttask.index;
+
+import java.util.Arrays;
+
+/**
+ * Sorted multiset of {@code (int key, long value)} pairs kept in primitive arrays. Pairs are
+ * stored in fixed-size blocks found through a small block directory, so an insert or a removal
+ * only shifts the entries of one block. Not thread-safe.
+ */
+public class IntLongSortedIndex {
+
+  private static final int BLOCK_CAPACITY = 1024;
+
+  private Block[] blocks = {new Block()};
+  private int blockCount = 1;
+  private int size;
+
+  /**
+   * Adds a pair to the index.
+   *
+   * @param key   The key.
+   * @param value The value.
+   */
+  public void add(int key, long value) {
+    int blockIndex = findBlock(key, value);
+    Block block = blocks[blockIndex];
+    if (block.size == BLOCK_CAPACITY) {
+      Block upper = block.split();
+      insertBlock(blockIndex + 1, upper);
+      if (compare(key, value, upper.keys[0], upper.values[0]) >= 0) {
+        block = upper;
+      }
+    }
+    block.insert(block.lowerBound(key, value), key, value);
+    size++;
+  }
+
+  /**
+   * Appends a pair that is not less than every pair of the index, without any search. Used to
+   * bulk load pairs that are already sorted.
+   *
+   * @param key   The key.
+   * @param value The value.
+   */
+  public void append(int key, long value) {
+    Block block = blocks[blockCount - 1];
+    if (block.size == BLOCK_CAPACITY) {
+      block = new Block();
+      insertBlock(blockCount, block);
+    }
+    block.insert(block.size, key, value);
+    size++;
+  }
+
+  /**
+   * Removes one occurrence of a pair from the index.
+   *
+   * @param key   The key.
+   * @param value The value.
+   * @return {@code true} if the pair was present.
+   */
+  public boolean remove(int key, long value) {
+    int blockIndex = findBlock(key, value);
+    Block block = blocks[blockIndex];
+    int position = block.lowerBound(key, value);
+    if (position == block.size || block.keys[position] != key || block.values[position] != value) {
+      return false;
+    }
+    block.remove(position);
+    size--;
+    if (block.size == 0 && blockCount > 1) {
+      System.arraycopy(blocks, blockIndex + 1, blocks, blockIndex, blockCount - blockIndex - 1);
+      blocks[--blockCount] = null;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the values of all pairs whose key lies within the range, in key and value order.
+   *
+   * @param fromKey The lowest key, inclusive.
+   * @param toKey   The highest key, inclusive.
+   * @return The values of the matching pairs.
+   */
+  public long[] values(int fromKey, int toKey) {
+    long[] result = new long[16];
+    int count = 0;
+    int blockIndex = findBlock(fromKey, Long.MIN_VALUE);
+    int position = blocks[blockIndex].lowerBound(fromKey, Long.MIN_VALUE);
+    for (; blockIndex < blockCount; blockIndex++, position = 0) {
+      Block block = blocks[blockIndex];
+      for (; position < block.size; position++) {
+        if (block.keys[position] > toKey) {
+          return Arrays.copyOf(result, count);
+        }
+        if (count == result.length) {
+          result = Arrays.copyOf(result, count * 2);
+        }
+        result[count++] = block.values[position];
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the block where the pair belongs: the last block whose first pair is not greater.
+   *
+   * @param key   The key.
+   * @param value The value.
+   * @return The index of the block.
+   */
+  private int findBlock(int key, long value) {
+    int low = 1;
+    int high = blockCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      Block block = blocks[middle];
+      if (compare(block.keys[0], block.values[0], key, value) <= 0) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low - 1;
+  }
+
+  /**
+   * Inserts a block into the directory.
+   *
+   * @param index The position of the new block.
+   * @param block The new block.
+   */
+  private void insertBlock(int index, Block block) {
+    if (blockCount == blocks.length) {
+      blocks = Arrays.copyOf(blocks, blockCount * 2);
+    }
+    System.arraycopy(blocks, index, blocks, index + 1, blockCount - index);
+    blocks[index] = block;
+    blockCount++;
+  }
+
+  private static int compare(int key1, long value1, int key2, long value2) {
+    int result = Integer.compare(key1, key2);
+    return result != 0 ? result : Long.compare(value1, value2);
+  }
+
+  /**
+   * Sorted run of at most {@link #BLOCK_CAPACITY} pairs.
+   */
+  private static final class Block {
+
+    private final int[] keys = new int[BLOCK_CAPACITY];
+    private final long[] values = new long[BLOCK_CAPACITY];
+    private int size;
+
+    private int lowerBound(int key, long value) {
+      int low = 0;
+      int high = size;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (compare(keys[middle], values[middle], key, value) < 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private void insert(int position, int key, long value) {
+      System.arraycopy(keys, position, keys, position + 1, size - position);
+      System.arraycopy(values, position, values, position + 1, size - position);
+      keys[position] = key;
+      values[position] = value;
+      size++;
+    }
+
+    private void remove(int position) {
+      System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+      System.arraycopy(values, position + 1, values, position, size - position - 1);
+      size--;
+    }
+
+    private Block split() {
+      Block upper = new Block();
+      int half = size / 2;
+      upper.size = size - half;
+      System.arraycopy(keys, half, upper.keys, 0, upper.size);
+      System.arraycopy(values, half, upper.values, 0, upper.size);
+      size = half;
+      return upper;
+    }
+  }
+}
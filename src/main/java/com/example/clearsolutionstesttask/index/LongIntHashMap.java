@@ -0,0 +1,155 @@
+package com.example.clearsolutionstesttask.index;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} keys to {@code int} values, without boxing. Key
+ * {@code 0} is reserved to mark free slots. Not thread-safe.
+ */
+public class LongIntHashMap {
+
+  private static final int MIN_CAPACITY = 16;
+  private static final double MAX_LOAD = 0.6;
+
+  private long[] keys;
+  private int[] values;
+  private int size;
+
+  public LongIntHashMap() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * Creates a map able to hold the given number of entries without resizing.
+   *
+   * @param expectedSize The expected number of entries.
+   */
+  public LongIntHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit((int) Math.max(MIN_CAPACITY, expectedSize / MAX_LOAD));
+    keys = new long[capacity * 2];
+    values = new int[capacity * 2];
+  }
+
+  /**
+   * Returns the value of the key.
+   *
+   * @param key          The key, not {@code 0}.
+   * @param defaultValue The value returned when the key is absent.
+   * @return The value of the key, or the default value.
+   */
+  public int get(long key, int defaultValue) {
+    int slot = find(key);
+    return keys[slot] == 0 ? defaultValue : values[slot];
+  }
+
+  /**
+   * Checks whether the key is present.
+   *
+   * @param key The key, not {@code 0}.
+   * @return {@code true} if the key is present.
+   */
+  public boolean containsKey(long key) {
+    return keys[find(key)] != 0;
+  }
+
+  /**
+   * Associates the value with the key.
+   *
+   * @param key   The key, not {@code 0}.
+   * @param value The value.
+   */
+  public void put(long key, int value) {
+    if (key == 0) {
+      throw new IllegalArgumentException("Key 0 is reserved");
+    }
+    int slot = find(key);
+    if (keys[slot] == 0) {
+      keys[slot] = key;
+      size++;
+      if (size > keys.length * MAX_LOAD) {
+        values[slot] = value;
+        resize();
+        return;
+      }
+    }
+    values[slot] = value;
+  }
+
+  /**
+   * Removes the key, shifting back the entries of its probe chain.
+   *
+   * @param key The key, not {@code 0}.
+   * @return {@code true} if the key was present.
+   */
+  public boolean remove(long key) {
+    int slot = find(key);
+    if (keys[slot] == 0) {
+      return false;
+    }
+    int mask = keys.length - 1;
+    int free = slot;
+    int next = (free + 1) & mask;
+    while (keys[next] != 0) {
+      int home = hash(keys[next]) & mask;
+      // The entry may move back to the free slot only if that does not pass its home slot.
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        values[free] = values[next];
+        free = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[free] = 0;
+    size--;
+    return true;
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void clear() {
+    Arrays.fill(keys, 0);
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the slot holding the key, or the free slot where it would be inserted.
+   *
+   * @param key The key.
+   * @return The slot of the key.
+   */
+  private int find(long key) {
+    int mask = keys.length - 1;
+    int slot = hash(key) & mask;
+    while (keys[slot] != 0 && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Doubles the capacity of the map.
+   */
+  private void resize() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new int[oldValues.length * 2];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = find(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
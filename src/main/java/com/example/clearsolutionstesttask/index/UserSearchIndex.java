@@ -0,0 +1,366 @@
+package com.example.clearsolutionstesttask.index;
+
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-process index for case-insensitive prefix search over the first name, last name and email of
+ * the users. Every distinct lower-cased value of a user is a term in a
+ * {@link ConcurrentSkipListSet} ordered by value and ID, so the users matching a prefix form one
+ * contiguous range of terms and a page of results costs a seek plus a scan of the page. Searches
+ * read the index without locking, writes are serialized. The index is rebuilt from the database
+ * once the application is ready and kept up to date by the user write events once their
+ * transaction commits, so rolled back writes leave it unchanged; until the first rebuild completes
+ * it reports itself as not ready.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserSearchIndex {
+
+  private static final Logger log = LogManager.getLogger(UserSearchIndex.class);
+  private static final int FIRST_NAME = 0;
+  private static final int LAST_NAME = 1;
+  private static final int EMAIL = 2;
+
+  private final UserStreamRepository userStreamRepository;
+  private final Lock writeLock = new ReentrantLock();
+
+  private volatile Terms terms = new Terms();
+  private List<Consumer<Terms>> pendingChanges;
+  private volatile boolean ready;
+
+  /**
+   * Checks whether the index has been built and can answer searches.
+   *
+   * @return {@code true} if the index is ready.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Returns the number of indexed users.
+   *
+   * @return The index size.
+   */
+  public int size() {
+    return terms.valuesById.size();
+  }
+
+  /**
+   * Normalizes a search query or an indexed value.
+   *
+   * @param value The query or value.
+   * @return The trimmed, lower-cased value.
+   */
+  public static String normalize(String value) {
+    return value.strip().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Returns the term a user with the given values is found at by a search for the prefix, the
+   * smallest of its values starting with the prefix.
+   *
+   * @param prefix    The normalized prefix.
+   * @param firstName The first name, or {@code null}.
+   * @param lastName  The last name, or {@code null}.
+   * @param email     The email, or {@code null}.
+   * @return The matching term, or {@code null} if no value starts with the prefix.
+   */
+  public static String matchingTerm(String prefix, String firstName, String lastName,
+      String email) {
+    return firstMatch(values(firstName, lastName, email), prefix);
+  }
+
+  /**
+   * Finds the users with a first name, last name or email starting with the prefix, ordered by
+   * their matching term and ID. A user matching the prefix with several values is found once, at
+   * its smallest matching term.
+   *
+   * @param prefix    The normalized prefix.
+   * @param afterTerm The matching term of the last user already found, or {@code null} to start
+   *                  with the first match.
+   * @param afterId   The ID of the last user already found.
+   * @param limit     The maximum number of matches to return.
+   * @return The matches, in order.
+   */
+  public List<Match> search(String prefix, String afterTerm, long afterId, int limit) {
+    Terms current = terms;
+    NavigableSet<Term> range = afterTerm == null
+        ? current.terms.tailSet(new Term(prefix, Long.MIN_VALUE), true)
+        : current.terms.tailSet(new Term(afterTerm, afterId), false);
+    List<Match> matches = new ArrayList<>(Math.min(limit, 1024));
+    for (Term term : range) {
+      if (matches.size() == limit || !term.value.startsWith(prefix)) {
+        break;
+      }
+      String[] values = current.valuesById.get(term.id);
+      if (values != null && term.value.equals(firstMatch(values, prefix))) {
+        matches.add(new Match(term.value, term.id));
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Rebuilds the index from the database. Writes made while the rows are read are applied again
+   * on top of the new index, so none of them is lost whatever the scan has seen.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    writeLock.lock();
+    try {
+      pendingChanges = new ArrayList<>();
+    } finally {
+      writeLock.unlock();
+    }
+
+    long start = System.nanoTime();
+    Terms newTerms = new Terms();
+    userStreamRepository.forEachNameAndEmail(user -> newTerms.put(user.getId(),
+        values(user.getFirstName(), user.getLastName(), user.getEmail())));
+
+    writeLock.lock();
+    try {
+      pendingChanges.forEach(change -> change.accept(newTerms));
+      pendingChanges = null;
+      terms = newTerms;
+    } finally {
+      writeLock.unlock();
+    }
+    ready = true;
+    log.info("User search index rebuilt with {} users in {} ms", newTerms.valuesById.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Indexes a saved user, replacing its previous terms.
+   *
+   * @param event The event of the saved user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserSaved(UserSavedEvent event) {
+    User user = event.getUser();
+    long id = user.getId();
+    String[] values = values(user.getFirstName(), user.getLastName(), user.getEmail());
+    apply(target -> target.put(id, values));
+  }
+
+  /**
+   * Replaces the terms of the changed fields of a patched user.
+   *
+   * @param event The event of the patched user.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserPatched(UserPatchedEvent event) {
+    UserPatchDto patch = event.getPatch();
+    if (patch.getFirstName() == null && patch.getLastName() == null && patch.getEmail() == null) {
+      return;
+    }
+    long id = event.getId();
+    String[] changed = values(patch.getFirstName(), patch.getLastName(), patch.getEmail());
+    apply(target -> {
+      String[] old = target.valuesById.get(id);
+      if (old != null) {
+        String[] values = old.clone();
+        for (int field = 0; field < values.length; field++) {
+          if (changed[field] != null) {
+            values[field] = changed[field];
+          }
+        }
+        target.put(id, values);
+      }
+    });
+  }
+
+  /**
+   * Removes the terms of deleted users.
+   *
+   * @param event The event of the deleted users.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    List<Long> ids = List.copyOf(event.getIds());
+    apply(target -> ids.forEach(target::remove));
+  }
+
+  /**
+   * Applies a change to the index, and records it if a rebuild is in progress.
+   *
+   * @param change The change of the index.
+   */
+  private void apply(Consumer<Terms> change) {
+    writeLock.lock();
+    try {
+      change.accept(terms);
+      if (pendingChanges != null) {
+        pendingChanges.add(change);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Normalizes the searchable values of a user.
+   *
+   * @param firstName The first name, or {@code null}.
+   * @param lastName  The last name, or {@code null}.
+   * @param email     The email, or {@code null}.
+   * @return The normalized values by field, {@code null} for missing ones.
+   */
+  private static String[] values(String firstName, String lastName, String email) {
+    String[] values = new String[3];
+    values[FIRST_NAME] = firstName == null ? null : normalize(firstName);
+    values[LAST_NAME] = lastName == null ? null : normalize(lastName);
+    values[EMAIL] = email == null ? null : normalize(email);
+    return values;
+  }
+
+  /**
+   * Returns the smallest value of a user starting with the prefix.
+   *
+   * @param values The normalized values of the user.
+   * @param prefix The normalized prefix.
+   * @return The smallest matching value, or {@code null} if none matches.
+   */
+  private static String firstMatch(String[] values, String prefix) {
+    String first = null;
+    for (String value : values) {
+      if (value != null && value.startsWith(prefix)
+          && (first == null || value.compareTo(first) < 0)) {
+        first = value;
+      }
+    }
+    return first;
+  }
+
+  /**
+   * User found by a search.
+   */
+  @Getter
+  public static final class Match {
+
+    /**
+     * Order of matches by term and ID, the order of search results.
+     */
+    public static final Comparator<Match> ORDER =
+        Comparator.comparing(Match::getTerm).thenComparingLong(Match::getId);
+
+    private final String term;
+    private final long id;
+
+    /**
+     * Creates a match.
+     *
+     * @param term The matching term of the user.
+     * @param id   The ID of the user.
+     */
+    public Match(String term, long id) {
+      this.term = term;
+      this.id = id;
+    }
+  }
+
+  /**
+   * Terms of all users and the values they were made of, by user.
+   */
+  private static final class Terms {
+
+    private final NavigableSet<Term> terms = new ConcurrentSkipListSet<>(Term.ORDER);
+    private final Map<Long, String[]> valuesById = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes the values of a user, replacing its previous ones. New terms are added before the
+     * stale ones are removed, so a concurrent search never misses a user whose values match
+     * before and after the change.
+     *
+     * @param id     The ID of the user.
+     * @param values The normalized values of the user.
+     */
+    private void put(long id, String[] values) {
+      for (String value : values) {
+        if (value != null) {
+          terms.add(new Term(value, id));
+        }
+      }
+      String[] old = valuesById.put(id, values);
+      if (old != null) {
+        for (String value : old) {
+          if (value != null && !contains(values, value)) {
+            terms.remove(new Term(value, id));
+          }
+        }
+      }
+    }
+
+    /**
+     * Removes the values of a user, if any.
+     *
+     * @param id The ID of the user.
+     */
+    private void remove(long id) {
+      String[] old = valuesById.remove(id);
+      if (old != null) {
+        for (String value : old) {
+          if (value != null) {
+            terms.remove(new Term(value, id));
+          }
+        }
+      }
+    }
+
+    private static boolean contains(String[] values, String value) {
+      for (String candidate : values) {
+        if (Objects.equals(candidate, value)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Normalized value of a user.
+   */
+  private static final class Term {
+
+    private static final Comparator<Term> ORDER = (left, right) -> {
+      int order = left.value.compareTo(right.value);
+      return order != 0 ? order : Long.compare(left.id, right.id);
+    };
+
+    private final String value;
+    private final long id;
+
+    private Term(String value, long id) {
+      this.value = value;
+      this.id = id;
+    }
+  }
+}
@@ -14,6 +14,8 @@ import org.mapstruct.MappingTarget;
 public interface UserMapper {
 
   @Mapping(target = "id", ignore = true)
+  @Mapping(target = "version", ignore = true)
+  @Mapping(target = "birthMonthDay", ignore = true)
   User toEntity(UserDto dto);
 
   UserDto toDto(User entity);
@@ -21,5 +23,7 @@ public interface UserMapper {
   List<UserDto> toDto(List<User> entity);
 
   @Mapping(target = "id", ignore = true)
+  @Mapping(target = "version", ignore = true)
+  @Mapping(target = "birthMonthDay", ignore = true)
   void updateEntity(UserDto dto, @MappingTarget User entity);
 }
@@ -0,0 +1,154 @@
+package com.example.clearsolutionstesttask.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+/**
+ * Records the latency of a fixed set of methods into timers named {@code <name>} with the tags
+ * {@code method} and {@code outcome}, and the size of returned collections into a distribution
+ * summary named {@code <name>.result.size}.
+ *
+ * <p>All meters are registered up front, once the application context is ready, and looked up by
+ * method on every call, so recording neither builds tags nor allocates. Timers publish a
+ * percentile histogram, from which p50, p95 and p99 are computed on the monitoring side.
+ */
+public class MethodTimingInterceptor implements MethodInterceptor, SmartInitializingSingleton {
+
+  private static final Duration MIN_EXPECTED_LATENCY = Duration.ofMillis(1);
+  private static final Duration MAX_EXPECTED_LATENCY = Duration.ofSeconds(30);
+
+  private final ObjectProvider<MeterRegistry> registry;
+  private final String name;
+  private final List<Method> methods;
+
+  private volatile Map<Method, MethodMeters> meters;
+
+  /**
+   * Creates an interceptor for the given methods.
+   *
+   * @param registry The registry of the meters, resolved when the meters are registered.
+   * @param name     The name of the timers.
+   * @param methods  The methods to record, other methods are passed through.
+   */
+  public MethodTimingInterceptor(ObjectProvider<MeterRegistry> registry, String name,
+      List<Method> methods) {
+    this.registry = registry;
+    this.name = name;
+    this.methods = methods;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    meters();
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    MethodMeters methodMeters = meters().get(invocation.getMethod());
+    if (methodMeters == null) {
+      return invocation.proceed();
+    }
+
+    long start = System.nanoTime();
+    Object result;
+    try {
+      result = invocation.proceed();
+    } catch (Throwable ex) {
+      methodMeters.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw ex;
+    }
+    methodMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    if (methodMeters.resultSize != null && result instanceof Collection<?> collection) {
+      methodMeters.resultSize.record(collection.size());
+    }
+    return result;
+  }
+
+  /**
+   * Returns the meters of the methods, registering them on first use.
+   *
+   * @return The meters by method, empty if there is no meter registry.
+   */
+  private Map<Method, MethodMeters> meters() {
+    Map<Method, MethodMeters> current = meters;
+    if (current == null) {
+      current = register();
+      meters = current;
+    }
+    return current;
+  }
+
+  /**
+   * Registers the meters of all methods. Registration is idempotent, so concurrent first calls
+   * end up with the same meters.
+   *
+   * @return The meters by method.
+   */
+  private Map<Method, MethodMeters> register() {
+    MeterRegistry meterRegistry = registry.getIfAvailable();
+    if (meterRegistry == null) {
+      return Map.of();
+    }
+    Map<Method, MethodMeters> result = new HashMap<>();
+    for (Method method : methods) {
+      DistributionSummary resultSize = null;
+      if (Collection.class.isAssignableFrom(method.getReturnType())) {
+        resultSize = DistributionSummary.builder(name + ".result.size")
+            .description("Number of elements returned by the calls")
+            .tag("method", method.getName())
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+      }
+      result.put(method, new MethodMeters(timer(meterRegistry, method, "success"),
+          timer(meterRegistry, method, "error"), resultSize));
+    }
+    return result;
+  }
+
+  /**
+   * Registers the timer of a method and outcome.
+   *
+   * @param meterRegistry The registry of the meters.
+   * @param method        The recorded method.
+   * @param outcome       The outcome of the calls.
+   * @return The timer.
+   */
+  private Timer timer(MeterRegistry meterRegistry, Method method, String outcome) {
+    return Timer.builder(name)
+        .description("Latency of the calls")
+        .tag("method", method.getName())
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .minimumExpectedValue(MIN_EXPECTED_LATENCY)
+        .maximumExpectedValue(MAX_EXPECTED_LATENCY)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Meters of a single method.
+   */
+  private static final class MethodMeters {
+
+    private final Timer success;
+    private final Timer error;
+    private final DistributionSummary resultSize;
+
+    private MethodMeters(Timer success, Timer error, DistributionSummary resultSize) {
+      this.success = success;
+      this.error = error;
+      this.resultSize = resultSize;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.example.clearsolutionstesttask.metrics;
+
+import com.example.clearsolutionstesttask.repository.UserRepository;
+import com.example.clearsolutionstesttask.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+/**
+ * Latency timers of the {@link UserService} operations ({@code user.service}) and of the
+ * {@link UserRepository} queries ({@code user.repository}), published through the actuator
+ * {@code metrics} and {@code prometheus} endpoints.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+  /**
+   * Creates the interceptor timing the public methods of the user service.
+   *
+   * @param registry The meter registry.
+   * @return The interceptor.
+   */
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static MethodTimingInterceptor userServiceTimingInterceptor(
+      ObjectProvider<MeterRegistry> registry) {
+    List<Method> methods = Arrays.stream(UserService.class.getDeclaredMethods())
+        .filter(method -> Modifier.isPublic(method.getModifiers()) && !method.isSynthetic())
+        .toList();
+    return new MethodTimingInterceptor(registry, "user.service", methods);
+  }
+
+  /**
+   * Applies the service interceptor to the user service.
+   *
+   * @param interceptor The interceptor timing the user service.
+   * @return The advisor.
+   */
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static Advisor userServiceTimingAdvisor(
+      @Qualifier("userServiceTimingInterceptor") MethodTimingInterceptor interceptor) {
+    return new DefaultPointcutAdvisor(
+        new ComposablePointcut(new RootClassFilter(UserService.class)), interceptor);
+  }
+
+  /**
+   * Creates the interceptor timing the queries of the user repository.
+   *
+   * @param registry The meter registry.
+   * @return The interceptor.
+   */
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static MethodTimingInterceptor userRepositoryTimingInterceptor(
+      ObjectProvider<MeterRegistry> registry) {
+    List<Method> methods = Arrays.stream(UserRepository.class.getMethods())
+        .filter(method -> !method.isDefault() && !Modifier.isStatic(method.getModifiers()))
+        .toList();
+    return new MethodTimingInterceptor(registry, "user.repository", methods);
+  }
+
+  /**
+   * Applies the repository interceptor to the user repository.
+   *
+   * @param interceptor The interceptor timing the user repository.
+   * @return The post processor of the repository factory.
+   */
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static RepositoryTimingPostProcessor userRepositoryTimingPostProcessor(
+      @Qualifier("userRepositoryTimingInterceptor") MethodTimingInterceptor interceptor) {
+    return new RepositoryTimingPostProcessor(UserRepository.class, interceptor);
+  }
+}
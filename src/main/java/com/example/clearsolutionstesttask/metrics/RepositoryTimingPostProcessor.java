@@ -0,0 +1,37 @@
+package com.example.clearsolutionstesttask.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Adds an interceptor in front of every call to a Spring Data repository, outside of its
+ * transaction handling.
+ */
+public class RepositoryTimingPostProcessor implements BeanPostProcessor {
+
+  private final Class<?> repositoryInterface;
+  private final MethodInterceptor interceptor;
+
+  /**
+   * Creates a post processor for a repository.
+   *
+   * @param repositoryInterface The interface of the repository.
+   * @param interceptor         The interceptor to add.
+   */
+  public RepositoryTimingPostProcessor(Class<?> repositoryInterface,
+      MethodInterceptor interceptor) {
+    this.repositoryInterface = repositoryInterface;
+    this.interceptor = interceptor;
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) {
+    if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean
+        && repositoryInterface.equals(factoryBean.getObjectType())) {
+      factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+          (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0, interceptor)));
+    }
+    return bean;
+  }
+}
@@ -0,0 +1,170 @@
+package com.example.clearsolutionstesttask.repository;
+
+import com.example.clearsolutionstesttask.dto.UserChangeType;
+import com.example.clearsolutionstesttask.entity.UserChange;
+import com.example.clearsolutionstesttask.shard.Shards;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository of the user change outbox, written and read through JDBC. Changes are inserted in
+ * the current transaction, so with sharding they land on the shard the transaction is bound to,
+ * and reads merge all shards by sequence number.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserChangeRepository {
+
+  private static final String INSERT =
+      "insert into user_changes (seq, user_id, change_type, changed_at, payload) "
+          + "values (?, ?, ?, ?, ?)";
+  private static final String SELECT_AFTER =
+      "select seq, user_id, change_type, changed_at, payload from user_changes "
+          + "where seq > ? and seq <= ? order by seq limit ?";
+  private static final String SELECT_MAX_SEQ = "select coalesce(max(seq), 0) from user_changes";
+  private static final String DELETE_BEFORE =
+      "delete from user_changes where changed_at < ? "
+          + "and seq < (select max(seq) from user_changes)";
+  private static final Comparator<UserChange> SEQ_ORDER =
+      Comparator.comparingLong(UserChange::getSeq);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectProvider<Shards> shards;
+
+  /**
+   * Inserts changes with a single JDBC batch.
+   *
+   * @param changes The changes.
+   */
+  public void insertAll(List<UserChange> changes) {
+    jdbcTemplate.batchUpdate(INSERT, changes, changes.size(), (statement, change) -> {
+      statement.setLong(1, change.getSeq());
+      statement.setLong(2, change.getUserId());
+      statement.setString(3, change.getChangeType().name());
+      statement.setObject(4, change.getChangedAt().atOffset(ZoneOffset.UTC));
+      statement.setString(5, change.getPayload());
+    });
+  }
+
+  /**
+   * Finds the changes within a range of sequence numbers, in sequence order.
+   *
+   * @param since The last sequence number already read, excluded.
+   * @param until The last sequence number to read, included.
+   * @param limit The maximum number of changes to return.
+   * @return The changes.
+   */
+  public List<UserChange> findAfter(long since, long until, int limit) {
+    List<UserChange> changes = new ArrayList<>(Math.min(limit, 1024));
+    Shards userShards = shards.getIfAvailable();
+    if (userShards != null) {
+      userShards.forEachMerged(sink -> queryAfter(since, until, limit, sink), SEQ_ORDER,
+          change -> {
+            if (changes.size() < limit) {
+              changes.add(change);
+            }
+          });
+    } else {
+      queryAfter(since, until, limit, changes::add);
+    }
+    return changes;
+  }
+
+  /**
+   * Returns the highest sequence number of the outbox.
+   *
+   * @return The highest sequence number, 0 if the outbox is empty.
+   */
+  public long findMaxSeq() {
+    Shards userShards = shards.getIfAvailable();
+    if (userShards == null) {
+      return queryMaxSeq();
+    }
+    AtomicLong max = new AtomicLong();
+    userShards.forEachMerged(sink -> sink.accept(queryMaxSeq()), Comparator.<Long>naturalOrder(),
+        seq -> max.accumulateAndGet(seq, Math::max));
+    return max.get();
+  }
+
+  /**
+   * Deletes the changes made before an instant, except the highest sequence number of each
+   * database, which the sequence continues from.
+   *
+   * @param before The instant.
+   * @return The number of deleted changes.
+   */
+  public long deleteBefore(Instant before) {
+    Shards userShards = shards.getIfAvailable();
+    if (userShards == null) {
+      return queryDeleteBefore(before);
+    }
+    AtomicLong deleted = new AtomicLong();
+    userShards.forEachMerged(sink -> sink.accept(queryDeleteBefore(before)),
+        Comparator.<Long>naturalOrder(), deleted::addAndGet);
+    return deleted.get();
+  }
+
+  /**
+   * Passes the changes of the current database within a range of sequence numbers to the given
+   * action, in sequence order.
+   *
+   * @param since  The last sequence number already read, excluded.
+   * @param until  The last sequence number to read, included.
+   * @param limit  The maximum number of changes to read.
+   * @param action The action receiving each change.
+   */
+  private void queryAfter(long since, long until, int limit, Consumer<UserChange> action) {
+    jdbcTemplate.query(SELECT_AFTER, (ResultSet resultSet) -> action.accept(toChange(resultSet)),
+        since, until, limit);
+  }
+
+  /**
+   * Returns the highest sequence number of the current database.
+   *
+   * @return The highest sequence number, 0 if the outbox is empty.
+   */
+  private long queryMaxSeq() {
+    Long max = jdbcTemplate.queryForObject(SELECT_MAX_SEQ, Long.class);
+    return max == null ? 0 : max;
+  }
+
+  /**
+   * Deletes the changes of the current database made before an instant, except the highest
+   * sequence number.
+   *
+   * @param before The instant.
+   * @return The number of deleted changes.
+   */
+  private long queryDeleteBefore(Instant before) {
+    return jdbcTemplate.update(DELETE_BEFORE, before.atOffset(ZoneOffset.UTC));
+  }
+
+  /**
+   * Maps the current row of the result set to a change.
+   *
+   * @param resultSet The result set positioned on a change row.
+   * @return The change.
+   * @throws SQLException if a column cannot be read.
+   */
+  private static UserChange toChange(ResultSet resultSet) throws SQLException {
+    return UserChange.builder()
+        .seq(resultSet.getLong("seq"))
+        .userId(resultSet.getLong("user_id"))
+        .changeType(UserChangeType.valueOf(resultSet.getString("change_type")))
+        .changedAt(resultSet.getObject("changed_at", OffsetDateTime.class).toInstant())
+        .payload(resultSet.getString("payload"))
+        .build();
+  }
+}
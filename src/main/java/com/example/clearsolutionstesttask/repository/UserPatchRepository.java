@@ -0,0 +1,19 @@
+package com.example.clearsolutionstesttask.repository;
+
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+
+/**
+ * Repository fragment updating single fields of a user in place.
+ */
+public interface UserPatchRepository {
+
+  /**
+   * Updates the fields present in the patch with a single UPDATE statement, without loading the
+   * user first.
+   *
+   * @param id    The ID of the user to update.
+   * @param patch The changed fields, at least one of them present.
+   * @return The number of updated rows, {@code 0} if no user with the ID exists.
+   */
+  int patchById(long id, UserPatchDto patch);
+}
@@ -0,0 +1,50 @@
+package com.example.clearsolutionstesttask.repository;
+
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+import com.example.clearsolutionstesttask.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Criteria API implementation of {@link UserPatchRepository}. The SET clause lists only the
+ * present fields and the incremented version, so the statement touches nothing else.
+ */
+public class UserPatchRepositoryImpl implements UserPatchRepository {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  @Transactional
+  public int patchById(long id, UserPatchDto patch) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaUpdate<User> update = builder.createCriteriaUpdate(User.class);
+    Root<User> user = update.from(User.class);
+    set(update, "email", patch.getEmail());
+    set(update, "firstName", patch.getFirstName());
+    set(update, "lastName", patch.getLastName());
+    set(update, "birthDate", patch.getBirthDate());
+    set(update, "address", patch.getAddress());
+    set(update, "phoneNumber", patch.getPhoneNumber());
+    update.set(user.<Long>get("version"), builder.sum(user.get("version"), 1L));
+    update.where(builder.equal(user.get("id"), id));
+    return entityManager.createQuery(update).executeUpdate();
+  }
+
+  /**
+   * Adds a field to the SET clause if it is present in the patch.
+   *
+   * @param update The update statement.
+   * @param field  The name of the entity field.
+   * @param value  The new value, or {@code null} if the field is not changed.
+   */
+  private void set(CriteriaUpdate<User> update, String field, Object value) {
+    if (value != null) {
+      update.set(field, value);
+    }
+  }
+}
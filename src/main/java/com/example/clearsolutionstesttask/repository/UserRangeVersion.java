@@ -0,0 +1,16 @@
+package com.example.clearsolutionstesttask.repository;
+
+/**
+ * Aggregates of the users within a birthdate range that change with every insert, update or
+ * delete in the range: new users get higher IDs and every update increments the version.
+ */
+public interface UserRangeVersion {
+
+  long getCount();
+
+  long getIdSum();
+
+  long getVersionSum();
+
+  long getIdVersionSum();
+}
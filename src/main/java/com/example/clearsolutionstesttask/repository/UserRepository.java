@@ -1,16 +1,73 @@
 package com.example.clearsolutionstesttask.repository;
 
 import com.example.clearsolutionstesttask.entity.User;
+import jakarta.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
-import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.RepositoryDefinition;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Repository interface for accessing user data from the database.
+ * Repository interface for accessing user data from the database. It declares only the
+ * operations the application uses instead of inheriting all of {@code JpaRepository}, so that
+ * every one of them is routed by the {@code ShardingInterceptor} when users are sharded.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+@RepositoryDefinition(domainClass = User.class, idClass = Long.class)
+public interface UserRepository extends UserPatchRepository {
+
+  /**
+   * Inserts a new user or updates an existing one.
+   *
+   * @param user The user.
+   * @param <S>  The type of the user.
+   * @return The saved user.
+   */
+  <S extends User> S save(S user);
+
+  /**
+   * Inserts or updates several users, with JDBC batches.
+   *
+   * @param users The users.
+   * @param <S>   The type of the users.
+   * @return The saved users, in the given order.
+   */
+  <S extends User> List<S> saveAll(Iterable<S> users);
+
+  /**
+   * Retrieves a user by ID.
+   *
+   * @param id The ID of the user.
+   * @return The user, or empty if none has the ID.
+   */
+  Optional<User> findById(Long id);
+
+  /**
+   * Retrieves the users with the given IDs, leaving out missing ones.
+   *
+   * @param ids The IDs of the users.
+   * @return The users found, in no particular order.
+   */
+  List<User> findAllById(Iterable<Long> ids);
+
+  /**
+   * Counts all users.
+   *
+   * @return The number of users.
+   */
+  long count();
+
+  /**
+   * Writes the pending changes of the persistence context to the database.
+   */
+  void flush();
 
   /**
    * Retrieves a list of users whose birthdate fall within the specified range.
@@ -20,4 +77,80 @@ public interface UserRepository extends JpaRepository<User, Long> {
    * @return List of users within the specified birthdate range.
    */
   List<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate);
+
+  /**
+   * Checks whether a user other than the given one has the specified email. The query reads the
+   * unique email index only.
+   *
+   * @param email The email.
+   * @param id    The ID of the user to leave out, 0 for none.
+   * @return {@code true} if another user has the email.
+   */
+  boolean existsByEmailAndIdNot(String email, long id);
+
+  /**
+   * Computes the version aggregates of the users whose birthdate falls within the specified
+   * range. The query reads the {@code (birth_date, id, version)} index only.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @return The version aggregates of the range.
+   */
+  @Query("select count(u) as count, coalesce(sum(u.id), 0) as idSum, "
+      + "coalesce(sum(u.version), 0) as versionSum, "
+      + "coalesce(sum(u.id * u.version), 0) as idVersionSum "
+      + "from users u where u.birthDate between :fromDate and :toDate")
+  UserRangeVersion findVersionByBirthDateBetween(LocalDate fromDate, LocalDate toDate);
+
+  /**
+   * Retrieves the next page of users ordered by birthdate and ID, starting right after the
+   * given position. The seek predicate keeps the scan on the {@code (birth_date, id)} index, so
+   * every page costs the same regardless of its depth.
+   *
+   * @param afterBirthDate The birthdate of the last row already returned.
+   * @param afterId        The ID of the last row already returned.
+   * @param toDate         The end date of the birthdate range.
+   * @param limit          The maximum number of users to return.
+   * @return List of users following the given position.
+   */
+  @Query("select u from users u "
+      + "where u.birthDate >= :afterBirthDate and u.birthDate <= :toDate "
+      + "and (u.birthDate > :afterBirthDate or u.id > :afterId) "
+      + "order by u.birthDate, u.id")
+  List<User> findPageAfter(LocalDate afterBirthDate, long afterId, LocalDate toDate, Limit limit);
+
+  /**
+   * Locks the IDs of users whose birthdate falls within the specified range, at most
+   * {@code limit} of them, until the end of the current transaction.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param limit    The maximum number of IDs to return.
+   * @return List of IDs of users within the specified birthdate range.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select u.id from users u where u.birthDate between :fromDate and :toDate")
+  List<Long> lockIdsByBirthDateBetween(LocalDate fromDate, LocalDate toDate, Limit limit);
+
+  /**
+   * Locks the IDs of the existing users among the given ones until the end of the current
+   * transaction.
+   *
+   * @param ids The IDs of the users.
+   * @return List of IDs of the existing users.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select u.id from users u where u.id in :ids")
+  List<Long> lockIdsByIdIn(Collection<Long> ids);
+
+  /**
+   * Deletes the users with the given IDs with a single DELETE statement, without loading them.
+   *
+   * @param ids The IDs of the users to delete.
+   * @return The number of deleted users.
+   */
+  @Modifying
+  @Transactional
+  @Query("delete from users u where u.id in :ids")
+  int deleteAllByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,397 @@
+package com.example.clearsolutionstesttask.repository;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.dto.UserField;
+import com.example.clearsolutionstesttask.shard.Shards;
+import com.example.clearsolutionstesttask.util.MonthDayRange;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository reading user rows through a forward-only JDBC cursor, bypassing the persistence
+ * context so that no entity is ever managed or kept on the heap. With sharding, every shard is
+ * read through its own cursor in parallel and the rows are merged in order.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserStreamRepository {
+
+  private static final String SELECT_BIRTH_DATES =
+      "select id, birth_date from users order by birth_date, id";
+  private static final String SELECT_NAMES_AND_EMAILS =
+      "select id, email, first_name, last_name from users order by id";
+  private static final String SELECT_EMAILS = "select email from users order by email";
+  private static final String SELECT_BY_BIRTH_DATE_RANGE =
+      "select id, email, first_name, last_name, birth_date, address, phone_number, version "
+          + "from users "
+          + "where birth_date between ? and ? order by birth_date, id";
+  private static final String SELECT_PROJECTION_BY_BIRTH_DATE_RANGE =
+      "select id, birth_date%s from users "
+          + "where birth_date between ? and ? order by birth_date, id";
+  private static final String SELECT_PROJECTION_BY_IDS =
+      "select id, birth_date%s from users where id in (%s) order by id";
+  private static final String SELECT_BY_BIRTH_MONTH_DAY_RANGE =
+      "select id, email, first_name, last_name, birth_date, address, phone_number, version "
+          + "from users "
+          + "where birth_month_day between ? and ? order by birth_month_day, id";
+  private static final Comparator<UserDto> BIRTHDAY_ORDER =
+      Comparator.comparingInt((UserDto user) -> MonthDayRange.monthDay(user.getBirthDate()))
+          .thenComparingLong(UserDto::getId);
+  private static final Comparator<UserDto> ID_ORDER = Comparator.comparingLong(UserDto::getId);
+  private static final Comparator<UserDto> USER_ORDER =
+      Comparator.comparing(UserDto::getBirthDate).thenComparingLong(UserDto::getId);
+  private static final Comparator<BirthDateRow> BIRTH_DATE_ROW_ORDER =
+      Comparator.comparing((BirthDateRow row) -> row.birthDate).thenComparingLong(row -> row.id);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectProvider<Shards> shards;
+
+  @Value("${user.stream.fetch-size}")
+  private int fetchSize;
+
+  /**
+   * Passes every user whose birthdate falls within the specified range to the given action, one
+   * row at a time, in birthdate and ID order.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param action   The action receiving each user.
+   */
+  public void streamAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate,
+      Consumer<UserDto> action) {
+    Shards userShards = shards.getIfAvailable();
+    if (userShards != null) {
+      userShards.forEachMerged(
+          sink -> queryAllByBirthDateBetween(fromDate, toDate, sink), USER_ORDER, action);
+    } else {
+      queryAllByBirthDateBetween(fromDate, toDate, action);
+    }
+  }
+
+  /**
+   * Passes every user of the current database whose birthdate falls within the specified range
+   * to the given action, in birthdate and ID order.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param action   The action receiving each user.
+   */
+  private void queryAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate,
+      Consumer<UserDto> action) {
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(SELECT_BY_BIRTH_DATE_RANGE,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      statement.setDate(1, Date.valueOf(fromDate));
+      statement.setDate(2, Date.valueOf(toDate));
+      return statement;
+    }, (ResultSet resultSet) -> action.accept(toDto(resultSet)));
+  }
+
+  /**
+   * Retrieves the given fields of the users whose birthdate falls within the specified range, in
+   * birthdate and ID order, selecting only their columns. The ID and the birthdate are always set,
+   * for ordering; the other fields of the DTOs are not set.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param fields   The fields to read.
+   * @return The users within the range.
+   */
+  public List<UserDto> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate,
+      Set<UserField> fields) {
+    String sql = SELECT_PROJECTION_BY_BIRTH_DATE_RANGE.formatted(projectionColumns(fields));
+    List<UserDto> users = new ArrayList<>();
+    Shards userShards = shards.getIfAvailable();
+    if (userShards != null) {
+      userShards.forEachMerged(sink -> queryProjection(sql, fromDate, toDate, fields, sink),
+          USER_ORDER, users::add);
+    } else {
+      queryProjection(sql, fromDate, toDate, fields, users::add);
+    }
+    return users;
+  }
+
+  /**
+   * Retrieves the given fields of the users with the given IDs, in ID order, selecting only their
+   * columns. Missing users are left out. The ID and the birthdate are always set; the other fields
+   * of the DTOs are not set.
+   *
+   * @param ids    The IDs of the users.
+   * @param fields The fields to read.
+   * @return The users found.
+   */
+  public List<UserDto> findAllById(Collection<Long> ids, Set<UserField> fields) {
+    List<UserDto> users = new ArrayList<>(ids.size());
+    if (ids.isEmpty()) {
+      return users;
+    }
+    String sql = SELECT_PROJECTION_BY_IDS.formatted(projectionColumns(fields),
+        String.join(", ", Collections.nCopies(ids.size(), "?")));
+    Object[] arguments = ids.toArray();
+    Shards userShards = shards.getIfAvailable();
+    if (userShards != null) {
+      userShards.forEachMerged(sink -> queryProjection(sql, arguments, fields, sink), ID_ORDER,
+          users::add);
+    } else {
+      queryProjection(sql, arguments, fields, users::add);
+    }
+    return users;
+  }
+
+  /**
+   * Passes the given fields of every user of the current database selected by a query to the
+   * given action.
+   *
+   * @param sql       The query selecting the columns of the fields.
+   * @param arguments The arguments of the query.
+   * @param fields    The fields to read.
+   * @param action    The action receiving each user.
+   */
+  private void queryProjection(String sql, Object[] arguments, Set<UserField> fields,
+      Consumer<UserDto> action) {
+    jdbcTemplate.query(sql, (ResultSet resultSet) -> action.accept(toDto(resultSet, fields)),
+        arguments);
+  }
+
+  /**
+   * Lists the columns of the given fields, besides the ID and the birthdate, which every
+   * projection selects.
+   *
+   * @param fields The fields to read.
+   * @return The columns, each preceded by a comma.
+   */
+  private static String projectionColumns(Set<UserField> fields) {
+    StringBuilder columns = new StringBuilder();
+    for (UserField field : fields) {
+      if (field != UserField.ID && field != UserField.BIRTH_DATE) {
+        columns.append(", ").append(field.getColumn());
+      }
+    }
+    return columns.toString();
+  }
+
+  /**
+   * Passes the given fields of every user of the current database whose birthdate falls within
+   * the specified range to the given action, in birthdate and ID order.
+   *
+   * @param sql      The query selecting the columns of the fields.
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param fields   The fields to read.
+   * @param action   The action receiving each user.
+   */
+  private void queryProjection(String sql, LocalDate fromDate, LocalDate toDate,
+      Set<UserField> fields, Consumer<UserDto> action) {
+    jdbcTemplate.query(sql, (ResultSet resultSet) -> action.accept(toDto(resultSet, fields)),
+        Date.valueOf(fromDate), Date.valueOf(toDate));
+  }
+
+  /**
+   * Passes every user whose birthday falls within the month-day range to the given action, one
+   * row at a time, in month-day and ID order. The query scans the {@code (birth_month_day, id)}
+   * index.
+   *
+   * @param range  The range of birthdays within one year.
+   * @param action The action receiving each user.
+   */
+  public void streamAllByBirthMonthDayBetween(MonthDayRange range, Consumer<UserDto> action) {
+    Shards userShards = shards.getIfAvailable();
+    if (userShards != null) {
+      userShards.forEachMerged(
+          sink -> queryAllByBirthMonthDayBetween(range, sink), BIRTHDAY_ORDER, action);
+    } else {
+      queryAllByBirthMonthDayBetween(range, action);
+    }
+  }
+
+  /**
+   * Passes every user of the current database whose birthday falls within the month-day range to
+   * the given action, in month-day and ID order.
+   *
+   * @param range  The range of birthdays within one year.
+   * @param action The action receiving each user.
+   */
+  private void queryAllByBirthMonthDayBetween(MonthDayRange range, Consumer<UserDto> action) {
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(SELECT_BY_BIRTH_MONTH_DAY_RANGE,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      statement.setInt(1, range.getFrom());
+      statement.setInt(2, range.getTo());
+      return statement;
+    }, (ResultSet resultSet) -> action.accept(toDto(resultSet)));
+  }
+
+  /**
+   * Passes the birthdate and ID of every user to the given action, in birthdate and ID order.
+   *
+   * @param action The action receiving the birthdate and the ID of each user.
+   */
+  public void forEachBirthDate(ObjLongConsumer<LocalDate> action) {
+    Shards userShards = shards.getIfAvailable();
+    if (userShards != null) {
+      userShards.<BirthDateRow>forEachMerged(
+          sink -> queryBirthDates((birthDate, id) -> sink.accept(new BirthDateRow(birthDate, id))),
+          BIRTH_DATE_ROW_ORDER, row -> action.accept(row.birthDate, row.id));
+    } else {
+      queryBirthDates(action);
+    }
+  }
+
+  /**
+   * Passes the birthdate and ID of every user of the current database to the given action, in
+   * birthdate and ID order.
+   *
+   * @param action The action receiving the birthdate and the ID of each user.
+   */
+  private void queryBirthDates(ObjLongConsumer<LocalDate> action) {
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(SELECT_BIRTH_DATES,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      return statement;
+    }, (ResultSet resultSet) -> action.accept(resultSet.getObject("birth_date", LocalDate.class),
+        resultSet.getLong("id")));
+  }
+
+  /**
+   * Passes the ID, names and email of every user to the given action, in ID order. The other
+   * fields of the DTOs are not set.
+   *
+   * @param action The action receiving each user.
+   */
+  public void forEachNameAndEmail(Consumer<UserDto> action) {
+    Shards userShards = shards.getIfAvailable();
+    if (userShards != null) {
+      userShards.forEachMerged(this::queryNamesAndEmails, ID_ORDER, action);
+    } else {
+      queryNamesAndEmails(action);
+    }
+  }
+
+  /**
+   * Passes the ID, names and email of every user of the current database to the given action, in
+   * ID order.
+   *
+   * @param action The action receiving each user.
+   */
+  private void queryNamesAndEmails(Consumer<UserDto> action) {
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(SELECT_NAMES_AND_EMAILS,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      return statement;
+    }, (ResultSet resultSet) -> action.accept(UserDto.builder()
+        .id(resultSet.getLong("id"))
+        .email(resultSet.getString("email"))
+        .firstName(resultSet.getString("first_name"))
+        .lastName(resultSet.getString("last_name"))
+        .build()));
+  }
+
+  /**
+   * Passes the email of every user to the given action, in email order.
+   *
+   * @param action The action receiving the email of each user.
+   */
+  public void forEachEmail(Consumer<String> action) {
+    Shards userShards = shards.getIfAvailable();
+    if (userShards != null) {
+      userShards.forEachMerged(this::queryEmails, Comparator.<String>naturalOrder(), action);
+    } else {
+      queryEmails(action);
+    }
+  }
+
+  /**
+   * Passes the email of every user of the current database to the given action, in email order.
+   *
+   * @param action The action receiving the email of each user.
+   */
+  private void queryEmails(Consumer<String> action) {
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(SELECT_EMAILS,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      return statement;
+    }, (ResultSet resultSet) -> action.accept(resultSet.getString("email")));
+  }
+
+  /**
+   * Maps the current row of the result set to a user DTO.
+   *
+   * @param resultSet The result set positioned on a user row.
+   * @return The user DTO.
+   * @throws SQLException if a column cannot be read.
+   */
+  private UserDto toDto(ResultSet resultSet) throws SQLException {
+    return UserDto.builder()
+        .id(resultSet.getLong("id"))
+        .email(resultSet.getString("email"))
+        .firstName(resultSet.getString("first_name"))
+        .lastName(resultSet.getString("last_name"))
+        .birthDate(resultSet.getObject("birth_date", LocalDate.class))
+        .address(resultSet.getString("address"))
+        .phoneNumber(resultSet.getString("phone_number"))
+        .version(resultSet.getLong("version"))
+        .build();
+  }
+
+  /**
+   * Maps the given fields of the current row of the result set to a user DTO.
+   *
+   * @param resultSet The result set positioned on a user row.
+   * @param fields    The fields to read, besides the ID and the birthdate.
+   * @return The user DTO.
+   * @throws SQLException if a column cannot be read.
+   */
+  private UserDto toDto(ResultSet resultSet, Set<UserField> fields) throws SQLException {
+    UserDto.UserDtoBuilder user = UserDto.builder()
+        .id(resultSet.getLong("id"))
+        .birthDate(resultSet.getObject("birth_date", LocalDate.class));
+    for (UserField field : fields) {
+      switch (field) {
+        case EMAIL -> user.email(resultSet.getString("email"));
+        case FIRST_NAME -> user.firstName(resultSet.getString("first_name"));
+        case LAST_NAME -> user.lastName(resultSet.getString("last_name"));
+        case ADDRESS -> user.address(resultSet.getString("address"));
+        case PHONE_NUMBER -> user.phoneNumber(resultSet.getString("phone_number"));
+        case VERSION -> user.version(resultSet.getLong("version"));
+        case ID, BIRTH_DATE -> {
+        }
+      }
+    }
+    return user.build();
+  }
+
+  /**
+   * Birthdate and ID of a user, as merged from the shards.
+   */
+  private static final class BirthDateRow {
+
+    private final LocalDate birthDate;
+    private final long id;
+
+    private BirthDateRow(LocalDate birthDate, long id) {
+      this.birthDate = birthDate;
+      this.id = id;
+    }
+  }
+}
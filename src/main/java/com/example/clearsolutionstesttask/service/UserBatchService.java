@@ -0,0 +1,281 @@
+package com.example.clearsolutionstesttask.service;
+
+import com.example.clearsolutionstesttask.dto.BatchItemResultDto;
+import com.example.clearsolutionstesttask.dto.BatchItemStatus;
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.exception.BatchTooLargeException;
+import com.example.clearsolutionstesttask.feed.UserChangeFeed;
+import com.example.clearsolutionstesttask.index.EmailFilter;
+import com.example.clearsolutionstesttask.mapper.UserMapper;
+import com.example.clearsolutionstesttask.repository.UserRepository;
+import com.example.clearsolutionstesttask.writebehind.UserWriteBehindBuffer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service class for creating and updating users in batches. Items are validated one by one and
+ * written in chunks, each chunk in its own transaction, so that one bad chunk does not roll back
+ * the whole batch and the persistence context never holds more than one chunk.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserBatchService {
+
+  private static final Logger log = LogManager.getLogger(UserBatchService.class);
+
+  private final UserRepository userRepository;
+  private final UserMapper mapper;
+  private final Validator validator;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final EmailFilter emailFilter;
+  private final UserChangeFeed userChangeFeed;
+  private final UserWriteBehindBuffer userWriteBehindBuffer;
+
+  @Value("${user.batch.chunk-size}")
+  private int chunkSize;
+  @Value("${user.batch.max-items}")
+  private int maxItems;
+
+  /**
+   * Creates all users of the batch.
+   *
+   * @param userDtos The DTOs containing user information.
+   * @return The result of every item, in request order.
+   * @throws BatchTooLargeException if the batch holds too many items.
+   */
+  public List<BatchItemResultDto> createAll(List<UserDto> userDtos) {
+    return write(userDtos, false, true);
+  }
+
+  /**
+   * Creates all users of a batch that has already been validated by the caller.
+   *
+   * @param userDtos The valid DTOs containing user information.
+   * @return The result of every item, in request order.
+   * @throws BatchTooLargeException if the batch holds too many items.
+   */
+  public List<BatchItemResultDto> createAllValid(List<UserDto> userDtos) {
+    return write(userDtos, false, false);
+  }
+
+  /**
+   * Updates the users of the batch that carry an ID and creates the others. Buffered updates of
+   * the users are written first, so that they never overwrite the batch.
+   *
+   * @param userDtos The DTOs containing user information.
+   * @return The result of every item, in request order.
+   * @throws BatchTooLargeException if the batch holds too many items.
+   */
+  public List<BatchItemResultDto> upsertAll(List<UserDto> userDtos) {
+    if (userDtos.size() <= maxItems) {
+      userWriteBehindBuffer.flush(userDtos.stream()
+          .filter(Objects::nonNull)
+          .map(UserDto::getId)
+          .filter(id -> id != 0)
+          .toList());
+    }
+    return write(userDtos, true, true);
+  }
+
+  /**
+   * Updates the users of a batch that has already been validated by the caller. Every item must
+   * carry the ID of the user.
+   *
+   * @param userDtos The valid DTOs containing user information.
+   * @return The result of every item, in request order.
+   * @throws BatchTooLargeException if the batch holds too many items.
+   */
+  public List<BatchItemResultDto> updateAllValid(List<UserDto> userDtos) {
+    return write(userDtos, true, false);
+  }
+
+  /**
+   * Validates the batch and writes its valid items chunk by chunk. Items whose email is used by
+   * another user, or by an earlier item of the batch, are reported as conflicts.
+   *
+   * @param userDtos The DTOs containing user information.
+   * @param upsert   Whether items carrying an ID update the existing user.
+   * @param validate Whether items are validated before being written.
+   * @return The result of every item, in request order.
+   */
+  private List<BatchItemResultDto> write(List<UserDto> userDtos, boolean upsert,
+      boolean validate) {
+    if (userDtos.size() > maxItems) {
+      throw new BatchTooLargeException(userDtos.size(), maxItems);
+    }
+
+    BatchItemResultDto[] results = new BatchItemResultDto[userDtos.size()];
+    List<Integer> chunk = new ArrayList<>(chunkSize);
+    Set<String> emails = new HashSet<>();
+    for (int index = 0; index < userDtos.size(); index++) {
+      UserDto userDto = userDtos.get(index);
+      Map<String, String> errors = validate ? validate(userDto) : Map.of();
+      if (!errors.isEmpty()) {
+        results[index] = result(index, BatchItemStatus.INVALID, null, errors);
+        continue;
+      }
+      if (!emails.add(userDto.getEmail())
+          || emailFilter.isTaken(userDto.getEmail(), upsert ? userDto.getId() : 0)) {
+        results[index] = result(index, BatchItemStatus.CONFLICT, null,
+            Map.of("email", "Email already exists."));
+        continue;
+      }
+      chunk.add(index);
+      if (chunk.size() == chunkSize) {
+        writeChunk(userDtos, chunk, upsert, results);
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      writeChunk(userDtos, chunk, upsert, results);
+    }
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Writes one chunk of valid items in a single transaction. If the transaction fails, every item
+   * of the chunk is reported as failed.
+   *
+   * @param userDtos The DTOs of the whole batch.
+   * @param chunk    The positions of the items of the chunk.
+   * @param upsert   Whether items carrying an ID update the existing user.
+   * @param results  The results of the whole batch, filled in for the chunk.
+   */
+  private void writeChunk(List<UserDto> userDtos, List<Integer> chunk, boolean upsert,
+      BatchItemResultDto[] results) {
+    List<User> saved = new ArrayList<>(chunk.size());
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> writeChunkInTransaction(userDtos, chunk, upsert, results, saved));
+    } catch (RuntimeException ex) {
+      log.error("Failed to write batch chunk of {} users: {}", chunk.size(), ex.getMessage(), ex);
+      Map<String, String> errors = Map.of("item", "Failed to store the user.");
+      chunk.forEach(index -> results[index] = result(index, BatchItemStatus.FAILED, null, errors));
+      return;
+    }
+    saved.forEach(user -> eventPublisher.publishEvent(new UserSavedEvent(user)));
+  }
+
+  /**
+   * Writes one chunk of valid items within the current transaction. Existing users are loaded with
+   * a single query and all rows are sent to the database as JDBC batches on flush, followed by
+   * their changes.
+   *
+   * @param userDtos The DTOs of the whole batch.
+   * @param chunk    The positions of the items of the chunk.
+   * @param upsert   Whether items carrying an ID update the existing user.
+   * @param results  The results of the whole batch, filled in for the chunk.
+   * @param saved    The list receiving the saved users.
+   */
+  private void writeChunkInTransaction(List<UserDto> userDtos, List<Integer> chunk,
+      boolean upsert, BatchItemResultDto[] results, List<User> saved) {
+    Map<Long, User> existing = upsert ? findExisting(userDtos, chunk) : Map.of();
+    List<Integer> written = new ArrayList<>(chunk.size());
+    List<User> users = new ArrayList<>(chunk.size());
+    for (int index : chunk) {
+      UserDto userDto = userDtos.get(index);
+      if (upsert && userDto.getId() != 0) {
+        User user = existing.get(userDto.getId());
+        if (user == null) {
+          results[index] = result(index, BatchItemStatus.NOT_FOUND, null,
+              Map.of("id", "User not found."));
+          continue;
+        }
+        mapper.updateEntity(userDto, user);
+        users.add(user);
+      } else {
+        users.add(mapper.toEntity(userDto));
+      }
+      written.add(index);
+    }
+
+    saved.addAll(userRepository.saveAll(users));
+    userRepository.flush();
+    List<UserDto> savedDtos = new ArrayList<>(written.size());
+    for (int i = 0; i < written.size(); i++) {
+      int index = written.get(i);
+      BatchItemStatus status = upsert && userDtos.get(index).getId() != 0
+          ? BatchItemStatus.UPDATED : BatchItemStatus.CREATED;
+      UserDto savedDto = mapper.toDto(saved.get(i));
+      savedDtos.add(savedDto);
+      results[index] = result(index, status, savedDto, null);
+    }
+    userChangeFeed.recordAllSaved(savedDtos);
+  }
+
+  /**
+   * Loads the users referenced by the items of a chunk.
+   *
+   * @param userDtos The DTOs of the whole batch.
+   * @param chunk    The positions of the items of the chunk.
+   * @return The existing users by ID.
+   */
+  private Map<Long, User> findExisting(List<UserDto> userDtos, List<Integer> chunk) {
+    Set<Long> ids = chunk.stream()
+        .map(index -> userDtos.get(index).getId())
+        .filter(id -> id != 0)
+        .collect(Collectors.toSet());
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    return userRepository.findAllById(ids).stream()
+        .collect(Collectors.toMap(User::getId, Function.identity()));
+  }
+
+  /**
+   * Validates a single item of the batch.
+   *
+   * @param userDto The DTO to validate.
+   * @return A map containing field errors, empty if the item is valid.
+   */
+  private Map<String, String> validate(UserDto userDto) {
+    Map<String, String> errors = new HashMap<>();
+    if (userDto == null) {
+      errors.put("item", "Please enter user.");
+      return errors;
+    }
+    for (ConstraintViolation<UserDto> violation : validator.validate(userDto)) {
+      errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+    }
+    return errors;
+  }
+
+  /**
+   * Builds the result of a single item.
+   *
+   * @param index  The position of the item in the request.
+   * @param status The outcome of the item.
+   * @param user   The stored user, if any.
+   * @param errors The errors of the item, if any.
+   * @return The item result.
+   */
+  private BatchItemResultDto result(int index, BatchItemStatus status, UserDto user,
+      Map<String, String> errors) {
+    return BatchItemResultDto.builder()
+        .index(index)
+        .status(status)
+        .user(user)
+        .errors(errors)
+        .build();
+  }
+}
@@ -1,15 +1,62 @@
 package com.example.clearsolutionstesttask.service;
 
+import com.example.clearsolutionstesttask.aggregate.BirthDateAggregates;
+import com.example.clearsolutionstesttask.cache.UserCache;
+import com.example.clearsolutionstesttask.dto.UserAggregatesDto;
+import com.example.clearsolutionstesttask.dto.UserChangesDto;
 import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.dto.UserField;
+import com.example.clearsolutionstesttask.dto.UserPageDto;
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
 import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.exception.BatchTooLargeException;
+import com.example.clearsolutionstesttask.exception.EmailAlreadyExistsException;
+import com.example.clearsolutionstesttask.exception.InvalidCursorException;
 import com.example.clearsolutionstesttask.exception.InvalidDateRangeException;
+import com.example.clearsolutionstesttask.exception.InvalidIdsException;
+import com.example.clearsolutionstesttask.exception.InvalidSearchQueryException;
+import com.example.clearsolutionstesttask.exception.IndexNotReadyException;
 import com.example.clearsolutionstesttask.exception.UserNotFoundException;
+import com.example.clearsolutionstesttask.feed.ChangeSubscriber;
+import com.example.clearsolutionstesttask.feed.UserChangeFeed;
+import com.example.clearsolutionstesttask.index.BirthDateIndex;
+import com.example.clearsolutionstesttask.index.EmailFilter;
+import com.example.clearsolutionstesttask.index.UserSearchIndex;
+import com.example.clearsolutionstesttask.index.UserSearchIndex.Match;
 import com.example.clearsolutionstesttask.mapper.UserMapper;
+import com.example.clearsolutionstesttask.repository.UserRangeVersion;
 import com.example.clearsolutionstesttask.repository.UserRepository;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import com.example.clearsolutionstesttask.util.BirthDateCursor;
+import com.example.clearsolutionstesttask.util.MonthDayRange;
+import com.example.clearsolutionstesttask.util.SearchCursor;
+import com.example.clearsolutionstesttask.writebehind.BufferedUsers;
+import com.example.clearsolutionstesttask.writebehind.CoalescingBuffer.Entry;
+import com.example.clearsolutionstesttask.writebehind.UserWriteBehindBuffer;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service class for managing user data.
@@ -19,54 +66,710 @@ import org.springframework.stereotype.Service;
 public class UserService {
 
   private final UserRepository userRepository;
+  private final UserStreamRepository userStreamRepository;
   private final UserMapper mapper;
+  private final UserCache userCache;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectProvider<BirthDateIndex> birthDateIndex;
+  private final EmailFilter emailFilter;
+  private final UserSearchIndex userSearchIndex;
+  private final BirthDateAggregates birthDateAggregates;
+  private final UserChangeFeed userChangeFeed;
+  private final UserWriteBehindBuffer userWriteBehindBuffer;
+
+  @Value("${user.page.default-size}")
+  private int defaultPageSize;
+  @Value("${user.page.max-size}")
+  private int maxPageSize;
+  @Value("${user.range-query.id-batch-size}")
+  private int idBatchSize;
+  @Value("${user.batch.max-items}")
+  private int maxBatchItems;
+  @Value("${user.delete.chunk-size}")
+  private int deleteChunkSize;
+  @Value("${user.search.default-size}")
+  private int defaultSearchSize;
+  @Value("${user.search.max-size}")
+  private int maxSearchSize;
+  @Value("${user.changes.default-size}")
+  private int defaultChangesSize;
+  @Value("${user.changes.max-size}")
+  private int maxChangesSize;
+  @Value("${user.changes.poll-timeout}")
+  private Duration changesPollTimeout;
 
   /**
-   * Creates a new user.
+   * Creates a new user, recording the change in the same transaction.
    *
    * @param userDto The DTO containing user information.
    * @return The created user DTO.
+   * @throws EmailAlreadyExistsException if another user has the email.
    */
+  @Transactional
   public UserDto create(UserDto userDto) {
-    User user = mapper.toEntity(userDto);
-    return mapper.toDto(userRepository.save(user));
+    checkEmailAvailable(userDto.getEmail(), 0);
+    User user = userRepository.save(mapper.toEntity(userDto));
+    UserDto created = mapper.toDto(user);
+    userChangeFeed.recordSaved(created);
+    eventPublisher.publishEvent(new UserSavedEvent(user));
+    return created;
+  }
+
+  /**
+   * Retrieves a user by ID, with its buffered update if any, from the user cache when possible.
+   *
+   * @param id The ID of the user to retrieve.
+   * @return The user DTO.
+   * @throws UserNotFoundException if no user with the provided ID is found.
+   */
+  public UserDto getById(long id) {
+    UserDto buffered = userWriteBehindBuffer.get(id);
+    if (buffered != null) {
+      return buffered;
+    }
+    return userCache.get(id, this::loadById);
+  }
+
+  /**
+   * Retrieves a user by ID like {@link #getById}, with a tag identifying the returned state for
+   * conditional requests. The tag is the version of the user, followed by the sequence number of
+   * its buffered update if any, since a buffered update keeps the current version until written.
+   *
+   * @param id The ID of the user to retrieve.
+   * @return The user DTO and its tag.
+   * @throws UserNotFoundException if no user with the provided ID is found.
+   */
+  public TaggedUser getTaggedById(long id) {
+    Entry<UserDto> buffered = userWriteBehindBuffer.getEntry(id);
+    if (buffered != null) {
+      UserDto user = buffered.getValue();
+      return new TaggedUser(user, user.getVersion() + "+" + buffered.getSequence());
+    }
+    UserDto user = userCache.get(id, this::loadById);
+    return new TaggedUser(user, Long.toString(user.getVersion()));
   }
 
   /**
-   * Updates an existing user.
+   * Updates an existing user. With write-behind enabled, the update is buffered and written later
+   * with other updates, and the returned user keeps its current version. Otherwise, or if the
+   * buffer is full, the user is read and written in one transaction, so that the read is served
+   * by the primary as well, and flushed before the change is recorded, so that both carry the new
+   * version.
    *
    * @param id      The ID of the user to update.
    * @param userDto The DTO containing updated user information.
    * @return The updated user DTO.
+   * @throws UserNotFoundException if no user with the provided ID is found.
+   * @throws EmailAlreadyExistsException if another user has the new email.
    */
   public UserDto update(long id, UserDto userDto) {
-    User user = findById(id);
-    mapper.updateEntity(userDto, user);
-    return mapper.toDto(userRepository.save(user));
+    if (userWriteBehindBuffer.isRunning()) {
+      UserDto current = getById(id);
+      if (!current.getEmail().equals(userDto.getEmail())) {
+        checkEmailAvailable(userDto.getEmail(), id);
+      }
+      UserDto buffered = userDto.toBuilder()
+          .id(id)
+          .version(current.getVersion())
+          .build();
+      if (userWriteBehindBuffer.offer(buffered)) {
+        return buffered;
+      }
+    }
+    userWriteBehindBuffer.flush(List.of(id));
+    return transactionTemplate.execute(status -> {
+      User user = findById(id);
+      if (!user.getEmail().equals(userDto.getEmail())) {
+        checkEmailAvailable(userDto.getEmail(), id);
+      }
+      mapper.updateEntity(userDto, user);
+      user = userRepository.save(user);
+      userRepository.flush();
+      UserDto updated = mapper.toDto(user);
+      userChangeFeed.recordSaved(updated);
+      eventPublisher.publishEvent(new UserSavedEvent(user));
+      return updated;
+    });
+  }
+
+  /**
+   * Updates the given fields of an existing user with a single UPDATE statement, without loading
+   * the user, and records the change in the same transaction. A buffered update of the user is
+   * written first. A patch without any field only checks that the user exists.
+   *
+   * @param id    The ID of the user to update.
+   * @param patch The DTO containing the changed fields.
+   * @throws UserNotFoundException if no user with the provided ID is found.
+   * @throws EmailAlreadyExistsException if another user has the new email.
+   */
+  @Transactional
+  public void patch(long id, UserPatchDto patch) {
+    if (patch.isEmpty()) {
+      getById(id);
+      return;
+    }
+    userWriteBehindBuffer.flush(List.of(id));
+    if (patch.getEmail() != null) {
+      checkEmailAvailable(patch.getEmail(), id);
+    }
+    if (userRepository.patchById(id, patch) == 0) {
+      throw new UserNotFoundException(id);
+    }
+    userChangeFeed.recordPatched(id, patch);
+    eventPublisher.publishEvent(new UserPatchedEvent(id, patch));
   }
 
   /**
-   * Deletes a user by ID.
+   * Deletes a user by ID with a single DELETE statement, without loading the user.
    *
    * @param id The ID of the user to delete.
    */
   public void deleteById(long id) {
-    userRepository.deleteById(id);
+    deleteAllById(List.of(id));
+  }
+
+  /**
+   * Deletes the users with the given IDs. IDs of missing users are ignored. The IDs are deleted in
+   * chunks, one transaction per chunk, to keep lock times short: the existing users of the chunk
+   * are locked, then deleted with a single DELETE statement, and only they are published as
+   * deleted and recorded in the change feed.
+   *
+   * @param ids The IDs of the users to delete.
+   * @return The number of deleted users.
+   * @throws BatchTooLargeException if more IDs than allowed in a batch are given.
+   * @throws InvalidIdsException if an ID is {@code null}.
+   */
+  public long deleteAllById(Collection<Long> ids) {
+    if (ids.size() > maxBatchItems) {
+      throw new BatchTooLargeException(ids.size(), maxBatchItems);
+    }
+    int index = 0;
+    for (Long id : ids) {
+      if (id == null) {
+        throw new InvalidIdsException(index);
+      }
+      index++;
+    }
+    List<Long> distinctIds = ids.stream().distinct().toList();
+    long deleted = 0;
+    for (int from = 0; from < distinctIds.size(); from += deleteChunkSize) {
+      List<Long> chunk = distinctIds.subList(from,
+          Math.min(distinctIds.size(), from + deleteChunkSize));
+      List<Long> deletedIds = transactionTemplate.execute(status -> {
+        List<Long> existing = userRepository.lockIdsByIdIn(chunk);
+        if (!existing.isEmpty()) {
+          userRepository.deleteAllByIdIn(existing);
+          userChangeFeed.recordDeleted(existing);
+        }
+        return existing;
+      });
+      if (!deletedIds.isEmpty()) {
+        deleted += deletedIds.size();
+        eventPublisher.publishEvent(new UserDeletedEvent(deletedIds));
+      }
+    }
+    return deleted;
   }
 
   /**
-   * Retrieves a list of users filtered by birthdate range.
+   * Deletes all users whose birthdate falls within the specified range. Each chunk of users is
+   * locked and deleted in its own transaction, so a large range never holds its locks for long.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @return The number of deleted users.
+   * @throws InvalidDateRangeException if the provided date range is invalid.
+   */
+  public long deleteAllByBirthDateRange(LocalDate fromDate, LocalDate toDate) {
+    validateDateRange(fromDate, toDate);
+    long deleted = 0;
+    List<Long> chunk;
+    do {
+      chunk = transactionTemplate.execute(status -> {
+        List<Long> ids = userRepository.lockIdsByBirthDateBetween(fromDate, toDate,
+            Limit.of(deleteChunkSize));
+        if (!ids.isEmpty()) {
+          userRepository.deleteAllByIdIn(ids);
+          userChangeFeed.recordDeleted(ids);
+        }
+        return ids;
+      });
+      if (!chunk.isEmpty()) {
+        deleted += chunk.size();
+        eventPublisher.publishEvent(new UserDeletedEvent(chunk));
+      }
+    } while (chunk.size() == deleteChunkSize);
+    return deleted;
+  }
+
+  /**
+   * Retrieves a list of users filtered by birthdate range. When the birthdate index is enabled
+   * and built, the matching IDs come from the index and the users are fetched by ID in batches.
+   * Buffered updates replace the stored users, which are then in birthdate and ID order.
    *
    * @param fromDate The start date of the birthdate range.
    * @param toDate   The end date of the birthdate range.
    * @return List of users within the specified birthdate range.
    * @throws InvalidDateRangeException if the provided date range is invalid.
    */
+  @Transactional(readOnly = true)
   public List<UserDto> findAllByBirthDateRange(LocalDate fromDate, LocalDate toDate) {
+    validateDateRange(fromDate, toDate);
+    BufferedUsers buffered = userWriteBehindBuffer.snapshot();
+    BirthDateIndex index = birthDateIndex.getIfAvailable();
+    if (index != null && index.isReady()) {
+      return buffered.merge(findAllByIds(index.findIds(fromDate, toDate), fromDate, toDate,
+          batch -> mapper.toDto(userRepository.findAllById(batch))), fromDate, toDate);
+    }
+    return buffered.merge(mapper.toDto(userRepository.findAllByBirthDateBetween(fromDate, toDate)),
+        fromDate, toDate);
+  }
+
+  /**
+   * Retrieves the given fields of the users filtered by birthdate range, in birthdate and ID
+   * order, with queries selecting only their columns and no managed entities. When the birthdate
+   * index is enabled and built, the matching IDs come from the index and the fields are fetched by
+   * ID in batches. Buffered updates replace the stored users. The ID and the birthdate are always
+   * set; the other fields of the DTOs are not set.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param fields   The fields to read.
+   * @return List of users within the specified birthdate range.
+   * @throws InvalidDateRangeException if the provided date range is invalid.
+   */
+  @Transactional(readOnly = true)
+  public List<UserDto> findAllByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+      Set<UserField> fields) {
+    validateDateRange(fromDate, toDate);
+    BufferedUsers buffered = userWriteBehindBuffer.snapshot().project(fields);
+    BirthDateIndex index = birthDateIndex.getIfAvailable();
+    if (index != null && index.isReady()) {
+      return buffered.merge(findAllByIds(index.findIds(fromDate, toDate), fromDate, toDate,
+          batch -> userStreamRepository.findAllById(batch, fields)), fromDate, toDate);
+    }
+    return buffered.merge(userStreamRepository.findAllByBirthDateBetween(fromDate, toDate, fields),
+        fromDate, toDate);
+  }
+
+  /**
+   * Computes an opaque version of the users within the birthdate range with a single aggregate
+   * query, without loading them. The version changes whenever a user in the range is created,
+   * updated or deleted, or moves in or out of the range. Buffered updates keep the stored
+   * versions, so while any update is buffered the version also carries the buffer sequence.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @return The version of the range.
+   * @throws InvalidDateRangeException if the provided date range is invalid.
+   */
+  @Transactional(readOnly = true)
+  public String getBirthDateRangeVersion(LocalDate fromDate, LocalDate toDate) {
+    validateDateRange(fromDate, toDate);
+    BufferedUsers buffered = userWriteBehindBuffer.snapshot();
+    UserRangeVersion version = userRepository.findVersionByBirthDateBetween(fromDate, toDate);
+    String stored = Long.toHexString(version.getCount())
+        + '-' + Long.toHexString(version.getIdSum())
+        + '-' + Long.toHexString(version.getVersionSum())
+        + '-' + Long.toHexString(version.getIdVersionSum());
+    return buffered.isEmpty() ? stored : stored + '+' + Long.toHexString(buffered.getSequence());
+  }
+
+  /**
+   * Retrieves one page of users filtered by birthdate range, ordered by birthdate and ID.
+   * Buffered updates replace the stored users.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param cursor   The cursor returned with the previous page, or {@code null} for the first one.
+   * @param size     The requested page size, or {@code null} for the default one.
+   * @return The page of users and the cursor of the next page, if any.
+   * @throws InvalidDateRangeException if the provided date range is invalid.
+   */
+  @Transactional(readOnly = true)
+  public UserPageDto findPageByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+      String cursor, Integer size) {
+    validateDateRange(fromDate, toDate);
+    int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+
+    LocalDate afterBirthDate = fromDate;
+    long afterId = Long.MIN_VALUE;
+    if (cursor != null) {
+      BirthDateCursor position = BirthDateCursor.decode(cursor);
+      if (!position.getBirthDate().isBefore(fromDate)) {
+        afterBirthDate = position.getBirthDate();
+        afterId = position.getId();
+      }
+    }
+
+    BufferedUsers buffered = userWriteBehindBuffer.snapshot();
+    if (!buffered.isEmpty()) {
+      return findPageAfter(buffered, afterBirthDate, afterId, toDate, pageSize);
+    }
+    // One extra row tells whether another page follows without a count query.
+    List<User> users = userRepository.findPageAfter(afterBirthDate, afterId, toDate,
+        Limit.of(pageSize + 1));
+    String nextCursor = null;
+    if (users.size() > pageSize) {
+      users = users.subList(0, pageSize);
+      User last = users.get(pageSize - 1);
+      nextCursor = new BirthDateCursor(last.getBirthDate(), last.getId()).encode();
+    }
+    return UserPageDto.builder()
+        .content(mapper.toDto(users))
+        .nextCursor(nextCursor)
+        .build();
+  }
+
+  /**
+   * Retrieves one page of the users whose first name, last name or email starts with the query,
+   * ignoring case. The matches come from the search index, ordered by the matching value and ID,
+   * and the users are then fetched by ID; users deleted since the index was read are skipped.
+   * Buffered updates replace the stored users, and are matched by their new values.
+   *
+   * @param query  The prefix to search for.
+   * @param cursor The cursor returned with the previous page, or {@code null} for the first one.
+   * @param size   The requested page size, or {@code null} for the default one.
+   * @return The page of users and the cursor of the next page, if any.
+   * @throws InvalidSearchQueryException if the query is blank.
+   * @throws InvalidCursorException if the cursor is malformed or belongs to another query.
+   * @throws IndexNotReadyException if the search index is not built yet.
+   */
+  @Transactional(readOnly = true)
+  public UserPageDto search(String query, String cursor, Integer size) {
+    String prefix = UserSearchIndex.normalize(query);
+    if (prefix.isEmpty()) {
+      throw new InvalidSearchQueryException(query);
+    }
+    if (!userSearchIndex.isReady()) {
+      throw new IndexNotReadyException("user search index");
+    }
+    int pageSize = size == null
+        ? defaultSearchSize : Math.max(1, Math.min(size, maxSearchSize));
+
+    String afterTerm = null;
+    long afterId = 0;
+    if (cursor != null) {
+      SearchCursor position = SearchCursor.decode(cursor);
+      if (!position.getTerm().startsWith(prefix)) {
+        throw new InvalidCursorException(cursor);
+      }
+      afterTerm = position.getTerm();
+      afterId = position.getId();
+    }
+
+    // One extra match tells whether another page follows.
+    BufferedUsers buffered = userWriteBehindBuffer.snapshot();
+    List<Match> matches = buffered.isEmpty()
+        ? userSearchIndex.search(prefix, afterTerm, afterId, pageSize + 1)
+        : search(buffered, prefix, afterTerm, afterId, pageSize + 1);
+    String nextCursor = null;
+    if (matches.size() > pageSize) {
+      matches = matches.subList(0, pageSize);
+      Match last = matches.get(pageSize - 1);
+      nextCursor = new SearchCursor(last.getTerm(), last.getId()).encode();
+    }
+    Map<Long, User> users = userRepository.findAllById(matches.stream()
+            .map(Match::getId)
+            .filter(id -> !buffered.contains(id))
+            .toList()).stream()
+        .collect(Collectors.toMap(User::getId, Function.identity()));
+    List<UserDto> content = new ArrayList<>(matches.size());
+    for (Match match : matches) {
+      UserDto bufferedUser = buffered.get(match.getId());
+      User user = users.get(match.getId());
+      if (bufferedUser != null) {
+        content.add(bufferedUser);
+      } else if (user != null) {
+        content.add(mapper.toDto(user));
+      }
+    }
+    return UserPageDto.builder()
+        .content(content)
+        .nextCursor(nextCursor)
+        .build();
+  }
+
+  /**
+   * Retrieves the user counts by birth year, birth month and age bucket. The counts are maintained
+   * on every write, so reading them does not touch the database.
+   *
+   * @return The user counts.
+   * @throws IndexNotReadyException if the counts are not built yet.
+   */
+  public UserAggregatesDto getBirthDateAggregates() {
+    if (!birthDateAggregates.isReady()) {
+      throw new IndexNotReadyException("birth date aggregates");
+    }
+    return birthDateAggregates.aggregates();
+  }
+
+  /**
+   * Reads the changes made to users after a sequence number, waiting up to
+   * {@code user.changes.poll-timeout} for new ones if there are none yet.
+   *
+   * @param since The sequence number returned with the previous changes, 0 to start with the
+   *              first change.
+   * @param size  The maximum number of changes, or {@code null} for the default one.
+   * @return The future changes and the sequence number to continue from.
+   * @throws InvalidCursorException if the sequence number is negative.
+   */
+  public CompletableFuture<UserChangesDto> pollChanges(long since, Integer size) {
+    validateChangesSince(since);
+    return userChangeFeed.poll(since, changesSize(size), changesPollTimeout);
+  }
+
+  /**
+   * Sends the changes made to users after a sequence number to a subscriber, and then every new
+   * change as it is made, until the subscription is cancelled or fails.
+   *
+   * @param since      The last sequence number already read, 0 to start with the first change.
+   * @param subscriber The subscriber.
+   * @return The subscription, cancelled to end it.
+   * @throws InvalidCursorException if the sequence number is negative.
+   */
+  public Future<?> streamChanges(long since, ChangeSubscriber subscriber) {
+    validateChangesSince(since);
+    return userChangeFeed.subscribe(since, maxChangesSize, subscriber);
+  }
+
+  /**
+   * Checks that a change sequence number can be read from.
+   *
+   * @param since The sequence number.
+   * @throws InvalidCursorException if the sequence number is negative.
+   */
+  public void validateChangesSince(long since) {
+    if (since < 0) {
+      throw new InvalidCursorException(Long.toString(since));
+    }
+  }
+
+  /**
+   * Passes every user within the birthdate range to the given action as soon as it is read,
+   * in birthdate and ID order, without collecting the result. Buffered updates replace the stored
+   * users.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param action   The action receiving each user.
+   * @throws InvalidDateRangeException if the provided date range is invalid.
+   */
+  @Transactional(readOnly = true)
+  public void streamAllByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+      Consumer<UserDto> action) {
+    validateDateRange(fromDate, toDate);
+    userWriteBehindBuffer.snapshot().merge(
+        sink -> userStreamRepository.streamAllByBirthDateBetween(fromDate, toDate, sink),
+        fromDate, toDate, action);
+  }
+
+  /**
+   * Passes every user whose birthday falls within the given number of days starting today to the
+   * given action as soon as it is read, in the order the birthdays come and by ID, wrapping
+   * across the year end. Users born on February 29 have their birthday on February 28 in other
+   * years. The days are capped at one year.
+   *
+   * @param days   The number of days, today included.
+   * @param action The action receiving each user.
+   * @throws InvalidDateRangeException if the number of days is not positive.
+   */
+  @Transactional(readOnly = true)
+  public void streamUpcomingBirthdays(int days, Consumer<UserDto> action) {
+    LocalDate today = LocalDate.now();
+    validateDays(today, days);
+    for (MonthDayRange range : MonthDayRange.upcoming(today, days)) {
+      userStreamRepository.streamAllByBirthMonthDayBetween(range, action);
+    }
+  }
+
+  /**
+   * Checks that a number of days starting today makes a valid date range.
+   *
+   * @param days The number of days, today included.
+   * @throws InvalidDateRangeException if the number of days is not positive.
+   */
+  public void validateUpcomingDays(int days) {
+    validateDays(LocalDate.now(), days);
+  }
+
+  /**
+   * Retrieves one page of users ordered by birthdate and ID with the buffered users laid over the
+   * stored ones. Stored rows of buffered users are left out, and further rows are read until the
+   * page is full; buffered users are merged in up to the last row read, since the ones after it
+   * belong to later pages.
+   *
+   * @param buffered       The buffered users.
+   * @param afterBirthDate The birthdate of the last user already returned.
+   * @param afterId        The ID of the last user already returned.
+   * @param toDate         The end date of the birthdate range.
+   * @param pageSize       The page size.
+   * @return The page of users and the cursor of the next page, if any.
+   */
+  private UserPageDto findPageAfter(BufferedUsers buffered, LocalDate afterBirthDate,
+      long afterId, LocalDate toDate, int pageSize) {
+    List<UserDto> users = new ArrayList<>(pageSize + 1);
+    LocalDate lastBirthDate = afterBirthDate;
+    long lastId = afterId;
+    List<User> rows;
+    do {
+      rows = userRepository.findPageAfter(lastBirthDate, lastId, toDate, Limit.of(pageSize + 1));
+      for (User row : rows) {
+        if (!buffered.contains(row.getId())) {
+          users.add(mapper.toDto(row));
+        }
+        lastBirthDate = row.getBirthDate();
+        lastId = row.getId();
+      }
+    } while (rows.size() > pageSize && users.size() <= pageSize);
+    if (rows.size() <= pageSize) {
+      lastBirthDate = toDate;
+      lastId = Long.MAX_VALUE;
+    }
+    users.addAll(buffered.findAllBetween(afterBirthDate, afterId, lastBirthDate, lastId));
+    users.sort(BufferedUsers.BIRTH_DATE_ORDER);
+
+    String nextCursor = null;
+    if (users.size() > pageSize) {
+      users = users.subList(0, pageSize);
+      UserDto last = users.get(pageSize - 1);
+      nextCursor = new BirthDateCursor(last.getBirthDate(), last.getId()).encode();
+    }
+    return UserPageDto.builder()
+        .content(users)
+        .nextCursor(nextCursor)
+        .build();
+  }
+
+  /**
+   * Finds the users matching a prefix with the buffered users laid over the search index, which
+   * only holds written values. Matches of buffered users are left out, and further matches are
+   * read until the limit is reached; the buffered users are then matched by their new values, up
+   * to the last match read.
+   *
+   * @param buffered  The buffered users.
+   * @param prefix    The normalized prefix.
+   * @param afterTerm The matching term of the last user already found, or {@code null} to start
+   *                  with the first match.
+   * @param afterId   The ID of the last user already found.
+   * @param limit     The maximum number of matches to read from the index at once.
+   * @return The matches, in order, possibly more than the limit.
+   */
+  private List<Match> search(BufferedUsers buffered, String prefix, String afterTerm,
+      long afterId, int limit) {
+    List<Match> matches = new ArrayList<>(limit);
+    Match lastRead = afterTerm == null ? null : new Match(afterTerm, afterId);
+    List<Match> found;
+    do {
+      found = lastRead == null
+          ? userSearchIndex.search(prefix, null, 0, limit)
+          : userSearchIndex.search(prefix, lastRead.getTerm(), lastRead.getId(), limit);
+      for (Match match : found) {
+        if (!buffered.contains(match.getId())) {
+          matches.add(match);
+        }
+        lastRead = match;
+      }
+    } while (found.size() == limit && matches.size() < limit);
+
+    boolean exhausted = found.size() < limit;
+    for (UserDto user : buffered.values()) {
+      String term = UserSearchIndex.matchingTerm(prefix, user.getFirstName(), user.getLastName(),
+          user.getEmail());
+      if (term == null) {
+        continue;
+      }
+      Match match = new Match(term, user.getId());
+      if ((afterTerm == null || Match.ORDER.compare(match, new Match(afterTerm, afterId)) > 0)
+          && (exhausted || Match.ORDER.compare(match, lastRead) <= 0)) {
+        matches.add(match);
+      }
+    }
+    matches.sort(Match.ORDER);
+    return matches;
+  }
+
+  /**
+   * Fetches users by ID in batches, keeping the order of the IDs. Users deleted or moved out of
+   * the birthdate range since the IDs were read are skipped.
+   *
+   * @param ids      The IDs of the users.
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param loader   The query loading a batch of users by ID, in any order.
+   * @return List of the users still within the birthdate range.
+   */
+  private List<UserDto> findAllByIds(long[] ids, LocalDate fromDate, LocalDate toDate,
+      Function<List<Long>, List<UserDto>> loader) {
+    List<UserDto> result = new ArrayList<>(ids.length);
+    for (int from = 0; from < ids.length; from += idBatchSize) {
+      int to = Math.min(ids.length, from + idBatchSize);
+      List<Long> batch = new ArrayList<>(to - from);
+      for (int i = from; i < to; i++) {
+        batch.add(ids[i]);
+      }
+      Map<Long, UserDto> users = loader.apply(batch).stream()
+          .collect(Collectors.toMap(UserDto::getId, Function.identity()));
+      for (int i = from; i < to; i++) {
+        UserDto user = users.get(ids[i]);
+        if (user != null && !user.getBirthDate().isBefore(fromDate)
+            && !user.getBirthDate().isAfter(toDate)) {
+          result.add(user);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks that the start of a birthdate range is not after its end.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @throws InvalidDateRangeException if the provided date range is invalid.
+   */
+  public void validateDateRange(LocalDate fromDate, LocalDate toDate) {
     if (toDate.isBefore(fromDate)) {
       throw new InvalidDateRangeException(fromDate, toDate);
     }
-    return mapper.toDto(userRepository.findAllByBirthDateBetween(fromDate, toDate));
+  }
+
+  /**
+   * Checks that a number of days starting at a date makes a valid date range.
+   *
+   * @param from The first day.
+   * @param days The number of days.
+   * @throws InvalidDateRangeException if the number of days is not positive.
+   */
+  private void validateDays(LocalDate from, int days) {
+    if (days < 1) {
+      throw new InvalidDateRangeException(from, from.plusDays(days - 1L));
+    }
+  }
+
+  /**
+   * Returns the number of changes to read at once.
+   *
+   * @param size The requested number, or {@code null} for the default one.
+   * @return The number of changes, between 1 and {@code user.changes.max-size}.
+   */
+  private int changesSize(Integer size) {
+    return size == null ? defaultChangesSize : Math.max(1, Math.min(size, maxChangesSize));
+  }
+
+  /**
+   * Checks that no other user has an email. The unique constraint on the email stays the final
+   * guard against concurrent writes of the same email.
+   *
+   * @param email  The email.
+   * @param userId The ID of the user the email is for, 0 for a new user.
+   * @throws EmailAlreadyExistsException if another user has the email.
+   */
+  private void checkEmailAvailable(String email, long userId) {
+    if (emailFilter.isTaken(email, userId)) {
+      throw new EmailAlreadyExistsException(email);
+    }
   }
 
   /**
@@ -80,4 +783,38 @@ public class UserService {
     return userRepository.findById(id)
         .orElseThrow(() -> new UserNotFoundException(id));
   }
+
+  /**
+   * Loads a user missing from the user cache. The read runs in a read-write transaction, which is
+   * served by the primary, so that a lagging replica never puts an outdated user into the cache,
+   * where it would stay until written or expired.
+   *
+   * @param id The ID of the user.
+   * @return The user DTO.
+   * @throws UserNotFoundException if no user with the provided ID is found.
+   */
+  private UserDto loadById(long id) {
+    return transactionTemplate.execute(status -> mapper.toDto(findById(id)));
+  }
+
+  /**
+   * User retrieved by ID with the tag of its state.
+   */
+  @Getter
+  public static final class TaggedUser {
+
+    private final UserDto user;
+    private final String tag;
+
+    /**
+     * Creates a tagged user.
+     *
+     * @param user The user DTO.
+     * @param tag  The tag of the state of the user.
+     */
+    public TaggedUser(UserDto user, String tag) {
+      this.user = user;
+      this.tag = tag;
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.example.clearsolutionstesttask.shard;
+
+/**
+ * Call made on one shard.
+ *
+ * @param <T> The result type of the call.
+ */
+@FunctionalInterface
+public interface ShardCall<T> {
+
+  /**
+   * Makes the call.
+   *
+   * @param shard The shard the call runs on.
+   * @return The result of the call.
+   * @throws Throwable whatever the call throws.
+   */
+  T call(int shard) throws Throwable;
+}
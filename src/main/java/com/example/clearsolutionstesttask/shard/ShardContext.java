@@ -0,0 +1,98 @@
+package com.example.clearsolutionstesttask.shard;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Shard the current thread works on. It is either pinned, for calls the sharding layer runs on
+ * one shard on behalf of a caller, or bound to the caller's transaction, which then stays on that
+ * shard until it completes. Work without a shard goes to shard 0.
+ */
+public final class ShardContext {
+
+  private static final ThreadLocal<ShardContext> CURRENT = new ThreadLocal<>();
+
+  private final int shard;
+  private final boolean pinned;
+
+  private ShardContext(int shard, boolean pinned) {
+    this.shard = shard;
+    this.pinned = pinned;
+  }
+
+  /**
+   * Returns the shard of the current thread.
+   *
+   * @return The shard, 0 if none is set.
+   */
+  public static int currentShard() {
+    ShardContext context = CURRENT.get();
+    return context == null ? 0 : context.shard;
+  }
+
+  /**
+   * Returns the shard context of the current thread.
+   *
+   * @return The shard context, or {@code null} if none is set.
+   */
+  static ShardContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Runs a call on a shard, restoring the previous shard context afterwards.
+   *
+   * @param shard  The shard.
+   * @param pinned Whether calls of the sharding layer within the call stay on the shard.
+   * @param call   The call.
+   * @param <T>    The result type of the call.
+   * @return The result of the call.
+   * @throws Throwable whatever the call throws.
+   */
+  static <T> T call(int shard, boolean pinned, ShardCall<T> call) throws Throwable {
+    ShardContext previous = CURRENT.get();
+    CURRENT.set(new ShardContext(shard, pinned));
+    try {
+      return call.call(shard);
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Binds the current transaction to a shard until the transaction completes.
+   *
+   * @param shard The shard.
+   */
+  static void bindToTransaction(int shard) {
+    CURRENT.set(new ShardContext(shard, false));
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        CURRENT.remove();
+      }
+    });
+  }
+
+  /**
+   * Returns the shard.
+   *
+   * @return The shard.
+   */
+  int getShard() {
+    return shard;
+  }
+
+  /**
+   * Returns whether calls of the sharding layer stay on the shard.
+   *
+   * @return {@code true} if the shard is pinned.
+   */
+  boolean isPinned() {
+    return pinned;
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.clearsolutionstesttask.shard;
+
+import com.example.clearsolutionstesttask.datasource.BoundedDataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Data source that hands out connections of the shard of the current thread, see
+ * {@link ShardContext}. The routing key is read when a connection is obtained, so the data source
+ * has to be wrapped into a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which defers that until the first statement of a transaction, after the shard has been chosen.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+  private final List<BoundedDataSource> shards;
+
+  /**
+   * Creates a routing data source.
+   *
+   * @param shards The data sources of the shards, by shard.
+   */
+  public ShardRoutingDataSource(List<BoundedDataSource> shards) {
+    this.shards = List.copyOf(shards);
+
+    Map<Object, Object> targets = new HashMap<>();
+    for (int shard = 0; shard < this.shards.size(); shard++) {
+      targets.put(shard, this.shards.get(shard));
+    }
+    setTargetDataSources(targets);
+    setLenientFallback(false);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return ShardContext.currentShard();
+  }
+
+  /**
+   * Closes the data sources of all shards.
+   */
+  @Override
+  public void close() {
+    shards.forEach(BoundedDataSource::close);
+  }
+}
@@ -0,0 +1,75 @@
+package com.example.clearsolutionstesttask.shard;
+
+import com.example.clearsolutionstesttask.datasource.BoundedDataSource;
+import com.example.clearsolutionstesttask.datasource.HikariPools;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Puts the bounded connection pool behind a {@link ShardRoutingDataSource} as shard 0. Every other
+ * shard gets its own pool, configured like the main one apart from the URL, and closed together
+ * with it. Spring destroys the pool bean as created, not as wrapped, so the shards are looked up
+ * by the pool.
+ */
+@Component
+@ConditionalOnProperty("user.sharding.urls")
+public class ShardRoutingPostProcessor implements DestructionAwareBeanPostProcessor, Ordered {
+
+  @Value("${user.sharding.urls}")
+  private List<String> urls;
+  @Value("${user.datasource.replicas.urls:}")
+  private List<String> replicaUrls;
+  @Value("${user.datasource.acquire-timeout}")
+  private Duration acquireTimeout;
+
+  private final Map<HikariDataSource, ShardRoutingDataSource> routings = new ConcurrentHashMap<>();
+
+  @Override
+  public int getOrder() {
+    return Ordered.LOWEST_PRECEDENCE;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof BoundedDataSource main
+        && main.getTargetDataSource() instanceof HikariDataSource pool) {
+      if (!replicaUrls.isEmpty()) {
+        throw new IllegalStateException("Sharding cannot be combined with read replicas");
+      }
+      List<BoundedDataSource> shards = new ArrayList<>(urls.size() + 1);
+      shards.add(main);
+      for (int i = 0; i < urls.size(); i++) {
+        shards.add(HikariPools.copy(pool, urls.get(i), "shard-" + (i + 1), acquireTimeout));
+      }
+      ShardRoutingDataSource routing = new ShardRoutingDataSource(shards);
+      routings.put(pool, routing);
+      return new LazyConnectionDataSourceProxy(routing);
+    }
+    return bean;
+  }
+
+  @Override
+  public boolean requiresDestruction(Object bean) {
+    return bean instanceof HikariDataSource && routings.containsKey(bean);
+  }
+
+  @Override
+  public void postProcessBeforeDestruction(Object bean, String beanName) {
+    if (bean instanceof HikariDataSource) {
+      ShardRoutingDataSource routing = routings.remove(bean);
+      if (routing != null) {
+        routing.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.example.clearsolutionstesttask.shard;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the schema on every shard besides shard 0, where Hibernate creates it on startup. Meant
+ * for local runs on empty in-memory databases.
+ */
+@Component
+@ConditionalOnProperty(name = "user.sharding.create-schema", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final Shards shards;
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    SchemaManager schemaManager =
+        entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager();
+    for (int shard = 1; shard < shards.getCount(); shard++) {
+      try {
+        shards.callOn(shard, current -> {
+          schemaManager.exportMappedObjects(false);
+          return null;
+        });
+      } catch (Throwable ex) {
+        throw new IllegalStateException("Failed to create the schema of shard " + shard, ex);
+      }
+    }
+  }
+}
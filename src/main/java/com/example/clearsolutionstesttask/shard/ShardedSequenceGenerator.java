@@ -0,0 +1,56 @@
+package com.example.clearsolutionstesttask.shard;
+
+import java.util.Properties;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerDescriptor;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence generator that makes the shard of a row part of its ID: the ID is
+ * {@code sequence * shards + shard}, where the sequence is the one of the shard the row is
+ * inserted into, and each shard has its own pool of sequence values. Without sharding the ID is
+ * the plain sequence value.
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+  /**
+   * Hibernate setting holding the number of shards, 1 if absent.
+   */
+  public static final String SHARDS = "user.sharding.shards";
+
+  private int shards;
+  private Optimizer[] optimizers;
+
+  @Override
+  public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+    super.configure(type, parameters, serviceRegistry);
+    shards = serviceRegistry.requireService(ConfigurationService.class)
+        .getSetting(SHARDS, StandardConverters.INTEGER, 1);
+
+    OptimizerDescriptor strategy =
+        determineOptimizationStrategy(parameters, determineIncrementSize(parameters));
+    int incrementSize = determineAdjustedIncrementSize(strategy,
+        determineIncrementSize(parameters));
+    optimizers = new Optimizer[shards];
+    optimizers[0] = getOptimizer();
+    for (int shard = 1; shard < shards; shard++) {
+      optimizers[shard] = OptimizerFactory.buildOptimizer(strategy, type.getReturnedClass(),
+          incrementSize, ConfigurationHelper.getInt(INITIAL_PARAM, parameters, -1));
+    }
+  }
+
+  @Override
+  public Object generate(SharedSessionContractImplementor session, Object object) {
+    int shard = ShardContext.currentShard();
+    Number value = (Number) optimizers[shard]
+        .generate(getDatabaseStructure().buildCallback(session));
+    return value.longValue() * shards + shard;
+  }
+}
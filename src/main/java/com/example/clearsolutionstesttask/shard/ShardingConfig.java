@@ -0,0 +1,64 @@
+package com.example.clearsolutionstesttask.shard;
+
+import com.example.clearsolutionstesttask.repository.UserRepository;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Partitions the users by ID over the main database and the databases of
+ * {@code user.sharding.urls}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("user.sharding.urls")
+public class ShardingConfig {
+
+  /**
+   * Creates the shards, the main database being shard 0.
+   *
+   * @param urls            The URLs of the other shards.
+   * @param mergeBufferRows The maximum number of rows buffered by a merge of all shards.
+   * @return The shards.
+   */
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static Shards userShards(@Value("${user.sharding.urls}") List<String> urls,
+      @Value("${user.sharding.merge-buffer-rows}") int mergeBufferRows) {
+    return new Shards(urls.size() + 1, mergeBufferRows);
+  }
+
+  /**
+   * Spreads the calls of the user repository over the shards.
+   *
+   * @param shards             The shards.
+   * @param userRepository     The user repository.
+   * @param transactionManager The transaction manager.
+   * @return The post processor of the repository factory.
+   */
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static ShardingRepositoryPostProcessor userShardingPostProcessor(Shards shards,
+      ObjectProvider<UserRepository> userRepository,
+      ObjectProvider<PlatformTransactionManager> transactionManager) {
+    return new ShardingRepositoryPostProcessor(UserRepository.class,
+        new ShardingInterceptor(shards, userRepository, transactionManager));
+  }
+
+  /**
+   * Passes the number of shards to the ID generator.
+   *
+   * @param shards The shards.
+   * @return The customizer of the Hibernate properties.
+   */
+  @Bean
+  HibernatePropertiesCustomizer shardCountCustomizer(Shards shards) {
+    return properties -> properties.put(ShardedSequenceGenerator.SHARDS, shards.getCount());
+  }
+}
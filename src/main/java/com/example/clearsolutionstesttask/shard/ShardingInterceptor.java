@@ -0,0 +1,437 @@
+package com.example.clearsolutionstesttask.shard;
+
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.repository.UserRangeVersion;
+import com.example.clearsolutionstesttask.repository.UserRepository;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Spreads the calls of the user repository over the shards, in front of its transaction
+ * handling.
+ *
+ * <p>Calls for one user run on the shard of its ID, new users go to the shard of the current
+ * transaction or, outside of one, to the next shard in turn. A call made within a transaction
+ * binds the transaction to its shard; calls for another shard run in their own transaction.
+ * Calls for several IDs run on their shards in parallel. Birthdate range queries run on all
+ * shards in parallel and merge the ordered rows of the shards, the full range query through
+ * bounded merge buffers fed page by page, so that it never holds more than the merge buffer
+ * besides its result. Row locks, by birthdate range or by IDs, are taken on each shard in a
+ * transaction of its own, so they are released before the caller acts on the locked rows.
+ * {@link UserRepository} declares no other methods than the ones routed here.
+ */
+public class ShardingInterceptor implements MethodInterceptor {
+
+  private static final Comparator<User> BIRTH_DATE_ORDER =
+      Comparator.comparing(User::getBirthDate).thenComparingLong(User::getId);
+
+  private final Shards shards;
+  private final ObjectProvider<UserRepository> userRepository;
+  private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+  /**
+   * Creates an interceptor.
+   *
+   * @param shards             The shards.
+   * @param userRepository     The user repository, used to page through each shard.
+   * @param transactionManager The transaction manager, used to lock rows on each shard.
+   */
+  public ShardingInterceptor(Shards shards, ObjectProvider<UserRepository> userRepository,
+      ObjectProvider<PlatformTransactionManager> transactionManager) {
+    this.shards = shards;
+    this.userRepository = userRepository;
+    this.transactionManager = transactionManager;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    ShardContext context = ShardContext.current();
+    if ((context != null && context.isPinned())
+        || invocation.getMethod().getDeclaringClass() == Object.class) {
+      return invocation.proceed();
+    }
+
+    Object[] arguments = invocation.getArguments();
+    return switch (invocation.getMethod().getName()) {
+      case "findById", "patchById" -> onShard(invocation, shards.shardOf((Long) arguments[0]));
+      case "save" -> onShard(invocation, shardOf((User) arguments[0]));
+      case "saveAll" -> saveAll(invocation);
+      case "flush" -> invocation.proceed();
+      case "findAllById" -> concat(byIds(invocation, false));
+      case "lockIdsByIdIn" -> concat(byIds(invocation, true));
+      case "deleteAllByIdIn" -> sum(byIds(invocation, false));
+      case "findAllByBirthDateBetween" ->
+          findAllByBirthDateBetween((LocalDate) arguments[0], (LocalDate) arguments[1]);
+      case "findPageAfter" -> findPageAfter(invocation, (Limit) arguments[3]);
+      case "lockIdsByBirthDateBetween" ->
+          truncate(concat(onEachShardInTransaction(invocation)), (Limit) arguments[2]);
+      case "findVersionByBirthDateBetween" -> findVersion(invocation);
+      case "existsByEmailAndIdNot" -> anyTrue(onEachShard(invocation));
+      case "count" -> onEachShard(invocation).stream().mapToLong(result -> (Long) result).sum();
+      default -> throw new UnsupportedOperationException(
+          invocation.getMethod().getName() + " is not supported on sharded users");
+    };
+  }
+
+  /**
+   * Runs a call on a shard, within the current transaction if it is bound to that shard.
+   *
+   * @param invocation The call.
+   * @param shard      The shard.
+   * @return The result of the call.
+   * @throws Throwable whatever the call throws.
+   */
+  private Object onShard(MethodInvocation invocation, int shard) throws Throwable {
+    ShardContext context = ShardContext.current();
+    if (context != null) {
+      if (context.getShard() == shard) {
+        return invocation.proceed();
+      }
+      MethodInvocation call = copy(invocation, invocation.getArguments());
+      return shards.callOn(shard, current -> call.proceed());
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      ShardContext.bindToTransaction(shard);
+      return invocation.proceed();
+    }
+    return ShardContext.call(shard, false, current -> invocation.proceed());
+  }
+
+  /**
+   * Runs a call on every shard in parallel.
+   *
+   * @param invocation The call.
+   * @return The results, by shard.
+   * @throws Throwable whatever a call throws.
+   */
+  private List<Object> onEachShard(MethodInvocation invocation) throws Throwable {
+    List<MethodInvocation> calls = new ArrayList<>(shards.getCount());
+    for (int shard = 0; shard < shards.getCount(); shard++) {
+      calls.add(copy(invocation, invocation.getArguments()));
+    }
+    return shards.callOnEach(shard -> calls.get(shard).proceed());
+  }
+
+  /**
+   * Runs a call on every shard in parallel, each in a transaction of its own.
+   *
+   * @param invocation The call.
+   * @return The results, by shard.
+   * @throws Throwable whatever a call throws.
+   */
+  private List<Object> onEachShardInTransaction(MethodInvocation invocation) throws Throwable {
+    TransactionTemplate transactionTemplate =
+        new TransactionTemplate(transactionManager.getObject());
+    List<MethodInvocation> calls = new ArrayList<>(shards.getCount());
+    for (int shard = 0; shard < shards.getCount(); shard++) {
+      calls.add(copy(invocation, invocation.getArguments()));
+    }
+    return shards.callOnEach(
+        shard -> transactionTemplate.execute(status -> proceed(calls.get(shard))));
+  }
+
+  /**
+   * Runs a call taking IDs as first argument on the shards of the IDs, each shard with its own
+   * IDs only.
+   *
+   * @param invocation    The call.
+   * @param inTransaction Whether calls spanning shards run in a transaction of their own on each
+   *                      shard, as row locks need.
+   * @return The results, one per shard called.
+   * @throws Throwable whatever a call throws.
+   */
+  @SuppressWarnings("unchecked")
+  private List<Object> byIds(MethodInvocation invocation, boolean inTransaction)
+      throws Throwable {
+    Map<Integer, List<Long>> idsByShard = new LinkedHashMap<>();
+    for (Long id : (Iterable<Long>) invocation.getArguments()[0]) {
+      idsByShard.computeIfAbsent(shards.shardOf(id), shard -> new ArrayList<>()).add(id);
+    }
+    if (idsByShard.size() <= 1) {
+      int shard = idsByShard.isEmpty()
+          ? ShardContext.currentShard() : idsByShard.keySet().iterator().next();
+      return List.of(onShard(invocation, shard));
+    }
+    return callWithFirstArgument(invocation, idsByShard, inTransaction);
+  }
+
+  /**
+   * Saves users on their shards, new ones all on the same shard.
+   *
+   * @param invocation The call saving the users.
+   * @return The saved users, in the order of the call.
+   * @throws Throwable whatever a call throws.
+   */
+  @SuppressWarnings("unchecked")
+  private Object saveAll(MethodInvocation invocation) throws Throwable {
+    List<User> users = new ArrayList<>();
+    ((Iterable<User>) invocation.getArguments()[0]).forEach(users::add);
+    int newUserShard = -1;
+    int[] shardOfUser = new int[users.size()];
+    Map<Integer, List<User>> usersByShard = new LinkedHashMap<>();
+    for (int i = 0; i < users.size(); i++) {
+      User user = users.get(i);
+      if (user.getId() != 0) {
+        shardOfUser[i] = shards.shardOf(user.getId());
+      } else {
+        if (newUserShard < 0) {
+          newUserShard = shardOf(user);
+        }
+        shardOfUser[i] = newUserShard;
+      }
+      usersByShard.computeIfAbsent(shardOfUser[i], shard -> new ArrayList<>()).add(user);
+    }
+    if (usersByShard.size() <= 1) {
+      return usersByShard.isEmpty()
+          ? invocation.proceed() : onShard(invocation, shardOfUser[0]);
+    }
+
+    List<Object> savedByShard = callWithFirstArgument(invocation, usersByShard, false);
+    Map<Integer, Iterator<User>> saved = new HashMap<>();
+    int index = 0;
+    for (int shard : usersByShard.keySet()) {
+      saved.put(shard, ((List<User>) savedByShard.get(index++)).iterator());
+    }
+    List<User> result = new ArrayList<>(users.size());
+    for (int shard : shardOfUser) {
+      result.add(saved.get(shard).next());
+    }
+    return result;
+  }
+
+  /**
+   * Retrieves the users of a birthdate range from all shards, in birthdate and ID order. Each
+   * shard is read page by page into its merge buffer, a page at most as large as the buffer.
+   *
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @return List of users within the specified birthdate range.
+   */
+  private List<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate) {
+    UserRepository repository = userRepository.getObject();
+    int pageSize = shards.getRowsPerShard();
+    List<User> result = new ArrayList<>();
+    shards.forEachMerged(sink -> {
+      LocalDate afterBirthDate = fromDate;
+      long afterId = Long.MIN_VALUE;
+      List<User> page;
+      do {
+        page = repository.findPageAfter(afterBirthDate, afterId, toDate, Limit.of(pageSize));
+        page.forEach(sink);
+        if (!page.isEmpty()) {
+          User last = page.get(page.size() - 1);
+          afterBirthDate = last.getBirthDate();
+          afterId = last.getId();
+        }
+      } while (page.size() == pageSize);
+    }, BIRTH_DATE_ORDER, result::add);
+    return result;
+  }
+
+  /**
+   * Retrieves a page from every shard and keeps the first rows of their merge.
+   *
+   * @param invocation The call retrieving the page.
+   * @param limit      The maximum number of users of the page.
+   * @return The page of users.
+   * @throws Throwable whatever a call throws.
+   */
+  @SuppressWarnings("unchecked")
+  private List<User> findPageAfter(MethodInvocation invocation, Limit limit) throws Throwable {
+    List<User> users = (List<User>) concat(onEachShard(invocation));
+    // The pages are sorted runs, which the merge sort of List.sort merges in linear time.
+    users.sort(BIRTH_DATE_ORDER);
+    return truncate(users, limit);
+  }
+
+  /**
+   * Sums up the version aggregates of all shards.
+   *
+   * @param invocation The call computing the version aggregates.
+   * @return The version aggregates of all shards.
+   * @throws Throwable whatever a call throws.
+   */
+  private UserRangeVersion findVersion(MethodInvocation invocation) throws Throwable {
+    RangeVersionSum sum = new RangeVersionSum();
+    for (Object result : onEachShard(invocation)) {
+      sum.add((UserRangeVersion) result);
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the shard a user is saved to.
+   *
+   * @param user The user.
+   * @return The shard of its ID, or for a new user the shard of the current transaction or the
+   *     next shard in turn.
+   */
+  private int shardOf(User user) {
+    if (user.getId() != 0) {
+      return shards.shardOf(user.getId());
+    }
+    ShardContext context = ShardContext.current();
+    return context == null ? shards.nextShard() : context.getShard();
+  }
+
+  /**
+   * Runs a call on several shards in parallel, each with its own first argument.
+   *
+   * @param invocation     The call.
+   * @param firstArguments The first argument of the call by shard.
+   * @param inTransaction  Whether each shard runs its call in a transaction of its own.
+   * @return The results, in the order of the shards.
+   * @throws Throwable whatever a call throws.
+   */
+  private List<Object> callWithFirstArgument(MethodInvocation invocation,
+      Map<Integer, ? extends Collection<?>> firstArguments, boolean inTransaction)
+      throws Throwable {
+    Map<Integer, MethodInvocation> calls = new HashMap<>();
+    firstArguments.forEach((shard, firstArgument) -> {
+      Object[] arguments = invocation.getArguments().clone();
+      arguments[0] = firstArgument;
+      calls.put(shard, copy(invocation, arguments));
+    });
+    List<Integer> shardsCalled = new ArrayList<>(firstArguments.keySet());
+    if (inTransaction) {
+      TransactionTemplate transactionTemplate =
+          new TransactionTemplate(transactionManager.getObject());
+      return shards.callOn(shardsCalled,
+          shard -> transactionTemplate.execute(status -> proceed(calls.get(shard))));
+    }
+    return shards.callOn(shardsCalled, shard -> calls.get(shard).proceed());
+  }
+
+  /**
+   * Proceeds with a call within a callback that cannot throw checked exceptions.
+   *
+   * @param invocation The call.
+   * @return The result of the call.
+   */
+  private static Object proceed(MethodInvocation invocation) {
+    try {
+      return invocation.proceed();
+    } catch (RuntimeException | Error ex) {
+      throw ex;
+    } catch (Throwable ex) {
+      throw new UndeclaredThrowableException(ex);
+    }
+  }
+
+  /**
+   * Copies a call so that it can proceed on another thread, independently of the original.
+   *
+   * @param invocation The call.
+   * @param arguments  The arguments of the copy.
+   * @return The copy.
+   */
+  private MethodInvocation copy(MethodInvocation invocation, Object[] arguments) {
+    return ((ProxyMethodInvocation) invocation).invocableClone(arguments);
+  }
+
+  /**
+   * Concatenates the list results of several shards.
+   *
+   * @param results The results.
+   * @return The concatenated list.
+   */
+  private static List<?> concat(List<Object> results) {
+    List<Object> concatenated = new ArrayList<>();
+    results.forEach(result -> concatenated.addAll((List<?>) result));
+    return concatenated;
+  }
+
+  /**
+   * Sums up the row count results of several shards.
+   *
+   * @param results The results.
+   * @return The total row count.
+   */
+  private static int sum(List<Object> results) {
+    return results.stream().mapToInt(result -> (Integer) result).sum();
+  }
+
+  /**
+   * Combines the boolean results of several shards.
+   *
+   * @param results The results.
+   * @return {@code true} if any shard returned {@code true}.
+   */
+  private static boolean anyTrue(List<Object> results) {
+    return results.contains(Boolean.TRUE);
+  }
+
+  /**
+   * Keeps at most the limited number of elements of a list.
+   *
+   * @param list  The list.
+   * @param limit The limit.
+   * @param <T>   The type of the elements.
+   * @return The list, or its first elements.
+   */
+  private static <T> List<T> truncate(List<T> list, Limit limit) {
+    if (limit.isLimited() && list.size() > limit.max()) {
+      return new ArrayList<>(list.subList(0, limit.max()));
+    }
+    return list;
+  }
+
+  /**
+   * Version aggregates summed up over the shards.
+   */
+  private static final class RangeVersionSum implements UserRangeVersion {
+
+    private long count;
+    private long idSum;
+    private long versionSum;
+    private long idVersionSum;
+
+    /**
+     * Adds the version aggregates of a shard.
+     *
+     * @param version The version aggregates of the shard.
+     */
+    private void add(UserRangeVersion version) {
+      count += version.getCount();
+      idSum += version.getIdSum();
+      versionSum += version.getVersionSum();
+      idVersionSum += version.getIdVersionSum();
+    }
+
+    @Override
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public long getIdSum() {
+      return idSum;
+    }
+
+    @Override
+    public long getVersionSum() {
+      return versionSum;
+    }
+
+    @Override
+    public long getIdVersionSum() {
+      return idVersionSum;
+    }
+  }
+}
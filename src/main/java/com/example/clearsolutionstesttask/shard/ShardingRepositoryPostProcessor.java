@@ -0,0 +1,44 @@
+package com.example.clearsolutionstesttask.shard;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Adds the sharding interceptor in front of every call to a Spring Data repository, outside of
+ * its transaction handling. It runs before the other repository post processors, so that the
+ * interceptors they add, such as the timing one, see the calls as made by the caller.
+ */
+public class ShardingRepositoryPostProcessor implements BeanPostProcessor, Ordered {
+
+  private final Class<?> repositoryInterface;
+  private final MethodInterceptor interceptor;
+
+  /**
+   * Creates a post processor for a repository.
+   *
+   * @param repositoryInterface The interface of the repository.
+   * @param interceptor         The sharding interceptor.
+   */
+  public ShardingRepositoryPostProcessor(Class<?> repositoryInterface,
+      MethodInterceptor interceptor) {
+    this.repositoryInterface = repositoryInterface;
+    this.interceptor = interceptor;
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) {
+    if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean
+        && repositoryInterface.equals(factoryBean.getObjectType())) {
+      factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+          (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0, interceptor)));
+    }
+    return bean;
+  }
+}
@@ -0,0 +1,316 @@
+package com.example.clearsolutionstesttask.shard;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * The shards users are partitioned over by ID, and the calls spanning them. Calls on other shards
+ * than the one of the caller run on virtual threads, each pinned to its shard and in its own
+ * transaction; the number of concurrent calls per shard is limited by the connections of the
+ * shard.
+ */
+public class Shards implements DisposableBean {
+
+  private static final Object END = new Object();
+
+  private final int count;
+  private final int rowsPerShard;
+  private final ExecutorService executor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("shard-", 0).factory());
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * Creates the shards.
+   *
+   * @param count           The number of shards.
+   * @param mergeBufferRows The maximum number of rows buffered by a merge of all shards.
+   */
+  public Shards(int count, int mergeBufferRows) {
+    this.count = count;
+    this.rowsPerShard = Math.max(1, mergeBufferRows / count);
+  }
+
+  /**
+   * Returns the number of shards.
+   *
+   * @return The number of shards.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the number of rows a merge buffers or fetches at a time per shard.
+   *
+   * @return The number of rows per shard.
+   */
+  public int getRowsPerShard() {
+    return rowsPerShard;
+  }
+
+  /**
+   * Returns the shard of a user.
+   *
+   * @param id The ID of the user.
+   * @return The shard holding the user.
+   */
+  public int shardOf(long id) {
+    return (int) Math.floorMod(id, (long) count);
+  }
+
+  /**
+   * Returns the shard of the next new users, taking turns over all shards.
+   *
+   * @return The shard.
+   */
+  public int nextShard() {
+    return Math.floorMod(next.getAndIncrement(), count);
+  }
+
+  /**
+   * Runs a call on a shard and waits for its result.
+   *
+   * @param shard The shard.
+   * @param call  The call.
+   * @param <T>   The result type of the call.
+   * @return The result of the call.
+   * @throws Throwable whatever the call throws.
+   */
+  public <T> T callOn(int shard, ShardCall<T> call) throws Throwable {
+    return callOn(List.of(shard), call).get(0);
+  }
+
+  /**
+   * Runs a call on every shard in parallel and waits for all results. If a call fails, the
+   * others are cancelled.
+   *
+   * @param call The call.
+   * @param <T>  The result type of the call.
+   * @return The results, by shard.
+   * @throws Throwable whatever the first failed call throws.
+   */
+  public <T> List<T> callOnEach(ShardCall<T> call) throws Throwable {
+    List<Integer> shards = new ArrayList<>(count);
+    for (int shard = 0; shard < count; shard++) {
+      shards.add(shard);
+    }
+    return callOn(shards, call);
+  }
+
+  /**
+   * Runs a call on the given shards in parallel and waits for all results. If a call fails, the
+   * others are cancelled.
+   *
+   * @param shards The shards.
+   * @param call   The call.
+   * @param <T>    The result type of the call.
+   * @return The results, in the order of the shards.
+   * @throws Throwable whatever the first failed call throws.
+   */
+  public <T> List<T> callOn(List<Integer> shards, ShardCall<T> call) throws Throwable {
+    List<Future<T>> futures = new ArrayList<>(shards.size());
+    try {
+      for (int shard : shards) {
+        futures.add(executor.submit(() -> {
+          try {
+            return ShardContext.call(shard, true, call);
+          } catch (Exception | Error ex) {
+            throw ex;
+          } catch (Throwable ex) {
+            throw new UndeclaredThrowableException(ex);
+          }
+        }));
+      }
+      List<T> results = new ArrayList<>(shards.size());
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (ExecutionException ex) {
+      throw ex.getCause();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the shards", ex);
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  /**
+   * Reads all shards in parallel and passes their rows to the given action in one global order,
+   * merging the ordered rows of the shards. Each shard buffers at most
+   * {@link #getRowsPerShard()} rows and waits while its buffer is full, so the rows held by the
+   * merge stay within the merge buffer whatever the number of rows read.
+   *
+   * @param producer The producer of the rows of a shard, in the given order.
+   * @param order    The order of the rows.
+   * @param action   The action receiving each row.
+   * @param <T>      The type of the rows.
+   */
+  public <T> void forEachMerged(ShardProducer<T> producer, Comparator<? super T> order,
+      Consumer<? super T> action) {
+    List<BlockingQueue<Object>> queues = new ArrayList<>(count);
+    List<Future<?>> futures = new ArrayList<>(count);
+    try {
+      for (int shard = 0; shard < count; shard++) {
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(rowsPerShard);
+        int producerShard = shard;
+        queues.add(queue);
+        futures.add(executor.submit(() -> produce(producerShard, producer, queue)));
+      }
+
+      PriorityQueue<MergeHead<T>> heads = new PriorityQueue<>(count,
+          Comparator.<MergeHead<T>, T>comparing(head -> head.row, order)
+              .thenComparingInt(head -> head.shard));
+      for (int shard = 0; shard < count; shard++) {
+        MergeHead<T> head = new MergeHead<>(shard);
+        if (head.advance(queues.get(shard))) {
+          heads.add(head);
+        }
+      }
+      while (!heads.isEmpty()) {
+        MergeHead<T> head = heads.poll();
+        action.accept(head.row);
+        if (head.advance(queues.get(head.shard))) {
+          heads.add(head);
+        }
+      }
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Produces the rows of a shard into its merge buffer, followed by an end or failure marker.
+   *
+   * @param shard    The shard.
+   * @param producer The producer of the rows.
+   * @param queue    The merge buffer of the shard.
+   * @param <T>      The type of the rows.
+   */
+  private <T> void produce(int shard, ShardProducer<T> producer, BlockingQueue<Object> queue) {
+    try {
+      ShardContext.call(shard, true, current -> {
+        producer.produce(row -> put(queue, row));
+        return null;
+      });
+      put(queue, END);
+    } catch (CancellationException ex) {
+      // The merge has ended, nobody reads the buffer anymore.
+    } catch (Throwable ex) {
+      try {
+        queue.put(new Failure(ex));
+      } catch (InterruptedException interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Puts an element into a merge buffer, waiting while it is full.
+   *
+   * @param queue   The merge buffer.
+   * @param element The element.
+   * @throws CancellationException if the merge has ended.
+   */
+  private static void put(BlockingQueue<Object> queue, Object element) {
+    try {
+      queue.put(element);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Shard merge cancelled");
+    }
+  }
+
+  /**
+   * Producer of the ordered rows of the current shard.
+   *
+   * @param <T> The type of the rows.
+   */
+  @FunctionalInterface
+  public interface ShardProducer<T> {
+
+    /**
+     * Produces the rows of the current shard.
+     *
+     * @param sink The consumer of the rows, which blocks while the merge buffer is full.
+     */
+    void produce(Consumer<T> sink);
+  }
+
+  /**
+   * Failure of a shard producer.
+   */
+  private static final class Failure {
+
+    private final Throwable cause;
+
+    private Failure(Throwable cause) {
+      this.cause = cause;
+    }
+  }
+
+  /**
+   * Next row of a shard in a merge.
+   *
+   * @param <T> The type of the rows.
+   */
+  private static final class MergeHead<T> {
+
+    private final int shard;
+    private T row;
+
+    private MergeHead(int shard) {
+      this.shard = shard;
+    }
+
+    /**
+     * Takes the next row of the shard from its merge buffer.
+     *
+     * @param queue The merge buffer of the shard.
+     * @return {@code false} if the shard has no more rows.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean advance(BlockingQueue<Object> queue) {
+      Object element;
+      try {
+        element = queue.take();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while merging the shards", ex);
+      }
+      if (element == END) {
+        return false;
+      }
+      if (element instanceof Failure failure) {
+        if (failure.cause instanceof RuntimeException cause) {
+          throw cause;
+        }
+        if (failure.cause instanceof Error cause) {
+          throw cause;
+        }
+        throw new UndeclaredThrowableException(failure.cause);
+      }
+      row = (T) element;
+      return true;
+    }
+  }
+}
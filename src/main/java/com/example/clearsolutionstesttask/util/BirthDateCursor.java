@@ -0,0 +1,52 @@
+package com.example.clearsolutionstesttask.util;
+
+import com.example.clearsolutionstesttask.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Position of the last row of a page in the {@code (birthDate, id)} sort order.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class BirthDateCursor {
+
+  private static final char SEPARATOR = ':';
+
+  private final LocalDate birthDate;
+  private final long id;
+
+  /**
+   * Encodes the cursor into an opaque URL-safe token.
+   *
+   * @return The encoded cursor.
+   */
+  public String encode() {
+    String raw = "" + birthDate.toEpochDay() + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Decodes a token produced by {@link #encode()}.
+   *
+   * @param cursor The encoded cursor.
+   * @return The decoded cursor.
+   * @throws InvalidCursorException if the token is malformed.
+   */
+  public static BirthDateCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+      int separator = raw.indexOf(SEPARATOR);
+      LocalDate birthDate = LocalDate.ofEpochDay(Long.parseLong(raw.substring(0, separator)));
+      return new BirthDateCursor(birthDate, Long.parseLong(raw.substring(separator + 1)));
+    } catch (RuntimeException ex) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+}
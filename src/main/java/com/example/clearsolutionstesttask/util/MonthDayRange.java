@@ -0,0 +1,74 @@
+package com.example.clearsolutionstesttask.util;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Range of birthdays within one calendar year, as {@code month * 100 + day} values like the
+ * {@code birth_month_day} column, both ends inclusive.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class MonthDayRange {
+
+  private static final int FIRST_OF_YEAR = 101;
+  private static final int LAST_OF_YEAR = 1231;
+  private static final int FEBRUARY_28 = 228;
+  private static final int FEBRUARY_29 = 229;
+
+  private final int from;
+  private final int to;
+
+  /**
+   * Returns the birthdays falling within the given number of days starting today, in the order
+   * they come: one range, or two when the days wrap across the year end. The days are capped at
+   * one year, so no birthday is included twice. In years without February 29, users born on
+   * February 29 have their birthday on February 28.
+   *
+   * @param today The first day.
+   * @param days  The number of days, at least 1.
+   * @return The ranges of birthdays, in order.
+   */
+  public static List<MonthDayRange> upcoming(LocalDate today, int days) {
+    long yearDays = ChronoUnit.DAYS.between(today, today.plusYears(1));
+    LocalDate last = today.plusDays(Math.min(days, yearDays) - 1);
+    if (last.getYear() == today.getYear()) {
+      return List.of(range(monthDay(today), monthDay(last), last));
+    }
+    return List.of(range(monthDay(today), LAST_OF_YEAR, today),
+        range(FIRST_OF_YEAR, monthDay(last), last));
+  }
+
+  /**
+   * Returns the month and day of a date as {@code month * 100 + day}.
+   *
+   * @param date The date.
+   * @return The month and day.
+   */
+  public static int monthDay(LocalDate date) {
+    return date.getMonthValue() * 100 + date.getDayOfMonth();
+  }
+
+  /**
+   * Creates a range within a year, extending it to February 29 when it ends on February 28 of a
+   * year without February 29.
+   *
+   * @param from The first month and day.
+   * @param to   The last month and day.
+   * @param day  A day of the year of the range.
+   * @return The range.
+   */
+  private static MonthDayRange range(int from, int to, LocalDate day) {
+    if (to == FEBRUARY_28 && !day.isLeapYear()) {
+      to = FEBRUARY_29;
+    }
+    return new MonthDayRange(from, to);
+  }
+}
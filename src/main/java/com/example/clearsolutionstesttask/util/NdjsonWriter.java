@@ -0,0 +1,58 @@
+package com.example.clearsolutionstesttask.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Writes elements as newline-delimited JSON while they are produced, without collecting them.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonWriter {
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Creates a response body writing every element passed to the sink as one JSON line.
+   *
+   * @param type     The type of the elements.
+   * @param producer The producer, invoked with the sink that receives each element.
+   * @param <T>      The type of the elements.
+   * @return The streaming response body.
+   */
+  public <T> StreamingResponseBody write(Class<T> type, Consumer<Consumer<T>> producer) {
+    // Flushing is left to the servlet buffer instead of happening after every row.
+    ObjectWriter writer = objectMapper.writerFor(type)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    return outputStream -> {
+      try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+        generator.setRootValueSeparator(null);
+        producer.accept(element -> writeLine(writer, generator, element));
+      }
+    };
+  }
+
+  /**
+   * Writes one element followed by a line separator.
+   *
+   * @param writer    The writer bound to the element type.
+   * @param generator The generator of the response.
+   * @param element   The element to write.
+   */
+  private void writeLine(ObjectWriter writer, JsonGenerator generator, Object element) {
+    try {
+      writer.writeValue(generator, element);
+      generator.writeRaw('\n');
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.example.clearsolutionstesttask.util;
+
+import com.example.clearsolutionstesttask.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Position of the last user of a search page in the {@code (term, id)} sort order.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class SearchCursor {
+
+  private static final char SEPARATOR = ':';
+
+  private final String term;
+  private final long id;
+
+  /**
+   * Encodes the cursor into an opaque URL-safe token.
+   *
+   * @return The encoded cursor.
+   */
+  public String encode() {
+    String raw = "" + id + SEPARATOR + term;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a token produced by {@link #encode()}.
+   *
+   * @param cursor The encoded cursor.
+   * @return The decoded cursor.
+   * @throws InvalidCursorException if the token is malformed.
+   */
+  public static SearchCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = raw.indexOf(SEPARATOR);
+      return new SearchCursor(raw.substring(separator + 1),
+          Long.parseLong(raw.substring(0, separator)));
+    } catch (RuntimeException ex) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+}
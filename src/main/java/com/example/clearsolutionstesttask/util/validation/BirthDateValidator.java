@@ -13,9 +13,19 @@ public class BirthDateValidator implements ConstraintValidator<ValidBirthDate, L
   @Value("${user.min.age}")
   public int age;
 
+  private boolean required = true;
+
+  @Override
+  public void initialize(ValidBirthDate constraint) {
+    required = constraint.required();
+  }
+
   @Override
   public boolean isValid(LocalDate birthDate, ConstraintValidatorContext context) {
     if (birthDate == null) {
+      if (!required) {
+        return true;
+      }
       setViolationMessage(context, "Please enter birthdate.");
       return false;
     }
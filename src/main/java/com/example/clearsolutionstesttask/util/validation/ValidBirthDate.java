@@ -19,6 +19,11 @@ public @interface ValidBirthDate {
 
   String message() default "Invalid birth date";
 
+  /**
+   * Whether a missing birthdate is a violation.
+   */
+  boolean required() default true;
+
   Class<?>[] groups() default {};
 
   Class<? extends Payload>[] payload() default {};
@@ -0,0 +1,216 @@
+package com.example.clearsolutionstesttask.writebehind;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.dto.UserField;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Users with a buffered update, as read from the write-behind buffer at one point in time. Reads
+ * served by the database lay them over their results, so that they show buffered updates like
+ * reads by ID do. A read takes the snapshot before querying, so that an update written in between
+ * is found in one or the other.
+ */
+public final class BufferedUsers {
+
+  /**
+   * Snapshot of a buffer holding no update.
+   */
+  public static final BufferedUsers EMPTY = new BufferedUsers(Map.of(), 0);
+
+  /**
+   * Order of users by birthdate and ID, the order of birthdate range reads.
+   */
+  public static final Comparator<UserDto> BIRTH_DATE_ORDER =
+      Comparator.comparing(UserDto::getBirthDate).thenComparingLong(UserDto::getId);
+
+  private final Map<Long, UserDto> users;
+  private final long sequence;
+
+  /**
+   * Creates a snapshot.
+   *
+   * @param users    The buffered users by ID.
+   * @param sequence The greatest sequence number of the buffered updates.
+   */
+  public BufferedUsers(Map<Long, UserDto> users, long sequence) {
+    this.users = users;
+    this.sequence = sequence;
+  }
+
+  /**
+   * Checks whether no user has a buffered update.
+   *
+   * @return {@code true} if the snapshot is empty.
+   */
+  public boolean isEmpty() {
+    return users.isEmpty();
+  }
+
+  /**
+   * Returns the greatest sequence number of the buffered updates. Buffering any update raises it,
+   * so it tells apart snapshots taken before and after.
+   *
+   * @return The sequence number, 0 if the snapshot is empty.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Checks whether a user has a buffered update.
+   *
+   * @param id The ID of the user.
+   * @return {@code true} if the user has a buffered update.
+   */
+  public boolean contains(long id) {
+    return users.containsKey(id);
+  }
+
+  /**
+   * Returns the buffered update of a user.
+   *
+   * @param id The ID of the user.
+   * @return The updated user, or {@code null} if the user has no buffered update.
+   */
+  public UserDto get(long id) {
+    return users.get(id);
+  }
+
+  /**
+   * Returns the buffered updates of all users.
+   *
+   * @return The updated users, in no particular order.
+   */
+  public Collection<UserDto> values() {
+    return users.values();
+  }
+
+  /**
+   * Restricts the buffered users to some fields, like a read of those fields. The ID and the
+   * birthdate are always kept.
+   *
+   * @param fields The fields to keep.
+   * @return The snapshot of the restricted users.
+   */
+  public BufferedUsers project(Set<UserField> fields) {
+    if (users.isEmpty()) {
+      return this;
+    }
+    Map<Long, UserDto> projected = new HashMap<>();
+    users.forEach((id, user) -> projected.put(id, project(user, fields)));
+    return new BufferedUsers(projected, sequence);
+  }
+
+  /**
+   * Returns the buffered users positioned after a birthdate and ID and up to another, in
+   * birthdate and ID order.
+   *
+   * @param afterBirthDate The birthdate of the position to start after.
+   * @param afterId        The ID of the position to start after.
+   * @param toBirthDate    The birthdate of the last position.
+   * @param toId           The ID of the last position.
+   * @return The buffered users within the positions.
+   */
+  public List<UserDto> findAllBetween(LocalDate afterBirthDate, long afterId,
+      LocalDate toBirthDate, long toId) {
+    if (users.isEmpty()) {
+      return List.of();
+    }
+    List<UserDto> found = new ArrayList<>();
+    for (UserDto user : users.values()) {
+      int afterStart = user.getBirthDate().compareTo(afterBirthDate);
+      int beforeEnd = toBirthDate.compareTo(user.getBirthDate());
+      if ((afterStart > 0 || afterStart == 0 && user.getId() > afterId)
+          && (beforeEnd > 0 || beforeEnd == 0 && user.getId() <= toId)) {
+        found.add(user);
+      }
+    }
+    found.sort(BIRTH_DATE_ORDER);
+    return found;
+  }
+
+  /**
+   * Lays the buffered users over the users of a birthdate range read from the database, replacing
+   * their stored state.
+   *
+   * @param stored   The users read, in any order.
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @return The users of the range, in birthdate and ID order if any user has a buffered update.
+   */
+  public List<UserDto> merge(List<UserDto> stored, LocalDate fromDate, LocalDate toDate) {
+    if (users.isEmpty()) {
+      return stored;
+    }
+    List<UserDto> sorted = new ArrayList<>(stored);
+    sorted.sort(BIRTH_DATE_ORDER);
+    List<UserDto> merged = new ArrayList<>(sorted.size());
+    merge(sorted::forEach, fromDate, toDate, merged::add);
+    return merged;
+  }
+
+  /**
+   * Passes the users of a birthdate range read from the database to an action as they are read,
+   * with the buffered users of the range merged in at their position in place of their stored
+   * state.
+   *
+   * @param read     The read passing the stored users to its argument, in birthdate and ID order.
+   * @param fromDate The start date of the birthdate range.
+   * @param toDate   The end date of the birthdate range.
+   * @param action   The action receiving each user.
+   */
+  public void merge(Consumer<Consumer<UserDto>> read, LocalDate fromDate, LocalDate toDate,
+      Consumer<UserDto> action) {
+    if (users.isEmpty()) {
+      read.accept(action);
+      return;
+    }
+    Queue<UserDto> buffered =
+        new ArrayDeque<>(findAllBetween(fromDate, Long.MIN_VALUE, toDate, Long.MAX_VALUE));
+    read.accept(user -> {
+      while (!buffered.isEmpty() && BIRTH_DATE_ORDER.compare(buffered.peek(), user) < 0) {
+        action.accept(buffered.poll());
+      }
+      if (!users.containsKey(user.getId())) {
+        action.accept(user);
+      }
+    });
+    buffered.forEach(action);
+  }
+
+  /**
+   * Restricts a user to some fields.
+   *
+   * @param user   The user.
+   * @param fields The fields to keep, besides the ID and the birthdate.
+   * @return The restricted user.
+   */
+  private static UserDto project(UserDto user, Set<UserField> fields) {
+    UserDto.UserDtoBuilder projected = UserDto.builder()
+        .id(user.getId())
+        .birthDate(user.getBirthDate());
+    for (UserField field : fields) {
+      switch (field) {
+        case EMAIL -> projected.email(user.getEmail());
+        case FIRST_NAME -> projected.firstName(user.getFirstName());
+        case LAST_NAME -> projected.lastName(user.getLastName());
+        case ADDRESS -> projected.address(user.getAddress());
+        case PHONE_NUMBER -> projected.phoneNumber(user.getPhoneNumber());
+        case VERSION -> projected.version(user.getVersion());
+        case ID, BIRTH_DATE -> {
+        }
+      }
+    }
+    return projected.build();
+  }
+}
@@ -0,0 +1,339 @@
+package com.example.clearsolutionstesttask.writebehind;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded buffer of values waiting to be written, at most one per key: a value offered for a key
+ * that already waits replaces the waiting value. Keys are spread over stripes, each with its own
+ * lock and map, so writers of different keys rarely contend and there is no global lock.
+ *
+ * <p>Draining moves values from their stripe to the in-flight map under the stripe lock, and
+ * {@link #get} looks at both under the same lock, so a value can be read from the moment it is
+ * offered until the writer {@linkplain #complete completes} it. Locks are never held while
+ * blocking, so that virtual threads are not pinned to their carrier. Every buffered value gets
+ * the next number of a sequence shared by all keys, which tells the values of a key apart.
+ *
+ * @param <V> The type of the values.
+ */
+public class CoalescingBuffer<V> {
+
+  /**
+   * Outcome of {@link #offer}.
+   */
+  public enum Offer {
+    /** The value waits for the key, which had no value waiting. */
+    ADDED,
+    /** The value replaced the value waiting for the key. */
+    COALESCED,
+    /** The value was not buffered because the maximum number of keys wait already. */
+    FULL
+  }
+
+  private final Stripe<V>[] stripes;
+  private final int mask;
+  private final int maxPending;
+  private final AtomicInteger pending = new AtomicInteger();
+  private final Map<Long, Entry<V>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicInteger nextStripe = new AtomicInteger();
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * Creates an empty buffer.
+   *
+   * @param stripes    The number of stripes, rounded up to a power of two.
+   * @param maxPending The maximum number of keys waiting at once.
+   */
+  @SuppressWarnings("unchecked")
+  public CoalescingBuffer(int stripes, int maxPending) {
+    int size = Integer.highestOneBit(Math.max(2, stripes) - 1) << 1;
+    this.stripes = new Stripe[size];
+    for (int i = 0; i < size; i++) {
+      this.stripes[i] = new Stripe<>();
+    }
+    this.mask = size - 1;
+    this.maxPending = maxPending;
+  }
+
+  /**
+   * Buffers the value of a key, replacing the value waiting for the key if any. A replaced value
+   * keeps the time its key started waiting.
+   *
+   * @param key   The key.
+   * @param value The value.
+   * @return Whether the value was added, replaced a waiting one or was refused.
+   */
+  public Offer offer(long key, V value) {
+    Stripe<V> stripe = stripe(key);
+    stripe.lock.lock();
+    try {
+      Entry<V> waiting = stripe.entries.get(key);
+      if (waiting != null) {
+        stripe.entries.put(key,
+            new Entry<>(key, value, sequence.incrementAndGet(), waiting.bufferedAt));
+        return Offer.COALESCED;
+      }
+      if (pending.incrementAndGet() > maxPending) {
+        pending.decrementAndGet();
+        return Offer.FULL;
+      }
+      stripe.entries.put(key,
+          new Entry<>(key, value, sequence.incrementAndGet(), System.nanoTime()));
+      return Offer.ADDED;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the latest value of a key that is waiting or being written.
+   *
+   * @param key The key.
+   * @return The value, or {@code null} if the key has none in the buffer.
+   */
+  public V get(long key) {
+    Entry<V> entry = getEntry(key);
+    return entry == null ? null : entry.value;
+  }
+
+  /**
+   * Returns the latest entry of a key that is waiting or being written.
+   *
+   * @param key The key.
+   * @return The entry, or {@code null} if the key has none in the buffer.
+   */
+  public Entry<V> getEntry(long key) {
+    Stripe<V> stripe = stripe(key);
+    stripe.lock.lock();
+    try {
+      Entry<V> entry = stripe.entries.get(key);
+      return entry == null ? inFlight.get(key) : entry;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Tells whether a key has a value that is waiting or being written.
+   *
+   * @param key The key.
+   * @return {@code true} if the key has a value in the buffer.
+   */
+  public boolean contains(long key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Returns the latest entries of all keys that are waiting or being written. Waiting entries are
+   * read before the entries in flight, so that an entry drained meanwhile is still found.
+   *
+   * @return The entries by key, empty if the buffer holds none.
+   */
+  public Map<Long, Entry<V>> entries() {
+    if (pending.get() == 0 && inFlight.isEmpty()) {
+      return Map.of();
+    }
+    Map<Long, Entry<V>> entries = new HashMap<>();
+    for (Stripe<V> stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        entries.putAll(stripe.entries);
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    inFlight.forEach(entries::putIfAbsent);
+    return entries;
+  }
+
+  /**
+   * Takes waiting values for writing, one stripe after the other, starting with a different
+   * stripe every time so that no stripe waits longer than the others.
+   *
+   * @param max The maximum number of values to take.
+   * @return The values taken, now in flight.
+   */
+  public List<Entry<V>> drain(int max) {
+    List<Entry<V>> drained = new ArrayList<>(Math.min(max, Math.max(pending.get(), 0)));
+    int first = nextStripe.getAndIncrement();
+    for (int i = 0; i < stripes.length && drained.size() < max; i++) {
+      Stripe<V> stripe = stripes[(first + i) & mask];
+      stripe.lock.lock();
+      try {
+        Iterator<Entry<V>> iterator = stripe.entries.values().iterator();
+        while (iterator.hasNext() && drained.size() < max) {
+          Entry<V> entry = iterator.next();
+          iterator.remove();
+          inFlight.put(entry.key, entry);
+          drained.add(entry);
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    pending.addAndGet(-drained.size());
+    return drained;
+  }
+
+  /**
+   * Takes the waiting values of some keys for writing.
+   *
+   * @param keys The keys.
+   * @return The values taken, now in flight.
+   */
+  public List<Entry<V>> take(Collection<Long> keys) {
+    List<Entry<V>> taken = new ArrayList<>();
+    for (long key : keys) {
+      Stripe<V> stripe = stripe(key);
+      stripe.lock.lock();
+      try {
+        Entry<V> entry = stripe.entries.remove(key);
+        if (entry != null) {
+          inFlight.put(key, entry);
+          taken.add(entry);
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    pending.addAndGet(-taken.size());
+    return taken;
+  }
+
+  /**
+   * Removes written values from the in-flight map. Values discarded meanwhile are ignored.
+   *
+   * @param entries The written values.
+   */
+  public void complete(List<Entry<V>> entries) {
+    for (Entry<V> entry : entries) {
+      inFlight.remove(entry.key, entry);
+    }
+  }
+
+  /**
+   * Removes the values of some keys, whether waiting or being written.
+   *
+   * @param keys The keys.
+   */
+  public void discard(Collection<Long> keys) {
+    int discarded = 0;
+    for (long key : keys) {
+      Stripe<V> stripe = stripe(key);
+      stripe.lock.lock();
+      try {
+        if (stripe.entries.remove(key) != null) {
+          discarded++;
+        }
+        inFlight.remove(key);
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    pending.addAndGet(-discarded);
+  }
+
+  /**
+   * Returns the number of keys waiting to be written.
+   *
+   * @return The number of waiting keys.
+   */
+  public int getPending() {
+    return pending.get();
+  }
+
+  /**
+   * Returns the number of values being written.
+   *
+   * @return The number of values in flight.
+   */
+  public int getInFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * Returns the stripe of a key.
+   *
+   * @param key The key.
+   * @return The stripe.
+   */
+  private Stripe<V> stripe(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return stripes[(int) (hash >>> 32) & mask];
+  }
+
+  /**
+   * Value of a key, its sequence number and the time its key started waiting.
+   *
+   * @param <V> The type of the value.
+   */
+  public static final class Entry<V> {
+
+    private final long key;
+    private final V value;
+    private final long sequence;
+    private final long bufferedAt;
+
+    private Entry(long key, V value, long sequence, long bufferedAt) {
+      this.key = key;
+      this.value = value;
+      this.sequence = sequence;
+      this.bufferedAt = bufferedAt;
+    }
+
+    /**
+     * Returns the key.
+     *
+     * @return The key.
+     */
+    public long getKey() {
+      return key;
+    }
+
+    /**
+     * Returns the value.
+     *
+     * @return The value.
+     */
+    public V getValue() {
+      return value;
+    }
+
+    /**
+     * Returns the sequence number of the value, greater than that of every value buffered before.
+     *
+     * @return The sequence number.
+     */
+    public long getSequence() {
+      return sequence;
+    }
+
+    /**
+     * Returns the time the key started waiting, as given by {@link System#nanoTime()}.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getBufferedAt() {
+      return bufferedAt;
+    }
+  }
+
+  /**
+   * Lock and waiting values of one stripe.
+   *
+   * @param <V> The type of the values.
+   */
+  private static final class Stripe<V> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Entry<V>> entries = new HashMap<>();
+  }
+}
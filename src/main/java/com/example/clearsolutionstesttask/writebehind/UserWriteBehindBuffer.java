@@ -0,0 +1,401 @@
+package com.example.clearsolutionstesttask.writebehind;
+
+import com.example.clearsolutionstesttask.dto.BatchItemResultDto;
+import com.example.clearsolutionstesttask.dto.BatchItemStatus;
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.service.UserBatchService;
+import com.example.clearsolutionstesttask.writebehind.CoalescingBuffer.Entry;
+import com.example.clearsolutionstesttask.writebehind.CoalescingBuffer.Offer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Write-behind buffer of user updates, enabled with {@code user.write-behind.enabled}. Updates
+ * wait in a {@link CoalescingBuffer}, where a later update of a user replaces the waiting one, and
+ * are written in batches through {@link UserBatchService#updateAllValid} every
+ * {@code user.write-behind.flush-interval}, or as soon as {@code user.write-behind.batch-size}
+ * users wait. Every batch is written in its own transactions, with the change records, events and
+ * cache refreshes of a batch update.
+ *
+ * <p>Updates of users deleted meanwhile are skipped, other updates that cannot be written are
+ * dropped and logged. The buffer is drained when the application stops, after the web server, and updates
+ * coming later are refused, so that the caller writes them itself. Pending and in-flight updates,
+ * coalesced, refused and dropped updates, batch write times and the time from buffering to writing
+ * are published as {@code user.write-behind.*} meters.
+ */
+@Component
+public class UserWriteBehindBuffer implements SmartLifecycle, MeterBinder {
+
+  private static final Logger log = LogManager.getLogger(UserWriteBehindBuffer.class);
+
+  private final ObjectProvider<UserBatchService> userBatchService;
+  private final boolean enabled;
+  private final int batchSize;
+  private final Duration flushInterval;
+  private final CoalescingBuffer<UserDto> buffer;
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder refused = new LongAdder();
+  private final Map<BatchItemStatus, LongAdder> dropped = new EnumMap<>(BatchItemStatus.class);
+
+  private volatile ScheduledExecutorService executor;
+  private volatile boolean running;
+  private volatile Timer flushTimer;
+  private volatile Timer latencyTimer;
+
+  public UserWriteBehindBuffer(ObjectProvider<UserBatchService> userBatchService,
+      @Value("${user.write-behind.enabled}") boolean enabled,
+      @Value("${user.write-behind.stripes}") int stripes,
+      @Value("${user.write-behind.batch-size}") int batchSize,
+      @Value("${user.write-behind.flush-interval}") Duration flushInterval,
+      @Value("${user.write-behind.max-pending}") int maxPending) {
+    this.userBatchService = userBatchService;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.flushInterval = flushInterval;
+    this.buffer = new CoalescingBuffer<>(stripes, maxPending);
+    for (BatchItemStatus status : BatchItemStatus.values()) {
+      if (status != BatchItemStatus.CREATED && status != BatchItemStatus.UPDATED) {
+        dropped.put(status, new LongAdder());
+      }
+    }
+  }
+
+  /**
+   * Buffers an update of a user, replacing the update of the user waiting to be written if any.
+   *
+   * @param user The updated user, with its ID.
+   * @return {@code false} if the buffer is disabled, stopped or full, and the caller has to write
+   *     the update itself.
+   */
+  public boolean offer(UserDto user) {
+    if (!running) {
+      return false;
+    }
+    Offer offer = buffer.offer(user.getId(), user);
+    switch (offer) {
+      case FULL -> {
+        refused.increment();
+        return false;
+      }
+      case COALESCED -> coalesced.increment();
+      case ADDED -> requestFlush();
+    }
+    if (!running) {
+      // Stopped meanwhile, possibly after the last flush.
+      flush(List.of(user.getId()));
+    }
+    return true;
+  }
+
+  /**
+   * Returns the buffered update of a user, waiting or being written.
+   *
+   * @param id The ID of the user.
+   * @return The updated user, or {@code null} if the user has no buffered update.
+   */
+  public UserDto get(long id) {
+    return buffer.get(id);
+  }
+
+  /**
+   * Returns the buffered update of a user with its sequence number, waiting or being written.
+   * Every buffered update of a user gets a greater sequence number than the previous one.
+   *
+   * @param id The ID of the user.
+   * @return The entry of the updated user, or {@code null} if the user has no buffered update.
+   */
+  public Entry<UserDto> getEntry(long id) {
+    return buffer.getEntry(id);
+  }
+
+  /**
+   * Returns the buffered updates of all users, waiting or being written, for reads that lay them
+   * over the stored users.
+   *
+   * @return The snapshot of the buffered users.
+   */
+  public BufferedUsers snapshot() {
+    Map<Long, Entry<UserDto>> entries = buffer.entries();
+    if (entries.isEmpty()) {
+      return BufferedUsers.EMPTY;
+    }
+    Map<Long, UserDto> users = new HashMap<>();
+    long sequence = 0;
+    for (Entry<UserDto> entry : entries.values()) {
+      users.put(entry.getKey(), entry.getValue());
+      sequence = Math.max(sequence, entry.getSequence());
+    }
+    return new BufferedUsers(users, sequence);
+  }
+
+  /**
+   * Writes the buffered updates of some users now, after any batch being written. Called before
+   * writing the users otherwise, so that a buffered update never overwrites a later write.
+   *
+   * @param ids The IDs of the users.
+   */
+  public void flush(Collection<Long> ids) {
+    if (ids.stream().noneMatch(buffer::contains)) {
+      return;
+    }
+    flushLock.lock();
+    try {
+      List<Entry<UserDto>> entries = buffer.take(ids);
+      if (!entries.isEmpty()) {
+        write(entries);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Writes all waiting updates, in batches of {@code user.write-behind.batch-size}.
+   */
+  public void flush() {
+    flushRequested.set(false);
+    List<Entry<UserDto>> entries;
+    do {
+      flushLock.lock();
+      try {
+        entries = buffer.drain(batchSize);
+        if (!entries.isEmpty()) {
+          write(entries);
+        }
+      } finally {
+        flushLock.unlock();
+      }
+    } while (entries.size() == batchSize);
+  }
+
+  /**
+   * Drops the buffered updates of deleted users once the deletion commits, so that a rolled back
+   * deletion keeps them.
+   *
+   * @param event The event of the deleted users.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    buffer.discard(event.getIds());
+  }
+
+  @Override
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("user-write-behind").daemon().factory());
+    executor.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(),
+        flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    running = true;
+    log.info("User write-behind started, flushing every {} ms", flushInterval.toMillis());
+  }
+
+  @Override
+  public void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        log.warn("User write-behind flush still running at shutdown");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    int pending = buffer.getPending();
+    flush();
+    log.info("User write-behind stopped, {} pending updates written", pending);
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Stops the buffer after the web server, so that no update comes after the last flush, and
+   * before the beans writing the updates are destroyed.
+   *
+   * @return The lifecycle phase.
+   */
+  @Override
+  public int getPhase() {
+    return 0;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("user.write-behind.pending", buffer, CoalescingBuffer::getPending)
+        .description("Users with an update waiting to be written")
+        .register(registry);
+    Gauge.builder("user.write-behind.in.flight", buffer, CoalescingBuffer::getInFlight)
+        .description("Updates being written")
+        .register(registry);
+    FunctionCounter.builder("user.write-behind.coalesced", coalesced, LongAdder::sum)
+        .description("Updates replacing an update waiting to be written")
+        .register(registry);
+    FunctionCounter.builder("user.write-behind.refused", refused, LongAdder::sum)
+        .description("Updates written synchronously because the buffer was full")
+        .register(registry);
+    dropped.forEach((status, count) ->
+        FunctionCounter.builder("user.write-behind.dropped", count, LongAdder::sum)
+            .description("Buffered updates that could not be written")
+            .tag("reason", status.name().toLowerCase())
+            .register(registry));
+    flushTimer = Timer.builder("user.write-behind.flush")
+        .description("Time to write one batch of updates")
+        .publishPercentileHistogram()
+        .register(registry);
+    latencyTimer = Timer.builder("user.write-behind.latency")
+        .description("Time from buffering an update to writing it")
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  /**
+   * Schedules a flush right away once a batch is waiting, unless one is scheduled already.
+   */
+  private void requestFlush() {
+    if (buffer.getPending() >= batchSize && flushRequested.compareAndSet(false, true)) {
+      try {
+        executor.execute(this::flushQuietly);
+      } catch (RejectedExecutionException ex) {
+        flushRequested.set(false);
+      }
+    }
+  }
+
+  /**
+   * Writes all waiting updates, logging failures so that the scheduled flushes go on.
+   */
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException ex) {
+      log.error("User write-behind flush failed: {}", ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * Writes a batch of updates taken from the buffer and completes them, whatever the outcome.
+   * A user deleted after its chunk was read fails the whole chunk, so failed updates are written
+   * once more, when the deleted users are no longer found and skipped.
+   *
+   * @param entries The updates.
+   */
+  private void write(List<Entry<UserDto>> entries) {
+    long start = System.nanoTime();
+    try {
+      List<Entry<UserDto>> failed = update(entries, true);
+      if (!failed.isEmpty()) {
+        update(failed, false);
+      }
+    } finally {
+      buffer.complete(entries);
+      record(flushTimer, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Writes updates taken from the buffer. Updates of missing users are skipped.
+   *
+   * @param entries The updates.
+   * @param retry   Whether failed updates are returned to be written again instead of dropped.
+   * @return The failed updates to write again, empty if {@code retry} is {@code false}.
+   */
+  private List<Entry<UserDto>> update(List<Entry<UserDto>> entries, boolean retry) {
+    List<BatchItemResultDto> results;
+    try {
+      results = userBatchService.getObject()
+          .updateAllValid(entries.stream().map(Entry::getValue).toList());
+    } catch (RuntimeException ex) {
+      entries.forEach(entry -> drop(entry, BatchItemStatus.FAILED, ex.getMessage()));
+      return List.of();
+    }
+    long end = System.nanoTime();
+    List<Entry<UserDto>> failed = new ArrayList<>();
+    for (BatchItemResultDto result : results) {
+      Entry<UserDto> entry = entries.get(result.getIndex());
+      switch (result.getStatus()) {
+        case UPDATED -> record(latencyTimer, end - entry.getBufferedAt());
+        case NOT_FOUND -> skip(entry);
+        case FAILED -> {
+          if (retry) {
+            failed.add(entry);
+          } else {
+            drop(entry, result.getStatus(), String.valueOf(result.getErrors()));
+          }
+        }
+        default -> drop(entry, result.getStatus(), String.valueOf(result.getErrors()));
+      }
+    }
+    return failed;
+  }
+
+  /**
+   * Counts a buffered update of a user deleted meanwhile, which is expected and only logged at
+   * debug level.
+   *
+   * @param entry The update.
+   */
+  private void skip(Entry<UserDto> entry) {
+    dropped.get(BatchItemStatus.NOT_FOUND).increment();
+    log.debug("Buffered update of user {} skipped, user deleted", entry.getKey());
+  }
+
+  /**
+   * Counts and logs a buffered update that could not be written.
+   *
+   * @param entry  The update.
+   * @param status The outcome of the update.
+   * @param reason The reason of the outcome.
+   */
+  private void drop(Entry<UserDto> entry, BatchItemStatus status, String reason) {
+    dropped.get(status).increment();
+    log.warn("Buffered update of user {} dropped, {}: {}", entry.getKey(), status, reason);
+  }
+
+  /**
+   * Records a time if the meters are bound.
+   *
+   * @param timer The timer, {@code null} before binding.
+   * @param nanos The time in nanoseconds.
+   */
+  private static void record(Timer timer, long nanos) {
+    if (timer != null) {
+      timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+}
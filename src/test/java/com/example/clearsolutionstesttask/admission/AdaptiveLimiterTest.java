@@ -0,0 +1,83 @@
+package com.example.clearsolutionstesttask.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the AdaptiveLimiter class.
+ */
+public class AdaptiveLimiterTest {
+
+  private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+  @Test
+  public void testTryAcquire_rejectsOverLimit() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 0.5, TARGET);
+
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    limiter.release(0);
+
+    assertTrue(limiter.tryAcquire());
+    assertEquals(2, limiter.getInFlight());
+    assertEquals(1, limiter.getRejected());
+  }
+
+  @Test
+  public void testRelease_fastRequestsAtLimitIncreaseLimit() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 5, 0.5, TARGET);
+
+    for (int round = 0; round < 3; round++) {
+      int limit = limiter.getLimit();
+      for (int i = 0; i < limit; i++) {
+        limiter.tryAcquire();
+      }
+      for (int i = 0; i < limit; i++) {
+        limiter.release(0);
+      }
+    }
+
+    assertEquals(5, limiter.getLimit());
+  }
+
+  @Test
+  public void testRelease_fastRequestsBelowLimitKeepLimit() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 10, 0.5, TARGET);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.tryAcquire();
+      limiter.release(0);
+    }
+
+    assertEquals(4, limiter.getLimit());
+  }
+
+  @Test
+  public void testRelease_slowRequestsDecreaseLimitOncePerTarget() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(8, 3, 10, 0.5, TARGET);
+
+    for (int i = 0; i < 3; i++) {
+      limiter.tryAcquire();
+    }
+    for (int i = 0; i < 3; i++) {
+      limiter.release(2 * TARGET);
+    }
+
+    assertEquals(4, limiter.getLimit());
+  }
+
+  @Test
+  public void testRelease_limitStaysAboveMinimum() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(4, 3, 10, 0.5, 1);
+
+    limiter.tryAcquire();
+    limiter.release(2);
+
+    assertEquals(3, limiter.getLimit());
+  }
+}
@@ -0,0 +1,126 @@
+package com.example.clearsolutionstesttask.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Unit tests for the AdmissionControlFilter class.
+ */
+public class AdmissionControlFilterTest {
+
+  private AdmissionControlFilter filter;
+
+  @BeforeEach
+  public void init() {
+    filter = new AdmissionControlFilter(2, 1, 10, 0.9, Duration.ofSeconds(10),
+        Duration.ofSeconds(10), 0.5, Duration.ofSeconds(2));
+  }
+
+  @Test
+  public void testDoFilter_countsRejectionsAndReleasesAdmitted()
+      throws ServletException, IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(request("GET", "/users/1"), response, nested(
+        request("GET", "/users/2"), nested(request("GET", "/users/3"), new MockFilterChain())));
+
+    assertEquals(200, response.getStatus());
+    assertEquals(1L, stats("GET_USER").get("rejected"));
+    assertEquals(0, stats("GET_USER").get("inFlight"));
+  }
+
+  @Test
+  public void testDoFilter_rejectedRequestGets503() throws ServletException, IOException {
+    AtomicReference<MockHttpServletResponse> rejected = new AtomicReference<>();
+
+    filter.doFilter(request("PUT", "/users/1"), new MockHttpServletResponse(),
+        (outer, outerResponse) -> filter.doFilter(request("PATCH", "/users/1"),
+            new MockHttpServletResponse(), (inner, innerResponse) -> {
+              MockHttpServletResponse response = new MockHttpServletResponse();
+              filter.doFilter(request("PATCH", "/users/2"), response, new MockFilterChain());
+              rejected.set(response);
+            }));
+
+    assertEquals(503, rejected.get().getStatus());
+    assertEquals("2", rejected.get().getHeader("Retry-After"));
+  }
+
+  @Test
+  public void testDoFilter_heavyRequestsShedWhileCheapEndpointBusy()
+      throws ServletException, IOException {
+    AtomicReference<MockHttpServletResponse> heavy = new AtomicReference<>();
+
+    filter.doFilter(request("GET", "/users/1"), new MockHttpServletResponse(),
+        (outer, outerResponse) -> filter.doFilter(request("GET", "/users/2"),
+            new MockHttpServletResponse(), (inner, innerResponse) -> {
+              MockHttpServletResponse response = new MockHttpServletResponse();
+              filter.doFilter(request("GET", "/users/birth-date-range"), response,
+                  new MockFilterChain());
+              heavy.set(response);
+            }));
+
+    assertEquals(503, heavy.get().getStatus());
+    assertEquals(1L, stats("RANGE_QUERY").get("shed"));
+    assertEquals(0L, stats("RANGE_QUERY").get("rejected"));
+  }
+
+  @Test
+  public void testDoFilter_otherPathsPassThrough() throws ServletException, IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(request("GET", "/users/birth-date-range/stream"), response, chain);
+
+    assertEquals(200, response.getStatus());
+    assertEquals(0, stats("RANGE_QUERY").get("inFlight"));
+    assertNull(UserEndpoint.of("GET", "/users/abc"));
+    assertNull(UserEndpoint.of("GET", "/users123"));
+    assertEquals(UserEndpoint.BATCH, UserEndpoint.of("PUT", "/users/batch"));
+  }
+
+  /**
+   * Builds a chain that runs another request through the filter while the current one is in
+   * flight.
+   *
+   * @param request The other request.
+   * @param next    The chain of the other request.
+   * @return The chain.
+   */
+  private FilterChain nested(MockHttpServletRequest request, FilterChain next) {
+    return (outer, outerResponse) ->
+        filter.doFilter(request, new MockHttpServletResponse(), next);
+  }
+
+  /**
+   * Returns the admission control state of an endpoint.
+   *
+   * @param endpoint The name of the endpoint.
+   * @return The state of the endpoint.
+   */
+  private Map<String, Object> stats(String endpoint) {
+    return filter.stats().get(endpoint);
+  }
+
+  /**
+   * Builds a request.
+   *
+   * @param method The HTTP method of the request.
+   * @param path   The path of the request.
+   * @return The request.
+   */
+  private MockHttpServletRequest request(String method, String path) {
+    return new MockHttpServletRequest(method, path);
+  }
+}
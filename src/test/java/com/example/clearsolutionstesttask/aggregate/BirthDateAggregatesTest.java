@@ -0,0 +1,121 @@
+package com.example.clearsolutionstesttask.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import com.example.clearsolutionstesttask.dto.UserAggregatesDto;
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit tests for the BirthDateAggregates class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BirthDateAggregatesTest {
+
+  @Mock
+  private UserStreamRepository userStreamRepository;
+
+  @InjectMocks
+  private BirthDateAggregates aggregates;
+
+  private final LocalDate today = LocalDate.now();
+  private List<Map.Entry<LocalDate, Long>> rows = List.of();
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void init() {
+    ReflectionTestUtils.setField(aggregates, "minAge", 18);
+    ReflectionTestUtils.setField(aggregates, "ageBucketYears", 10);
+    ReflectionTestUtils.setField(aggregates, "ageBuckets", 2);
+    doAnswer(invocation -> {
+      ObjLongConsumer<LocalDate> action = invocation.getArgument(0);
+      rows.forEach(row -> action.accept(row.getKey(), row.getValue()));
+      return null;
+    }).when(userStreamRepository).forEachBirthDate(any(ObjLongConsumer.class));
+  }
+
+  private void save(long id, LocalDate birthDate) {
+    aggregates.onUserSaved(new UserSavedEvent(User.builder().id(id).birthDate(birthDate).build()));
+  }
+
+  @Test
+  public void testAggregates_countsByYearMonthAndAge() {
+    assertFalse(aggregates.isReady());
+    aggregates.reconcile();
+    save(1, today.minusYears(10));
+    save(2, today.minusYears(18));
+    save(3, today.minusYears(28).plusDays(1));
+    save(4, today.minusYears(28));
+    save(5, today.minusYears(60));
+
+    UserAggregatesDto result = aggregates.aggregates();
+
+    assertTrue(aggregates.isReady());
+    assertEquals(5, result.getTotal());
+    assertEquals(1L, result.getByYear().get(today.minusYears(60).getYear()));
+    assertEquals(12, result.getByMonth().size());
+    assertEquals(Map.of("under 18", 1L, "18-27", 2L, "28-37", 1L, "38+", 1L),
+        result.getByAgeBucket());
+    assertEquals(List.of("under 18", "18-27", "28-37", "38+"),
+        List.copyOf(result.getByAgeBucket().keySet()));
+  }
+
+  @Test
+  public void testWrites_moveAndRemoveUsers() {
+    aggregates.reconcile();
+    LocalDate january = LocalDate.of(1990, 1, 15);
+    LocalDate june = LocalDate.of(1991, 6, 15);
+    save(1, january);
+    save(1, january);
+    save(2, january);
+    aggregates.onUserPatched(
+        new UserPatchedEvent(2, UserPatchDto.builder().birthDate(june).build()));
+    aggregates.onUserDeleted(new UserDeletedEvent(List.of(1L, 3L)));
+
+    UserAggregatesDto result = aggregates.aggregates();
+
+    assertEquals(1, result.getTotal());
+    assertEquals(Map.of(1991, 1L), result.getByYear());
+    assertEquals(0L, result.getByMonth().get(Month.JANUARY));
+    assertEquals(1L, result.getByMonth().get(Month.JUNE));
+  }
+
+  @Test
+  public void testReconcile_repairsDrift() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    aggregates.bindTo(registry);
+    aggregates.reconcile();
+    save(1, LocalDate.of(1990, 1, 15));
+    rows = List.of(Map.entry(LocalDate.of(1980, 3, 1), 1L),
+        Map.entry(LocalDate.of(1985, 3, 1), 2L));
+
+    aggregates.reconcile();
+    UserAggregatesDto result = aggregates.aggregates();
+
+    assertEquals(2, result.getTotal());
+    assertEquals(Map.of(1980, 1L, 1985, 1L), result.getByYear());
+    assertEquals(3.0, registry.get("user.aggregates.drift").gauge().value());
+  }
+}
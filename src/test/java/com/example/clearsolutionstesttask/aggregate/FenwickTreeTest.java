@@ -0,0 +1,46 @@
+package com.example.clearsolutionstesttask.aggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the FenwickTree class, checked against a plain array of counts.
+ */
+public class FenwickTreeTest {
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void testRandomOperations_matchReferenceArray() {
+    FenwickTree tree = new FenwickTree(1_000);
+    long[] reference = new long[1_000];
+
+    for (int operation = 0; operation < 10_000; operation++) {
+      int position = random.nextInt(reference.length);
+      long delta = random.nextInt(11) - 5;
+      tree.add(position, delta);
+      reference[position] += delta;
+
+      int from = random.nextInt(reference.length);
+      int to = from + random.nextInt(reference.length - from);
+      long expected = 0;
+      for (int i = from; i <= to; i++) {
+        expected += reference[i];
+      }
+      assertEquals(expected, tree.rangeSum(from, to));
+    }
+  }
+
+  @Test
+  public void testPrefixSum_outOfRangePositions() {
+    FenwickTree tree = new FenwickTree(10);
+    tree.add(0, 2);
+    tree.add(9, 3);
+
+    assertEquals(0, tree.prefixSum(-1));
+    assertEquals(5, tree.prefixSum(9));
+    assertEquals(5, tree.prefixSum(100));
+  }
+}
@@ -0,0 +1,80 @@
+package com.example.clearsolutionstesttask.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.exception.UserNotFoundException;
+import com.example.clearsolutionstesttask.mapper.UserMapper;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for the UserCache class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserCacheTest {
+
+  @Mock
+  private UserMapper mapper;
+
+  private UserCache userCache;
+
+  private final long userId = 999L;
+  private final UserDto cachedDto = UserDto.builder().id(userId).email("old@gmail.com").build();
+
+  @BeforeEach
+  public void init() {
+    userCache = new UserCache(mapper, 10, Duration.ofMinutes(1));
+    userCache.get(userId, id -> cachedDto);
+  }
+
+  @Test
+  public void testGet_countsHitsAndMisses() {
+    assertEquals(cachedDto, userCache.get(userId, id -> null));
+
+    assertEquals(1, userCache.stats().hitCount());
+    assertEquals(1, userCache.stats().missCount());
+  }
+
+  @Test
+  public void testOnUserSaved_refreshesEntry() {
+    User user = User.builder().id(userId).email("new@gmail.com").build();
+    UserDto savedDto = UserDto.builder().id(userId).email("new@gmail.com").build();
+    when(mapper.toDto(user)).thenReturn(savedDto);
+
+    userCache.onUserSaved(new UserSavedEvent(user));
+
+    assertEquals(savedDto, userCache.get(userId, id -> cachedDto));
+  }
+
+  @Test
+  public void testOnUserDeleted_invalidatesEntry() {
+    UserDto loadedDto = UserDto.builder().id(userId).build();
+
+    userCache.onUserDeleted(new UserDeletedEvent(List.of(userId)));
+
+    assertEquals(loadedDto, userCache.get(userId, id -> loadedDto));
+  }
+
+  @Test
+  public void testGet_failedLoadIsNotCached() {
+    long missingId = 404L;
+    UserDto loadedDto = UserDto.builder().id(missingId).build();
+
+    assertThrows(UserNotFoundException.class, () -> userCache.get(missingId, id -> {
+      throw new UserNotFoundException(id);
+    }));
+
+    assertEquals(loadedDto, userCache.get(missingId, id -> loadedDto));
+  }
+}
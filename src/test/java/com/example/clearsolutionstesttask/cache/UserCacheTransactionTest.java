@@ -0,0 +1,119 @@
+package com.example.clearsolutionstesttask.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.mapper.UserMapper;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests of the UserCache class receiving write events published within transactions.
+ */
+@SpringJUnitConfig(UserCacheTransactionTest.Config.class)
+public class UserCacheTransactionTest {
+
+  private static final long USER_ID = 999L;
+
+  @Autowired
+  private UserCache userCache;
+  @Autowired
+  private UserMapper mapper;
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private final UserDto cachedDto = UserDto.builder().id(USER_ID).email("old@gmail.com").build();
+  private final User user = User.builder().id(USER_ID).email("new@gmail.com").build();
+  private final UserDto savedDto = UserDto.builder().id(USER_ID).email("new@gmail.com").build();
+
+  @BeforeEach
+  public void init() {
+    userCache.onUserDeleted(new UserDeletedEvent(List.of(USER_ID)));
+    userCache.get(USER_ID, id -> cachedDto);
+    when(mapper.toDto(user)).thenReturn(savedDto);
+  }
+
+  @Test
+  public void testOnUserSaved_inTransaction_refreshesEntryOnCommit() {
+    transactionTemplate.executeWithoutResult(status -> {
+      eventPublisher.publishEvent(new UserSavedEvent(user));
+
+      assertEquals(cachedDto, userCache.get(USER_ID, id -> cachedDto));
+    });
+
+    assertEquals(savedDto, userCache.get(USER_ID, id -> cachedDto));
+  }
+
+  @Test
+  public void testOnUserPatched_rolledBack_keepsEntry() {
+    transactionTemplate.executeWithoutResult(status -> {
+      eventPublisher.publishEvent(new UserPatchedEvent(USER_ID, UserPatchDto.builder().build()));
+      status.setRollbackOnly();
+    });
+
+    assertEquals(cachedDto, userCache.get(USER_ID, id -> savedDto));
+  }
+
+  @Test
+  public void testOnUserSaved_withoutTransaction_refreshesEntryAtOnce() {
+    eventPublisher.publishEvent(new UserSavedEvent(user));
+
+    assertEquals(savedDto, userCache.get(USER_ID, id -> cachedDto));
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  @EnableTransactionManagement
+  static class Config {
+
+    @Bean
+    public UserMapper userMapper() {
+      return mock(UserMapper.class);
+    }
+
+    @Bean
+    public UserCache userCache(UserMapper userMapper) {
+      return new UserCache(userMapper, 10, Duration.ofMinutes(1));
+    }
+
+    @Bean
+    public DataSource dataSource() {
+      return new EmbeddedDatabaseBuilder()
+          .setType(EmbeddedDatabaseType.H2)
+          .generateUniqueName(true)
+          .build();
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+      return new DataSourceTransactionManager(dataSource);
+    }
+
+    @Bean
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+      return new TransactionTemplate(transactionManager);
+    }
+  }
+}
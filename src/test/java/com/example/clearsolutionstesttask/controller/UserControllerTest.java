@@ -3,28 +3,58 @@ package com.example.clearsolutionstesttask.controller;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.clearsolutionstesttask.dto.BatchItemResultDto;
+import com.example.clearsolutionstesttask.dto.BatchItemStatus;
+import com.example.clearsolutionstesttask.dto.UserChangeDto;
+import com.example.clearsolutionstesttask.dto.UserChangeType;
+import com.example.clearsolutionstesttask.dto.UserChangesDto;
 import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.dto.UserField;
+import com.example.clearsolutionstesttask.dto.UserPageDto;
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+import com.example.clearsolutionstesttask.format.BinaryFormatConfig;
+import com.example.clearsolutionstesttask.format.FieldFilterConfig;
+import com.example.clearsolutionstesttask.service.UserBatchService;
 import com.example.clearsolutionstesttask.service.UserService;
+import com.example.clearsolutionstesttask.service.UserService.TaggedUser;
+import com.example.clearsolutionstesttask.util.NdjsonWriter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(UserController.class)
+@Import({NdjsonWriter.class, BinaryFormatConfig.class, FieldFilterConfig.class})
 public class UserControllerTest {
 
   private static final String END_POINT_PATH = "/users";
@@ -36,6 +66,8 @@ public class UserControllerTest {
 
   @MockBean
   private UserService userService;
+  @MockBean
+  private UserBatchService userBatchService;
 
   private UserDto testUserDto;
 
@@ -67,6 +99,108 @@ public class UserControllerTest {
     assertEquals(testUserDto, resultDto);
   }
 
+  @Test
+  public void testCreateUsers() throws Exception {
+    List<BatchItemResultDto> results = List.of(BatchItemResultDto.builder()
+        .index(0)
+        .status(BatchItemStatus.CREATED)
+        .user(testUserDto)
+        .build());
+    when(userBatchService.createAll(List.of(testUserDto))).thenReturn(results);
+
+    String contentAsString = mockMvc.perform(
+            post(END_POINT_PATH + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(testUserDto))))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    assertEquals(results,
+        List.of(objectMapper.readValue(contentAsString, BatchItemResultDto[].class)));
+  }
+
+  @Test
+  public void testDeleteUsers() throws Exception {
+    when(userService.deleteAllById(List.of(1L, 2L))).thenReturn(2L);
+
+    mockMvc.perform(
+            delete(END_POINT_PATH + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1,2]"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("{\"deleted\":2}"));
+  }
+
+  @Test
+  public void testCreateUsers_cbor() throws Exception {
+    ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+    MediaType cbor = MediaType.parseMediaType("application/cbor");
+    List<BatchItemResultDto> results = List.of(BatchItemResultDto.builder()
+        .index(0)
+        .status(BatchItemStatus.CREATED)
+        .user(testUserDto)
+        .build());
+    when(userBatchService.createAll(List.of(testUserDto))).thenReturn(results);
+
+    byte[] content = mockMvc.perform(
+            post(END_POINT_PATH + "/batch")
+                .contentType(cbor)
+                .accept(cbor)
+                .content(cborMapper.writeValueAsBytes(List.of(testUserDto))))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(cbor))
+        .andReturn()
+        .getResponse()
+        .getContentAsByteArray();
+
+    assertEquals(results,
+        List.of(cborMapper.readValue(content, BatchItemResultDto[].class)));
+  }
+
+  @Test
+  public void testGetUser_smile() throws Exception {
+    ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+    long userId = 999L;
+    when(userService.getTaggedById(userId)).thenReturn(new TaggedUser(testUserDto, "0"));
+
+    byte[] content = mockMvc.perform(get(END_POINT_PATH + "/" + userId)
+            .accept("application/x-jackson-smile"))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsByteArray();
+
+    assertEquals(testUserDto, smileMapper.readValue(content, UserDto.class));
+  }
+
+  @Test
+  public void testGetUser() throws Exception {
+    long userId = 999L;
+    when(userService.getTaggedById(userId)).thenReturn(new TaggedUser(testUserDto, "0"));
+
+    String contentAsString = mockMvc.perform(get(END_POINT_PATH + "/" + userId))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "W/\"0\""))
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    assertEquals(testUserDto, objectMapper.readValue(contentAsString, UserDto.class));
+  }
+
+  @Test
+  public void testGetUser_notModified() throws Exception {
+    long userId = 999L;
+    when(userService.getTaggedById(userId))
+        .thenReturn(new TaggedUser(UserDto.builder().id(userId).version(3).build(), "3"));
+
+    mockMvc.perform(get(END_POINT_PATH + "/" + userId).header("If-None-Match", "W/\"3\""))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+  }
+
   @Test
   public void testUpdateUser() throws Exception {
     long userId = 999L;
@@ -86,6 +220,33 @@ public class UserControllerTest {
     assertEquals(testUserDto, resultDto);
   }
 
+  @Test
+  public void testPatchUser() throws Exception {
+    long userId = 999L;
+    UserPatchDto patch = UserPatchDto.builder().phoneNumber("+380501234567").build();
+
+    mockMvc.perform(
+            patch(END_POINT_PATH + "/" + userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"phoneNumber\":\"+380501234567\"}"))
+        .andExpect(status().isOk());
+
+    verify(userService).patch(userId, patch);
+  }
+
+  @Test
+  public void testPatchUser_validatesPresentFieldsOnly() throws Exception {
+    mockMvc.perform(
+            patch(END_POINT_PATH + "/999")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\" \",\"birthDate\":\"" + LocalDate.now() + "\"}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json("{\"firstName\":\"Please enter first name.\","
+            + "\"birthDate\":\"Available only to users over 18 years of age\"}"));
+
+    verify(userService, never()).patch(anyLong(), any());
+  }
+
   @Test
   public void testDeleteUser() throws Exception {
     doNothing().when(userService).deleteById(anyLong());
@@ -101,6 +262,8 @@ public class UserControllerTest {
 
     List<UserDto> users = List.of(testUserDto);
 
+    when(userService.getBirthDateRangeVersion(LocalDate.parse(fromDate),
+        LocalDate.parse(toDate))).thenReturn("1-2-3-4");
     when(userService.findAllByBirthDateRange(LocalDate.parse(fromDate), LocalDate.parse(toDate)))
         .thenReturn(users);
 
@@ -109,6 +272,7 @@ public class UserControllerTest {
                 .param("fromDate", fromDate)
                 .param("toDate", toDate))
         .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "W/\"1-2-3-4\""))
         .andReturn()
         .getResponse()
         .getContentAsString();
@@ -117,4 +281,231 @@ public class UserControllerTest {
 
     assertEquals(users, resultDto);
   }
+
+  @Test
+  public void testFindAllByBirthDateRange_withFields_writesOnlyThoseFields() throws Exception {
+    String fromDate = "2000-01-01";
+    String toDate = "2020-01-01";
+
+    when(userService.getBirthDateRangeVersion(LocalDate.parse(fromDate),
+        LocalDate.parse(toDate))).thenReturn("1-2-3-4");
+    when(userService.findAllByBirthDateRange(LocalDate.parse(fromDate), LocalDate.parse(toDate),
+        Set.of(UserField.ID, UserField.EMAIL, UserField.FIRST_NAME)))
+        .thenReturn(List.of(testUserDto));
+
+    mockMvc.perform(
+            get(END_POINT_PATH + "/birth-date-range")
+                .param("fromDate", fromDate)
+                .param("toDate", toDate)
+                .param("fields", "firstName,id,email"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "W/\"1-2-3-4;id,email,firstName\""))
+        .andExpect(content().json("[{\"id\":%d,\"email\":\"%s\",\"firstName\":\"%s\"}]"
+            .formatted(testUserDto.getId(), testUserDto.getEmail(),
+                testUserDto.getFirstName()), true));
+  }
+
+  @Test
+  public void testFindAllByBirthDateRange_withFields_binaryFormatsWriteOnlyThoseFields()
+      throws Exception {
+    LocalDate fromDate = LocalDate.parse("2000-01-01");
+    LocalDate toDate = LocalDate.parse("2020-01-01");
+    when(userService.getBirthDateRangeVersion(fromDate, toDate)).thenReturn("1-2-3-4");
+    when(userService.findAllByBirthDateRange(fromDate, toDate, Set.of(UserField.EMAIL)))
+        .thenReturn(List.of(testUserDto));
+
+    ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+    ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+    Map<MediaType, ObjectMapper> binaryMappers = Map.of(
+        MediaType.parseMediaType("application/cbor"), cborMapper,
+        MediaType.parseMediaType("application/x-jackson-smile"), smileMapper);
+
+    for (Map.Entry<MediaType, ObjectMapper> binaryMapper : binaryMappers.entrySet()) {
+      MediaType mediaType = binaryMapper.getKey();
+      byte[] content = mockMvc.perform(
+              get(END_POINT_PATH + "/birth-date-range")
+                  .param("fromDate", fromDate.toString())
+                  .param("toDate", toDate.toString())
+                  .param("fields", "email")
+                  .accept(mediaType))
+          .andExpect(status().isOk())
+          .andExpect(content().contentType(mediaType))
+          .andReturn().getResponse().getContentAsByteArray();
+
+      assertEquals(objectMapper.readTree("[{\"email\":\"%s\"}]"
+          .formatted(testUserDto.getEmail())), binaryMapper.getValue().readTree(content));
+    }
+  }
+
+  @Test
+  public void testFindAllByBirthDateRange_withFields_etagOfAllFieldsDoesNotMatch()
+      throws Exception {
+    LocalDate fromDate = LocalDate.parse("2000-01-01");
+    LocalDate toDate = LocalDate.parse("2020-01-01");
+    when(userService.getBirthDateRangeVersion(fromDate, toDate)).thenReturn("1-2-3-4");
+    when(userService.findAllByBirthDateRange(fromDate, toDate, Set.of(UserField.ID)))
+        .thenReturn(List.of(testUserDto));
+
+    mockMvc.perform(
+            get(END_POINT_PATH + "/birth-date-range")
+                .param("fromDate", fromDate.toString())
+                .param("toDate", toDate.toString())
+                .param("fields", "id")
+                .header("If-None-Match", "W/\"1-2-3-4\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "W/\"1-2-3-4;id\""));
+  }
+
+  @Test
+  public void testFindAllByBirthDateRange_unknownField_returnsBadRequest() throws Exception {
+    mockMvc.perform(
+            get(END_POINT_PATH + "/birth-date-range")
+                .param("fromDate", "2000-01-01")
+                .param("toDate", "2020-01-01")
+                .param("fields", "id,password"))
+        .andExpect(status().isBadRequest());
+
+    verify(userService, never()).getBirthDateRangeVersion(any(), any());
+  }
+
+  @Test
+  public void testFindAllByBirthDateRange_notModified() throws Exception {
+    String fromDate = "2000-01-01";
+    String toDate = "2020-01-01";
+
+    when(userService.getBirthDateRangeVersion(LocalDate.parse(fromDate),
+        LocalDate.parse(toDate))).thenReturn("1-2-3-4");
+
+    mockMvc.perform(
+            get(END_POINT_PATH + "/birth-date-range")
+                .param("fromDate", fromDate)
+                .param("toDate", toDate)
+                .header("If-None-Match", "W/\"1-2-3-4\""))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    verify(userService, never()).findAllByBirthDateRange(any(), any());
+  }
+
+  @Test
+  public void testFindPageByBirthDateRange() throws Exception {
+    String fromDate = "2000-01-01";
+    String toDate = "2020-01-01";
+
+    UserPageDto page = UserPageDto.builder()
+        .content(List.of(testUserDto))
+        .nextCursor("next")
+        .build();
+
+    when(userService.findPageByBirthDateRange(LocalDate.parse(fromDate), LocalDate.parse(toDate),
+        "cursor", 10))
+        .thenReturn(page);
+
+    String contentAsString = mockMvc.perform(
+            get(END_POINT_PATH + "/birth-date-range/page")
+                .param("fromDate", fromDate)
+                .param("toDate", toDate)
+                .param("cursor", "cursor")
+                .param("size", "10"))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    assertEquals(page, objectMapper.readValue(contentAsString, UserPageDto.class));
+  }
+
+  @Test
+  public void testSearch() throws Exception {
+    UserPageDto page = UserPageDto.builder()
+        .content(List.of(testUserDto))
+        .nextCursor("next")
+        .build();
+
+    when(userService.search("ann", "cursor", 10)).thenReturn(page);
+
+    String contentAsString = mockMvc.perform(
+            get(END_POINT_PATH + "/search")
+                .param("q", "ann")
+                .param("cursor", "cursor")
+                .param("size", "10"))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    assertEquals(page, objectMapper.readValue(contentAsString, UserPageDto.class));
+  }
+
+  @Test
+  public void testStreamAllByBirthDateRange() throws Exception {
+    String fromDate = "2000-01-01";
+    String toDate = "2020-01-01";
+
+    doAnswer(invocation -> {
+      Consumer<UserDto> action = invocation.getArgument(2);
+      action.accept(testUserDto);
+      action.accept(testUserDto);
+      return null;
+    }).when(userService).streamAllByBirthDateRange(eq(LocalDate.parse(fromDate)),
+        eq(LocalDate.parse(toDate)), any());
+
+    MvcResult mvcResult = mockMvc.perform(
+            get(END_POINT_PATH + "/birth-date-range/stream")
+                .param("fromDate", fromDate)
+                .param("toDate", toDate))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    String line = objectMapper.writeValueAsString(testUserDto);
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string(line + "\n" + line + "\n"));
+  }
+
+  @Test
+  public void testStreamUpcomingBirthdays() throws Exception {
+    doAnswer(invocation -> {
+      Consumer<UserDto> action = invocation.getArgument(1);
+      action.accept(testUserDto);
+      return null;
+    }).when(userService).streamUpcomingBirthdays(eq(30), any());
+
+    MvcResult mvcResult = mockMvc.perform(
+            get(END_POINT_PATH + "/upcoming-birthdays")
+                .param("days", "30"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    String line = objectMapper.writeValueAsString(testUserDto);
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string(line + "\n"));
+  }
+
+  @Test
+  public void testGetChanges() throws Exception {
+    UserChangesDto changes = UserChangesDto.builder()
+        .changes(List.of(UserChangeDto.builder()
+            .seq(8)
+            .type(UserChangeType.SAVED)
+            .userId(1)
+            .user(testUserDto)
+            .build()))
+        .next(8)
+        .build();
+    when(userService.pollChanges(7, null)).thenReturn(CompletableFuture.completedFuture(changes));
+
+    MvcResult mvcResult = mockMvc.perform(
+            get(END_POINT_PATH + "/changes")
+                .param("since", "7"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(content().json(objectMapper.writeValueAsString(changes)));
+  }
 }
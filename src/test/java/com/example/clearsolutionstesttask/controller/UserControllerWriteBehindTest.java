@@ -0,0 +1,147 @@
+package com.example.clearsolutionstesttask.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Tests of the UserController class with updates held in the write-behind buffer, which is not
+ * flushed while the tests run.
+ */
+@SpringBootTest(properties = {
+    "user.write-behind.enabled=true",
+    "user.write-behind.flush-interval=1h"
+})
+@AutoConfigureMockMvc
+public class UserControllerWriteBehindTest {
+
+  private static final String END_POINT_PATH = "/users";
+
+  @Autowired
+  private MockMvc mockMvc;
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  public void testGetUser_bufferedUpdate_previousETagDoesNotMatch() throws Exception {
+    UserDto user = UserDto.builder()
+        .email("write.behind@gmail.com")
+        .firstName("Test first name")
+        .lastName("Test last name")
+        .birthDate(LocalDate.parse("1990-01-01"))
+        .build();
+    String created = mockMvc.perform(post(END_POINT_PATH)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(user)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    long id = objectMapper.readValue(created, UserDto.class).getId();
+    String previousETag = mockMvc.perform(get(END_POINT_PATH + "/{id}", id))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    user = user.toBuilder().firstName("Updated first name").build();
+    mockMvc.perform(put(END_POINT_PATH + "/{id}", id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(user)))
+        .andExpect(status().isOk());
+    String bufferedETag = mockMvc.perform(get(END_POINT_PATH + "/{id}", id)
+            .header(HttpHeaders.IF_NONE_MATCH, previousETag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.firstName").value("Updated first name"))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    mockMvc.perform(get(END_POINT_PATH + "/{id}", id)
+            .header(HttpHeaders.IF_NONE_MATCH, bufferedETag))
+        .andExpect(status().isNotModified());
+
+    user = user.toBuilder().firstName("Updated again").build();
+    mockMvc.perform(put(END_POINT_PATH + "/{id}", id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(user)))
+        .andExpect(status().isOk());
+    mockMvc.perform(get(END_POINT_PATH + "/{id}", id)
+            .header(HttpHeaders.IF_NONE_MATCH, bufferedETag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.firstName").value("Updated again"));
+  }
+
+  @Test
+  public void testRangeAndSearchReads_bufferedUpdate_showUpdatedUser() throws Exception {
+    UserDto user = UserDto.builder()
+        .email("buffered.reads@gmail.com")
+        .firstName("Original")
+        .lastName("Reader")
+        .birthDate(LocalDate.parse("1950-03-03"))
+        .build();
+    String created = mockMvc.perform(post(END_POINT_PATH)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(user)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    long id = objectMapper.readValue(created, UserDto.class).getId();
+    String rangeETag = mockMvc.perform(get(END_POINT_PATH + "/birth-date-range")
+            .param("fromDate", "1950-01-01")
+            .param("toDate", "1950-12-31"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    user = user.toBuilder().firstName("Bufferedname").birthDate(LocalDate.parse("1951-04-04"))
+        .build();
+    mockMvc.perform(put(END_POINT_PATH + "/{id}", id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(user)))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get(END_POINT_PATH + "/birth-date-range")
+            .param("fromDate", "1950-01-01")
+            .param("toDate", "1950-12-31")
+            .header(HttpHeaders.IF_NONE_MATCH, rangeETag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(0));
+    mockMvc.perform(get(END_POINT_PATH + "/birth-date-range")
+            .param("fromDate", "1951-01-01")
+            .param("toDate", "1951-12-31")
+            .param("fields", "id,firstName"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value(id))
+        .andExpect(jsonPath("$[0].firstName").value("Bufferedname"));
+    mockMvc.perform(get(END_POINT_PATH + "/birth-date-range/page")
+            .param("fromDate", "1951-01-01")
+            .param("toDate", "1951-12-31"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].firstName").value("Bufferedname"));
+    MvcResult stream = mockMvc.perform(get(END_POINT_PATH + "/birth-date-range/stream")
+            .param("fromDate", "1951-01-01")
+            .param("toDate", "1951-12-31"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(stream))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("Bufferedname")));
+    mockMvc.perform(get(END_POINT_PATH + "/search").param("q", "bufferedn"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].id").value(id));
+    mockMvc.perform(get(END_POINT_PATH + "/search").param("q", "original"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(0));
+  }
+}
@@ -0,0 +1,74 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for the BoundedDataSource class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BoundedDataSourceTest {
+
+  @Mock
+  private DataSource target;
+
+  private BoundedDataSource dataSource;
+
+  @BeforeEach
+  public void init() {
+    dataSource = new BoundedDataSource(target, 1, Duration.ofMillis(10));
+  }
+
+  @Test
+  public void testGetConnection_waitsForFreeConnection() throws SQLException {
+    when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+
+    Connection connection = dataSource.getConnection();
+
+    assertEquals(0, dataSource.getAvailableConnections());
+    assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+    connection.close();
+
+    assertEquals(1, dataSource.getAvailableConnections());
+    dataSource.getConnection().close();
+    verify(target, times(2)).getConnection();
+  }
+
+  @Test
+  public void testClose_releasesOnce() throws SQLException {
+    Connection pooled = mock(Connection.class);
+    when(target.getConnection()).thenReturn(pooled);
+
+    Connection connection = dataSource.getConnection();
+    connection.close();
+    connection.close();
+
+    assertEquals(1, dataSource.getAvailableConnections());
+    verify(pooled, times(2)).close();
+  }
+
+  @Test
+  public void testGetConnection_releasesOnFailure() throws SQLException {
+    when(target.getConnection()).thenThrow(new SQLException("down"));
+
+    assertThrows(SQLException.class, dataSource::getConnection);
+
+    assertEquals(1, dataSource.getAvailableConnections());
+  }
+}
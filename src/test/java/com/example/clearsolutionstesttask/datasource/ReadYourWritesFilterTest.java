@@ -0,0 +1,82 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Unit tests for the ReadYourWritesFilter class.
+ */
+public class ReadYourWritesFilterTest {
+
+  private ReadYourWritesFilter filter;
+
+  @BeforeEach
+  public void init() {
+    filter = new ReadYourWritesFilter(Duration.ofMinutes(1), 100);
+  }
+
+  @Test
+  public void testDoFilter_readsAfterWriteGoToPrimary() throws ServletException, IOException {
+    assertFalse(primaryRequired("GET", "client"));
+
+    primaryRequired("POST", "client");
+
+    assertTrue(primaryRequired("GET", "client"));
+    assertFalse(primaryRequired("GET", "other"));
+    assertFalse(primaryRequired("GET", null));
+    assertNull(ReplicaRoutingContext.current());
+  }
+
+  @Test
+  public void testDoFilter_failedWriteIsIgnored() throws ServletException, IOException {
+    MockHttpServletRequest request = request("PUT", "client");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    response.setStatus(404);
+
+    filter.doFilter(request, response, new MockFilterChain());
+
+    assertFalse(primaryRequired("GET", "client"));
+  }
+
+  /**
+   * Runs a request through the filter.
+   *
+   * @param method   The HTTP method of the request.
+   * @param clientId The client ID header of the request, may be {@code null}.
+   * @return Whether the request was routed to the primary.
+   */
+  private boolean primaryRequired(String method, String clientId)
+      throws ServletException, IOException {
+    AtomicBoolean primaryRequired = new AtomicBoolean();
+    filter.doFilter(request(method, clientId), new MockHttpServletResponse(),
+        (request, response) -> primaryRequired.set(
+            ReplicaRoutingContext.current().isPrimaryRequired()));
+    return primaryRequired.get();
+  }
+
+  /**
+   * Builds a request.
+   *
+   * @param method   The HTTP method of the request.
+   * @param clientId The client ID header of the request, may be {@code null}.
+   * @return The request.
+   */
+  private MockHttpServletRequest request(String method, String clientId) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, "/users");
+    if (clientId != null) {
+      request.addHeader(ReadYourWritesFilter.CLIENT_ID_HEADER, clientId);
+    }
+    return request;
+  }
+}
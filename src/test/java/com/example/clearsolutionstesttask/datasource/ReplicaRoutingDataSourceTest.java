@@ -0,0 +1,107 @@
+package com.example.clearsolutionstesttask.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.clearsolutionstesttask.datasource.ReplicaRoutingDataSource.Selection;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for the ReplicaRoutingDataSource class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReplicaRoutingDataSourceTest {
+
+  @Mock
+  private DataSource primary;
+  @Mock
+  private DataSource replica0;
+  @Mock
+  private DataSource replica1;
+
+  private BoundedDataSource boundedReplica0;
+  private ReplicaRoutingDataSource dataSource;
+
+  @BeforeEach
+  public void init() {
+    boundedReplica0 = bounded(replica0);
+    dataSource = new ReplicaRoutingDataSource(bounded(primary),
+        List.of(boundedReplica0, bounded(replica1)), Selection.ROUND_ROBIN);
+  }
+
+  @AfterEach
+  public void cleanup() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    ReplicaRoutingContext.close();
+  }
+
+  @Test
+  public void testGetConnection_writesGoToPrimary() throws SQLException {
+    when(primary.getConnection()).thenReturn(mock(Connection.class, "primary"));
+
+    assertEquals("primary", dataSource.getConnection().toString());
+  }
+
+  @Test
+  public void testGetConnection_readsAlternateReplicas() throws SQLException {
+    when(replica0.getConnection()).thenReturn(mock(Connection.class, "replica0"));
+    when(replica1.getConnection()).thenReturn(mock(Connection.class, "replica1"));
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertEquals("replica0", dataSource.getConnection().toString());
+    assertEquals("replica1", dataSource.getConnection().toString());
+  }
+
+  @Test
+  public void testGetConnection_readsOfContextStayOnReplica() throws SQLException {
+    when(replica0.getConnection()).thenReturn(mock(Connection.class, "replica0"));
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    ReplicaRoutingContext.open(false);
+
+    assertEquals("replica0", dataSource.getConnection().toString());
+    assertEquals("replica0", dataSource.getConnection().toString());
+  }
+
+  @Test
+  public void testGetConnection_readsGoToPrimaryWhenRequired() throws SQLException {
+    when(primary.getConnection()).thenReturn(mock(Connection.class, "primary"));
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    ReplicaRoutingContext.open(true);
+
+    assertEquals("primary", dataSource.getConnection().toString());
+  }
+
+  @Test
+  public void testGetConnection_leastLoadedSkipsBusyReplica() throws SQLException {
+    when(replica0.getConnection()).thenReturn(mock(Connection.class, "replica0"));
+    when(replica1.getConnection()).thenReturn(mock(Connection.class, "replica1"));
+    dataSource = new ReplicaRoutingDataSource(bounded(primary),
+        List.of(boundedReplica0, bounded(replica1)), Selection.LEAST_LOADED);
+    boundedReplica0.getConnection();
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertEquals("replica1", dataSource.getConnection().toString());
+  }
+
+  /**
+   * Bounds a mocked data source to two connections.
+   *
+   * @param target The mocked data source.
+   * @return The bounded data source.
+   */
+  private BoundedDataSource bounded(DataSource target) {
+    return new BoundedDataSource(target, 2, Duration.ofMillis(10));
+  }
+}
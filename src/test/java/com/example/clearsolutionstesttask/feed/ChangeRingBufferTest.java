@@ -0,0 +1,111 @@
+package com.example.clearsolutionstesttask.feed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.clearsolutionstesttask.dto.UserChangeDto;
+import com.example.clearsolutionstesttask.dto.UserChangeType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the ChangeRingBuffer class.
+ */
+public class ChangeRingBufferTest {
+
+  @Test
+  public void testRead_stopsAtFirstUnpublishedSequence() {
+    ChangeRingBuffer buffer = new ChangeRingBuffer(8, 0);
+    long first = buffer.claim(3);
+    buffer.publish(first + 1, change(first + 1));
+    buffer.publish(first + 2, change(first + 2));
+
+    List<UserChangeDto> changes = new ArrayList<>();
+    assertEquals(0, buffer.read(0, 10, changes));
+    assertTrue(changes.isEmpty());
+
+    buffer.publish(first, change(first));
+
+    assertEquals(3, buffer.getWatermark());
+    assertEquals(3, buffer.read(0, 10, changes));
+    assertEquals(List.of(1L, 2L, 3L), changes.stream().map(UserChangeDto::getSeq).toList());
+  }
+
+  @Test
+  public void testRead_skipsRolledBackSequences() {
+    ChangeRingBuffer buffer = new ChangeRingBuffer(8, 10);
+    long first = buffer.claim(2);
+    buffer.publish(first, null);
+    buffer.publish(first + 1, change(first + 1));
+
+    List<UserChangeDto> changes = new ArrayList<>();
+    assertEquals(12, buffer.read(10, 10, changes));
+    assertEquals(List.of(12L), changes.stream().map(UserChangeDto::getSeq).toList());
+  }
+
+  @Test
+  public void testRead_reportsChangesThatLeftTheBuffer() {
+    ChangeRingBuffer buffer = new ChangeRingBuffer(4, 0);
+    for (int i = 0; i < 6; i++) {
+      long seq = buffer.claim(1);
+      buffer.publish(seq, change(seq));
+    }
+
+    assertEquals(ChangeRingBuffer.NOT_RETAINED, buffer.read(0, 10, new ArrayList<>()));
+    List<UserChangeDto> changes = new ArrayList<>();
+    assertEquals(4, buffer.read(2, 2, changes));
+    assertEquals(List.of(3L, 4L), changes.stream().map(UserChangeDto::getSeq).toList());
+  }
+
+  @Test
+  public void testAwaitAfter_completesWhenWatermarkPasses() {
+    ChangeRingBuffer buffer = new ChangeRingBuffer(4, 0);
+    CompletableFuture<Void> waiter = buffer.awaitAfter(0);
+    long seq = buffer.claim(1);
+
+    assertFalse(waiter.isDone());
+    buffer.publish(seq, null);
+    assertTrue(waiter.isDone());
+    assertTrue(buffer.awaitAfter(0).isDone());
+  }
+
+  @Test
+  public void testConcurrentPublishers_watermarkCoversEverySequence() throws Exception {
+    ChangeRingBuffer buffer = new ChangeRingBuffer(1 << 16, 0);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int thread = 0; thread < 8; thread++) {
+      executor.execute(() -> {
+        for (int i = 0; i < 5_000; i++) {
+          long seq = buffer.claim(1);
+          buffer.publish(seq, seq % 3 == 0 ? null : change(seq));
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+    List<UserChangeDto> changes = new ArrayList<>();
+    assertEquals(40_000, buffer.getWatermark());
+    assertEquals(40_000, buffer.read(0, Integer.MAX_VALUE, changes));
+    long previous = 0;
+    for (UserChangeDto change : changes) {
+      assertTrue(change.getSeq() > previous);
+      previous = change.getSeq();
+    }
+    assertEquals(40_000 - 40_000 / 3, changes.size());
+  }
+
+  private static UserChangeDto change(long seq) {
+    return UserChangeDto.builder()
+        .seq(seq)
+        .type(UserChangeType.DELETED)
+        .userId(seq)
+        .build();
+  }
+}
@@ -0,0 +1,108 @@
+package com.example.clearsolutionstesttask.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.clearsolutionstesttask.dto.BatchItemResultDto;
+import com.example.clearsolutionstesttask.dto.BatchItemStatus;
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.service.UserBatchService;
+import jakarta.validation.Validation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit tests for the UserCsvImporter class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserCsvImporterTest {
+
+  @Mock
+  private UserBatchService userBatchService;
+
+  @TempDir
+  private Path tempDir;
+
+  private UserCsvImporter importer;
+  private final List<UserDto> stored = new ArrayList<>();
+
+  @BeforeEach
+  public void init() {
+    importer = new UserCsvImporter(userBatchService,
+        Validation.buildDefaultValidatorFactory().getValidator());
+    ReflectionTestUtils.setField(importer, "workers", 2);
+    ReflectionTestUtils.setField(importer, "chunkLines", 2);
+    ReflectionTestUtils.setField(importer, "queueCapacity", 1);
+    ReflectionTestUtils.setField(importer, "bufferSize", 16);
+    ReflectionTestUtils.setField(importer, "progressInterval", Duration.ZERO);
+  }
+
+  private void storeAll() {
+    when(userBatchService.createAllValid(anyList())).thenAnswer(invocation -> {
+      List<UserDto> userDtos = invocation.getArgument(0);
+      stored.addAll(userDtos);
+      return IntStream.range(0, userDtos.size())
+          .mapToObj(index -> BatchItemResultDto.builder()
+              .index(index)
+              .status(BatchItemStatus.CREATED)
+              .build())
+          .toList();
+    });
+  }
+
+  @Test
+  public void testImportFile_importsValidRowsAndRejectsInvalidOnes() throws Exception {
+    storeAll();
+    Path file = tempDir.resolve("users.csv");
+    Files.writeString(file, "lastName,firstName,email,birthDate,phoneNumber\r\n"
+        + "Doe,John,john@gmail.com,1990-01-01,+380000000\r\n"
+        + "Doe,Jane,not-an-email,1990-01-01,\r\n"
+        + "\n"
+        + "\"Smith, Jr.\",Jack,jack@gmail.com,1991-13-01,\n"
+        + "Smith,\"Anna \"\"A\"\"\",anna@gmail.com,1992-02-02,");
+
+    ImportReport report = importer.importFile(file);
+
+    assertEquals(2, report.getImported());
+    assertEquals(2, report.getRejected());
+    assertEquals(List.of("John", "Anna \"A\""), stored.stream().map(UserDto::getFirstName).toList());
+    assertEquals("+380000000", stored.get(0).getPhoneNumber());
+    assertEquals(List.of("3,\"email: Invalid email.\"",
+            "5,\"birthDate: Invalid date 1991-13-01\""),
+        Files.readAllLines(tempDir.resolve("users.csv.rejected")));
+    assertFalse(Files.exists(tempDir.resolve("users.csv.checkpoint")));
+  }
+
+  @Test
+  public void testImportFile_resumesFromCheckpoint() throws Exception {
+    Path file = tempDir.resolve("users.csv");
+    Files.writeString(file, """
+        email,firstName,lastName,birthDate
+        john@gmail.com,John,Doe,1990-01-01
+        jane@gmail.com,Jane,Doe,1990-01-01
+        """);
+    new ImportCheckpoint(Files.size(file), 4)
+        .save(tempDir.resolve("users.csv.checkpoint"));
+
+    ImportReport report = importer.importFile(file);
+
+    assertEquals(0, report.getImported());
+    verify(userBatchService, never()).createAllValid(anyList());
+    assertFalse(Files.exists(tempDir.resolve("users.csv.checkpoint")));
+  }
+}
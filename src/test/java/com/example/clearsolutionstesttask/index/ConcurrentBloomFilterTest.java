@@ -0,0 +1,78 @@
+package com.example.clearsolutionstesttask.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the ConcurrentBloomFilter class.
+ */
+public class ConcurrentBloomFilterTest {
+
+  @Test
+  public void testMightContain_hasNoFalseNegatives() {
+    ConcurrentBloomFilter filter = new ConcurrentBloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("user" + i + "@example.com");
+    }
+
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("user" + i + "@example.com"));
+    }
+  }
+
+  @Test
+  public void testMightContain_keepsFalsePositiveRateNearTarget() {
+    ConcurrentBloomFilter filter = new ConcurrentBloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("user" + i + "@example.com");
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("other" + i + "@example.com")) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+  }
+
+  @Test
+  public void testAdd_fromConcurrentThreads() throws InterruptedException {
+    ConcurrentBloomFilter filter = new ConcurrentBloomFilter(40_000, 0.01);
+    ConcurrentBloomFilter reference = new ConcurrentBloomFilter(40_000, 0.01);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int thread = t;
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (int i = thread; i < 40_000; i += 4) {
+          filter.add("user" + i + "@example.com");
+        }
+      }));
+    }
+    for (int i = 0; i < 40_000; i++) {
+      reference.add("user" + i + "@example.com");
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    for (int i = 0; i < 40_000; i++) {
+      assertTrue(filter.mightContain("user" + i + "@example.com"));
+    }
+    assertEquals(reference.getBitsSet(), filter.getBitsSet());
+  }
+
+  @Test
+  public void testMightContain_emptyFilter() {
+    ConcurrentBloomFilter filter = new ConcurrentBloomFilter(0, 0.01);
+
+    assertFalse(filter.mightContain("user@example.com"));
+    assertEquals(0, filter.getBitsSet());
+  }
+}
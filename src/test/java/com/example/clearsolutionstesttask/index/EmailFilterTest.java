@@ -0,0 +1,113 @@
+package com.example.clearsolutionstesttask.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.repository.UserRepository;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit tests for the EmailFilter class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class EmailFilterTest {
+
+  @Mock
+  private UserRepository userRepository;
+  @Mock
+  private UserStreamRepository userStreamRepository;
+
+  @InjectMocks
+  private EmailFilter emailFilter;
+
+  @BeforeEach
+  public void init() {
+    ReflectionTestUtils.setField(emailFilter, "expectedUsers", 1_000L);
+    ReflectionTestUtils.setField(emailFilter, "falsePositiveRate", 0.01);
+  }
+
+  @Test
+  public void testIsTaken_emailNotInFilter_skipsQuery() {
+    stubEmails(List.of("john@example.com"));
+    emailFilter.rebuild();
+
+    assertFalse(emailFilter.isTaken("jane@example.com", 0));
+    assertFalse(emailFilter.isTaken("john@example.com", 0));
+
+    verify(userRepository).existsByEmailAndIdNot("john@example.com", 0);
+    assertEquals(2L, emailFilter.stats().get("lookups"));
+  }
+
+  @Test
+  public void testRebuild_concurrentRebuilds_runOneAtATimeAndKeepAddedEmails() throws Exception {
+    CountDownLatch firstScanStarted = new CountDownLatch(1);
+    CountDownLatch firstScanReleased = new CountDownLatch(1);
+    AtomicInteger scans = new AtomicInteger();
+    List<String> stored = new CopyOnWriteArrayList<>(List.of("john@example.com"));
+    doAnswer(invocation -> {
+      List<String> rows = List.copyOf(stored);
+      if (scans.incrementAndGet() == 1) {
+        firstScanStarted.countDown();
+        assertTrue(firstScanReleased.await(10, TimeUnit.SECONDS));
+      }
+      Consumer<String> action = invocation.getArgument(0);
+      rows.forEach(action);
+      return null;
+    }).when(userStreamRepository).forEachEmail(any());
+    Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+    Thread first = Thread.ofPlatform().start(() -> rebuild(failures));
+    assertTrue(firstScanStarted.await(10, TimeUnit.SECONDS));
+    Thread second = Thread.ofPlatform().start(() -> rebuild(failures));
+    while (second.getState() != Thread.State.WAITING && second.isAlive()) {
+      Thread.onSpinWait();
+    }
+    stored.add("jane@example.com");
+    emailFilter.onUserSaved(new UserSavedEvent(User.builder().email("jane@example.com").build()));
+    firstScanReleased.countDown();
+    first.join();
+    second.join();
+
+    assertEquals(List.of(), List.copyOf(failures));
+    assertEquals(2, scans.get());
+    assertFalse(emailFilter.isTaken("jane@example.com", 0));
+    verify(userRepository).existsByEmailAndIdNot("jane@example.com", 0);
+  }
+
+  private void rebuild(Queue<Throwable> failures) {
+    try {
+      emailFilter.rebuild();
+    } catch (Throwable ex) {
+      failures.add(ex);
+    }
+  }
+
+  private void stubEmails(List<String> emails) {
+    doAnswer(invocation -> {
+      Consumer<String> action = invocation.getArgument(0);
+      emails.forEach(action);
+      return null;
+    }).when(userStreamRepository).forEachEmail(any());
+  }
+}
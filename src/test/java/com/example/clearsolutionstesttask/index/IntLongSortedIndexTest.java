@@ -0,0 +1,74 @@
+package com.example.clearsolutionstesttask.index;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the IntLongSortedIndex and LongIntHashMap classes, checked against sorted
+ * collections of the JDK.
+ */
+public class IntLongSortedIndexTest {
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void testRandomOperations_matchReferenceCollections() {
+    IntLongSortedIndex index = new IntLongSortedIndex();
+    LongIntHashMap keysByValue = new LongIntHashMap();
+    TreeSet<long[]> reference = new TreeSet<>((a, b) -> a[0] != b[0]
+        ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+    TreeMap<Long, Integer> referenceKeys = new TreeMap<>();
+
+    for (int operation = 0; operation < 50_000; operation++) {
+      long value = 1 + random.nextInt(5_000);
+      Integer oldKey = referenceKeys.get(value);
+      if (oldKey != null) {
+        index.remove(oldKey, value);
+        reference.remove(new long[] {oldKey, value});
+        keysByValue.remove(value);
+        referenceKeys.remove(value);
+      }
+      if (random.nextInt(3) > 0) {
+        int key = random.nextInt(2_000) - 1_000;
+        index.add(key, value);
+        reference.add(new long[] {key, value});
+        keysByValue.put(value, key);
+        referenceKeys.put(value, key);
+      }
+    }
+
+    assertEquals(reference.size(), index.size());
+    assertEquals(referenceKeys.size(), keysByValue.size());
+    referenceKeys.forEach((value, key) -> assertEquals(key, keysByValue.get(value, 0)));
+    assertFalse(keysByValue.containsKey(10_000));
+
+    for (int query = 0; query < 100; query++) {
+      int fromKey = random.nextInt(2_200) - 1_100;
+      int toKey = fromKey + random.nextInt(300);
+      long[] expected = reference.subSet(new long[] {fromKey, Long.MIN_VALUE}, true,
+              new long[] {toKey, Long.MAX_VALUE}, true).stream()
+          .mapToLong(pair -> pair[1])
+          .toArray();
+      assertArrayEquals(expected, index.values(fromKey, toKey));
+    }
+  }
+
+  @Test
+  public void testAppend_bulkLoadsSortedPairs() {
+    IntLongSortedIndex index = new IntLongSortedIndex();
+    for (int i = 0; i < 5_000; i++) {
+      index.append(i / 10, i);
+    }
+    index.add(250, 10_000);
+
+    assertEquals(5_001, index.size());
+    assertArrayEquals(new long[] {2500, 2501, 2502, 2503, 2504, 2505, 2506, 2507, 2508, 2509,
+        10_000}, index.values(250, 250));
+  }
+}
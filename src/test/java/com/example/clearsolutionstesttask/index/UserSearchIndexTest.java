@@ -0,0 +1,111 @@
+package com.example.clearsolutionstesttask.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.index.UserSearchIndex.Match;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for the UserSearchIndex class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserSearchIndexTest {
+
+  @Mock
+  private UserStreamRepository userStreamRepository;
+
+  @InjectMocks
+  private UserSearchIndex index;
+
+  private void save(long id, String firstName, String lastName, String email) {
+    index.onUserSaved(new UserSavedEvent(User.builder()
+        .id(id)
+        .firstName(firstName)
+        .lastName(lastName)
+        .email(email)
+        .build()));
+  }
+
+  private List<Long> ids(List<Match> matches) {
+    return matches.stream().map(Match::getId).toList();
+  }
+
+  @Test
+  public void testSearch_matchesPrefixIgnoringCaseOncePerUser() {
+    save(1, "Anna", "Smith", "anna.smith@example.com");
+    save(2, "Bob", "Annan", "bob@example.com");
+    save(3, "Carl", "Jones", "carl@example.com");
+
+    List<Match> matches = index.search(UserSearchIndex.normalize(" ANN"), null, 0, 10);
+
+    assertEquals(List.of(1L, 2L), ids(matches));
+    assertEquals("anna", matches.get(0).getTerm());
+    assertEquals("annan", matches.get(1).getTerm());
+  }
+
+  @Test
+  public void testSearch_continuesAfterPosition() {
+    for (long id = 1; id <= 5; id++) {
+      save(id, "Jo", "Doe" + id, "jo" + id + "@example.com");
+    }
+
+    List<Match> first = index.search("jo", null, 0, 2);
+    Match last = first.get(1);
+    List<Match> second = index.search("jo", last.getTerm(), last.getId(), 10);
+
+    assertEquals(List.of(1L, 2L), ids(first));
+    assertEquals(List.of(3L, 4L, 5L), ids(second));
+  }
+
+  @Test
+  public void testWrites_replaceAndRemoveTerms() {
+    save(1, "Anna", "Anna", "anna@example.com");
+    save(1, "Maria", "Anna", "maria@example.com");
+    index.onUserPatched(new UserPatchedEvent(1, UserPatchDto.builder().lastName("Lee").build()));
+
+    assertTrue(index.search("anna", null, 0, 10).isEmpty());
+    assertEquals(List.of(1L), ids(index.search("lee", null, 0, 10)));
+    assertEquals(List.of(1L), ids(index.search("mar", null, 0, 10)));
+
+    index.onUserDeleted(new UserDeletedEvent(List.of(1L)));
+
+    assertTrue(index.search("mar", null, 0, 10).isEmpty());
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testRebuild_keepsWritesMadeDuringScan() {
+    doAnswer(invocation -> {
+      Consumer<UserDto> action = invocation.getArgument(0);
+      action.accept(UserDto.builder().id(1).firstName("Anna").lastName("Smith")
+          .email("anna@example.com").build());
+      save(2, "Annie", "Hall", "annie@example.com");
+      index.onUserDeleted(new UserDeletedEvent(List.of(1L)));
+      return null;
+    }).when(userStreamRepository).forEachNameAndEmail(any(Consumer.class));
+
+    assertFalse(index.isReady());
+    index.rebuild();
+
+    assertTrue(index.isReady());
+    assertEquals(List.of(2L), ids(index.search("ann", null, 0, 10)));
+  }
+}
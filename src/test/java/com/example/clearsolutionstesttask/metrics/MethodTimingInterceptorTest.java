@@ -0,0 +1,104 @@
+package com.example.clearsolutionstesttask.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Unit tests for the MethodTimingInterceptor class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class MethodTimingInterceptorTest {
+
+  @Mock
+  private ObjectProvider<MeterRegistry> registryProvider;
+
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private Lookup lookup;
+
+  @BeforeEach
+  public void init() throws NoSuchMethodException {
+    when(registryProvider.getIfAvailable()).thenReturn(registry);
+    MethodTimingInterceptor interceptor = new MethodTimingInterceptor(registryProvider, "lookup",
+        List.of(Lookup.class.getMethod("find", int.class), Lookup.class.getMethod("fail")));
+    interceptor.afterSingletonsInstantiated();
+
+    ProxyFactory proxyFactory = new ProxyFactory(new LookupImpl());
+    proxyFactory.addInterface(Lookup.class);
+    proxyFactory.addAdvice(interceptor);
+    lookup = (Lookup) proxyFactory.getProxy();
+  }
+
+  @Test
+  public void testInvoke_recordsLatencyAndResultSize() {
+    lookup.find(3);
+    lookup.find(5);
+
+    assertEquals(2, registry.get("lookup").tags("method", "find", "outcome", "success")
+        .timer().count());
+    assertEquals(8, registry.get("lookup.result.size").tag("method", "find")
+        .summary().totalAmount());
+  }
+
+  @Test
+  public void testInvoke_recordsFailures() {
+    assertThrows(IllegalStateException.class, lookup::fail);
+
+    assertEquals(1, registry.get("lookup").tags("method", "fail", "outcome", "error")
+        .timer().count());
+    assertEquals(0, registry.get("lookup").tags("method", "fail", "outcome", "success")
+        .timer().count());
+  }
+
+  @Test
+  public void testInvoke_passesThroughOtherMethods() {
+    lookup.ping();
+
+    assertNull(registry.find("lookup").tag("method", "ping").timer());
+  }
+
+  /**
+   * Interface of the intercepted test target.
+   */
+  public interface Lookup {
+
+    List<String> find(int count);
+
+    void fail();
+
+    void ping();
+  }
+
+  /**
+   * Intercepted test target.
+   */
+  private static class LookupImpl implements Lookup {
+
+    @Override
+    public List<String> find(int count) {
+      return Collections.nCopies(count, "user");
+    }
+
+    @Override
+    public void fail() {
+      throw new IllegalStateException("failed");
+    }
+
+    @Override
+    public void ping() {
+    }
+  }
+}
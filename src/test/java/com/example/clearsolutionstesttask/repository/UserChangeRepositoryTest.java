@@ -0,0 +1,60 @@
+package com.example.clearsolutionstesttask.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.clearsolutionstesttask.dto.UserChangeType;
+import com.example.clearsolutionstesttask.entity.UserChange;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Tests of the UserChangeRepository class on the embedded database.
+ */
+@SpringBootTest
+public class UserChangeRepositoryTest {
+
+  private static final long FIRST_SEQ = 1_000_000_000L;
+
+  @Autowired
+  private UserChangeRepository userChangeRepository;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  public void cleanUp() {
+    jdbcTemplate.update("delete from user_changes where seq >= ?", FIRST_SEQ);
+  }
+
+  @Test
+  public void testDeleteBefore_deletesOldChangesButKeepsHighestSequenceNumber() {
+    Instant now = Instant.now();
+    Instant old = now.minus(Duration.ofDays(30));
+    userChangeRepository.insertAll(List.of(
+        change(FIRST_SEQ, old),
+        change(FIRST_SEQ + 1, now),
+        change(FIRST_SEQ + 2, old)));
+
+    assertEquals(1, userChangeRepository.deleteBefore(now.minus(Duration.ofDays(7))));
+
+    assertEquals(List.of(FIRST_SEQ + 1, FIRST_SEQ + 2),
+        userChangeRepository.findAfter(FIRST_SEQ - 1, Long.MAX_VALUE, 10).stream()
+            .map(UserChange::getSeq)
+            .toList());
+    assertEquals(FIRST_SEQ + 2, userChangeRepository.findMaxSeq());
+  }
+
+  private static UserChange change(long seq, Instant changedAt) {
+    return UserChange.builder()
+        .seq(seq)
+        .userId(1L)
+        .changeType(UserChangeType.DELETED)
+        .changedAt(changedAt)
+        .build();
+  }
+}
@@ -0,0 +1,195 @@
+package com.example.clearsolutionstesttask.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.clearsolutionstesttask.dto.BatchItemResultDto;
+import com.example.clearsolutionstesttask.dto.BatchItemStatus;
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.exception.BatchTooLargeException;
+import com.example.clearsolutionstesttask.feed.UserChangeFeed;
+import com.example.clearsolutionstesttask.index.EmailFilter;
+import com.example.clearsolutionstesttask.mapper.UserMapper;
+import com.example.clearsolutionstesttask.repository.UserRepository;
+import com.example.clearsolutionstesttask.writebehind.UserWriteBehindBuffer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Path;
+import jakarta.validation.Validator;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Unit tests for the UserBatchService class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserBatchServiceTest {
+
+  @Mock
+  private UserRepository userRepository;
+  @Mock
+  private UserMapper mapper;
+  @Mock
+  private Validator validator;
+  @Mock
+  private TransactionTemplate transactionTemplate;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private EmailFilter emailFilter;
+  @Mock
+  private UserChangeFeed userChangeFeed;
+  @Mock
+  private UserWriteBehindBuffer userWriteBehindBuffer;
+
+  @InjectMocks
+  private UserBatchService userBatchService;
+
+  private final long userId = 999L;
+  private User user;
+  private UserDto userDto;
+
+  @BeforeEach
+  public void init() {
+    user = User.builder()
+        .id(userId)
+        .email("test@gmail.com")
+        .birthDate(LocalDate.of(1990, 1, 1))
+        .build();
+
+    userDto = UserDto.builder()
+        .email("test@gmail.com")
+        .birthDate(LocalDate.of(1990, 1, 1))
+        .build();
+
+    ReflectionTestUtils.setField(userBatchService, "chunkSize", 2);
+    ReflectionTestUtils.setField(userBatchService, "maxItems", 3);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void runTransactionsInline() {
+    doAnswer(invocation -> {
+      Consumer<TransactionStatus> action = invocation.getArgument(0);
+      action.accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+  }
+
+  @Test
+  public void testCreateAll_returnsResultPerItem() {
+    runTransactionsInline();
+    when(mapper.toEntity(any(UserDto.class))).thenReturn(user);
+    when(userRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(mapper.toDto(any(User.class))).thenReturn(userDto);
+
+    UserDto otherDto = UserDto.builder()
+        .email("other@gmail.com")
+        .birthDate(LocalDate.of(1990, 1, 1))
+        .build();
+
+    List<BatchItemResultDto> results = userBatchService.createAll(List.of(userDto, otherDto));
+
+    assertEquals(2, results.size());
+    assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+    assertEquals(1, results.get(1).getIndex());
+    assertEquals(userDto, results.get(1).getUser());
+    verify(userChangeFeed).recordAllSaved(List.of(userDto, userDto));
+    verify(eventPublisher, times(2)).publishEvent(any(UserSavedEvent.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCreateAll_reportsInvalidItems() {
+    ConstraintViolation<UserDto> violation = Mockito.mock(ConstraintViolation.class);
+    Path path = Mockito.mock(Path.class);
+    when(path.toString()).thenReturn("email");
+    when(violation.getPropertyPath()).thenReturn(path);
+    when(violation.getMessage()).thenReturn("Invalid email.");
+    when(validator.validate(userDto)).thenReturn(Set.of(violation));
+
+    List<BatchItemResultDto> results = userBatchService.createAll(List.of(userDto));
+
+    assertEquals(BatchItemStatus.INVALID, results.get(0).getStatus());
+    assertEquals("Invalid email.", results.get(0).getErrors().get("email"));
+  }
+
+  @Test
+  public void testUpsertAll_updatesExistingAndReportsMissing() {
+    runTransactionsInline();
+    UserDto existingDto = UserDto.builder().id(userId).email("test@gmail.com").build();
+    UserDto missingDto = UserDto.builder().id(userId + 1).email("other@gmail.com").build();
+    when(userRepository.findAllById(any())).thenReturn(List.of(user));
+    when(userRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(mapper.toDto(any(User.class))).thenReturn(existingDto);
+
+    List<BatchItemResultDto> results = userBatchService.upsertAll(List.of(existingDto, missingDto));
+
+    assertEquals(BatchItemStatus.UPDATED, results.get(0).getStatus());
+    assertEquals(BatchItemStatus.NOT_FOUND, results.get(1).getStatus());
+    verify(userWriteBehindBuffer).flush(List.of(userId, userId + 1));
+  }
+
+  @Test
+  public void testCreateAll_reportsEmailConflicts() {
+    runTransactionsInline();
+    UserDto takenDto = UserDto.builder()
+        .email("taken@gmail.com")
+        .birthDate(LocalDate.of(1990, 1, 1))
+        .build();
+    when(emailFilter.isTaken(anyString(), eq(0L)))
+        .thenAnswer(invocation -> "taken@gmail.com".equals(invocation.getArgument(0)));
+    when(mapper.toEntity(any(UserDto.class))).thenReturn(user);
+    when(userRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(mapper.toDto(any(User.class))).thenReturn(userDto);
+
+    List<BatchItemResultDto> results =
+        userBatchService.createAll(List.of(userDto, takenDto, userDto));
+
+    assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+    assertEquals(BatchItemStatus.CONFLICT, results.get(1).getStatus());
+    assertEquals(BatchItemStatus.CONFLICT, results.get(2).getStatus());
+    assertEquals("Email already exists.", results.get(2).getErrors().get("email"));
+    verify(eventPublisher, times(1)).publishEvent(any(UserSavedEvent.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCreateAll_reportsFailedChunk() {
+    doThrow(new DataIntegrityViolationException("duplicate"))
+        .when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+
+    List<BatchItemResultDto> results = userBatchService.createAll(List.of(userDto));
+
+    assertEquals(BatchItemStatus.FAILED, results.get(0).getStatus());
+  }
+
+  @Test
+  public void testCreateAll_throwsBatchTooLargeException() {
+    assertThrows(BatchTooLargeException.class,
+        () -> userBatchService.createAll(List.of(userDto, userDto, userDto, userDto)));
+  }
+}
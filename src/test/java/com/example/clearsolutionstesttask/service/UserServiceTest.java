@@ -1,30 +1,84 @@
 package com.example.clearsolutionstesttask.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.example.clearsolutionstesttask.aggregate.BirthDateAggregates;
+import com.example.clearsolutionstesttask.cache.UserCache;
+import com.example.clearsolutionstesttask.dto.UserChangesDto;
 import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.dto.UserField;
+import com.example.clearsolutionstesttask.dto.UserPageDto;
+import com.example.clearsolutionstesttask.dto.UserPatchDto;
 import com.example.clearsolutionstesttask.entity.User;
+import com.example.clearsolutionstesttask.event.UserDeletedEvent;
+import com.example.clearsolutionstesttask.event.UserPatchedEvent;
+import com.example.clearsolutionstesttask.event.UserSavedEvent;
+import com.example.clearsolutionstesttask.exception.BatchTooLargeException;
+import com.example.clearsolutionstesttask.exception.EmailAlreadyExistsException;
+import com.example.clearsolutionstesttask.exception.InvalidCursorException;
 import com.example.clearsolutionstesttask.exception.InvalidDateRangeException;
+import com.example.clearsolutionstesttask.exception.InvalidIdsException;
+import com.example.clearsolutionstesttask.exception.InvalidSearchQueryException;
+import com.example.clearsolutionstesttask.exception.IndexNotReadyException;
 import com.example.clearsolutionstesttask.exception.UserNotFoundException;
+import com.example.clearsolutionstesttask.feed.UserChangeFeed;
+import com.example.clearsolutionstesttask.index.BirthDateIndex;
+import com.example.clearsolutionstesttask.index.EmailFilter;
+import com.example.clearsolutionstesttask.index.UserSearchIndex;
+import com.example.clearsolutionstesttask.index.UserSearchIndex.Match;
 import com.example.clearsolutionstesttask.mapper.UserMapper;
+import com.example.clearsolutionstesttask.repository.UserRangeVersion;
 import com.example.clearsolutionstesttask.repository.UserRepository;
+import com.example.clearsolutionstesttask.repository.UserStreamRepository;
+import com.example.clearsolutionstesttask.service.UserService.TaggedUser;
+import com.example.clearsolutionstesttask.util.BirthDateCursor;
+import com.example.clearsolutionstesttask.util.MonthDayRange;
+import com.example.clearsolutionstesttask.util.SearchCursor;
+import com.example.clearsolutionstesttask.writebehind.BufferedUsers;
+import com.example.clearsolutionstesttask.writebehind.CoalescingBuffer;
+import com.example.clearsolutionstesttask.writebehind.UserWriteBehindBuffer;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Unit tests for the UserService class.
@@ -35,7 +89,29 @@ public class UserServiceTest {
   @Mock
   private UserRepository userRepository;
   @Mock
+  private UserStreamRepository userStreamRepository;
+  @Mock
   private UserMapper mapper;
+  @Mock
+  private UserCache userCache;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private TransactionTemplate transactionTemplate;
+  @Mock
+  private ObjectProvider<BirthDateIndex> birthDateIndexProvider;
+  @Mock
+  private BirthDateIndex birthDateIndex;
+  @Mock
+  private EmailFilter emailFilter;
+  @Mock
+  private UserSearchIndex userSearchIndex;
+  @Mock
+  private BirthDateAggregates birthDateAggregates;
+  @Mock
+  private UserChangeFeed userChangeFeed;
+  @Mock
+  private UserWriteBehindBuffer userWriteBehindBuffer;
 
   @InjectMocks
   private UserService userService;
@@ -58,6 +134,18 @@ public class UserServiceTest {
         .email(testEmail)
         .birthDate(LocalDate.now())
         .build();
+
+    ReflectionTestUtils.setField(userService, "defaultPageSize", 1);
+    ReflectionTestUtils.setField(userService, "maxPageSize", 2);
+    ReflectionTestUtils.setField(userService, "idBatchSize", 2);
+    ReflectionTestUtils.setField(userService, "maxBatchItems", 3);
+    ReflectionTestUtils.setField(userService, "deleteChunkSize", 2);
+    ReflectionTestUtils.setField(userService, "defaultSearchSize", 1);
+    ReflectionTestUtils.setField(userService, "maxSearchSize", 2);
+    ReflectionTestUtils.setField(userService, "defaultChangesSize", 1);
+    ReflectionTestUtils.setField(userService, "maxChangesSize", 2);
+    ReflectionTestUtils.setField(userService, "changesPollTimeout", Duration.ofSeconds(30));
+    lenient().when(userWriteBehindBuffer.snapshot()).thenReturn(BufferedUsers.EMPTY);
   }
 
   @Test
@@ -69,10 +157,83 @@ public class UserServiceTest {
     UserDto resultDto = userService.create(userDto);
 
     assertEquals(userDto, resultDto);
+    verify(userChangeFeed).recordSaved(userDto);
+    verify(eventPublisher).publishEvent(
+        argThat((UserSavedEvent event) -> event.getUser() == user));
+  }
+
+  @Test
+  public void testCreate_throwsEmailAlreadyExistsException() {
+    when(emailFilter.isTaken("test@gmail.com", 0)).thenReturn(true);
+
+    assertThrows(EmailAlreadyExistsException.class, () -> userService.create(userDto));
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  public void testGetById_loadsThroughCacheInTransaction() {
+    executeTransactions();
+    when(userCache.get(eq(userId), any())).thenAnswer(invocation -> {
+      LongFunction<UserDto> loader = invocation.getArgument(1);
+      return loader.apply(userId);
+    });
+    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    when(mapper.toDto(user)).thenReturn(userDto);
+
+    assertEquals(userDto, userService.getById(userId));
+    verify(transactionTemplate).execute(any());
+  }
+
+  @Test
+  public void testGetById_throwsUserNotFoundException() {
+    executeTransactions();
+    when(userCache.get(eq(userId), any())).thenAnswer(invocation -> {
+      LongFunction<UserDto> loader = invocation.getArgument(1);
+      return loader.apply(userId);
+    });
+    when(userRepository.findById(userId)).thenReturn(Optional.empty());
+
+    assertThrows(UserNotFoundException.class, () -> userService.getById(userId));
+  }
+
+  @Test
+  public void testGetTaggedById_tagsBufferedUpdatesApart() {
+    CoalescingBuffer<UserDto> buffer = new CoalescingBuffer<>(2, 10);
+    UserDto first = userDto.toBuilder().version(4).build();
+    UserDto second = userDto.toBuilder().version(4).firstName("Second").build();
+    buffer.offer(userId, first);
+    when(userWriteBehindBuffer.getEntry(userId)).thenAnswer(invocation -> buffer.getEntry(userId));
+
+    TaggedUser firstTagged = userService.getTaggedById(userId);
+    buffer.offer(userId, second);
+    TaggedUser secondTagged = userService.getTaggedById(userId);
+
+    assertEquals(first, firstTagged.getUser());
+    assertEquals(second, secondTagged.getUser());
+    assertTrue(firstTagged.getTag().startsWith("4+"));
+    assertNotEquals("4", firstTagged.getTag());
+    assertNotEquals(firstTagged.getTag(), secondTagged.getTag());
+    verify(userCache, never()).get(anyLong(), any());
+  }
+
+  @Test
+  public void testGetTaggedById_tagsStoredUserWithVersion() {
+    when(userCache.get(eq(userId), any())).thenReturn(userDto.toBuilder().version(4).build());
+
+    assertEquals("4", userService.getTaggedById(userId).getTag());
+  }
+
+  @Test
+  public void testGetById_returnsBufferedUpdate() {
+    when(userWriteBehindBuffer.get(userId)).thenReturn(userDto);
+
+    assertEquals(userDto, userService.getById(userId));
+    verify(userCache, never()).get(anyLong(), any());
   }
 
   @Test
   public void testUpdate_returnsUserDto() {
+    executeTransactions();
     when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
     doNothing().when(mapper).updateEntity(any(UserDto.class), any(User.class));
     when(userRepository.save(any())).thenReturn(user);
@@ -81,23 +242,164 @@ public class UserServiceTest {
     UserDto resultDto = userService.update(userId, userDto);
 
     assertEquals(userDto, resultDto);
+    verify(userWriteBehindBuffer).flush(List.of(userId));
+    verify(userRepository).flush();
+    verify(userChangeFeed).recordSaved(userDto);
+  }
+
+  @Test
+  public void testUpdate_buffersUpdateWithCurrentVersion() {
+    UserDto current = UserDto.builder().id(userId).email("test@gmail.com").version(3).build();
+    when(userWriteBehindBuffer.isRunning()).thenReturn(true);
+    when(userWriteBehindBuffer.get(userId)).thenReturn(current);
+    when(userWriteBehindBuffer.offer(any())).thenReturn(true);
+
+    UserDto resultDto = userService.update(userId, userDto);
+
+    assertEquals(userId, resultDto.getId());
+    assertEquals(3, resultDto.getVersion());
+    assertEquals(userDto.getEmail(), resultDto.getEmail());
+    verify(userWriteBehindBuffer).offer(resultDto);
+    verify(emailFilter, never()).isTaken(any(), anyLong());
+    verify(transactionTemplate, never()).execute(any());
+  }
+
+  @Test
+  public void testUpdate_writesSynchronouslyWhenBufferIsFull() {
+    executeTransactions();
+    UserDto current = UserDto.builder().id(userId).email("test@gmail.com").build();
+    when(userWriteBehindBuffer.isRunning()).thenReturn(true);
+    when(userWriteBehindBuffer.get(userId)).thenReturn(current);
+    when(userWriteBehindBuffer.offer(any())).thenReturn(false);
+    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    when(userRepository.save(any())).thenReturn(user);
+    when(mapper.toDto(any(User.class))).thenReturn(userDto);
+
+    assertEquals(userDto, userService.update(userId, userDto));
+    verify(userChangeFeed).recordSaved(userDto);
   }
 
   @Test
   public void testUpdate_throwsUserNotFoundException() {
+    executeTransactions();
     when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
 
     assertThrows(UserNotFoundException.class,
         () -> userService.update(userId, userDto));
   }
 
+  @Test
+  public void testUpdate_throwsEmailAlreadyExistsExceptionOnChangedEmail() {
+    executeTransactions();
+    UserDto changedDto = UserDto.builder().email("taken@gmail.com").build();
+    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    when(emailFilter.isTaken("taken@gmail.com", userId)).thenReturn(true);
+
+    assertThrows(EmailAlreadyExistsException.class,
+        () -> userService.update(userId, changedDto));
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  public void testGetBirthDateRangeVersion() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+    UserRangeVersion version = mock(UserRangeVersion.class);
+    when(version.getCount()).thenReturn(2L);
+    when(version.getIdSum()).thenReturn(30L);
+    when(version.getVersionSum()).thenReturn(1L);
+    when(version.getIdVersionSum()).thenReturn(20L);
+    when(userRepository.findVersionByBirthDateBetween(fromDate, toDate)).thenReturn(version);
+
+    assertEquals("2-1e-1-14", userService.getBirthDateRangeVersion(fromDate, toDate));
+  }
+
+  @Test
+  public void testPatch_updatesWithoutLoading() {
+    UserPatchDto patch = UserPatchDto.builder().phoneNumber("+380501234567").build();
+    when(userRepository.patchById(userId, patch)).thenReturn(1);
+
+    userService.patch(userId, patch);
+
+    verify(userRepository, times(0)).findById(anyLong());
+    InOrder order = inOrder(userWriteBehindBuffer, userRepository);
+    order.verify(userWriteBehindBuffer).flush(List.of(userId));
+    order.verify(userRepository).patchById(userId, patch);
+    verify(userChangeFeed).recordPatched(userId, patch);
+    verify(eventPublisher).publishEvent(
+        argThat((UserPatchedEvent event) -> event.getId() == userId && event.getPatch() == patch));
+  }
+
+  @Test
+  public void testPatch_throwsUserNotFoundException() {
+    UserPatchDto patch = UserPatchDto.builder().address("Kyiv").build();
+    when(userRepository.patchById(userId, patch)).thenReturn(0);
+
+    assertThrows(UserNotFoundException.class, () -> userService.patch(userId, patch));
+  }
+
   @Test
   public void testDelete() {
-    doNothing().when(userRepository).deleteById(anyLong());
+    executeTransactions();
+    when(userRepository.lockIdsByIdIn(List.of(userId))).thenReturn(List.of(userId));
 
     userService.deleteById(userId);
 
-    verify(userRepository, times(1)).deleteById(anyLong());
+    verify(userRepository, times(1)).deleteAllByIdIn(List.of(userId));
+    verify(userChangeFeed).recordDeleted(List.of(userId));
+    verify(eventPublisher).publishEvent(
+        argThat((UserDeletedEvent event) -> event.getIds().equals(List.of(userId))));
+  }
+
+  @Test
+  public void testDeleteAllById_deletesInChunks() {
+    executeTransactions();
+    when(userRepository.lockIdsByIdIn(List.of(1L, 2L))).thenReturn(List.of(1L));
+    when(userRepository.lockIdsByIdIn(List.of(3L))).thenReturn(List.of());
+
+    assertEquals(1, userService.deleteAllById(List.of(1L, 2L, 2L)));
+    assertEquals(0, userService.deleteAllById(List.of(3L)));
+
+    verify(userRepository).deleteAllByIdIn(List.of(1L));
+    verify(userRepository, never()).deleteAllByIdIn(List.of(3L));
+    verify(userChangeFeed).recordDeleted(List.of(1L));
+    verify(userChangeFeed, never()).recordDeleted(List.of(1L, 2L));
+    verify(userChangeFeed, never()).recordDeleted(List.of(3L));
+    verify(eventPublisher).publishEvent(
+        argThat((UserDeletedEvent event) -> event.getIds().equals(List.of(1L))));
+    verify(eventPublisher, never()).publishEvent(
+        argThat((UserDeletedEvent event) -> event.getIds().contains(3L)));
+  }
+
+  @Test
+  public void testDeleteAllById_nullId_throwsInvalidIdsException() {
+    assertThrows(InvalidIdsException.class,
+        () -> userService.deleteAllById(Arrays.asList(1L, null)));
+
+    verify(userRepository, never()).lockIdsByIdIn(any());
+  }
+
+  @Test
+  public void testDeleteAllById_throwsBatchTooLargeException() {
+    assertThrows(BatchTooLargeException.class,
+        () -> userService.deleteAllById(List.of(1L, 2L, 3L, 4L)));
+  }
+
+  @Test
+  public void testDeleteAllByBirthDateRange_deletesUntilRangeIsEmpty() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+    executeTransactions();
+    when(userRepository.lockIdsByBirthDateBetween(fromDate, toDate, Limit.of(2)))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+
+    assertEquals(3, userService.deleteAllByBirthDateRange(fromDate, toDate));
+
+    verify(userRepository).deleteAllByIdIn(List.of(1L, 2L));
+    verify(userRepository).deleteAllByIdIn(List.of(3L));
+    verify(userChangeFeed).recordDeleted(List.of(3L));
+    verify(eventPublisher).publishEvent(
+        argThat((UserDeletedEvent event) -> event.getIds().equals(List.of(3L))));
   }
 
   @Test
@@ -115,6 +417,30 @@ public class UserServiceTest {
     assertEquals(userDtos, result);
   }
 
+  @Test
+  void findAllByBirthDateRange_IndexReady_FetchesIndexedIdsInBatches() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+    User first = User.builder().id(1).birthDate(LocalDate.of(1991, 1, 1)).build();
+    User second = User.builder().id(2).birthDate(LocalDate.of(1992, 1, 1)).build();
+    User moved = User.builder().id(3).birthDate(LocalDate.of(2010, 1, 1)).build();
+    UserDto firstDto = UserDto.builder().id(1).birthDate(first.getBirthDate()).build();
+    UserDto secondDto = UserDto.builder().id(2).birthDate(second.getBirthDate()).build();
+    UserDto movedDto = UserDto.builder().id(3).birthDate(moved.getBirthDate()).build();
+
+    when(birthDateIndexProvider.getIfAvailable()).thenReturn(birthDateIndex);
+    when(birthDateIndex.isReady()).thenReturn(true);
+    when(birthDateIndex.findIds(fromDate, toDate)).thenReturn(new long[] {1, 2, 3, 4});
+    when(userRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(second, first));
+    when(userRepository.findAllById(List.of(3L, 4L))).thenReturn(List.of(moved));
+    when(mapper.toDto(List.of(second, first))).thenReturn(List.of(secondDto, firstDto));
+    when(mapper.toDto(List.of(moved))).thenReturn(List.of(movedDto));
+
+    List<UserDto> result = userService.findAllByBirthDateRange(fromDate, toDate);
+
+    assertEquals(List.of(firstDto, secondDto), result);
+  }
+
   @Test
   void findAllByBirthDateRange_InvalidDateRange_ThrowsInvalidDateRangeException() {
     LocalDate invalidFromDate = LocalDate.of(2000, 1, 1);
@@ -123,4 +449,244 @@ public class UserServiceTest {
     assertThrows(InvalidDateRangeException.class,
         () -> userService.findAllByBirthDateRange(invalidFromDate, invalidToDate));
   }
+
+  @Test
+  void findPageByBirthDateRange_MoreRowsThanPageSize_ReturnsNextCursor() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+    User next = User.builder().id(userId + 1).birthDate(LocalDate.now()).build();
+
+    when(userRepository.findPageAfter(fromDate, Long.MIN_VALUE, toDate, Limit.of(2)))
+        .thenReturn(List.of(user, next));
+    when(mapper.toDto(anyList())).thenReturn(List.of(userDto));
+
+    UserPageDto result = userService.findPageByBirthDateRange(fromDate, toDate, null, null);
+
+    assertEquals(List.of(userDto), result.getContent());
+    assertEquals(new BirthDateCursor(user.getBirthDate(), userId),
+        BirthDateCursor.decode(result.getNextCursor()));
+  }
+
+  @Test
+  void findPageByBirthDateRange_BufferedUpdate_MovesUserToItsNewPosition() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+    User moved = User.builder().id(1L).birthDate(LocalDate.of(1990, 5, 1)).build();
+    User stored = User.builder().id(2L).birthDate(LocalDate.of(1991, 1, 1)).build();
+    UserDto storedDto = UserDto.builder().id(2L).birthDate(stored.getBirthDate()).build();
+    UserDto movedDto = UserDto.builder().id(1L).birthDate(LocalDate.of(1995, 1, 1)).build();
+    when(userWriteBehindBuffer.snapshot())
+        .thenReturn(new BufferedUsers(Map.of(1L, movedDto), 1));
+    when(userRepository.findPageAfter(fromDate, Long.MIN_VALUE, toDate, Limit.of(2)))
+        .thenReturn(List.of(moved, stored));
+    when(userRepository.findPageAfter(stored.getBirthDate(), 2L, toDate, Limit.of(2)))
+        .thenReturn(List.of());
+    when(mapper.toDto(stored)).thenReturn(storedDto);
+
+    UserPageDto first = userService.findPageByBirthDateRange(fromDate, toDate, null, null);
+    UserPageDto second = userService.findPageByBirthDateRange(fromDate, toDate,
+        first.getNextCursor(), null);
+
+    assertEquals(List.of(storedDto), first.getContent());
+    assertEquals(List.of(movedDto), second.getContent());
+    assertNull(second.getNextCursor());
+  }
+
+  @Test
+  void findPageByBirthDateRange_WithCursor_SeeksAfterCursorAndClampsSize() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+    LocalDate cursorDate = LocalDate.of(1995, 6, 1);
+    String cursor = new BirthDateCursor(cursorDate, userId).encode();
+
+    when(userRepository.findPageAfter(eq(cursorDate), eq(userId), eq(toDate), eq(Limit.of(3))))
+        .thenReturn(List.of(user));
+    when(mapper.toDto(anyList())).thenReturn(List.of(userDto));
+
+    UserPageDto result = userService.findPageByBirthDateRange(fromDate, toDate, cursor, 50);
+
+    assertEquals(List.of(userDto), result.getContent());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  void findPageByBirthDateRange_MalformedCursor_ThrowsInvalidCursorException() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+
+    assertThrows(InvalidCursorException.class,
+        () -> userService.findPageByBirthDateRange(fromDate, toDate, "not-a-cursor", null));
+  }
+
+  @Test
+  public void testFindAllByBirthDateRange_withFields_readsProjection() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+    Set<UserField> fields = Set.of(UserField.ID, UserField.EMAIL);
+    when(userStreamRepository.findAllByBirthDateBetween(fromDate, toDate, fields))
+        .thenReturn(List.of(userDto));
+
+    assertEquals(List.of(userDto), userService.findAllByBirthDateRange(fromDate, toDate, fields));
+    verify(userRepository, never()).findAllByBirthDateBetween(any(), any());
+  }
+
+  @Test
+  public void testFindAllByBirthDateRange_withFieldsAndIndexReady_readsProjectionByIds() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+    Set<UserField> fields = Set.of(UserField.ID, UserField.EMAIL);
+    UserDto first = UserDto.builder().id(1).birthDate(LocalDate.of(1991, 1, 1)).build();
+    UserDto second = UserDto.builder().id(2).birthDate(LocalDate.of(1992, 1, 1)).build();
+    UserDto moved = UserDto.builder().id(3).birthDate(LocalDate.of(2010, 1, 1)).build();
+
+    when(birthDateIndexProvider.getIfAvailable()).thenReturn(birthDateIndex);
+    when(birthDateIndex.isReady()).thenReturn(true);
+    when(birthDateIndex.findIds(fromDate, toDate)).thenReturn(new long[] {1, 2, 3});
+    when(userStreamRepository.findAllById(List.of(1L, 2L), fields))
+        .thenReturn(List.of(first, second));
+    when(userStreamRepository.findAllById(List.of(3L), fields)).thenReturn(List.of(moved));
+
+    assertEquals(List.of(first, second),
+        userService.findAllByBirthDateRange(fromDate, toDate, fields));
+    verify(userStreamRepository, never()).findAllByBirthDateBetween(any(), any(), any());
+  }
+
+  @Test
+  void streamAllByBirthDateRange_ValidDateRange_PassesEveryRowToAction() {
+    LocalDate fromDate = LocalDate.of(1990, 1, 1);
+    LocalDate toDate = LocalDate.of(2000, 1, 1);
+    doAnswer(invocation -> {
+      Consumer<UserDto> action = invocation.getArgument(2);
+      action.accept(userDto);
+      return null;
+    }).when(userStreamRepository).streamAllByBirthDateBetween(eq(fromDate), eq(toDate), any());
+
+    List<UserDto> result = new ArrayList<>();
+    userService.streamAllByBirthDateRange(fromDate, toDate, result::add);
+
+    assertEquals(List.of(userDto), result);
+  }
+
+  @Test
+  void streamAllByBirthDateRange_InvalidDateRange_ThrowsInvalidDateRangeException() {
+    LocalDate invalidFromDate = LocalDate.of(2000, 1, 1);
+    LocalDate invalidToDate = LocalDate.of(1990, 1, 1);
+
+    assertThrows(InvalidDateRangeException.class,
+        () -> userService.streamAllByBirthDateRange(invalidFromDate, invalidToDate, dto -> {
+        }));
+  }
+
+  @Test
+  void streamUpcomingBirthdays_AcrossYearEnd_ReadsRangesInOrder() {
+    int days = 366;
+    doAnswer(invocation -> {
+      Consumer<UserDto> action = invocation.getArgument(1);
+      action.accept(userDto);
+      return null;
+    }).when(userStreamRepository).streamAllByBirthMonthDayBetween(any(), any());
+
+    List<UserDto> result = new ArrayList<>();
+    userService.streamUpcomingBirthdays(days, result::add);
+
+    List<MonthDayRange> ranges = MonthDayRange.upcoming(LocalDate.now(), days);
+    InOrder inOrder = inOrder(userStreamRepository);
+    for (MonthDayRange range : ranges) {
+      inOrder.verify(userStreamRepository).streamAllByBirthMonthDayBetween(eq(range), any());
+    }
+    assertEquals(ranges.size(), result.size());
+  }
+
+  @Test
+  void streamUpcomingBirthdays_NoDays_ThrowsInvalidDateRangeException() {
+    assertThrows(InvalidDateRangeException.class,
+        () -> userService.streamUpcomingBirthdays(0, dto -> {
+        }));
+  }
+
+  @Test
+  void pollChanges_NoSize_PollsDefaultSize() {
+    UserChangesDto changes = UserChangesDto.builder().changes(List.of()).next(5).build();
+    when(userChangeFeed.poll(5, 1, Duration.ofSeconds(30)))
+        .thenReturn(CompletableFuture.completedFuture(changes));
+
+    assertEquals(changes, userService.pollChanges(5, null).join());
+  }
+
+  @Test
+  void pollChanges_NegativeSince_ThrowsInvalidCursorException() {
+    assertThrows(InvalidCursorException.class, () -> userService.pollChanges(-1, null));
+  }
+
+  @Test
+  void search_MoreMatchesThanPageSize_ReturnsNextCursor() {
+    when(userSearchIndex.isReady()).thenReturn(true);
+    when(userSearchIndex.search("test", null, 0, 2))
+        .thenReturn(List.of(new Match("test@gmail.com", userId), new Match("tester", 1L)));
+    when(userRepository.findAllById(List.of(userId))).thenReturn(List.of(user));
+    when(mapper.toDto(user)).thenReturn(userDto);
+
+    UserPageDto result = userService.search(" Test", null, null);
+
+    assertEquals(List.of(userDto), result.getContent());
+    assertEquals(new SearchCursor("test@gmail.com", userId),
+        SearchCursor.decode(result.getNextCursor()));
+  }
+
+  @Test
+  void search_WithCursor_SeeksAfterCursorAndSkipsDeletedUsers() {
+    String cursor = new SearchCursor("tess", 5L).encode();
+    when(userSearchIndex.isReady()).thenReturn(true);
+    when(userSearchIndex.search("tes", "tess", 5L, 3))
+        .thenReturn(List.of(new Match("test", 7L), new Match("test@gmail.com", userId)));
+    when(userRepository.findAllById(List.of(7L, userId))).thenReturn(List.of(user));
+    when(mapper.toDto(user)).thenReturn(userDto);
+
+    UserPageDto result = userService.search("tes", cursor, 50);
+
+    assertEquals(List.of(userDto), result.getContent());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  void search_BufferedUpdates_MatchUsersByTheirNewValues() {
+    UserDto renamed = UserDto.builder().id(1L).firstName("Zed").build();
+    UserDto added = UserDto.builder().id(3L).firstName("Tea").build();
+    when(userWriteBehindBuffer.snapshot())
+        .thenReturn(new BufferedUsers(Map.of(1L, renamed, 3L, added), 2));
+    when(userSearchIndex.isReady()).thenReturn(true);
+    when(userSearchIndex.search("te", null, 0, 2))
+        .thenReturn(List.of(new Match("tess", 1L), new Match("test@gmail.com", userId)));
+    when(userSearchIndex.search("te", "test@gmail.com", userId, 2)).thenReturn(List.of());
+
+    UserPageDto result = userService.search("te", null, null);
+
+    assertEquals(List.of(added), result.getContent());
+    assertEquals(new SearchCursor("tea", 3L), SearchCursor.decode(result.getNextCursor()));
+  }
+
+  @Test
+  void search_InvalidRequests_Throw() {
+    assertThrows(InvalidSearchQueryException.class, () -> userService.search(" ", null, null));
+    assertThrows(IndexNotReadyException.class, () -> userService.search("a", null, null));
+
+    when(userSearchIndex.isReady()).thenReturn(true);
+    String cursor = new SearchCursor("bob", 1L).encode();
+    assertThrows(InvalidCursorException.class, () -> userService.search("a", cursor, null));
+  }
+
+  @Test
+  void getBirthDateAggregates_NotReady_ThrowsIndexNotReadyException() {
+    assertThrows(IndexNotReadyException.class, () -> userService.getBirthDateAggregates());
+  }
+
+  /**
+   * Runs the callbacks of the transaction template right away.
+   */
+  private void executeTransactions() {
+    when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+      TransactionCallback<?> callback = invocation.getArgument(0);
+      return callback.doInTransaction(null);
+    });
+  }
 }
@@ -0,0 +1,98 @@
+package com.example.clearsolutionstesttask.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the Shards class.
+ */
+public class ShardsTest {
+
+  private final Shards shards = new Shards(4, 8);
+
+  @AfterEach
+  public void destroy() {
+    shards.destroy();
+  }
+
+  @Test
+  public void testShardOf_usesIdModuloShardCount() {
+    assertEquals(0, shards.shardOf(8));
+    assertEquals(3, shards.shardOf(7));
+    assertEquals(1, shards.shardOf(-3));
+  }
+
+  @Test
+  public void testCallOnEach_runsPinnedOnEveryShard() throws Throwable {
+    List<String> results = shards.callOnEach(
+        shard -> ShardContext.currentShard() + ":" + ShardContext.current().isPinned());
+
+    assertEquals(List.of("0:true", "1:true", "2:true", "3:true"), results);
+  }
+
+  @Test
+  public void testForEachMerged_passesRowsOfAllShardsInOrder() {
+    Random random = new Random(42);
+    List<List<Integer>> rowsByShard = new ArrayList<>();
+    List<Integer> expected = new ArrayList<>();
+    for (int shard = 0; shard < shards.getCount(); shard++) {
+      List<Integer> rows = new ArrayList<>();
+      for (int i = 0; i < 100 * shard; i++) {
+        rows.add(random.nextInt(1_000));
+      }
+      rows.sort(Comparator.naturalOrder());
+      rowsByShard.add(rows);
+      expected.addAll(rows);
+    }
+    expected.sort(Comparator.naturalOrder());
+
+    List<Integer> merged = new ArrayList<>();
+    shards.<Integer>forEachMerged(sink -> rowsByShard.get(ShardContext.currentShard()).forEach(sink),
+        Comparator.naturalOrder(), merged::add);
+
+    assertEquals(expected, merged);
+  }
+
+  @Test
+  public void testForEachMerged_rethrowsFailureOfShard() {
+    IllegalStateException failure = new IllegalStateException("shard down");
+
+    IllegalStateException thrown = assertThrows(IllegalStateException.class,
+        () -> shards.<Integer>forEachMerged(sink -> {
+          if (ShardContext.currentShard() == 2) {
+            throw failure;
+          }
+          for (int row = 0; row < 1_000; row++) {
+            sink.accept(row);
+          }
+        }, Comparator.naturalOrder(), row -> { }));
+
+    assertEquals(failure, thrown);
+  }
+
+  @Test
+  public void testForEachMerged_stopsProducersWhenActionFails() {
+    List<Integer> merged = new ArrayList<>();
+
+    assertThrows(IllegalArgumentException.class,
+        () -> shards.<Integer>forEachMerged(sink -> {
+          for (int row = 0; ; row++) {
+            sink.accept(row);
+          }
+        }, Comparator.naturalOrder(), row -> {
+          if (merged.size() == 10) {
+            throw new IllegalArgumentException("client gone");
+          }
+          merged.add(row);
+        }));
+
+    assertEquals(List.of(0, 0, 0, 0, 1, 1, 1, 1, 2, 2), merged);
+  }
+}
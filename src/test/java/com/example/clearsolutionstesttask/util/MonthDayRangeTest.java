@@ -0,0 +1,48 @@
+package com.example.clearsolutionstesttask.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the MonthDayRange class.
+ */
+public class MonthDayRangeTest {
+
+  @Test
+  public void testUpcoming_withinYear_returnsOneRange() {
+    List<MonthDayRange> ranges = MonthDayRange.upcoming(LocalDate.of(2024, 3, 10), 7);
+
+    assertEquals(List.of(new MonthDayRange(310, 316)), ranges);
+  }
+
+  @Test
+  public void testUpcoming_acrossYearEnd_returnsTwoRangesInOrder() {
+    List<MonthDayRange> ranges = MonthDayRange.upcoming(LocalDate.of(2024, 12, 30), 5);
+
+    assertEquals(List.of(new MonthDayRange(1230, 1231), new MonthDayRange(101, 103)), ranges);
+  }
+
+  @Test
+  public void testUpcoming_endingOnFebruary28OfCommonYear_includesFebruary29() {
+    List<MonthDayRange> ranges = MonthDayRange.upcoming(LocalDate.of(2025, 2, 20), 9);
+
+    assertEquals(List.of(new MonthDayRange(220, 229)), ranges);
+  }
+
+  @Test
+  public void testUpcoming_endingOnFebruary28OfLeapYear_excludesFebruary29() {
+    List<MonthDayRange> ranges = MonthDayRange.upcoming(LocalDate.of(2024, 2, 20), 9);
+
+    assertEquals(List.of(new MonthDayRange(220, 228)), ranges);
+  }
+
+  @Test
+  public void testUpcoming_moreDaysThanYear_coversEveryBirthdayOnce() {
+    List<MonthDayRange> ranges = MonthDayRange.upcoming(LocalDate.of(2025, 6, 15), 1_000);
+
+    assertEquals(List.of(new MonthDayRange(615, 1231), new MonthDayRange(101, 614)), ranges);
+  }
+}
@@ -0,0 +1,116 @@
+package com.example.clearsolutionstesttask.writebehind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.clearsolutionstesttask.writebehind.CoalescingBuffer.Entry;
+import com.example.clearsolutionstesttask.writebehind.CoalescingBuffer.Offer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the CoalescingBuffer class.
+ */
+public class CoalescingBufferTest {
+
+  @Test
+  public void testOffer_replacesWaitingValueAndKeepsItsTime() {
+    CoalescingBuffer<String> buffer = new CoalescingBuffer<>(4, 10);
+
+    long before = System.nanoTime();
+    assertEquals(Offer.ADDED, buffer.offer(1, "a"));
+    long after = System.nanoTime();
+    assertEquals(Offer.COALESCED, buffer.offer(1, "b"));
+
+    assertEquals(1, buffer.getPending());
+    assertEquals("b", buffer.get(1));
+    List<Entry<String>> drained = buffer.drain(10);
+    assertEquals(1, drained.size());
+    assertEquals("b", drained.get(0).getValue());
+    assertTrue(drained.get(0).getBufferedAt() >= before);
+    assertTrue(drained.get(0).getBufferedAt() <= after);
+  }
+
+  @Test
+  public void testOffer_refusesNewKeysWhenFull() {
+    CoalescingBuffer<String> buffer = new CoalescingBuffer<>(4, 2);
+    buffer.offer(1, "a");
+    buffer.offer(2, "b");
+
+    assertEquals(Offer.FULL, buffer.offer(3, "c"));
+    assertEquals(Offer.COALESCED, buffer.offer(2, "c"));
+    assertEquals(2, buffer.getPending());
+    assertNull(buffer.get(3));
+  }
+
+  @Test
+  public void testGet_seesValuesInFlightUntilCompleted() {
+    CoalescingBuffer<String> buffer = new CoalescingBuffer<>(4, 10);
+    buffer.offer(1, "a");
+
+    List<Entry<String>> drained = buffer.drain(10);
+    assertEquals(0, buffer.getPending());
+    assertEquals(1, buffer.getInFlight());
+    assertEquals("a", buffer.get(1));
+
+    buffer.offer(1, "b");
+    buffer.complete(drained);
+    assertEquals("b", buffer.get(1));
+    assertEquals(0, buffer.getInFlight());
+
+    buffer.complete(buffer.take(List.of(1L, 2L)));
+    assertFalse(buffer.contains(1));
+  }
+
+  @Test
+  public void testDiscard_removesWaitingAndInFlightValues() {
+    CoalescingBuffer<String> buffer = new CoalescingBuffer<>(4, 10);
+    buffer.offer(1, "a");
+    buffer.drain(10);
+    buffer.offer(2, "b");
+
+    buffer.discard(List.of(1L, 2L));
+
+    assertNull(buffer.get(1));
+    assertNull(buffer.get(2));
+    assertEquals(0, buffer.getPending());
+    assertEquals(0, buffer.getInFlight());
+  }
+
+  @Test
+  public void testConcurrentWriters_drainedValuesAreTheLatestPerKey() throws Exception {
+    CoalescingBuffer<Integer> buffer = new CoalescingBuffer<>(16, 1_000);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int thread = 0; thread < 8; thread++) {
+      int offset = thread * 100;
+      executor.execute(() -> {
+        for (int version = 1; version <= 1_000; version++) {
+          buffer.offer(offset + version % 100, version);
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+    List<Entry<Integer>> drained = new ArrayList<>();
+    List<Entry<Integer>> batch;
+    while (!(batch = buffer.drain(64)).isEmpty()) {
+      drained.addAll(batch);
+    }
+    Map<Long, Integer> values = new HashMap<>();
+    drained.forEach(entry -> values.put(entry.getKey(), entry.getValue()));
+    assertEquals(800, drained.size());
+    assertEquals(800, values.size());
+    values.forEach((key, value) -> assertEquals(key % 100 == 0 ? 1_000 : 900 + key % 100,
+        value.intValue()));
+    assertEquals(0, buffer.getPending());
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.clearsolutionstesttask.writebehind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.clearsolutionstesttask.dto.BatchItemResultDto;
+import com.example.clearsolutionstesttask.dto.BatchItemStatus;
+import com.example.clearsolutionstesttask.dto.UserDto;
+import com.example.clearsolutionstesttask.service.UserBatchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Unit tests for the UserWriteBehindBuffer class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserWriteBehindBufferTest {
+
+  @Mock
+  private ObjectProvider<UserBatchService> userBatchServiceProvider;
+  @Mock
+  private UserBatchService userBatchService;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private UserWriteBehindBuffer buffer;
+
+  @BeforeEach
+  public void init() {
+    buffer = new UserWriteBehindBuffer(userBatchServiceProvider, true, 4, 10,
+        Duration.ofHours(1), 100);
+    buffer.bindTo(registry);
+    buffer.start();
+  }
+
+  @AfterEach
+  public void close() {
+    buffer.stop();
+  }
+
+  @Test
+  public void testFlush_userDeletedDuringWrite_writesOthersAgainAndSkipsDeletedUser() {
+    UserDto deleted = UserDto.builder().id(1L).build();
+    UserDto kept = UserDto.builder().id(2L).build();
+    when(userBatchServiceProvider.getObject()).thenReturn(userBatchService);
+    when(userBatchService.updateAllValid(anyList())).thenReturn(
+        List.of(result(0, BatchItemStatus.FAILED), result(1, BatchItemStatus.FAILED)),
+        List.of(result(0, BatchItemStatus.NOT_FOUND), result(1, BatchItemStatus.UPDATED)));
+    assertTrue(buffer.offer(deleted));
+    assertTrue(buffer.offer(kept));
+
+    buffer.flush();
+
+    verify(userBatchService, times(2)).updateAllValid(anyList());
+    assertEquals(1.0, registry.get("user.write-behind.dropped").tag("reason", "not_found")
+        .functionCounter().count());
+    assertEquals(0.0, registry.get("user.write-behind.dropped").tag("reason", "failed")
+        .functionCounter().count());
+    assertEquals(1L, registry.get("user.write-behind.latency").timer().count());
+  }
+
+  private static BatchItemResultDto result(int index, BatchItemStatus status) {
+    return BatchItemResultDto.builder().index(index).status(status).build();
+  }
+}